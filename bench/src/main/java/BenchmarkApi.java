@@ -0,0 +1,188 @@
+import attendify.bench.AttendifyApi;
+import java.util.Map;
+
+/**
+ * BenchmarkApi - AttendifyApi implementation over the real DAOs
+ *
+ * Each DAO call runs as a Metrics action, so with -Dattendify.query.check=strict (the
+ * benchmarks' default) a call that goes over its query budget fails the run.
+ */
+public class BenchmarkApi implements AttendifyApi {
+    @FunctionalInterface
+    private interface Call<T> {
+        T call() throws Exception;
+    }
+
+    private final StudentDAO studentDAO = new StudentDAO();
+    private final AttendanceDAO attendanceDAO = new AttendanceDAO();
+    private final HodDAO hodDAO = new HodDAO();
+    private BenchmarkDataset dataset;
+
+    @Override
+    public void prepare(int students, int days, long seed, boolean useIndex) throws Exception {
+        DatabaseConnection.initializeDatabase();
+        dataset = new BenchmarkDataset(students, days, seed);
+        dataset.ensureSeeded(students, days, seed);
+        StudentDAO.getCache().invalidateAll();
+        if (useIndex) {
+            AttendanceIndex.getInstance().rebuild();
+        } else {
+            AttendanceIndex.getInstance().invalidate();
+        }
+    }
+
+    @Override
+    public String rollNumber(int student) {
+        return dataset.rollNumber(student);
+    }
+
+    @Override
+    public String date(int day) {
+        return dataset.date(day);
+    }
+
+    @Override
+    public int teacherCount() {
+        return SyntheticDataGenerator.DEPARTMENTS.length * SyntheticDataGenerator.TEACHERS_PER_DEPARTMENT;
+    }
+
+    @Override
+    public String teacherId(int teacher) {
+        return dataset.teacherId(teacher);
+    }
+
+    @Override
+    public void close() {
+        DatabaseConnection.closeConnection();
+    }
+
+    // ==================== StudentDAO ====================
+
+    @Override
+    public Object searchByRollNumber(String rollNumber) throws Exception {
+        return guarded("searchByRollNumber", () -> studentDAO.searchByRollNumber(rollNumber));
+    }
+
+    @Override
+    public Object searchByRollNumberUncached(String rollNumber) throws Exception {
+        return guarded("searchByRollNumberUncached", () -> {
+            StudentDAO.getCache().invalidate(rollNumber);
+            return studentDAO.searchByRollNumber(rollNumber);
+        });
+    }
+
+    @Override
+    public boolean isRollNumberExists(String rollNumber) throws Exception {
+        return guarded("isRollNumberExists", () -> studentDAO.isRollNumberExists(rollNumber));
+    }
+
+    @Override
+    public Object getAllStudents() throws Exception {
+        return guarded("getAllStudents", () -> studentDAO.getAllStudents());
+    }
+
+    @Override
+    public int getStudentCount() throws Exception {
+        return guarded("getStudentCount", () -> studentDAO.getStudentCount());
+    }
+
+    @Override
+    public boolean updateStudent(String rollNumber) throws Exception {
+        return guarded("updateStudent", () -> {
+            // Rewrites the current email, so the dataset is unchanged
+            Student student = studentDAO.searchByRollNumber(rollNumber);
+            return studentDAO.updateStudent(rollNumber, null, student.getEmail(), null);
+        });
+    }
+
+    // ==================== AttendanceDAO ====================
+
+    @Override
+    public boolean markAttendance(String rollNumber, String date, String status) throws Exception {
+        return guarded("markAttendance", () -> attendanceDAO.markAttendance(rollNumber, date, status));
+    }
+
+    @Override
+    public int markAttendanceBatch(String date, Map<String, String> roster) throws Exception {
+        return guarded("markAttendanceBatch", () -> attendanceDAO.markAttendanceBatch(date, roster));
+    }
+
+    @Override
+    public boolean isAttendanceMarked(String rollNumber, String date) throws Exception {
+        return guarded("isAttendanceMarked", () -> attendanceDAO.isAttendanceMarked(rollNumber, date));
+    }
+
+    @Override
+    public Object getAttendanceByRollNumber(String rollNumber) throws Exception {
+        return guarded("getAttendanceByRollNumber", () -> attendanceDAO.getAttendanceByRollNumber(rollNumber));
+    }
+
+    @Override
+    public Object getAttendanceByDate(String date) throws Exception {
+        return guarded("getAttendanceByDate", () -> attendanceDAO.getAttendanceByDate(date));
+    }
+
+    @Override
+    public double calculateAttendancePercentage(String rollNumber) throws Exception {
+        return guarded("calculateAttendancePercentage", () -> attendanceDAO.calculateAttendancePercentage(rollNumber));
+    }
+
+    @Override
+    public Object getAttendanceStats(String rollNumber) throws Exception {
+        return guarded("getAttendanceStats", () -> attendanceDAO.getAttendanceStats(rollNumber));
+    }
+
+    @Override
+    public Object getAttendanceSummary() throws Exception {
+        return guarded("getAttendanceSummary", () -> attendanceDAO.getAttendanceSummary());
+    }
+
+    // ==================== HodDAO ====================
+
+    @Override
+    public Object getAllTeachers() throws Exception {
+        return guarded("getAllTeachers", () -> hodDAO.getAllTeachers());
+    }
+
+    @Override
+    public Object getTeacherById(String teacherId) throws Exception {
+        return guarded("getTeacherById", () -> hodDAO.getTeacherById(teacherId));
+    }
+
+    @Override
+    public Object hodGetAllStudents() throws Exception {
+        return guarded("hodGetAllStudents", () -> hodDAO.getAllStudents());
+    }
+
+    @Override
+    public Object getDashboard() throws Exception {
+        return guarded("getDashboard", () -> hodDAO.getDashboard());
+    }
+
+    @Override
+    public Object getDepartmentReport() throws Exception {
+        return guarded("getDepartmentReport", () -> hodDAO.getDepartmentReport());
+    }
+
+    @Override
+    public Object getLowAttendanceStudents() throws Exception {
+        return guarded("getLowAttendanceStudents", () -> hodDAO.getLowAttendanceStudents());
+    }
+
+    @Override
+    public Object getOverallStatistics() throws Exception {
+        return guarded("getOverallStatistics", () -> hodDAO.getOverallStatistics());
+    }
+
+    private static <T> T guarded(String name, Call<T> call) throws Exception {
+        if (QueryBudget.MODE == QueryBudget.Mode.OFF) {
+            return call.call();
+        }
+        Metrics.Action action = Metrics.beginAction("Bench: " + name);
+        try {
+            return call.call();
+        } finally {
+            Metrics.endAction(action);
+        }
+    }
+}
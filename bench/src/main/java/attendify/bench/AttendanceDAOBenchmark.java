@@ -0,0 +1,72 @@
+package attendify.bench;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * AttendanceDAOBenchmark - Marking and attendance reads
+ * Marks overwrite existing (student, day) records, so the dataset size stays fixed.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Dattendify.db.name=attendify_bench", "-Dattendify.query.check=strict" })
+public class AttendanceDAOBenchmark {
+    private static final int ROSTER_SIZE = 60;
+
+    @Benchmark
+    public boolean markAttendance(DatasetState db, ThreadRandom t) throws Exception {
+        String status = t.random.nextBoolean() ? "PRESENT" : "ABSENT";
+        return db.api.markAttendance(db.randomRollNumber(t.random), db.randomDate(t.random), status);
+    }
+
+    @Benchmark
+    public int markAttendanceBatch(DatasetState db, ThreadRandom t) throws Exception {
+        // One class section: ROSTER_SIZE consecutive students on one day
+        int first = t.random.nextInt(Math.max(1, db.students - ROSTER_SIZE));
+        Map<String, String> roster = new LinkedHashMap<>();
+        for (int i = first; i < Math.min(db.students, first + ROSTER_SIZE); i++) {
+            roster.put(db.rollNumber(i), t.random.nextInt(10) < 8 ? "PRESENT" : "ABSENT");
+        }
+        return db.api.markAttendanceBatch(db.randomDate(t.random), roster);
+    }
+
+    @Benchmark
+    public boolean isAttendanceMarked(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.isAttendanceMarked(db.randomRollNumber(t.random), db.randomDate(t.random));
+    }
+
+    @Benchmark
+    public Object getAttendanceByRollNumber(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.getAttendanceByRollNumber(db.randomRollNumber(t.random));
+    }
+
+    @Benchmark
+    public Object getAttendanceByDate(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.getAttendanceByDate(db.randomDate(t.random));
+    }
+
+    @Benchmark
+    public double calculateAttendancePercentage(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.calculateAttendancePercentage(db.randomRollNumber(t.random));
+    }
+
+    @Benchmark
+    public Object getAttendanceStats(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.getAttendanceStats(db.randomRollNumber(t.random));
+    }
+
+    @Benchmark
+    public Object getAttendanceSummary(DatasetState db) throws Exception {
+        return db.api.getAttendanceSummary();
+    }
+}
@@ -0,0 +1,82 @@
+package attendify.bench;
+
+import java.util.Map;
+
+/**
+ * AttendifyApi - Bridge from the benchmarks to the application's DAOs
+ *
+ * The application classes live in the unnamed package, which JMH benchmarks (and any
+ * named package) cannot reference. The unnamed-package class BenchmarkApi implements
+ * this interface and is loaded reflectively once per trial; every measured call after
+ * that is a plain interface call into the DAO.
+ */
+public interface AttendifyApi {
+
+    static AttendifyApi load() throws ReflectiveOperationException {
+        return (AttendifyApi) Class.forName("BenchmarkApi").getConstructor().newInstance();
+    }
+
+    /**
+     * Initialize the schema and seed students x days of attendance, unless the
+     * database already holds exactly that dataset
+     */
+    void prepare(int students, int days, long seed, boolean useIndex) throws Exception;
+
+    String rollNumber(int student);
+
+    String date(int day);
+
+    int teacherCount();
+
+    String teacherId(int teacher);
+
+    void close();
+
+    // ==================== StudentDAO ====================
+
+    Object searchByRollNumber(String rollNumber) throws Exception;
+
+    Object searchByRollNumberUncached(String rollNumber) throws Exception;
+
+    boolean isRollNumberExists(String rollNumber) throws Exception;
+
+    Object getAllStudents() throws Exception;
+
+    int getStudentCount() throws Exception;
+
+    boolean updateStudent(String rollNumber) throws Exception;
+
+    // ==================== AttendanceDAO ====================
+
+    boolean markAttendance(String rollNumber, String date, String status) throws Exception;
+
+    int markAttendanceBatch(String date, Map<String, String> roster) throws Exception;
+
+    boolean isAttendanceMarked(String rollNumber, String date) throws Exception;
+
+    Object getAttendanceByRollNumber(String rollNumber) throws Exception;
+
+    Object getAttendanceByDate(String date) throws Exception;
+
+    double calculateAttendancePercentage(String rollNumber) throws Exception;
+
+    Object getAttendanceStats(String rollNumber) throws Exception;
+
+    Object getAttendanceSummary() throws Exception;
+
+    // ==================== HodDAO ====================
+
+    Object getAllTeachers() throws Exception;
+
+    Object getTeacherById(String teacherId) throws Exception;
+
+    Object hodGetAllStudents() throws Exception;
+
+    Object getDashboard() throws Exception;
+
+    Object getDepartmentReport() throws Exception;
+
+    Object getLowAttendanceStudents() throws Exception;
+
+    Object getOverallStatistics() throws Exception;
+}
@@ -0,0 +1,67 @@
+package attendify.bench;
+
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * DatasetState - Seeded database shared by all benchmark threads of a trial
+ *
+ * Scale is set with JMH parameters, e.g. -p students=50000 -p days=180.
+ * -p index=true answers reads from AttendanceIndex instead of SQL.
+ */
+@State(Scope.Benchmark)
+public class DatasetState {
+    @Param({ "50000" })
+    public int students;
+
+    @Param({ "180" })
+    public int days;
+
+    @Param({ "42" })
+    public long seed;
+
+    @Param({ "false" })
+    public boolean index;
+
+    public AttendifyApi api;
+
+    private String[] rollNumbers;
+    private String[] dates;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        api = AttendifyApi.load();
+        api.prepare(students, days, seed, index);
+
+        rollNumbers = new String[students];
+        for (int i = 0; i < students; i++) {
+            rollNumbers[i] = api.rollNumber(i);
+        }
+        dates = new String[days];
+        for (int d = 0; d < days; d++) {
+            dates[d] = api.date(d);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        api.close();
+    }
+
+    public String rollNumber(int student) {
+        return rollNumbers[student];
+    }
+
+    public String randomRollNumber(SplittableRandom random) {
+        return rollNumbers[random.nextInt(students)];
+    }
+
+    public String randomDate(SplittableRandom random) {
+        return dates[random.nextInt(days)];
+    }
+}
@@ -0,0 +1,56 @@
+package attendify.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HodDAOBenchmark - Teacher lookups and department-wide analytics
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Dattendify.db.name=attendify_bench", "-Dattendify.query.check=strict" })
+public class HodDAOBenchmark {
+
+    @Benchmark
+    public Object getAllTeachers(DatasetState db) throws Exception {
+        return db.api.getAllTeachers();
+    }
+
+    @Benchmark
+    public Object getTeacherById(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.getTeacherById(db.api.teacherId(t.random.nextInt(db.api.teacherCount())));
+    }
+
+    @Benchmark
+    public Object getAllStudents(DatasetState db) throws Exception {
+        return db.api.hodGetAllStudents();
+    }
+
+    @Benchmark
+    public Object getDashboard(DatasetState db) throws Exception {
+        return db.api.getDashboard();
+    }
+
+    @Benchmark
+    public Object getDepartmentReport(DatasetState db) throws Exception {
+        return db.api.getDepartmentReport();
+    }
+
+    @Benchmark
+    public Object getLowAttendanceStudents(DatasetState db) throws Exception {
+        return db.api.getLowAttendanceStudents();
+    }
+
+    @Benchmark
+    public Object getOverallStatistics(DatasetState db) throws Exception {
+        return db.api.getOverallStatistics();
+    }
+}
@@ -0,0 +1,229 @@
+package attendify.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ServerLoadTest - Closed-loop load test of POST /api/attendance on a running AttendifyServer
+ *
+ * Logs in as the teacher, loads up to --students roll numbers, then --threads workers mark
+ * random students on random weekdays of the current term up to today as fast as the server
+ * answers. Those dates are inside the server's marking window and never in an archived
+ * term, so every request should succeed. Requests during --warmup seconds are discarded;
+ * the next --seconds are measured and compared against --target requests per second.
+ *
+ *   java -cp bench/target/benchmarks.jar attendify.bench.ServerLoadTest --threads 64 --seconds 30
+ */
+public class ServerLoadTest {
+    private static final Pattern TOKEN = Pattern.compile("\"token\":\"([0-9a-f]+)\"");
+    private static final Pattern ROLL = Pattern.compile("\"rollNumber\":\"([^\"]+)\"");
+    private static final Pattern NEXT = Pattern.compile("\"next\":\"([^\"]+)\"");
+    // First months of the default terms (attendify.term.months=1,7)
+    private static final int[] TERM_START_MONTHS = { 1, 7 };
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        int threads = 64;
+        int seconds = 30;
+        int warmup = 5;
+        int students = 5_000;
+        double target = 2_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url" -> url = args[++i];
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--seconds" -> seconds = Integer.parseInt(args[++i]);
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--students" -> students = Integer.parseInt(args[++i]);
+                case "--target" -> target = Double.parseDouble(args[++i]);
+                default -> {
+                    System.out.println("Usage: ServerLoadTest [--url U] [--threads N] [--seconds N] [--warmup N]"
+                            + " [--students N] [--target RPS]");
+                    return;
+                }
+            }
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String token = login(client, url);
+        List<String> rolls = loadRollNumbers(client, url, token, students);
+        if (rolls.isEmpty()) {
+            System.out.println("No students on the server; seed it first (SyntheticDataGenerator).");
+            return;
+        }
+        List<LocalDate> days = markDays(LocalDate.now());
+        System.out.printf("Marking %,d students on %d days (%s to %s) with %d workers: %d s warmup + %d s measured%n",
+                rolls.size(), days.size(), days.get(0), days.get(days.size() - 1), threads, warmup, seconds);
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup * 1_000_000_000L;
+        long deadline = measureFrom + seconds * 1_000_000_000L;
+        List<Future<Worker>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threads; t++) {
+                Worker worker = new Worker(client, url, token, rolls, days, 42 + t, measureFrom, deadline);
+                futures.add(executor.submit(() -> {
+                    worker.run();
+                    return worker;
+                }));
+            }
+        }
+
+        long requests = 0;
+        long errors = 0;
+        long[] all = new long[0];
+        for (Future<Worker> future : futures) {
+            Worker w = future.get();
+            requests += w.count;
+            errors += w.errors;
+            int at = all.length;
+            all = Arrays.copyOf(all, at + w.count);
+            System.arraycopy(w.latencies, 0, all, at, w.count);
+        }
+        Arrays.sort(all);
+
+        double rate = requests / (double) seconds;
+        System.out.printf("Requests : %,d in %d s (%,.0f req/s), %,d errors%n", requests, seconds, rate, errors);
+        if (all.length > 0) {
+            System.out.printf("Latency  : p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    percentile(all, 0.50), percentile(all, 0.99), all[all.length - 1] / 1e6);
+        }
+        System.out.printf("Target   : %,.0f req/s -> %s%n", target, rate >= target && errors == 0 ? "PASS" : "FAIL");
+    }
+
+    private static String login(HttpClient client, String url) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + "/api/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"admin\",\"password\":\"aarav\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        Matcher m = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !m.find()) {
+            throw new IllegalStateException("Login failed: " + response.body());
+        }
+        return m.group(1);
+    }
+
+    private static List<String> loadRollNumbers(HttpClient client, String url, String token, int max)
+            throws Exception {
+        List<String> rolls = new ArrayList<>();
+        String after = null;
+        while (rolls.size() < max) {
+            String query = "/api/students?limit=500" + (after == null ? "" : "&after=" + after);
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url + query))
+                    .header("Authorization", "Bearer " + token).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher m = ROLL.matcher(response.body());
+            while (m.find() && rolls.size() < max) {
+                rolls.add(m.group(1));
+            }
+            Matcher next = NEXT.matcher(response.body());
+            if (!next.find()) {
+                break;
+            }
+            after = next.group(1);
+        }
+        return rolls;
+    }
+
+    /**
+     * Weekdays from the start of the current term through today; today alone on a term's first weekend
+     */
+    static List<LocalDate> markDays(LocalDate today) {
+        int month = TERM_START_MONTHS[0];
+        for (int start : TERM_START_MONTHS) {
+            if (start <= today.getMonthValue()) {
+                month = start;
+            }
+        }
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate day = LocalDate.of(today.getYear(), month, 1); !day.isAfter(today); day = day.plusDays(1)) {
+            if (day.getDayOfWeek().getValue() <= 5) {
+                days.add(day);
+            }
+        }
+        if (days.isEmpty()) {
+            days.add(today);
+        }
+        return days;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    private static final class Worker {
+        private final HttpClient client;
+        private final URI uri;
+        private final String token;
+        private final List<String> rolls;
+        private final List<LocalDate> days;
+        private final SplittableRandom random;
+        private final long measureFrom;
+        private final long deadline;
+
+        long[] latencies = new long[4096];
+        int count;
+        long errors;
+
+        Worker(HttpClient client, String url, String token, List<String> rolls, List<LocalDate> days, long seed,
+                long measureFrom, long deadline) {
+            this.client = client;
+            this.uri = URI.create(url + "/api/attendance");
+            this.token = token;
+            this.rolls = rolls;
+            this.days = days;
+            this.random = new SplittableRandom(seed);
+            this.measureFrom = measureFrom;
+            this.deadline = deadline;
+        }
+
+        void run() {
+            while (true) {
+                String body = "{\"rollNumber\":\"" + rolls.get(random.nextInt(rolls.size()))
+                        + "\",\"date\":\"" + days.get(random.nextInt(days.size()))
+                        + "\",\"status\":\"" + (random.nextInt(10) < 8 ? "PRESENT" : "ABSENT") + "\"}";
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Authorization", "Bearer " + token)
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+                long begin = System.nanoTime();
+                if (begin >= deadline) {
+                    return;
+                }
+                boolean ok;
+                try {
+                    ok = client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode() == 200;
+                } catch (Exception e) {
+                    ok = false;
+                }
+                long end = System.nanoTime();
+                if (begin < measureFrom || end > deadline) {
+                    continue;
+                }
+                if (!ok) {
+                    errors++;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = end - begin;
+            }
+        }
+    }
+}
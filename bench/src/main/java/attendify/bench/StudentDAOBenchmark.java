@@ -0,0 +1,51 @@
+package attendify.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * StudentDAOBenchmark - StudentDAO lookups, listings and updates
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Dattendify.db.name=attendify_bench", "-Dattendify.query.check=strict" })
+public class StudentDAOBenchmark {
+
+    @Benchmark
+    public Object searchByRollNumber(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.searchByRollNumber(db.randomRollNumber(t.random));
+    }
+
+    @Benchmark
+    public Object searchByRollNumberUncached(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.searchByRollNumberUncached(db.randomRollNumber(t.random));
+    }
+
+    @Benchmark
+    public boolean isRollNumberExists(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.isRollNumberExists(db.randomRollNumber(t.random));
+    }
+
+    @Benchmark
+    public Object getAllStudents(DatasetState db) throws Exception {
+        return db.api.getAllStudents();
+    }
+
+    @Benchmark
+    public int getStudentCount(DatasetState db) throws Exception {
+        return db.api.getStudentCount();
+    }
+
+    @Benchmark
+    public boolean updateStudent(DatasetState db, ThreadRandom t) throws Exception {
+        return db.api.updateStudent(db.randomRollNumber(t.random));
+    }
+}
@@ -0,0 +1,13 @@
+package attendify.bench;
+
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * ThreadRandom - Per-thread key picker, so concurrent runs do not contend on one Random
+ */
+@State(Scope.Thread)
+public class ThreadRandom {
+    public final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+}
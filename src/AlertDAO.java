@@ -0,0 +1,320 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AlertDAO - Data Access Object for low-attendance alerts
+ *
+ * AttendanceAlert is the live set of students below their department's warning or
+ * critical threshold. Attendance writes re-evaluate only the students they touched,
+ * inside the same transaction, and every band change is appended to AlertOutbox for
+ * AlertNotifier to deliver.
+ */
+public class AlertDAO {
+    public static final int LEVEL_OK = 0;
+    public static final int LEVEL_WARNING = 1;
+    public static final int LEVEL_CRITICAL = 2;
+
+    public static final double DEFAULT_WARNING_PCT = 75.0;
+    public static final double DEFAULT_CRITICAL_PCT = 65.0;
+
+    // Department -> { warning, critical } overrides; loaded on first use
+    private static volatile Map<String, double[]> thresholds = null;
+
+    private static final Metrics.Operation OVERRIDES = Metrics.operation("AlertDAO.getThresholdOverrides");
+    private static final Metrics.Operation SET_THRESHOLDS = Metrics.operation("AlertDAO.setThresholds");
+    private static final Metrics.Operation RESET_THRESHOLDS = Metrics.operation("AlertDAO.resetThresholds");
+    private static final Metrics.Operation REEVALUATE = Metrics.operation("AlertDAO.reevaluate");
+    private static final Metrics.Operation ACTIVE = Metrics.operation("AlertDAO.getActiveAlerts");
+    private static final Metrics.Operation ACTIVE_PAGE = Metrics.operation("AlertDAO.getActiveAlertsPage");
+    private static final Metrics.Operation COUNTS = Metrics.operation("AlertDAO.getAlertCounts");
+
+    // ==================== THRESHOLDS ====================
+
+    /**
+     * { warning, critical } percentages for a department
+     */
+    public static double[] getThresholds(String department) throws SQLException {
+        double[] override = loadThresholds().get(department);
+        return override != null ? override.clone() : new double[] { DEFAULT_WARNING_PCT, DEFAULT_CRITICAL_PCT };
+    }
+
+    /**
+     * Departments with their own thresholds: { department, warning, critical }
+     */
+    public List<String[]> getThresholdOverrides() throws SQLException {
+        return OVERRIDES.time(() -> {
+            List<String[]> rows = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.THRESHOLD_ALL.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new String[] {
+                            rs.getString("department"),
+                            String.format("%.2f%%", rs.getDouble("warning_pct")),
+                            String.format("%.2f%%", rs.getDouble("critical_pct"))
+                    });
+                }
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Give a department its own bands and re-evaluate its students.
+     * Returns the number of students whose band changed.
+     */
+    public int setThresholds(String department, double warning, double critical) throws SQLException {
+        return SET_THRESHOLDS.time(() -> {
+            if (critical < 0 || warning > 100 || critical > warning) {
+                throw new IllegalArgumentException("Thresholds must satisfy 0 <= critical <= warning <= 100");
+            }
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.THRESHOLD_UPSERT.prepare(conn)) {
+                pstmt.setString(1, department);
+                pstmt.setDouble(2, warning);
+                pstmt.setDouble(3, critical);
+                pstmt.executeUpdate();
+            } finally {
+                thresholds = null;
+            }
+            return reevaluate(department, true);
+        });
+    }
+
+    /**
+     * Return a department to the default bands and re-evaluate its students
+     */
+    public int resetThresholds(String department) throws SQLException {
+        return RESET_THRESHOLDS.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.THRESHOLD_DELETE.prepare(conn)) {
+                pstmt.setString(1, department);
+                pstmt.executeUpdate();
+            } finally {
+                thresholds = null;
+            }
+            return reevaluate(department, true);
+        });
+    }
+
+    private static Map<String, double[]> loadThresholds() throws SQLException {
+        Map<String, double[]> loaded = thresholds;
+        if (loaded != null) {
+            return loaded;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return loadThresholds(conn);
+        }
+    }
+
+    private static Map<String, double[]> loadThresholds(Connection conn) throws SQLException {
+        Map<String, double[]> loaded = thresholds;
+        if (loaded == null) {
+            loaded = new HashMap<>();
+            try (PreparedStatement pstmt = SqlStatement.THRESHOLD_ALL.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    loaded.put(rs.getString("department"),
+                            new double[] { rs.getDouble("warning_pct"), rs.getDouble("critical_pct") });
+                }
+            }
+            thresholds = loaded;
+        }
+        return loaded;
+    }
+
+    // ==================== EVALUATION ====================
+
+    /**
+     * Re-evaluate students whose counters just changed, inside the caller's transaction.
+     * Their counter rows are already locked by the write, so evaluations of one student
+     * are serialised. Returns the number of band changes recorded.
+     */
+    static int evaluate(Connection conn, Collection<String> rollNumbers) throws SQLException {
+        if (rollNumbers.isEmpty()) {
+            return 0;
+        }
+        Map<String, double[]> bands = loadThresholds(conn);
+        int changed = 0;
+        for (List<String> chunk : SqlStatement.chunks(new ArrayList<>(rollNumbers))) {
+            try (PreparedStatement pstmt = SqlStatement.ALERT_EVALUATE_ROLLS.prepare(conn, chunk.size())) {
+                SqlStatement.bindInList(pstmt, 1, chunk);
+                changed += apply(conn, pstmt.executeQuery(), bands, true);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Re-evaluate every student (or one department's) from the counters, e.g. after
+     * thresholds change or counters are rebuilt. With notify off the live set is brought
+     * up to date without recording crossings, as after a bulk load.
+     */
+    public static int reevaluate(String department, boolean notify) throws SQLException {
+        return REEVALUATE.time(() -> {
+            SqlStatement evaluate = department == null
+                    ? SqlStatement.ALERT_EVALUATE_ALL
+                    : SqlStatement.ALERT_EVALUATE_DEPARTMENT;
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                Map<String, double[]> bands = loadThresholds(conn);
+                conn.setAutoCommit(false);
+                try (PreparedStatement pstmt = evaluate.prepare(conn)) {
+                    if (department != null) {
+                        pstmt.setString(1, department);
+                    }
+                    int changed = apply(conn, pstmt.executeQuery(), bands, notify);
+                    conn.commit();
+                    return changed;
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                }
+            }
+        });
+    }
+
+    private static int apply(Connection conn, ResultSet rs, Map<String, double[]> bands, boolean notify)
+            throws SQLException {
+        int changed = 0;
+        try (PreparedStatement upsert = SqlStatement.ALERT_UPSERT.prepare(conn);
+                PreparedStatement update = SqlStatement.ALERT_SET_PERCENTAGE.prepare(conn);
+                PreparedStatement delete = SqlStatement.ALERT_DELETE.prepare(conn);
+                PreparedStatement outbox = SqlStatement.OUTBOX_INSERT.prepare(conn)) {
+            while (rs.next()) {
+                String rollNumber = rs.getString("roll_number");
+                String department = rs.getString("department");
+                int total = rs.getInt("total_classes");
+                int present = rs.getInt("present_count");
+                int before = rs.getInt("level");
+                double previousPct = rs.getDouble("percentage");
+
+                // No classes yet means nothing to judge
+                double pct = total == 0 ? 100.0 : Math.round(present * 10000.0 / total) / 100.0;
+                double[] band = bands.getOrDefault(department,
+                        new double[] { DEFAULT_WARNING_PCT, DEFAULT_CRITICAL_PCT });
+                int level = pct < band[1] ? LEVEL_CRITICAL : pct < band[0] ? LEVEL_WARNING : LEVEL_OK;
+
+                if (level == before) {
+                    if (level != LEVEL_OK && pct != previousPct) {
+                        update.setDouble(1, pct);
+                        update.setString(2, rollNumber);
+                        update.addBatch();
+                    }
+                    continue;
+                }
+                if (level == LEVEL_OK) {
+                    delete.setString(1, rollNumber);
+                    delete.addBatch();
+                } else {
+                    upsert.setString(1, rollNumber);
+                    upsert.setInt(2, level);
+                    upsert.setDouble(3, pct);
+                    upsert.addBatch();
+                }
+                if (notify) {
+                    outbox.setString(1, rollNumber);
+                    outbox.setString(2, department);
+                    outbox.setInt(3, before);
+                    outbox.setInt(4, level);
+                    outbox.setDouble(5, pct);
+                    outbox.addBatch();
+                }
+                changed++;
+            }
+            upsert.executeBatch();
+            update.executeBatch();
+            delete.executeBatch();
+            outbox.executeBatch();
+        } finally {
+            rs.close();
+        }
+        return changed;
+    }
+
+    // ==================== LIVE SET ====================
+
+    /**
+     * Every student currently in a band, lowest attendance first:
+     * { roll, name, department, percentage, level name }
+     */
+    public List<String[]> getActiveAlerts() throws SQLException {
+        return ACTIVE.time(() -> {
+            List<String[]> alerts = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.ALERT_ALL.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    alerts.add(mapAlert(rs));
+                }
+            }
+            return alerts;
+        });
+    }
+
+    /**
+     * Keyset page of the live set in (percentage, roll number) order; after is the last
+     * row of the previous page (null = first page)
+     */
+    public List<String[]> getActiveAlertsPage(String[] after, int limit) throws SQLException {
+        return ACTIVE_PAGE.time(() -> {
+            SqlStatement page = after == null ? SqlStatement.ALERT_PAGE_FIRST : SqlStatement.ALERT_PAGE_AFTER;
+            List<String[]> alerts = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = page.prepare(conn)) {
+                int i = 1;
+                if (after != null) {
+                    pstmt.setDouble(i++, Double.parseDouble(after[3].replace("%", "")));
+                    pstmt.setString(i++, after[0]);
+                }
+                pstmt.setInt(i, limit);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    alerts.add(mapAlert(rs));
+                }
+            }
+            return alerts;
+        });
+    }
+
+    /**
+     * Returns { warning count, critical count }
+     */
+    public int[] getAlertCounts() throws SQLException {
+        return COUNTS.time(() -> {
+            int[] counts = new int[2];
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.ALERT_COUNTS.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int level = rs.getInt(1);
+                    if (level == LEVEL_WARNING || level == LEVEL_CRITICAL) {
+                        counts[level - 1] = rs.getInt(2);
+                    }
+                }
+            }
+            return counts;
+        }, counts -> counts.length);
+    }
+
+    public static String levelName(int level) {
+        return switch (level) {
+            case LEVEL_CRITICAL -> "CRITICAL";
+            case LEVEL_WARNING -> "WARNING";
+            default -> "OK";
+        };
+    }
+
+    private static String[] mapAlert(ResultSet rs) throws SQLException {
+        return new String[] {
+                rs.getString("roll_number"),
+                rs.getString("name"),
+                rs.getString("department"),
+                String.format("%.2f%%", rs.getDouble("percentage")),
+                levelName(rs.getInt("level"))
+        };
+    }
+}
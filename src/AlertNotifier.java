@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AlertNotifier - Delivers recorded alert crossings to a local log file
+ *
+ * Drains AlertOutbox oldest first in batches of BATCH_SIZE: each batch is locked, appended
+ * to the file and marked delivered in one transaction. A crash between the append and the
+ * commit re-delivers that batch, so delivery is at-least-once.
+ * The file comes from -Dattendify.alerts.file (default data/alerts.log).
+ */
+public class AlertNotifier {
+    private static final Path ALERT_FILE = Path.of(System.getProperty("attendify.alerts.file", "data/alerts.log"));
+    private static final int BATCH_SIZE = 200;
+    private static final long DRAIN_INTERVAL_SECONDS = 5;
+
+    private static ScheduledExecutorService scheduler = null;
+
+    /**
+     * Drain the outbox every few seconds on a background thread
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "attendify-alert-notifier");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                drain();
+            } catch (SQLException | IOException e) {
+                System.err.println("Alert delivery failed: " + e.getMessage());
+            }
+        }, DRAIN_INTERVAL_SECONDS, DRAIN_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the background thread after delivering whatever is still pending
+     */
+    public static synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        try {
+            drain();
+        } catch (SQLException | IOException e) {
+            System.err.println("Alert delivery failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deliver every pending crossing; returns the number delivered
+     */
+    public static synchronized int drain() throws SQLException, IOException {
+        int delivered = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int batch;
+                do {
+                    batch = drainBatch(conn);
+                    conn.commit();
+                    delivered += batch;
+                } while (batch == BATCH_SIZE);
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        return delivered;
+    }
+
+    private static int drainBatch(Connection conn) throws SQLException, IOException {
+        List<Long> ids = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        try (PreparedStatement pstmt = SqlStatement.OUTBOX_PENDING.prepare(conn)) {
+            pstmt.setInt(1, BATCH_SIZE);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getLong("id"));
+                lines.add(String.format("%s  %-8s  %s (%s)  %.2f%%  was %s",
+                        rs.getTimestamp("created_at").toLocalDateTime().withNano(0),
+                        AlertDAO.levelName(rs.getInt("to_level")),
+                        rs.getString("roll_number"),
+                        rs.getString("department"),
+                        rs.getDouble("percentage"),
+                        AlertDAO.levelName(rs.getInt("from_level"))));
+            }
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Path parent = ALERT_FILE.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(ALERT_FILE, lines, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        try (PreparedStatement pstmt = SqlStatement.OUTBOX_MARK_DELIVERED.prepare(conn, ids.size())) {
+            SqlStatement.bindInList(pstmt, 1, ids);
+            pstmt.executeUpdate();
+        }
+        return ids.size();
+    }
+}
@@ -0,0 +1,159 @@
+import java.sql.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * AsyncDAO - CompletableFuture variants of the DAO calls the portals make
+ *
+ * Each call runs on its own virtual thread. A semaphore sized to the connection pool caps
+ * how many run at once, so a fan-out waits here for a free slot instead of timing out in
+ * the pool. One connection is left for synchronous callers. Start the independent reads
+ * a screen needs together and join them: the screen then takes as long as its slowest
+ * query, not the sum. Calls count towards the caller's Metrics action.
+ */
+public class AsyncDAO {
+
+    @FunctionalInterface
+    public interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static Semaphore permits = null;
+
+    private final StudentDAO studentDAO = new StudentDAO();
+    private final AttendanceDAO attendanceDAO = new AttendanceDAO();
+    private final HodDAO hodDAO = new HodDAO();
+    private final AlertDAO alertDAO = new AlertDAO();
+
+    /**
+     * Run any DAO call asynchronously under the concurrency limit
+     */
+    public static <T> CompletableFuture<T> supply(SqlCall<T> call) {
+        Metrics.Action action = Metrics.currentAction();
+        return CompletableFuture.supplyAsync(() -> {
+            Metrics.Action previous = Metrics.bind(action);
+            Semaphore limit;
+            try {
+                limit = getPermits();
+                limit.acquire();
+            } catch (SQLException e) {
+                Metrics.bind(previous);
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Metrics.bind(previous);
+                Thread.currentThread().interrupt();
+                throw new CompletionException(new SQLException("Interrupted waiting for a connection", e));
+            }
+            try {
+                return call.call();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } finally {
+                limit.release();
+                Metrics.bind(previous);
+            }
+        }, EXECUTOR);
+    }
+
+    /**
+     * Wait for a result, rethrowing the call's SQLException or RuntimeException as-is
+     */
+    public static <T> T await(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            } else if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static synchronized Semaphore getPermits() throws SQLException {
+        if (permits == null) {
+            permits = new Semaphore(Math.max(1, DatabaseConnection.getPool().getMaxSize() - 1), true);
+        }
+        return permits;
+    }
+
+    // ==================== STUDENTS ====================
+
+    public CompletableFuture<Student> searchByRollNumber(String rollNumber) {
+        return supply(() -> studentDAO.searchByRollNumber(rollNumber));
+    }
+
+    public CompletableFuture<List<Student>> getStudentsPage(String afterRollNumber, int limit) {
+        return supply(() -> studentDAO.getStudentsPage(afterRollNumber, limit));
+    }
+
+    public CompletableFuture<Integer> getStudentCount() {
+        return supply(studentDAO::getStudentCount);
+    }
+
+    // ==================== ATTENDANCE ====================
+
+    public CompletableFuture<Boolean> markAttendance(String rollNumber, String date, String status) {
+        return supply(() -> attendanceDAO.markAttendance(rollNumber, date, status));
+    }
+
+    public CompletableFuture<Boolean> isAttendanceMarked(String rollNumber, String date) {
+        return supply(() -> attendanceDAO.isAttendanceMarked(rollNumber, date));
+    }
+
+    public CompletableFuture<List<String[]>> getAttendanceByRollNumber(String rollNumber) {
+        return supply(() -> attendanceDAO.getAttendanceByRollNumber(rollNumber));
+    }
+
+    public CompletableFuture<List<String[]>> getAttendanceByDate(String date) {
+        return supply(() -> attendanceDAO.getAttendanceByDate(date));
+    }
+
+    public CompletableFuture<Double> calculateAttendancePercentage(String rollNumber) {
+        return supply(() -> attendanceDAO.calculateAttendancePercentage(rollNumber));
+    }
+
+    public CompletableFuture<int[]> getAttendanceStats(String rollNumber) {
+        return supply(() -> attendanceDAO.getAttendanceStats(rollNumber));
+    }
+
+    public CompletableFuture<List<String[]>> getAttendanceSummaryPage(String afterRollNumber, int limit) {
+        return supply(() -> attendanceDAO.getAttendanceSummaryPage(afterRollNumber, limit));
+    }
+
+    // ==================== HOD ====================
+
+    public CompletableFuture<List<Teacher>> getTeachersPage(String afterTeacherId, int limit) {
+        return supply(() -> hodDAO.getTeachersPage(afterTeacherId, limit));
+    }
+
+    public CompletableFuture<Integer> getTeacherCount() {
+        return supply(hodDAO::getTeacherCount);
+    }
+
+    public CompletableFuture<List<Student>> getStudentsByDepartmentPage(Student after, int limit) {
+        return supply(() -> hodDAO.getStudentsPage(after, limit));
+    }
+
+    public CompletableFuture<HodDashboard> getDashboard() {
+        return getDashboard(null);
+    }
+
+    public CompletableFuture<HodDashboard> getDashboard(Term term) {
+        return supply(() -> hodDAO.getDashboard(term));
+    }
+
+    public CompletableFuture<int[]> getAlertCounts() {
+        return supply(alertDAO::getAlertCounts);
+    }
+
+    public CompletableFuture<List<String[]>> getActiveAlertsPage(String[] after, int limit) {
+        return supply(() -> alertDAO.getActiveAlertsPage(after, limit));
+    }
+}
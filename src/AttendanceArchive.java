@@ -0,0 +1,943 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+
+/**
+ * AttendanceArchive - Cold storage for closed terms in compressed, memory-mapped segment files
+ *
+ * archive(term) moves a closed term out of the Attendance table into one segment file and
+ * then deletes its rows (on MySQL by truncating the term's monthly partitions), so the live
+ * table and its indexes only hold terms that can still change. AttendanceCounters are left
+ * as they are, so percentages keep counting archived terms; per-student history, per-date
+ * views, term reports, exports, the bitmap index and counter rebuilds read the segments
+ * alongside the database. Terms are archived oldest first, so the archive ends at one date,
+ * liveFrom(): reads take dates before it from the segments and dates from it on from the
+ * live table, and marks before it are refused. Deleting a student drops their marks from
+ * the segments too, so a reused roll number starts with no history.
+ *
+ * Segment attendance-<term start>.atts, read through a read-only mapping; ints big-endian:
+ *   header   "ATTS", int version, long start, long end (epoch days, end exclusive),
+ *            int class days, int students, long rows, long present
+ *   days     class days x int epoch day, ascending
+ *   index    students x (int roll offset, int marks offset, int marked, int present),
+ *            ordered by UTF-8 roll number, so a student is found by binary search
+ *   rolls    per student: short length, UTF-8 roll number
+ *   marks    per student: a marked bitmap, then a present bitmap, over the class days;
+ *            (days + 7) / 8 bytes each, bit d % 8 of byte d / 8 = class day d. The marked
+ *            bitmap is left out when the student was marked every class day, the present
+ *            one when it is empty or equals the marked one.
+ *   trailer  int CRC32C of everything before it
+ * With every student marked every class day that is one bit per mark, against a row and
+ * three index entries in the live table.
+ *
+ * A segment is written as .part and forced. The term's live rows are then recounted under
+ * row locks, with writes in this process held off by WRITES, and the segment is renamed into
+ * place before those locks are released; a writer checks the directory again just before
+ * it commits (confirmLive), so no mark can commit into a term once its segment is out. From
+ * then on the segment is the authoritative copy of its term. Live rows still in that range
+ * (a crash before the delete finished) are skipped by reads and removed by purge(), which
+ * the next archive run and rebuildCounters call.
+ *
+ * Files live in -Dattendify.archive.dir (default data/archive). Other processes pick up a
+ * new segment within REFRESH_NANOS.
+ */
+public final class AttendanceArchive {
+    static final byte[] MAGIC = { 'A', 'T', 'T', 'S' };
+    static final int VERSION = 1;
+
+    private static final Path ARCHIVE_DIR = Path.of(System.getProperty("attendify.archive.dir", "data/archive"));
+    private static final String SEGMENT_PREFIX = "attendance-";
+    private static final String SEGMENT_SUFFIX = ".atts";
+
+    private static final int HEADER_BYTES = 48;
+    private static final int INDEX_ENTRY_BYTES = 16;
+    // Live rows removed per DELETE once their term is archived
+    private static final int DELETE_CHUNK_ROWS = 5_000;
+    // Passes over a term that changes while being archived; the last one holds writes off throughout
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long REFRESH_NANOS = 1_000_000_000L;
+
+    private static final Metrics.Operation ARCHIVE = Metrics.operation("AttendanceArchive.archive");
+    private static final Metrics.Operation PURGE = Metrics.operation("AttendanceArchive.purge");
+
+    // The earliest SQL DATE, for a range with no start
+    private static final LocalDate FIRST_DATE = LocalDate.of(1000, 1, 1);
+
+    // Live writes hold the read side; an archive run holds the write side while it publishes
+    private static final ReentrantReadWriteLock WRITES = new ReentrantReadWriteLock();
+    // One archive run or segment rewrite at a time
+    private static final Object RUN_LOCK = new Object();
+    private static final Object LOCK = new Object();
+    private static volatile List<Segment> segments = null;
+    private static volatile long checkedAt;
+    private static FileTime loadedModified;
+
+    private AttendanceArchive() {
+    }
+
+    /**
+     * One archive run: the segment's totals, the live rows it moved and how long it took
+     */
+    public record Result(Term term, int students, long rows, long moved, long bytes, double seconds) {
+    }
+
+    /**
+     * An archived term as listed on the HOD screen
+     */
+    public record Summary(Term term, Path file, int students, int classDays, long rows, long bytes) {
+    }
+
+    interface MarkVisitor {
+        void mark(String rollNumber, LocalDate date, boolean present);
+    }
+
+    interface TotalsVisitor {
+        void totals(String rollNumber, int marked, int present) throws SQLException;
+    }
+
+    interface LiveWrite<T, X extends Exception> {
+        T write() throws SQLException, X;
+    }
+
+    // ==================== ARCHIVE ====================
+
+    /**
+     * Move a closed term to a segment file. Archiving a term again folds in any live rows
+     * left behind (or imported since) and removes them from the database. Terms are archived
+     * oldest first, so everything before liveFrom() is archived and everything after it is live.
+     */
+    public static Result archive(Term term) throws SQLException, IOException {
+        // time() passes only SQLException through, so file errors cross it unchecked
+        try {
+            return ARCHIVE.time(() -> {
+                try {
+                    synchronized (RUN_LOCK) {
+                        return archiveTerm(term);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, Result::moved);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Result archiveTerm(Term term) throws SQLException, IOException {
+        long start = System.nanoTime();
+        if (!term.equals(Term.containing(term.start()))) {
+            throw new IllegalArgumentException("Only whole terms can be archived, e.g. "
+                    + Term.containing(term.start()).label());
+        }
+        if (term.end().isAfter(Term.current().start())) {
+            throw new IllegalArgumentException("Term " + term.label() + " has not closed yet");
+        }
+        List<Segment> archived = current();
+        Segment existing = null;
+        for (Segment segment : archived) {
+            if (segment.term.equals(term)) {
+                existing = segment;
+            } else if (segment.term.start().isBefore(term.end()) && term.start().isBefore(segment.term.end())) {
+                throw new IllegalArgumentException("Term " + term.label() + " overlaps archived term "
+                        + segment.term.label());
+            }
+        }
+
+        long moved;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            LocalDate liveFrom = liveFrom(archived);
+            if (existing == null && (liveFrom == null || liveFrom.isBefore(term.start()))) {
+                Term before = new Term(liveFrom != null ? liveFrom : FIRST_DATE, term.start());
+                if (count(conn, before)[0] > 0) {
+                    Term oldest = Term.containing(firstLiveDay(conn, before));
+                    throw new IllegalArgumentException("Archive term " + oldest.label() + " first: terms are "
+                            + "archived oldest first");
+                }
+            }
+            for (int attempt = 1; ; attempt++) {
+                // The last attempt holds writes off from the start, so nothing can overtake it
+                moved = pass(conn, term, existing, attempt == MAX_ATTEMPTS);
+                if (moved >= 0) {
+                    break;
+                }
+            }
+            delete(conn, term);
+        }
+        Segment written = covering(current(), term.start());
+        return new Result(term, written.students, written.rows, moved, written.bytes,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Scan the term, write its segment, then recount the term's live rows with them locked
+     * and, if nothing changed, move the segment into place before the locks are released.
+     * Live writes in this process wait on WRITES meanwhile; those of other processes block
+     * on the row locks and then find the segment when they check before committing. An
+     * exclusive pass takes the locks before it scans. Returns the live rows moved, or -1
+     * (nothing published) if the term changed during the scan.
+     */
+    private static long pass(Connection conn, Term term, Segment existing, boolean exclusive)
+            throws SQLException, IOException {
+        Path part = null;
+        conn.setAutoCommit(false);
+        try {
+            long[] locked = exclusive ? lock(conn, term) : null;
+            Builder builder = new Builder(term);
+            long[] scanned = builder.load(conn, existing);
+            if (scanned[0] == 0) {
+                if (existing == null) {
+                    throw new IllegalArgumentException("No attendance recorded in " + term.label());
+                }
+                conn.rollback();
+                return 0;
+            }
+            part = builder.writePart(ARCHIVE_DIR);
+            if (!exclusive) {
+                locked = lock(conn, term);
+            }
+            if (!Arrays.equals(scanned, locked)) {
+                conn.rollback();
+                return -1;
+            }
+            moveIntoPlace(part);
+            part = null;
+            conn.commit();
+            return scanned[0];
+        } catch (SQLException | IOException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+            if (WRITES.isWriteLockedByCurrentThread()) {
+                WRITES.writeLock().unlock();
+            }
+            if (part != null) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    // Hold off live writes and lock the term's rows; returns their { rows, present }
+    private static long[] lock(Connection conn, Term term) throws SQLException {
+        WRITES.writeLock().lock();
+        long[] locked = new long[2];
+        try (PreparedStatement pstmt = SqlStatement.ARCHIVE_LOCK.prepare(conn)) {
+            bindRange(pstmt, term);
+            pstmt.setFetchSize(JdbcStream.FETCH_SIZE);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                locked[0]++;
+                locked[1] += rs.getInt("status") == AttendanceDAO.STATUS_PRESENT ? 1 : 0;
+            }
+        }
+        return locked;
+    }
+
+    /**
+     * Delete live rows left in archived terms; returns how many were removed
+     */
+    public static long purge() throws SQLException {
+        return PURGE.time(() -> {
+            long removed = 0;
+            List<Segment> archived = segments();
+            if (!archived.isEmpty()) {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    for (Segment segment : archived) {
+                        removed += count(conn, segment.term)[0];
+                        delete(conn, segment.term);
+                    }
+                }
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * Drop students from every segment holding them, so a roll number that is deleted and
+     * later reused does not inherit the old student's archived marks; returns the segments rewritten
+     */
+    static int forget(Collection<String> rollNumbers) throws SQLException {
+        synchronized (RUN_LOCK) {
+            try {
+                int rewritten = 0;
+                Set<String> leaving = new HashSet<>(rollNumbers);
+                for (Segment segment : current()) {
+                    if (leaving.stream().noneMatch(r -> segment.find(r.getBytes(StandardCharsets.UTF_8)) >= 0)) {
+                        continue;
+                    }
+                    Builder builder = new Builder(segment.term);
+                    builder.days = segment.days;
+                    for (int s = 0; s < segment.students; s++) {
+                        String rollNumber = segment.roll(s);
+                        if (!leaving.contains(rollNumber)) {
+                            segment.forEachMark(s, rollNumber, (roll, date, present) ->
+                                    builder.set(roll, date, present));
+                        }
+                    }
+                    moveIntoPlace(builder.writePart(ARCHIVE_DIR));
+                    rewritten++;
+                }
+                return rewritten;
+            } catch (IOException e) {
+                throw new SQLException("Attendance archive could not be rewritten: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Delete every segment file (with the live tables, when generating data from scratch)
+     */
+    static void clear() throws SQLException {
+        synchronized (RUN_LOCK) {
+            try {
+                for (Segment segment : current()) {
+                    Files.deleteIfExists(segment.path);
+                }
+                synchronized (LOCK) {
+                    refresh(true);
+                }
+            } catch (IOException e) {
+                throw new SQLException("Attendance archive could not be cleared: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // ==================== LIVE WRITES ====================
+
+    /**
+     * Run a transaction that writes marks to the live table. It holds off the final step of
+     * an archive run in this process; call confirmLive() before it commits.
+     */
+    static <T, X extends Exception> T writeLive(LiveWrite<T, X> write) throws SQLException, X {
+        WRITES.readLock().lock();
+        try {
+            return write.write();
+        } finally {
+            WRITES.readLock().unlock();
+        }
+    }
+
+    /**
+     * Refuse a write to an archived date, checked against the archive directory as it is now;
+     * call with the marks written and before committing them
+     */
+    static void confirmLive(Collection<LocalDate> dates) throws SQLException {
+        List<Segment> archived = current();
+        for (LocalDate date : dates) {
+            requireLive(archived, date);
+        }
+    }
+
+    /**
+     * { rows, present } in the live table for a date range
+     */
+    private static long[] count(Connection conn, Term range) throws SQLException {
+        try (PreparedStatement pstmt = SqlStatement.ARCHIVE_COUNT.prepare(conn)) {
+            bindRange(pstmt, range);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? new long[] { rs.getLong(1), rs.getLong(2) } : new long[] { 0, 0 };
+        }
+    }
+
+    private static LocalDate firstLiveDay(Connection conn, Term range) throws SQLException {
+        try (PreparedStatement pstmt = SqlStatement.ARCHIVE_DAYS.prepare(conn)) {
+            bindRange(pstmt, range);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getObject(1, LocalDate.class) : range.start();
+        }
+    }
+
+    // Whole monthly partitions are truncated; anything else goes in chunks, each budgeted on its own
+    private static void delete(Connection conn, Term term) throws SQLException {
+        AttendancePartitions.truncateWithin(term);
+        try (PreparedStatement pstmt = SqlStatement.ARCHIVE_DELETE.prepare(conn)) {
+            bindRange(pstmt, term);
+            pstmt.setInt(3, DELETE_CHUNK_ROWS);
+            while (pstmt.executeUpdate() > 0) {
+                Metrics.nextStep();
+            }
+        }
+    }
+
+    // The archiver reads the live table inside archived ranges, which AttendanceDAO.bindTerm skips
+    private static void bindRange(PreparedStatement pstmt, Term range) throws SQLException {
+        pstmt.setDate(1, Date.valueOf(range.start()));
+        pstmt.setDate(2, Date.valueOf(range.end()));
+    }
+
+    // Rename a written .part over its segment and reload the listing
+    private static void moveIntoPlace(Path part) throws IOException {
+        String name = part.getFileName().toString();
+        Files.move(part, part.resolveSibling(name.substring(0, name.length() - ".part".length())),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (LOCK) {
+            refresh(true);
+        }
+    }
+
+    /**
+     * A term's class days and marks, from the segment being replaced plus the live rows
+     */
+    private static final class Builder {
+        final Term term;
+        int[] days;
+        final Map<String, BitSet[]> students = new HashMap<>();
+
+        Builder(Term term) {
+            this.term = term;
+        }
+
+        /**
+         * Read the previous segment and the live rows (which win); returns { rows, present } read from the database
+         */
+        long[] load(Connection conn, Segment previous) throws SQLException {
+            TreeSet<Integer> classDays = new TreeSet<>();
+            if (previous != null) {
+                for (int day : previous.days) {
+                    classDays.add(day);
+                }
+            }
+            try (PreparedStatement pstmt = SqlStatement.ARCHIVE_DAYS.prepare(conn)) {
+                bindRange(pstmt, term);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    classDays.add((int) rs.getObject(1, LocalDate.class).toEpochDay());
+                }
+            }
+            days = classDays.stream().mapToInt(Integer::intValue).toArray();
+
+            if (previous != null) {
+                for (int s = 0; s < previous.students; s++) {
+                    String rollNumber = previous.roll(s);
+                    previous.forEachMark(s, rollNumber, (roll, date, present) -> set(roll, date, present));
+                }
+            }
+
+            long rows = 0;
+            long present = 0;
+            try (PreparedStatement pstmt = SqlStatement.ARCHIVE_SCAN.prepare(conn)) {
+                bindRange(pstmt, term);
+                pstmt.setFetchSize(JdbcStream.FETCH_SIZE);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    boolean isPresent = rs.getInt("status") == AttendanceDAO.STATUS_PRESENT;
+                    // A day first marked after the day list was read is left out; the recount then differs
+                    if (set(rs.getString("roll_number"), rs.getObject("date", LocalDate.class), isPresent)) {
+                        rows++;
+                        present += isPresent ? 1 : 0;
+                    }
+                }
+            }
+            return new long[] { rows, present };
+        }
+
+        private boolean set(String rollNumber, LocalDate date, boolean present) {
+            int day = Arrays.binarySearch(days, (int) date.toEpochDay());
+            if (day < 0) {
+                return false;
+            }
+            BitSet[] marks = students.computeIfAbsent(rollNumber, r -> new BitSet[] { new BitSet(), new BitSet() });
+            marks[0].set(day);
+            marks[1].set(day, present);
+            return true;
+        }
+
+        /**
+         * Write the segment as .part and force it; returns the .part path for moveIntoPlace()
+         */
+        Path writePart(Path dir) throws IOException {
+            record Entry(byte[] roll, BitSet marked, BitSet present) {
+            }
+            List<Entry> entries = new ArrayList<>(students.size());
+            for (Map.Entry<String, BitSet[]> e : students.entrySet()) {
+                entries.add(new Entry(e.getKey().getBytes(StandardCharsets.UTF_8), e.getValue()[0], e.getValue()[1]));
+            }
+            entries.sort((a, b) -> Arrays.compareUnsigned(a.roll, b.roll));
+
+            int bitmapBytes = (days.length + 7) / 8;
+            int rollsAt = HEADER_BYTES + 4 * days.length + INDEX_ENTRY_BYTES * entries.size();
+            int marksAt = rollsAt;
+            for (Entry entry : entries) {
+                marksAt += 2 + entry.roll.length;
+            }
+            int size = marksAt;
+            long rows = 0;
+            long present = 0;
+            for (Entry entry : entries) {
+                int marked = entry.marked.cardinality();
+                int presentDays = entry.present.cardinality();
+                size += (marked == days.length ? 0 : bitmapBytes)
+                        + (presentDays == 0 || presentDays == marked ? 0 : bitmapBytes);
+                rows += marked;
+                present += presentDays;
+            }
+            size += 4;
+
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.put(MAGIC).putInt(VERSION).putLong(term.start().toEpochDay()).putLong(term.end().toEpochDay())
+                    .putInt(days.length).putInt(entries.size()).putLong(rows).putLong(present);
+            for (int day : days) {
+                buffer.putInt(day);
+            }
+            int rollAt = rollsAt;
+            int markAt = marksAt;
+            for (Entry entry : entries) {
+                int marked = entry.marked.cardinality();
+                int presentDays = entry.present.cardinality();
+                buffer.putInt(rollAt).putInt(markAt).putInt(marked).putInt(presentDays);
+                rollAt += 2 + entry.roll.length;
+                markAt += (marked == days.length ? 0 : bitmapBytes)
+                        + (presentDays == 0 || presentDays == marked ? 0 : bitmapBytes);
+            }
+            for (Entry entry : entries) {
+                buffer.putShort((short) entry.roll.length).put(entry.roll);
+            }
+            for (Entry entry : entries) {
+                int marked = entry.marked.cardinality();
+                int presentDays = entry.present.cardinality();
+                if (marked != days.length) {
+                    buffer.put(Arrays.copyOf(entry.marked.toByteArray(), bitmapBytes));
+                }
+                if (presentDays != 0 && presentDays != marked) {
+                    buffer.put(Arrays.copyOf(entry.present.toByteArray(), bitmapBytes));
+                }
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+
+            Files.createDirectories(dir);
+            Path file = dir.resolve(SEGMENT_PREFIX + term.start() + SEGMENT_SUFFIX);
+            Path part = file.resolveSibling(file.getFileName() + ".part");
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            return part;
+        }
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * The archived segments in term order, reloaded when the directory has changed
+     */
+    static List<Segment> segments() throws SQLException {
+        List<Segment> loaded = segments;
+        if (loaded != null && System.nanoTime() - checkedAt < REFRESH_NANOS) {
+            return loaded;
+        }
+        return current();
+    }
+
+    // The segments as the directory stands now, whatever the cache says
+    private static List<Segment> current() throws SQLException {
+        synchronized (LOCK) {
+            try {
+                return refresh(false);
+            } catch (IOException e) {
+                throw new SQLException("Attendance archive is unreadable: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Called with LOCK held; unchanged segment files keep their mapping
+    private static List<Segment> refresh(boolean force) throws IOException {
+        FileTime modified = Files.isDirectory(ARCHIVE_DIR) ? Files.getLastModifiedTime(ARCHIVE_DIR) : null;
+        if (force || segments == null || !Objects.equals(modified, loadedModified)) {
+            Map<Path, Segment> open = new HashMap<>();
+            for (Segment segment : segments != null ? segments : List.<Segment>of()) {
+                open.put(segment.path, segment);
+            }
+            List<Segment> loaded = new ArrayList<>();
+            if (modified != null) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(ARCHIVE_DIR,
+                        SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                    for (Path file : files) {
+                        Segment known = open.get(file);
+                        boolean unchanged = known != null && known.modified.equals(Files.getLastModifiedTime(file));
+                        loaded.add(unchanged ? known : Segment.open(file));
+                    }
+                }
+            }
+            loaded.sort(Comparator.comparing((Segment s) -> s.term.start()));
+            segments = List.copyOf(loaded);
+            loadedModified = modified;
+        }
+        checkedAt = System.nanoTime();
+        return segments;
+    }
+
+    /**
+     * The segment holding a date, or null if it is live
+     */
+    static Segment covering(List<Segment> archived, LocalDate date) {
+        for (Segment segment : archived) {
+            if (!date.isBefore(segment.term.start()) && date.isBefore(segment.term.end())) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    public static boolean isArchived(LocalDate date) throws SQLException {
+        return covering(segments(), date) != null;
+    }
+
+    /**
+     * The first date after the archived terms, or null if nothing is archived. Live rows
+     * before it are leftovers of an archive run and are not read.
+     */
+    static LocalDate liveFrom() throws SQLException {
+        return liveFrom(segments());
+    }
+
+    private static LocalDate liveFrom(List<Segment> archived) {
+        return archived.isEmpty() ? null : archived.get(archived.size() - 1).term.end();
+    }
+
+    /**
+     * Refuse a write to an archived date
+     */
+    static void requireLive(LocalDate date) throws SQLException {
+        requireLive(segments(), date);
+    }
+
+    private static void requireLive(List<Segment> archived, LocalDate date) {
+        LocalDate liveFrom = liveFrom(archived);
+        if (liveFrom != null && date.isBefore(liveFrom)) {
+            Segment segment = covering(archived, date);
+            throw new IllegalArgumentException("Attendance for " + date + " is archived ("
+                    + (segment != null ? "term " + segment.term.label() + " is closed" : "before " + liveFrom) + ")");
+        }
+    }
+
+    /**
+     * Segments overlapping a date range
+     */
+    static List<Segment> overlapping(Term range) throws SQLException {
+        List<Segment> found = new ArrayList<>();
+        for (Segment segment : segments()) {
+            if (segment.term.start().isBefore(range.end()) && range.start().isBefore(segment.term.end())) {
+                found.add(segment);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Add a student's archived { date, status } rows; returns false if there were none
+     */
+    static boolean addHistory(List<Segment> archived, String rollNumber, List<String[]> records) {
+        byte[] roll = rollNumber.getBytes(StandardCharsets.UTF_8);
+        boolean added = false;
+        for (Segment segment : archived) {
+            int s = segment.find(roll);
+            if (s >= 0) {
+                segment.forEachMark(s, rollNumber, (r, date, present) ->
+                        records.add(new String[] { date.toString(), present ? "PRESENT" : "ABSENT" }));
+                added = true;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * PRESENT or ABSENT for an archived mark, null if the student was not marked that day
+     */
+    static String getStatus(Segment segment, String rollNumber, LocalDate date) {
+        int s = segment.find(rollNumber.getBytes(StandardCharsets.UTF_8));
+        if (s < 0) {
+            return null;
+        }
+        int day = Arrays.binarySearch(segment.days, (int) date.toEpochDay());
+        if (day < 0 || !bit(segment.markedAt(s), day, segment)) {
+            return null;
+        }
+        return bit(segment.presentAt(s), day, segment) ? "PRESENT" : "ABSENT";
+    }
+
+    /**
+     * { marked, present } archived for a student within a date range
+     */
+    static int[] count(List<Segment> archived, String rollNumber, Term range) {
+        byte[] roll = rollNumber.getBytes(StandardCharsets.UTF_8);
+        int[] totals = new int[2];
+        for (Segment segment : archived) {
+            int s = segment.find(roll);
+            if (s < 0) {
+                continue;
+            }
+            int from = lowerBound(segment.days, range.start().toEpochDay());
+            int to = lowerBound(segment.days, range.end().toEpochDay());
+            if (from == 0 && to == segment.days.length) {
+                totals[0] += segment.marked(s);
+                totals[1] += segment.present(s);
+                continue;
+            }
+            int markedAt = segment.markedAt(s);
+            int presentAt = segment.presentAt(s);
+            for (int day = from; day < to; day++) {
+                if (bit(markedAt, day, segment)) {
+                    totals[0]++;
+                    totals[1] += bit(presentAt, day, segment) ? 1 : 0;
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Every archived mark, segment by segment
+     */
+    static void forEachMark(MarkVisitor visitor) throws SQLException {
+        for (Segment segment : segments()) {
+            for (int s = 0; s < segment.students; s++) {
+                segment.forEachMark(s, segment.roll(s), visitor);
+            }
+        }
+    }
+
+    /**
+     * Archived marks within a date range in (date, roll number) order, for the students a filter accepts
+     */
+    static void forEachMark(Term range, Predicate<String> students, MarkVisitor visitor) throws SQLException {
+        for (Segment segment : overlapping(range)) {
+            List<String> rolls = new ArrayList<>();
+            List<int[]> bitmaps = new ArrayList<>();
+            for (int s = 0; s < segment.students; s++) {
+                String rollNumber = segment.roll(s);
+                if (students.test(rollNumber)) {
+                    rolls.add(rollNumber);
+                    bitmaps.add(new int[] { segment.markedAt(s), segment.presentAt(s) });
+                }
+            }
+            int to = lowerBound(segment.days, range.end().toEpochDay());
+            for (int day = lowerBound(segment.days, range.start().toEpochDay()); day < to; day++) {
+                LocalDate date = LocalDate.ofEpochDay(segment.days[day]);
+                for (int i = 0; i < rolls.size(); i++) {
+                    int[] at = bitmaps.get(i);
+                    if (bit(at[0], day, segment)) {
+                        visitor.mark(rolls.get(i), date, bit(at[1], day, segment));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Every student's { marked, present } in each segment
+     */
+    static void forEachTotals(TotalsVisitor visitor) throws SQLException {
+        for (Segment segment : segments()) {
+            for (int s = 0; s < segment.students; s++) {
+                visitor.totals(segment.roll(s), segment.marked(s), segment.present(s));
+            }
+        }
+    }
+
+    /**
+     * The earliest archived class day, or null if nothing is archived
+     */
+    static LocalDate firstDay() throws SQLException {
+        for (Segment segment : segments()) {
+            if (segment.days.length > 0) {
+                return LocalDate.ofEpochDay(segment.days[0]);
+            }
+        }
+        return null;
+    }
+
+    public static List<Summary> list() throws SQLException {
+        List<Summary> summaries = new ArrayList<>();
+        for (Segment segment : segments()) {
+            summaries.add(new Summary(segment.term, segment.path, segment.students, segment.days.length,
+                    segment.rows, segment.bytes));
+        }
+        return summaries;
+    }
+
+    private static int lowerBound(int[] days, long epochDay) {
+        int lo = 0;
+        int hi = days.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < epochDay) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // at is a bitmap offset, or ALL / NONE for a bitmap left out of the file
+    private static boolean bit(int at, int day, Segment segment) {
+        return at == Segment.ALL || (at != Segment.NONE && (segment.map.get(at + (day >>> 3)) >>> (day & 7) & 1) != 0);
+    }
+
+    /**
+     * One mapped segment file; reads use absolute offsets only, so it is safe to share
+     */
+    static final class Segment {
+        static final int ALL = -1;
+        static final int NONE = -2;
+
+        final Path path;
+        final FileTime modified;
+        final Term term;
+        final int[] days;
+        final int students;
+        final long rows;
+        final long present;
+        final long bytes;
+        private final MappedByteBuffer map;
+        private final int bitmapBytes;
+        private final int indexAt;
+
+        static Segment open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_BYTES + 4 || size > Integer.MAX_VALUE) {
+                    throw new IOException(path + " is not an attendance segment");
+                }
+                return new Segment(path, Files.getLastModifiedTime(path),
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+
+        private Segment(Path path, FileTime modified, MappedByteBuffer map) throws IOException {
+            byte[] magic = new byte[MAGIC.length];
+            map.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC) || map.getInt(4) != VERSION) {
+                throw new IOException(path + " is not an attendance segment");
+            }
+            int end = map.capacity() - 4;
+            CRC32C crc = new CRC32C();
+            crc.update(map.slice(0, end));
+            if ((int) crc.getValue() != map.getInt(end)) {
+                throw new IOException(path + " is corrupt (checksum mismatch)");
+            }
+            this.path = path;
+            this.modified = modified;
+            this.map = map;
+            this.term = new Term(LocalDate.ofEpochDay(map.getLong(8)), LocalDate.ofEpochDay(map.getLong(16)));
+            this.days = new int[map.getInt(24)];
+            this.students = map.getInt(28);
+            this.rows = map.getLong(32);
+            this.present = map.getLong(40);
+            this.bytes = map.capacity();
+            for (int d = 0; d < days.length; d++) {
+                days[d] = map.getInt(HEADER_BYTES + 4 * d);
+            }
+            this.bitmapBytes = (days.length + 7) / 8;
+            this.indexAt = HEADER_BYTES + 4 * days.length;
+        }
+
+        /**
+         * Index of a student by UTF-8 roll number, or -1
+         */
+        int find(byte[] roll) {
+            int lo = 0;
+            int hi = students - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = compareRoll(mid, roll);
+                if (c < 0) {
+                    lo = mid + 1;
+                } else if (c > 0) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        String roll(int s) {
+            int at = map.getInt(entry(s));
+            byte[] roll = new byte[map.getShort(at) & 0xFFFF];
+            map.get(at + 2, roll);
+            return new String(roll, StandardCharsets.UTF_8);
+        }
+
+        int marked(int s) {
+            return map.getInt(entry(s) + 8);
+        }
+
+        int present(int s) {
+            return map.getInt(entry(s) + 12);
+        }
+
+        int markedAt(int s) {
+            return marked(s) == days.length ? ALL : map.getInt(entry(s) + 4);
+        }
+
+        int presentAt(int s) {
+            int marked = marked(s);
+            int present = present(s);
+            if (present == 0) {
+                return NONE;
+            } else if (present == marked) {
+                return markedAt(s);
+            }
+            return map.getInt(entry(s) + 4) + (marked == days.length ? 0 : bitmapBytes);
+        }
+
+        void forEachMark(int s, String rollNumber, MarkVisitor visitor) {
+            int markedAt = markedAt(s);
+            int presentAt = presentAt(s);
+            for (int day = 0; day < days.length; day++) {
+                if (bit(markedAt, day, this)) {
+                    visitor.mark(rollNumber, LocalDate.ofEpochDay(days[day]), bit(presentAt, day, this));
+                }
+            }
+        }
+
+        private int entry(int s) {
+            return indexAt + s * INDEX_ENTRY_BYTES;
+        }
+
+        private int compareRoll(int s, byte[] roll) {
+            int at = map.getInt(entry(s));
+            int length = map.getShort(at) & 0xFFFF;
+            for (int i = 0; i < Math.min(length, roll.length); i++) {
+                int c = Integer.compare(map.get(at + 2 + i) & 0xFF, roll[i] & 0xFF);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return Integer.compare(length, roll.length);
+        }
+    }
+}
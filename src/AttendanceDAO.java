@@ -1,183 +1,531 @@
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * AttendanceDAO - Data Access Object for Attendance operations
  * Handles marking, viewing, and calculating attendance
  */
 public class AttendanceDAO {
+    // Attendance.status codes
+    public static final int STATUS_ABSENT = 0;
+    public static final int STATUS_PRESENT = 1;
+
+    // Marks are accepted for dates from MARK_HISTORY_YEARS back through MARK_DAYS_AHEAD ahead
+    static final int MARK_HISTORY_YEARS = 10;
+    static final int MARK_DAYS_AHEAD = 1;
+
+    private static final Metrics.Operation MARK = Metrics.operation("AttendanceDAO.markAttendance");
+    private static final Metrics.Operation MARK_BATCH = Metrics.operation("AttendanceDAO.markAttendanceBatch");
+    private static final Metrics.Operation IS_MARKED = Metrics.operation("AttendanceDAO.isAttendanceMarked");
+    private static final Metrics.Operation BY_ROLL = Metrics.operation("AttendanceDAO.getAttendanceByRollNumber");
+    private static final Metrics.Operation BY_DATE = Metrics.operation("AttendanceDAO.getAttendanceByDate");
+    private static final Metrics.Operation PERCENTAGE =
+            Metrics.operation("AttendanceDAO.calculateAttendancePercentage");
+    private static final Metrics.Operation STATS = Metrics.operation("AttendanceDAO.getAttendanceStats");
+    private static final Metrics.Operation SUMMARY = Metrics.operation("AttendanceDAO.getAttendanceSummary");
+    private static final Metrics.Operation SUMMARY_PAGE = Metrics.operation("AttendanceDAO.getAttendanceSummaryPage");
+    private static final Metrics.Operation SUMMARY_STREAM = Metrics.operation("AttendanceDAO.streamAttendanceSummary");
+    private static final Metrics.Operation REBUILD = Metrics.operation("AttendanceDAO.rebuildCounters");
+
     private StudentDAO studentDAO = new StudentDAO();
 
     public boolean markAttendance(String rollNumber, String date, String status) throws SQLException {
-        if (!studentDAO.isRollNumberExists(rollNumber)) {
-            throw new IllegalArgumentException("Student with roll number '" + rollNumber + "' not found!");
-        }
-        if (!status.equals("PRESENT") && !status.equals("ABSENT")) {
-            throw new IllegalArgumentException("Status must be 'PRESENT' or 'ABSENT'");
-        }
+        return MARK.time(() -> {
+            if (!studentDAO.isRollNumberExists(rollNumber)) {
+                throw new IllegalArgumentException("Student with roll number '" + rollNumber + "' not found!");
+            }
+            if (!status.equals("PRESENT") && !status.equals("ABSENT")) {
+                throw new IllegalArgumentException("Status must be 'PRESENT' or 'ABSENT'");
+            }
+            Date day = toMarkDate(date);
+            AttendanceArchive.requireLive(day.toLocalDate());
 
-        if (isAttendanceMarked(rollNumber, date)) {
-            String sql = "UPDATE Attendance SET status = ? WHERE roll_number = ? AND date = ?";
-            try (Connection conn = DatabaseConnection.getConnection();
-                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, status);
-                pstmt.setString(2, rollNumber);
-                pstmt.setString(3, date);
-                pstmt.executeUpdate();
-                return true;
+            return AttendanceArchive.writeLive(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    conn.setAutoCommit(false);
+                    try {
+                        if (StudentDAO.lockExisting(conn, List.of(rollNumber)).isEmpty()) {
+                            throw new IllegalArgumentException(
+                                    "Student with roll number '" + rollNumber + "' not found!");
+                        }
+                        String previous = null;
+                        try (PreparedStatement pstmt = SqlStatement.ATTENDANCE_LOCK_MARK.prepare(conn)) {
+                            pstmt.setString(1, rollNumber);
+                            pstmt.setDate(2, day);
+                            ResultSet rs = pstmt.executeQuery();
+                            if (rs.next())
+                                previous = statusName(rs.getInt("status"));
+                        }
+
+                        if (previous == null) {
+                            try (PreparedStatement pstmt = SqlStatement.ATTENDANCE_INSERT.prepare(conn)) {
+                                pstmt.setString(1, rollNumber);
+                                pstmt.setDate(2, day);
+                                pstmt.setInt(3, statusCode(status));
+                                pstmt.executeUpdate();
+                            }
+                        } else if (!previous.equals(status)) {
+                            try (PreparedStatement pstmt = SqlStatement.ATTENDANCE_UPDATE_STATUS.prepare(conn)) {
+                                pstmt.setInt(1, statusCode(status));
+                                pstmt.setString(2, rollNumber);
+                                pstmt.setDate(3, day);
+                                pstmt.executeUpdate();
+                            }
+                        }
+
+                        if (!status.equals(previous)) {
+                            try (PreparedStatement pstmt = SqlStatement.COUNTERS_ADD.prepare(conn)) {
+                                bindCounterDelta(pstmt, rollNumber, previous, status);
+                                pstmt.executeUpdate();
+                            }
+                            AlertDAO.evaluate(conn, List.of(rollNumber));
+                        }
+
+                        AttendanceArchive.confirmLive(List.of(day.toLocalDate()));
+                        String before = previous;
+                        AttendanceIndex.getInstance().commit(conn, List.of(rollNumber), index -> {
+                            if (before == null) {
+                                StudentDAO.getCache().adjustTotalClasses(rollNumber, 1);
+                            }
+                            index.recordMark(rollNumber, date, status);
+                        });
+                        return true;
+                    } catch (SQLException | RuntimeException e) {
+                        conn.rollback();
+                        throw e;
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Mark a whole roster for one date in a single transaction.
+     * Per MAX_IN_LIST students, one query share-locks their Student rows (validating the roll numbers)
+     * and one locks their existing marks for the date, then changed rows are upserted and their
+     * counters adjusted in two JDBC batches.
+     * Returns the number of students marked.
+     */
+    public int markAttendanceBatch(String date, Map<String, String> roster) throws SQLException {
+        return MARK_BATCH.time(() -> {
+            if (roster.isEmpty()) {
+                return 0;
             }
-        } else {
-            String sql = "INSERT INTO Attendance (roll_number, date, status) VALUES (?, ?, ?)";
-            try (Connection conn = DatabaseConnection.getConnection();
-                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, rollNumber);
-                pstmt.setString(2, date);
-                pstmt.setString(3, status);
-                pstmt.executeUpdate();
-                updateStudentTotalClasses(rollNumber);
-                return true;
+            for (String status : roster.values()) {
+                if (!"PRESENT".equals(status) && !"ABSENT".equals(status)) {
+                    throw new IllegalArgumentException("Status must be 'PRESENT' or 'ABSENT'");
+                }
             }
-        }
+            Date day = toMarkDate(date);
+            AttendanceArchive.requireLive(day.toLocalDate());
+
+            return AttendanceArchive.writeLive(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    conn.setAutoCommit(false);
+                    try {
+                        Set<String> existing = StudentDAO.lockExisting(conn, roster.keySet());
+                        for (String rollNumber : roster.keySet()) {
+                            if (!existing.contains(rollNumber)) {
+                                throw new IllegalArgumentException(
+                                        "Student with roll number '" + rollNumber + "' not found!");
+                            }
+                        }
+                        // Unmarked students are absent from the map
+                        Map<String, String> previous = new HashMap<>();
+                        for (List<String> chunk : SqlStatement.chunks(new ArrayList<>(roster.keySet()))) {
+                            try (PreparedStatement pstmt =
+                                    SqlStatement.ATTENDANCE_LOCK_MARKS.prepare(conn, chunk.size())) {
+                                pstmt.setDate(1, day);
+                                SqlStatement.bindInList(pstmt, 2, chunk);
+                                ResultSet rs = pstmt.executeQuery();
+                                while (rs.next()) {
+                                    previous.put(rs.getString("roll_number"), statusName(rs.getInt("status")));
+                                }
+                            }
+                        }
+
+                        List<String> changedRolls = new ArrayList<>();
+                        List<String> newlyMarked = new ArrayList<>();
+                        try (PreparedStatement upsert = SqlStatement.ATTENDANCE_UPSERT.prepare(conn);
+                                PreparedStatement counters = SqlStatement.COUNTERS_ADD.prepare(conn)) {
+                            int changed = 0;
+                            for (Map.Entry<String, String> entry : roster.entrySet()) {
+                                String rollNumber = entry.getKey();
+                                String status = entry.getValue();
+                                String before = previous.get(rollNumber);
+                                if (status.equals(before)) {
+                                    continue;
+                                }
+                                upsert.setString(1, rollNumber);
+                                upsert.setDate(2, day);
+                                upsert.setInt(3, statusCode(status));
+                                upsert.addBatch();
+                                bindCounterDelta(counters, rollNumber, before, status);
+                                counters.addBatch();
+                                changedRolls.add(rollNumber);
+                                if (before == null) {
+                                    newlyMarked.add(rollNumber);
+                                }
+                                changed++;
+                            }
+                            if (changed > 0) {
+                                upsert.executeBatch();
+                                counters.executeBatch();
+                            }
+                        }
+                        AlertDAO.evaluate(conn, changedRolls);
+                        AttendanceArchive.confirmLive(List.of(day.toLocalDate()));
+
+                        AttendanceIndex.getInstance().commit(conn, changedRolls, index -> {
+                            for (String rollNumber : newlyMarked) {
+                                StudentDAO.getCache().adjustTotalClasses(rollNumber, 1);
+                            }
+                            for (String rollNumber : changedRolls) {
+                                index.recordMark(rollNumber, date, roster.get(rollNumber));
+                            }
+                        });
+                        return roster.size();
+                    } catch (SQLException | RuntimeException e) {
+                        conn.rollback();
+                        throw e;
+                    }
+                }
+            });
+        });
     }
 
     public boolean isAttendanceMarked(String rollNumber, String date) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Attendance WHERE roll_number = ? AND date = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, rollNumber);
-            pstmt.setString(2, date);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next())
-                return rs.getInt(1) > 0;
-        }
-        return false;
+        return IS_MARKED.time(() -> {
+            Date day = toSqlDateOrNull(date);
+            boolean marked = false;
+            AttendanceArchive.Segment archived =
+                    day == null ? null : AttendanceArchive.covering(AttendanceArchive.segments(), day.toLocalDate());
+            if (archived != null) {
+                marked = AttendanceArchive.getStatus(archived, rollNumber, day.toLocalDate()) != null;
+            } else if (day != null) {
+                try (Connection conn = DatabaseConnection.getConnection();
+                        PreparedStatement pstmt = SqlStatement.ATTENDANCE_IS_MARKED.prepare(conn)) {
+                    pstmt.setString(1, rollNumber);
+                    pstmt.setDate(2, day);
+                    ResultSet rs = pstmt.executeQuery();
+                    marked = rs.next() && rs.getInt(1) > 0;
+                }
+            }
+            return marked;
+        });
     }
 
     public List<String[]> getAttendanceByRollNumber(String rollNumber) throws SQLException {
-        List<String[]> records = new ArrayList<>();
-        String sql = "SELECT date, status FROM Attendance WHERE roll_number = ? ORDER BY date DESC";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, rollNumber);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                records.add(new String[] { rs.getString("date"), rs.getString("status") });
+        return BY_ROLL.time(() -> {
+            List<AttendanceArchive.Segment> archived = AttendanceArchive.segments();
+            LocalDate liveFrom = AttendanceArchive.liveFrom();
+            List<String[]> records = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.ATTENDANCE_BY_ROLL.prepare(conn)) {
+                pstmt.setString(1, rollNumber);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    String date = rs.getString("date");
+                    // The archive is authoritative for its terms; skip rows a crashed archive run left behind
+                    if (liveFrom == null || !LocalDate.parse(date).isBefore(liveFrom)) {
+                        records.add(new String[] { date, statusName(rs.getInt("status")) });
+                    }
+                }
             }
-        }
-        return records;
+            if (AttendanceArchive.addHistory(archived, rollNumber, records)) {
+                records.sort(Comparator.comparing((String[] record) -> record[0]).reversed());
+            }
+            return records;
+        });
     }
 
     public List<String[]> getAttendanceByDate(String date) throws SQLException {
-        List<String[]> records = new ArrayList<>();
-        String sql = """
-                    SELECT s.roll_number, s.name, COALESCE(a.status, 'NOT MARKED') as status
-                    FROM Student s
-                    LEFT JOIN Attendance a ON s.roll_number = a.roll_number AND a.date = ?
-                    ORDER BY s.roll_number
-                """;
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, date);
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) {
-                records.add(new String[] {
-                        rs.getString("roll_number"),
-                        rs.getString("name"),
-                        rs.getString("status")
-                });
+        return BY_DATE.time(() -> {
+            List<String[]> indexed = AttendanceIndex.getInstance().getAttendanceByDate(date);
+            if (indexed != null) {
+                return indexed;
             }
-        }
-        return records;
+
+            Date day = toSqlDateOrNull(date);
+            AttendanceArchive.Segment archived =
+                    day == null ? null : AttendanceArchive.covering(AttendanceArchive.segments(), day.toLocalDate());
+            List<String[]> records = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.ATTENDANCE_BY_DATE.prepare(conn)) {
+                // An unparseable date matches nothing, so everyone shows as NOT MARKED
+                pstmt.setDate(1, day);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    String rollNumber = rs.getString("roll_number");
+                    String status = rs.getString("status");
+                    if (archived != null) {
+                        status = AttendanceArchive.getStatus(archived, rollNumber, day.toLocalDate());
+                        status = status != null ? status : "NOT MARKED";
+                    }
+                    records.add(new String[] { rollNumber, rs.getString("name"), status });
+                }
+            }
+            return records;
+        });
     }
 
     public double calculateAttendancePercentage(String rollNumber) throws SQLException {
-        String sql = """
-                    SELECT
-                        COUNT(*) as total_days,
-                        SUM(CASE WHEN status = 'PRESENT' THEN 1 ELSE 0 END) as present_days
-                    FROM Attendance
-                    WHERE roll_number = ?
-                """;
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, rollNumber);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                int totalDays = rs.getInt("total_days");
-                int presentDays = rs.getInt("present_days");
-                if (totalDays == 0)
-                    return 0.0;
-                return (presentDays * 100.0) / totalDays;
+        return PERCENTAGE.time(() -> {
+            int[] stats = AttendanceIndex.getInstance().getStats(rollNumber);
+            if (stats == null) {
+                stats = getAttendanceStats(rollNumber);
             }
-        }
-        return 0.0;
+            if (stats[0] == 0)
+                return 0.0;
+            return (stats[1] * 100.0) / stats[0];
+        });
     }
 
     public int[] getAttendanceStats(String rollNumber) throws SQLException {
-        String sql = """
-                    SELECT
-                        COUNT(*) as total_days,
-                        SUM(CASE WHEN status = 'PRESENT' THEN 1 ELSE 0 END) as present_days,
-                        SUM(CASE WHEN status = 'ABSENT' THEN 1 ELSE 0 END) as absent_days
-                    FROM Attendance
-                    WHERE roll_number = ?
-                """;
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, rollNumber);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return new int[] {
-                        rs.getInt("total_days"),
-                        rs.getInt("present_days"),
-                        rs.getInt("absent_days")
-                };
+        return STATS.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.COUNTERS_BY_ROLL.prepare(conn)) {
+                pstmt.setString(1, rollNumber);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    return new int[] {
+                            rs.getInt("total_classes"),
+                            rs.getInt("present_count"),
+                            rs.getInt("absent_count")
+                    };
+                }
             }
-        }
-        return new int[] { 0, 0, 0 };
+            return new int[] { 0, 0, 0 };
+        });
     }
 
     public List<String[]> getAttendanceSummary() throws SQLException {
-        List<String[]> summary = new ArrayList<>();
-        String sql = """
-                    SELECT
-                        s.roll_number, s.name,
-                        COUNT(a.id) as total_days,
-                        SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END) as present_days
-                    FROM Student s
-                    LEFT JOIN Attendance a ON s.roll_number = a.roll_number
-                    GROUP BY s.roll_number, s.name
-                    ORDER BY s.roll_number
-                """;
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                int totalDays = rs.getInt("total_days");
-                int presentDays = rs.getInt("present_days");
-                double percentage = totalDays > 0 ? (presentDays * 100.0) / totalDays : 0.0;
-                summary.add(new String[] {
-                        rs.getString("roll_number"),
-                        rs.getString("name"),
-                        String.valueOf(totalDays),
-                        String.valueOf(presentDays),
-                        String.format("%.2f%%", percentage)
-                });
+        return getAttendanceSummary(null);
+    }
+
+    /**
+     * Every student's totals, counting only attendance inside the term (null = all time)
+     */
+    public List<String[]> getAttendanceSummary(Term term) throws SQLException {
+        return SUMMARY.time(() -> {
+            List<AttendanceArchive.Segment> archived = archivedWithin(term);
+            List<String[]> summary = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = term == null
+                            ? SqlStatement.SUMMARY_ALL.prepare(conn)
+                            : SqlStatement.SUMMARY_TERM_ALL.prepare(conn)) {
+                if (term != null) {
+                    bindTerm(pstmt, 1, term);
+                }
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    summary.add(mapSummary(rs, archived, term));
+                }
             }
+            return summary;
+        });
+    }
+
+    public List<String[]> getAttendanceSummaryPage(String afterRollNumber, int limit) throws SQLException {
+        return getAttendanceSummaryPage(afterRollNumber, limit, null);
+    }
+
+    /**
+     * Keyset page of the summary: up to limit students after the given roll number
+     * (null = first page), counting only attendance inside the term (null = all time)
+     */
+    public List<String[]> getAttendanceSummaryPage(String afterRollNumber, int limit, Term term)
+            throws SQLException {
+        return SUMMARY_PAGE.time(() -> {
+            List<AttendanceArchive.Segment> archived = archivedWithin(term);
+            List<String[]> summary = new ArrayList<>();
+            SqlStatement page;
+            if (term == null) {
+                page = afterRollNumber == null ? SqlStatement.SUMMARY_PAGE_FIRST : SqlStatement.SUMMARY_PAGE_AFTER;
+            } else {
+                page = afterRollNumber == null
+                        ? SqlStatement.SUMMARY_TERM_PAGE_FIRST
+                        : SqlStatement.SUMMARY_TERM_PAGE_AFTER;
+            }
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = page.prepare(conn)) {
+                int i = 1;
+                if (term != null) {
+                    // Once for total_days, once for present_days
+                    i = bindTerm(pstmt, bindTerm(pstmt, i, term), term);
+                }
+                if (afterRollNumber != null) {
+                    pstmt.setString(i++, afterRollNumber);
+                }
+                pstmt.setInt(i, limit);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    summary.add(mapSummary(rs, archived, term));
+                }
+            }
+            return summary;
+        });
+    }
+
+    public Stream<String[]> streamAttendanceSummary() throws SQLException {
+        return streamAttendanceSummary(null);
+    }
+
+    /**
+     * The whole summary over a server-side cursor; close the stream when done.
+     * Only opening the cursor is timed.
+     */
+    public Stream<String[]> streamAttendanceSummary(Term term) throws SQLException {
+        return SUMMARY_STREAM.time(() -> {
+            List<AttendanceArchive.Segment> archived = archivedWithin(term);
+            return term == null
+                    ? JdbcStream.query(SqlStatement.SUMMARY_ALL.sql(), rs -> mapSummary(rs, archived, null))
+                    : JdbcStream.query(SqlStatement.SUMMARY_TERM_ALL.sql(), rs -> mapSummary(rs, archived, term),
+                            Date.valueOf(liveStart(term)), Date.valueOf(term.end()));
+        }, summary -> 0);
+    }
+
+    /**
+     * Bind the live part of a term's [start, end) at index and index + 1; returns the next index
+     */
+    static int bindTerm(PreparedStatement pstmt, int index, Term term) throws SQLException {
+        pstmt.setDate(index, Date.valueOf(liveStart(term)));
+        pstmt.setDate(index + 1, Date.valueOf(term.end()));
+        return index + 2;
+    }
+
+    // Dates before the archive's end come from the segments, even if a live row is left there
+    private static LocalDate liveStart(Term term) throws SQLException {
+        LocalDate liveFrom = AttendanceArchive.liveFrom();
+        return liveFrom != null && liveFrom.isAfter(term.start()) ? liveFrom : term.start();
+    }
+
+    /**
+     * Archived terms overlapping a term; empty for all-time totals, which come from the counters
+     */
+    private static List<AttendanceArchive.Segment> archivedWithin(Term term) throws SQLException {
+        return term == null ? List.of() : AttendanceArchive.overlapping(term);
+    }
+
+    // A term's totals from the database plus whatever of the term is archived
+    private static String[] mapSummary(ResultSet rs, List<AttendanceArchive.Segment> archived, Term term)
+            throws SQLException {
+        int totalDays = rs.getInt("total_days");
+        int presentDays = rs.getInt("present_days");
+        if (!archived.isEmpty()) {
+            int[] counts = AttendanceArchive.count(archived, rs.getString("roll_number"), term);
+            totalDays += counts[0];
+            presentDays += counts[1];
         }
-        return summary;
+        double percentage = totalDays > 0 ? (presentDays * 100.0) / totalDays : 0.0;
+        return new String[] {
+                rs.getString("roll_number"),
+                rs.getString("name"),
+                String.valueOf(totalDays),
+                String.valueOf(presentDays),
+                String.format("%.2f%%", percentage)
+        };
     }
 
-    private void updateStudentTotalClasses(String rollNumber) throws SQLException {
-        String sql = "SELECT COUNT(DISTINCT date) FROM Attendance WHERE roll_number = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, rollNumber);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                studentDAO.updateTotalClasses(rollNumber, rs.getInt(1));
+    /**
+     * Recompute every student's counters from the raw Attendance table plus the archived terms.
+     * Recovery path for when AttendanceCounters has drifted or was never populated.
+     * Returns the number of students with live attendance.
+     */
+    public int rebuildCounters() throws SQLException {
+        return REBUILD.time(() -> {
+            // Live rows left in an archived term would otherwise be counted twice
+            AttendanceArchive.purge();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try (PreparedStatement delete = SqlStatement.COUNTERS_DELETE_ALL.prepare(conn);
+                        PreparedStatement rebuild = SqlStatement.COUNTERS_REBUILD.prepare(conn);
+                        PreparedStatement archived = SqlStatement.COUNTERS_ADD_ARCHIVED.prepare(conn)) {
+                    delete.executeUpdate();
+                    int rows = rebuild.executeUpdate();
+                    AttendanceArchive.forEachTotals((rollNumber, marked, present) -> {
+                        archived.setInt(1, marked);
+                        archived.setInt(2, present);
+                        archived.setInt(3, marked - present);
+                        archived.setString(4, rollNumber);
+                        archived.addBatch();
+                    });
+                    archived.executeBatch();
+                    conn.commit();
+                    StudentDAO.getCache().invalidateAll();
+                    AlertDAO.reevaluate(null, true);
+                    return rows;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
             }
+        });
+    }
+
+    public static int statusCode(String status) {
+        return "PRESENT".equals(status) ? STATUS_PRESENT : STATUS_ABSENT;
+    }
+
+    public static String statusName(int code) {
+        return code == STATUS_PRESENT ? "PRESENT" : "ABSENT";
+    }
+
+    /**
+     * Parse a YYYY-MM-DD date for binding to the DATE column
+     */
+    public static Date toSqlDate(String date) {
+        try {
+            return Date.valueOf(LocalDate.parse(date));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date must be in YYYY-MM-DD format");
+        }
+    }
+
+    /**
+     * Parse the date of a new mark: YYYY-MM-DD, no further back than MARK_HISTORY_YEARS
+     * and no later than MARK_DAYS_AHEAD from today
+     */
+    public static Date toMarkDate(String date) {
+        Date day = toSqlDate(date);
+        if (!isWithinMarkWindow(day.toLocalDate())) {
+            LocalDate today = LocalDate.now();
+            throw new IllegalArgumentException("Date must be between " + today.minusYears(MARK_HISTORY_YEARS)
+                    + " and " + today.plusDays(MARK_DAYS_AHEAD));
         }
+        return day;
+    }
+
+    public static boolean isWithinMarkWindow(LocalDate day) {
+        LocalDate today = LocalDate.now();
+        return !day.isBefore(today.minusYears(MARK_HISTORY_YEARS)) && !day.isAfter(today.plusDays(MARK_DAYS_AHEAD));
+    }
+
+    private static Date toSqlDateOrNull(String date) {
+        try {
+            return toSqlDate(date);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void bindCounterDelta(PreparedStatement pstmt, String rollNumber, String previous, String status)
+            throws SQLException {
+        pstmt.setString(1, rollNumber);
+        pstmt.setInt(2, previous == null ? 1 : 0);
+        pstmt.setInt(3, statusFlag("PRESENT", status) - statusFlag("PRESENT", previous));
+        pstmt.setInt(4, statusFlag("ABSENT", status) - statusFlag("ABSENT", previous));
+    }
+
+    private static int statusFlag(String expected, String status) {
+        return expected.equals(status) ? 1 : 0;
     }
 }
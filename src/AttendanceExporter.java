@@ -0,0 +1,604 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * AttendanceExporter - Streams attendance joined with students to a file in constant memory
+ *
+ * Rows come off a server-side cursor (useCursorFetch, FETCH_SIZE rows per round trip) in
+ * (date, roll number) order and are encoded straight into a pooled direct ByteBuffer,
+ * which is handed to a FileChannel whenever it fills. No row list is ever built. The file
+ * is written as <out>.part and moved into place once complete. Dates in archived terms
+ * come from their segments ahead of the live rows, with names and departments looked up
+ * in the student list, which is the one thing held in memory.
+ *
+ * CSV:    roll_number,name,department,date,status
+ * Binary: columnar blocks of up to BLOCK_ROWS rows; ints are big-endian, varints LEB128
+ *   file    "ATTX", version byte, blocks..., int 0
+ *   block   int rows
+ *           int students, then per student: str roll, str name, str department
+ *           rows x varint student index
+ *           varint runs, then per run of equal dates: zigzag varint epoch-day delta from
+ *           the previous run (the first from 0), varint run length
+ *           (rows + 7) / 8 status bytes: bit i % 8 of byte i / 8 set = row i PRESENT
+ *   str     varint (UTF-8 length + 1), then the bytes; 0 = null
+ *
+ * Usage: java -cp "out:lib/*" AttendanceExporter --out audit.csv [--format csv|binary]
+ *            [--from YYYY-MM-DD] [--to YYYY-MM-DD] [--department D]
+ *        java -cp "out:lib/*" AttendanceExporter --decode audit.attx --out audit.csv
+ */
+public class AttendanceExporter {
+    public enum Format {
+        CSV, BINARY
+    }
+
+    public record Result(long rows, long bytes, double seconds) {
+    }
+
+    static final byte[] MAGIC = { 'A', 'T', 'T', 'X' };
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 65_536;
+
+    // Rows are small, so fetch more per round trip than JdbcStream does
+    private static final int FETCH_SIZE = 5_000;
+    // Bounds for an open end of the range: the full span of a SQL DATE
+    private static final LocalDate FIRST_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+    private static final int BUFFER_BYTES = 256 * 1024;
+    private static final BlockingQueue<ByteBuffer> BUFFERS = new ArrayBlockingQueue<>(4);
+
+    private static final byte[] CSV_HEADER = "roll_number,name,department,date,status\n"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PRESENT = "PRESENT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ABSENT = "ABSENT".getBytes(StandardCharsets.US_ASCII);
+
+    private final Format format;
+    private LocalDate from;
+    private LocalDate to;
+    private String department;
+
+    public AttendanceExporter(Format format) {
+        this.format = format;
+    }
+
+    /**
+     * Inclusive range; either end may be null for no limit
+     */
+    public void setDateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date is after end date");
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Only students of this department (null = all)
+     */
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    // ==================== EXPORT ====================
+
+    public Result export(Path out) throws SQLException, IOException {
+        long start = System.nanoTime();
+        LocalDate first = from != null ? from : FIRST_DATE;
+        LocalDate last = to != null ? to : LAST_DATE;
+        // Dates before liveFrom are read from the archive, the rest from the live table
+        LocalDate liveFrom = AttendanceArchive.liveFrom();
+        Term archived = liveFrom != null && liveFrom.isAfter(first)
+                ? new Term(first, liveFrom.isAfter(last) ? last.plusDays(1) : liveFrom)
+                : null;
+        SqlStatement statement = department == null ? SqlStatement.EXPORT_RANGE : SqlStatement.EXPORT_RANGE_DEPARTMENT;
+
+        long rows;
+        Path part = partFile(out);
+        ByteBuffer buffer = acquireBuffer();
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement pstmt = statement.prepare(conn)) {
+            pstmt.setDate(1, Date.valueOf(archived != null ? archived.end() : first));
+            pstmt.setDate(2, Date.valueOf(last));
+            if (department != null) {
+                pstmt.setString(3, department);
+            }
+            pstmt.setFetchSize(FETCH_SIZE);
+
+            Sink sink = new Sink(channel, buffer);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rows = format == Format.CSV ? writeCsv(archived, rs, sink) : writeBinary(archived, rs, sink);
+            }
+            sink.flush();
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        } finally {
+            releaseBuffer(buffer);
+        }
+        Files.move(part, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Result(rows, Files.size(out), (System.nanoTime() - start) / 1e9);
+    }
+
+    private long writeCsv(Term archived, ResultSet rs, Sink sink) throws SQLException, IOException {
+        sink.put(CSV_HEADER);
+        return writeRows(archived, rs, sink::csvRow);
+    }
+
+    private long writeBinary(Term archived, ResultSet rs, Sink sink) throws SQLException, IOException {
+        sink.put(MAGIC);
+        sink.put((byte) VERSION);
+        Block block = new Block();
+        long rows = writeRows(archived, rs, (roll, name, dept, date, isPresent) -> {
+            block.add(roll, name, dept, date.toEpochDay(), isPresent);
+            if (block.rows == BLOCK_ROWS) {
+                block.writeTo(sink);
+            }
+        });
+        if (block.rows > 0) {
+            block.writeTo(sink);
+        }
+        sink.putInt(0);
+        return rows;
+    }
+
+    /**
+     * The archived part of the range (null = none), then the live rows; every archived
+     * date falls before the live ones, so the output stays in (date, roll number) order
+     */
+    private long writeRows(Term archived, ResultSet rs, RowWriter writer) throws SQLException, IOException {
+        long rows = 0;
+        if (archived != null) {
+            Map<String, Student> students = new HashMap<>();
+            for (Student student : new StudentDAO().getAllStudents()) {
+                if (department == null || department.equals(student.getDepartment())) {
+                    students.put(student.getRollNumber(), student);
+                }
+            }
+            long[] written = new long[1];
+            // forEachMark's visitor cannot throw, so a write error crosses it unchecked
+            try {
+                AttendanceArchive.forEachMark(archived, students::containsKey, (roll, date, isPresent) -> {
+                    Student student = students.get(roll);
+                    try {
+                        writer.row(roll, student.getName(), student.getDepartment(), date, isPresent);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            rows = written[0];
+        }
+        while (rs.next()) {
+            writer.row(rs.getString(1), rs.getString(2), rs.getString(3), rs.getObject(4, LocalDate.class),
+                    rs.getInt(5) == AttendanceDAO.STATUS_PRESENT);
+            rows++;
+        }
+        return rows;
+    }
+
+    // ==================== DECODE ====================
+
+    /**
+     * Convert a binary export to CSV, one block in memory at a time. Returns the row count.
+     */
+    public static long decodeToCsv(Path binary, Path csv) throws IOException {
+        Path part = partFile(csv);
+        ByteBuffer inBuffer = acquireBuffer();
+        ByteBuffer outBuffer = acquireBuffer();
+        long rows = 0;
+        try (FileChannel in = FileChannel.open(binary, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            Source source = new Source(in, inBuffer);
+            byte[] magic = source.bytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC) || source.get() != VERSION) {
+                throw new IOException(binary + " is not an attendance export");
+            }
+            Sink sink = new Sink(out, outBuffer);
+            sink.put(CSV_HEADER);
+            int[] student = new int[BLOCK_ROWS];
+            int count;
+            while ((count = source.getInt()) > 0) {
+                if (count > BLOCK_ROWS) {
+                    throw new IOException(binary + " is corrupt (block of " + count + " rows)");
+                }
+                int students = source.getInt();
+                String[][] dictionary = new String[students][];
+                for (int s = 0; s < students; s++) {
+                    dictionary[s] = new String[] { source.string(), source.string(), source.string() };
+                }
+                for (int r = 0; r < count; r++) {
+                    student[r] = (int) source.varint();
+                }
+                long[] runDay = new long[(int) source.varint()];
+                int[] runLength = new int[runDay.length];
+                long day = 0;
+                for (int r = 0; r < runDay.length; r++) {
+                    long zigzag = source.varint();
+                    day += (zigzag >>> 1) ^ -(zigzag & 1);
+                    runDay[r] = day;
+                    runLength[r] = (int) source.varint();
+                }
+                byte[] status = source.bytes((count + 7) / 8);
+
+                int run = 0;
+                int leftInRun = runLength.length > 0 ? runLength[0] : 0;
+                for (int r = 0; r < count; r++) {
+                    while (leftInRun == 0) {
+                        leftInRun = runLength[++run];
+                    }
+                    leftInRun--;
+                    String[] s = dictionary[student[r]];
+                    sink.csvRow(s[0], s[1], s[2], LocalDate.ofEpochDay(runDay[run]),
+                            (status[r >>> 3] & (1 << (r & 7))) != 0);
+                }
+                rows += count;
+            }
+            sink.flush();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            if (e instanceof IndexOutOfBoundsException) {
+                throw new IOException(binary + " is corrupt", e);
+            }
+            throw e;
+        } finally {
+            releaseBuffer(inBuffer);
+            releaseBuffer(outBuffer);
+        }
+        Files.move(part, csv, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    // ==================== BUFFERS ====================
+
+    private static ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = BUFFERS.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_BYTES);
+    }
+
+    private static void releaseBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        BUFFERS.offer(buffer);
+    }
+
+    private static Path partFile(Path out) throws IOException {
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return out.resolveSibling(out.getFileName() + ".part");
+    }
+
+    private interface RowWriter {
+        void row(String roll, String name, String department, LocalDate date, boolean isPresent) throws IOException;
+    }
+
+    /**
+     * One binary block being collected: a student dictionary plus the three row columns
+     */
+    private static final class Block {
+        int rows;
+        final int[] student = new int[BLOCK_ROWS];
+        final long[] present = new long[BLOCK_ROWS / 64];
+        final long[] runDay = new long[BLOCK_ROWS];
+        final int[] runLength = new int[BLOCK_ROWS];
+        int runs;
+        final Map<String, Integer> index = new HashMap<>();
+        final List<String[]> dictionary = new ArrayList<>();
+
+        void add(String roll, String name, String department, long day, boolean isPresent) {
+            Integer id = index.get(roll);
+            if (id == null) {
+                id = dictionary.size();
+                index.put(roll, id);
+                dictionary.add(new String[] { roll, name, department });
+            }
+            student[rows] = id;
+            if (isPresent) {
+                present[rows >>> 6] |= 1L << (rows & 63);
+            }
+            if (runs > 0 && runDay[runs - 1] == day) {
+                runLength[runs - 1]++;
+            } else {
+                runDay[runs] = day;
+                runLength[runs] = 1;
+                runs++;
+            }
+            rows++;
+        }
+
+        void writeTo(Sink sink) throws IOException {
+            sink.putInt(rows);
+            sink.putInt(dictionary.size());
+            for (String[] s : dictionary) {
+                sink.string(s[0]);
+                sink.string(s[1]);
+                sink.string(s[2]);
+            }
+            for (int r = 0; r < rows; r++) {
+                sink.varint(student[r]);
+            }
+            sink.varint(runs);
+            long previous = 0;
+            for (int r = 0; r < runs; r++) {
+                long delta = runDay[r] - previous;
+                sink.varint((delta << 1) ^ (delta >> 63));
+                sink.varint(runLength[r]);
+                previous = runDay[r];
+            }
+            for (int b = 0; b < (rows + 7) / 8; b++) {
+                sink.put((byte) (present[b >>> 3] >>> ((b & 7) * 8)));
+            }
+
+            rows = 0;
+            runs = 0;
+            Arrays.fill(present, 0);
+            index.clear();
+            dictionary.clear();
+        }
+    }
+
+    /**
+     * Encodes into a direct buffer and drains it to the channel whenever it fills
+     */
+    private static final class Sink {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        Sink(FileChannel channel, ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void csvRow(String roll, String name, String department, LocalDate date, boolean isPresent)
+                throws IOException {
+            csvField(roll);
+            put((byte) ',');
+            csvField(name);
+            put((byte) ',');
+            csvField(department);
+            put((byte) ',');
+            ensure(11);
+            digits(date.getYear(), 4);
+            buffer.put((byte) '-');
+            digits(date.getMonthValue(), 2);
+            buffer.put((byte) '-');
+            digits(date.getDayOfMonth(), 2);
+            put((byte) ',');
+            put(isPresent ? PRESENT : ABSENT);
+            put((byte) '\n');
+        }
+
+        private void csvField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                utf8(value);
+                return;
+            }
+            put((byte) '"');
+            utf8(value.replace("\"", "\"\""));
+            put((byte) '"');
+        }
+
+        private void digits(int value, int width) {
+            int at = buffer.position();
+            for (int i = width - 1; i >= 0; i--) {
+                buffer.put(at + i, (byte) ('0' + value % 10));
+                value /= 10;
+            }
+            buffer.position(at + width);
+        }
+
+        void string(String value) throws IOException {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            put(bytes);
+        }
+
+        void varint(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void put(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void put(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int n = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        // ASCII is copied char by char; anything else goes through the UTF-8 encoder
+        private void utf8(String value) throws IOException {
+            ensure(value.length());
+            int start = buffer.position();
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    buffer.position(start);
+                    put(value.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                buffer.put((byte) c);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads a binary export through a direct buffer, refilling it from the channel
+     */
+    private static final class Source {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        Source(FileChannel channel, ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+            buffer.limit(0);
+        }
+
+        byte get() throws IOException {
+            require(1);
+            return buffer.get();
+        }
+
+        int getInt() throws IOException {
+            require(4);
+            return buffer.getInt();
+        }
+
+        long varint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        String string() throws IOException {
+            long length = varint();
+            return length == 0 ? null : new String(bytes((int) (length - 1)), StandardCharsets.UTF_8);
+        }
+
+        byte[] bytes(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                require(1);
+                int n = Math.min(buffer.remaining(), length - offset);
+                buffer.get(bytes, offset, n);
+                offset += n;
+            }
+            return bytes;
+        }
+
+        private void require(int bytes) throws IOException {
+            while (buffer.remaining() < bytes) {
+                buffer.compact();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    throw new IOException("Unexpected end of export file");
+                }
+            }
+        }
+    }
+
+    // ==================== COMMAND LINE ====================
+
+    public static void main(String[] args) {
+        Format format = Format.CSV;
+        Path out = null;
+        Path decode = null;
+        LocalDate from = null;
+        LocalDate to = null;
+        String department = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--out" -> out = Path.of(args[++i]);
+                    case "--format" -> format = Format.valueOf(args[++i].toUpperCase());
+                    case "--from" -> from = AttendanceDAO.toSqlDate(args[++i]).toLocalDate();
+                    case "--to" -> to = AttendanceDAO.toSqlDate(args[++i]).toLocalDate();
+                    case "--department" -> department = args[++i];
+                    case "--decode" -> decode = Path.of(args[++i]);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            out = null;
+        }
+        if (out == null) {
+            System.out.println("Usage: AttendanceExporter --out FILE [--format csv|binary] [--from YYYY-MM-DD]"
+                    + " [--to YYYY-MM-DD] [--department D]");
+            System.out.println("       AttendanceExporter --decode FILE.attx --out FILE.csv");
+            return;
+        }
+
+        try {
+            if (decode != null) {
+                long start = System.nanoTime();
+                long rows = decodeToCsv(decode, out);
+                System.out.printf("Decoded %,d rows to %s in %.1f s%n", rows, out, (System.nanoTime() - start) / 1e9);
+                return;
+            }
+            DatabaseConnection.initializeDatabase();
+            AttendanceExporter exporter = new AttendanceExporter(format);
+            exporter.setDateRange(from, to);
+            exporter.setDepartment(department);
+            Result result = exporter.export(out);
+            System.out.printf("Exported %,d rows (%,d bytes) to %s in %.1f s (%,.0f rows/s)%n",
+                    result.rows(), result.bytes(), out, result.seconds(), result.rows() / result.seconds());
+        } catch (IllegalArgumentException | SQLException | IOException e) {
+            System.out.println("Export failed: " + e.getMessage());
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+}
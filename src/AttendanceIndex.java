@@ -0,0 +1,603 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * AttendanceIndex - In-memory bitmap index over the Attendance table and the archived terms
+ *
+ * Each student gets two bitmaps over day ordinals (days since the earliest recorded date):
+ * one for days marked and one for days present. Each day gets the same pair over student
+ * ordinals, so per-student and per-date questions become bitmap counts instead of SQL aggregates.
+ *
+ * Bitmaps are java.util.BitSet over dense ordinals: a term of ~200 days fits in four
+ * 64-bit words per bitmap, so nothing is gained from run or array containers at this scale.
+ *
+ * Students' all-time percentages are also kept in an AttendanceRanking for rank,
+ * percentile and top-k questions; every recorded mark re-ranks its student.
+ *
+ * The index is built in the background at startup and kept current by the DAOs after each
+ * committed write. Until it is ready, callers fall back to SQL. Writers commit through
+ * commit(), which holds a lock per stripe of roll numbers across the commit and the index
+ * update, so two marks of the same student reach the index in the order they committed.
+ * Marks dated outside AttendanceDAO's marking window are never indexed.
+ */
+public class AttendanceIndex {
+    private static final AttendanceIndex INSTANCE = new AttendanceIndex();
+
+    // Rough JVM object costs used for the memory estimate
+    private static final int BITSET_OVERHEAD_BYTES = 40;
+    private static final int STUDENT_ENTRY_BYTES = 160;
+    private static final int BUILD_CHUNK_ROWS = 10_000;
+    private static final int COMMIT_STRIPES = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] commitLocks = new ReentrantLock[COMMIT_STRIPES];
+
+    private LocalDate baseDate;
+    private final TreeMap<String, Integer> ordinals = new TreeMap<>();
+    private final List<StudentEntry> students = new ArrayList<>();
+    private final List<BitSet> dayMarked = new ArrayList<>();
+    private final List<BitSet> dayPresent = new ArrayList<>();
+    private final AttendanceRanking ranking = new AttendanceRanking();
+
+    private volatile boolean ready = false;
+    private boolean building = false;
+    private final List<Runnable> pending = new ArrayList<>();
+
+    private AttendanceIndex() {
+        for (int i = 0; i < COMMIT_STRIPES; i++) {
+            commitLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public static AttendanceIndex getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ==================== BUILD ====================
+
+    /**
+     * Build the index on a background thread; DAOs keep using SQL until it is ready
+     */
+    public void buildAsync() {
+        Thread t = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (SQLException e) {
+                System.err.println("Attendance index build failed: " + e.getMessage());
+            }
+        }, "attendify-index-build");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Load every student and attendance record from the database.
+     * Writes that commit during the scan are queued and replayed afterwards.
+     */
+    public void rebuild() throws SQLException {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                return;
+            }
+            building = true;
+            ready = false;
+            pending.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        boolean success = false;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            LocalDate minDate = null;
+            try (Statement stmt = conn.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT MIN(date), MAX(date) FROM Attendance")) {
+                if (rs.next() && rs.getDate(1) != null) {
+                    minDate = rs.getDate(1).toLocalDate();
+                    LocalDate maxDate = rs.getDate(2).toLocalDate();
+                    if (maxDate.isAfter(LocalDate.now().plusDays(AttendanceDAO.MARK_DAYS_AHEAD))) {
+                        System.err.println("Attendance index disabled: mark dated " + maxDate
+                                + " is past the marking window");
+                        return;
+                    }
+                }
+            }
+            LocalDate archivedFrom = AttendanceArchive.firstDay();
+            LocalDate liveFrom = AttendanceArchive.liveFrom();
+            if (archivedFrom != null && (minDate == null || archivedFrom.isBefore(minDate))) {
+                minDate = archivedFrom;
+            }
+
+            lock.writeLock().lock();
+            try {
+                clear();
+                baseDate = minDate != null ? minDate : LocalDate.now();
+                try (Statement stmt = conn.createStatement();
+                        ResultSet rs = stmt.executeQuery("SELECT roll_number, name, department FROM Student")) {
+                    while (rs.next()) {
+                        register(new StudentEntry(rs.getString("roll_number"), rs.getString("name"),
+                                rs.getString("department")));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            // Apply the scan in chunks so DAO writes only queue briefly behind the builder
+            List<Object[]> chunk = new ArrayList<>(BUILD_CHUNK_ROWS);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setFetchSize(BUILD_CHUNK_ROWS);
+                try (ResultSet rs = stmt.executeQuery("SELECT roll_number, date, status FROM Attendance")) {
+                    while (rs.next()) {
+                        LocalDate date = rs.getDate("date").toLocalDate();
+                        // Rows a crashed archive run left behind are read from the segments instead
+                        if (liveFrom != null && date.isBefore(liveFrom)) {
+                            continue;
+                        }
+                        chunk.add(new Object[] {
+                                rs.getString("roll_number"),
+                                date,
+                                AttendanceDAO.statusName(rs.getInt("status"))
+                        });
+                        if (chunk.size() == BUILD_CHUNK_ROWS) {
+                            applyChunk(chunk);
+                        }
+                    }
+                }
+            }
+            applyChunk(chunk);
+            // Archived terms last
+            AttendanceArchive.forEachMark((rollNumber, date, present) -> {
+                chunk.add(new Object[] { rollNumber, date, present ? "PRESENT" : "ABSENT" });
+                if (chunk.size() == BUILD_CHUNK_ROWS) {
+                    applyChunk(chunk);
+                }
+            });
+            applyChunk(chunk);
+
+            lock.writeLock().lock();
+            try {
+                for (StudentEntry entry : students) {
+                    if (entry != null) {
+                        rank(entry);
+                    }
+                }
+                for (Runnable op : pending) {
+                    op.run();
+                }
+                success = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (DateTimeParseException e) {
+            System.err.println("Attendance index disabled: unparseable date " + e.getParsedString());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending.clear();
+                building = false;
+                ready = success;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // ==================== WRITE HOOKS ====================
+
+    /**
+     * Commit a transaction that marks the given students, then run its index updates
+     * before any later commit for those students can run its own. Rolls may repeat.
+     */
+    public void commit(Connection conn, Collection<String> rollNumbers, Consumer<AttendanceIndex> updates)
+            throws SQLException {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (String rollNumber : rollNumbers) {
+            stripes.add((rollNumber.hashCode() & 0x7fffffff) % COMMIT_STRIPES);
+        }
+        // Always taken in ascending order, so batches sharing stripes cannot deadlock
+        List<ReentrantLock> held = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                commitLocks[stripe].lock();
+                held.add(commitLocks[stripe]);
+            }
+            conn.commit();
+            updates.accept(this);
+        } finally {
+            for (ReentrantLock stripeLock : held) {
+                stripeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Record a committed attendance mark
+     */
+    public void recordMark(String rollNumber, String date, String status) {
+        LocalDate day = parseDate(date);
+        if (day == null || !AttendanceDAO.isWithinMarkWindow(day)) {
+            // Not a mark the DAOs accept: drop the index rather than grow it to fit
+            invalidate();
+            return;
+        }
+        mutate(() -> {
+            apply(rollNumber, day, status);
+            StudentEntry entry = entry(rollNumber);
+            if (entry != null) {
+                rank(entry);
+            }
+        });
+    }
+
+    public void putStudent(String rollNumber, String name, String department) {
+        mutate(() -> {
+            Integer ordinal = ordinals.get(rollNumber);
+            if (ordinal == null) {
+                register(new StudentEntry(rollNumber, name, department));
+                return;
+            }
+            StudentEntry entry = students.get(ordinal);
+            if (name != null) {
+                entry.name = name;
+            }
+            if (department != null) {
+                entry.department = department;
+            }
+        });
+    }
+
+    public void removeStudent(String rollNumber) {
+        mutate(() -> {
+            Integer ordinal = ordinals.remove(rollNumber);
+            if (ordinal == null) {
+                return;
+            }
+            StudentEntry entry = students.get(ordinal);
+            ranking.remove(rollNumber);
+            for (int day = entry.marked.nextSetBit(0); day >= 0; day = entry.marked.nextSetBit(day + 1)) {
+                dayMarked.get(day).clear(ordinal);
+                dayPresent.get(day).clear(ordinal);
+            }
+            students.set(ordinal, null);
+        });
+    }
+
+    /**
+     * Drop the index until the next rebuild (e.g. after bulk writes that bypass the DAOs)
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            if (!building) {
+                ready = false;
+                clear();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void mutate(Runnable op) {
+        lock.writeLock().lock();
+        try {
+            if (building) {
+                pending.add(op);
+            } else if (ready) {
+                op.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Returns { total, present, absent } for one student, or null if the index is not ready
+     */
+    public int[] getStats(String rollNumber) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            StudentEntry entry = entry(rollNumber);
+            if (entry == null) {
+                return new int[] { 0, 0, 0 };
+            }
+            int total = entry.marked.cardinality();
+            int present = entry.present.cardinality();
+            return new int[] { total, present, total - present };
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same rows as AttendanceDAO.getAttendanceByDate: { roll, name, status } ordered by roll number
+     */
+    public List<String[]> getAttendanceByDate(String date) {
+        LocalDate parsed = parseDate(date);
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready || parsed == null) {
+                return null;
+            }
+            int day = dayOrdinal(parsed);
+            BitSet marked = dayBits(dayMarked, day);
+            BitSet present = dayBits(dayPresent, day);
+            List<String[]> records = new ArrayList<>();
+            for (Map.Entry<String, Integer> e : ordinals.entrySet()) {
+                int ordinal = e.getValue();
+                String status = !marked.get(ordinal) ? "NOT MARKED" : present.get(ordinal) ? "PRESENT" : "ABSENT";
+                records.add(new String[] { e.getKey(), students.get(ordinal).name, status });
+            }
+            return records;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Feed every student's totals to a dashboard aggregator in one pass, counting only days
+     * inside the term when one is given. Returns false (nothing fed) while the index is not ready.
+     */
+    boolean aggregate(HodDashboard.Aggregator aggregator, Term term) {
+        if (!ready) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return false;
+            }
+            int from = term == null ? 0 : Math.max(0, dayOrdinal(term.start()));
+            int to = term == null ? Integer.MAX_VALUE : Math.max(from, dayOrdinal(term.end()));
+            for (StudentEntry entry : students) {
+                if (entry == null) {
+                    continue;
+                }
+                if (term == null) {
+                    aggregator.add(entry.department, entry.marked.cardinality(), entry.present.cardinality());
+                } else {
+                    aggregator.add(entry.department, entry.marked.get(from, to).cardinality(),
+                            entry.present.get(from, to).cardinality());
+                }
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * { position, roll, name, department, percentage } for positions [offset, offset + limit)
+     * of the ranking, lowest or highest attendance first; null while the index is not ready
+     */
+    public AttendanceRanking.Page getRankingPage(boolean lowestFirst, int offset, int limit) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            int total = ranking.size();
+            if (lowestFirst) {
+                return new AttendanceRanking.Page(rankingRows(ranking.slice(offset, limit), offset), total);
+            }
+            // Highest first is the ascending order read backwards
+            int end = Math.max(0, total - offset);
+            int from = Math.max(0, end - limit);
+            List<String> rolls = new ArrayList<>(ranking.slice(from, end - from));
+            Collections.reverse(rolls);
+            return new AttendanceRanking.Page(rankingRows(rolls, offset), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Students between two percentages (both inclusive), lowest first, same rows as
+     * getRankingPage; null while the index is not ready
+     */
+    public AttendanceRanking.Page getRangePage(double fromPercentage, double toPercentage, int offset, int limit) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            int[] range = ranking.positions(fromPercentage, toPercentage);
+            int count = Math.max(0, Math.min(limit, range[1] - range[0] - offset));
+            return new AttendanceRanking.Page(rankingRows(ranking.slice(range[0] + offset, count), offset),
+                    range[1] - range[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rank and percentile of one student (rank 0 if not ranked, name null if unknown);
+     * null while the index is not ready
+     */
+    public AttendanceRanking.Standing getStanding(String rollNumber) {
+        if (!ready) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return null;
+            }
+            StudentEntry entry = entry(rollNumber);
+            int bucket = ranking.bucketOf(rollNumber);
+            int ranked = ranking.size();
+            if (entry == null || bucket < 0) {
+                return new AttendanceRanking.Standing(rollNumber, entry == null ? null : entry.name,
+                        entry == null ? null : entry.department, 0.0, 0, ranked, 0.0);
+            }
+            return new AttendanceRanking.Standing(rollNumber, entry.name, entry.department, bucket / 100.0,
+                    ranking.rankOf(bucket), ranked, ranking.countBelow(bucket) * 100.0 / ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<String[]> rankingRows(List<String> rolls, int offset) {
+        List<String[]> rows = new ArrayList<>(rolls.size());
+        for (String rollNumber : rolls) {
+            StudentEntry entry = entry(rollNumber);
+            rows.add(new String[] { String.valueOf(offset + rows.size() + 1), rollNumber, entry.name,
+                    entry.department, AttendanceRanking.format(ranking.bucketOf(rollNumber)) });
+        }
+        return rows;
+    }
+
+    // ==================== MEMORY ====================
+
+    /**
+     * Approximate heap used by the index right now
+     */
+    public long estimateMemoryBytes() {
+        lock.readLock().lock();
+        try {
+            return estimateMemoryBytes(ordinals.size(), dayMarked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate heap for a given scale, e.g. 10,000 students x 200 days is about 3.5 MB:
+     * two per-student bitmaps of 4 words, two per-day bitmaps of 157 words, plus the roll number map
+     */
+    public static long estimateMemoryBytes(int studentCount, int dayCount) {
+        long studentWords = (dayCount + 63) / 64;
+        long dayWords = (studentCount + 63) / 64;
+        long perStudent = STUDENT_ENTRY_BYTES + 2 * (BITSET_OVERHEAD_BYTES + 8 * studentWords);
+        long perDay = 2 * (BITSET_OVERHEAD_BYTES + 8 * dayWords);
+        return studentCount * perStudent + dayCount * perDay;
+    }
+
+    // ==================== INTERNALS ====================
+
+    private void clear() {
+        ordinals.clear();
+        students.clear();
+        dayMarked.clear();
+        dayPresent.clear();
+        ranking.clear();
+    }
+
+    private void applyChunk(List<Object[]> chunk) {
+        lock.writeLock().lock();
+        try {
+            for (Object[] m : chunk) {
+                apply((String) m[0], (LocalDate) m[1], (String) m[2]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        chunk.clear();
+    }
+
+    private void register(StudentEntry entry) {
+        int ordinal = students.size();
+        students.add(entry);
+        ordinals.put(entry.rollNumber, ordinal);
+    }
+
+    private void apply(String rollNumber, LocalDate date, String status) {
+        Integer ordinal = ordinals.get(rollNumber);
+        int day = dayOrdinal(date);
+        if (ordinal == null) {
+            return;
+        }
+        if (day < 0) {
+            // Earlier than anything indexed: drop the index and re-base it
+            if (!building) {
+                ready = false;
+                buildAsync();
+            }
+            return;
+        }
+        StudentEntry entry = students.get(ordinal);
+        boolean present = "PRESENT".equals(status);
+        entry.marked.set(day);
+        entry.present.set(day, present);
+        while (dayMarked.size() <= day) {
+            dayMarked.add(new BitSet());
+            dayPresent.add(new BitSet());
+        }
+        dayMarked.get(day).set(ordinal);
+        dayPresent.get(day).set(ordinal, present);
+    }
+
+    private static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private int dayOrdinal(LocalDate date) {
+        return (int) (date.toEpochDay() - baseDate.toEpochDay());
+    }
+
+    private BitSet dayBits(List<BitSet> days, int day) {
+        return day >= 0 && day < days.size() ? days.get(day) : new BitSet();
+    }
+
+    // Called with the write lock held
+    private void rank(StudentEntry entry) {
+        ranking.update(entry.rollNumber, entry.marked.cardinality(), entry.present.cardinality());
+    }
+
+    private StudentEntry entry(String rollNumber) {
+        Integer ordinal = ordinals.get(rollNumber);
+        return ordinal == null ? null : students.get(ordinal);
+    }
+
+    private static final class StudentEntry {
+        final String rollNumber;
+        String name;
+        String department;
+        final BitSet marked = new BitSet();
+        final BitSet present = new BitSet();
+
+        StudentEntry(String rollNumber, String name, String department) {
+            this.rollNumber = rollNumber;
+            this.name = name;
+            this.department = department;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AttendancePartitions - Monthly range partitions of the Attendance table (MySQL only)
+ *
+ * Attendance is partitioned by RANGE COLUMNS(date): p_history holds everything before the
+ * first month, one pYYYYMM partition per month follows, and p_future (MAXVALUE) catches
+ * anything past the last one. A query bounded by a term's dates therefore reads only that
+ * term's months. The term rollover splits p_future ahead of time, so marks for the next
+ * term land in their own partitions rather than in p_future.
+ *
+ * MySQL requires every unique key of a partitioned table to include the partitioning
+ * column and does not allow foreign keys on it: the primary key is (id, date). In their place,
+ * every transaction writing marks share-locks the students' rows (StudentDAO.lockExisting) and
+ * deleteStudent locks the row for update, so marks cannot outlive their student.
+ *
+ * On the embedded backend every method is a no-op; term queries use the date index there.
+ */
+public final class AttendancePartitions {
+    public static final String HISTORY = "p_history";
+    public static final String FUTURE = "p_future";
+
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final Metrics.Operation ENSURE = Metrics.operation("AttendancePartitions.ensureThrough");
+    private static final Metrics.Operation LIST = Metrics.operation("AttendancePartitions.list");
+
+    private AttendancePartitions() {
+    }
+
+    /**
+     * One partition: the dates it holds [from, until) (null = unbounded) and its estimated row count
+     */
+    public record Partition(String name, LocalDate from, LocalDate until, long rows) {
+    }
+
+    /**
+     * Partition Attendance by month (migration V7): from the month of its earliest mark
+     * through the end of the term after the current one. Safe to re-run.
+     */
+    static void partition(Connection conn) throws SQLException {
+        if (!DatabaseConnection.getBackend().supportsPartitioning() || isPartitioned(conn)) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            List<String> foreignKeys = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery("""
+                        SELECT CONSTRAINT_NAME FROM information_schema.TABLE_CONSTRAINTS
+                        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Attendance'
+                            AND CONSTRAINT_TYPE = 'FOREIGN KEY'
+                    """)) {
+                while (rs.next()) {
+                    foreignKeys.add(rs.getString(1));
+                }
+            }
+            for (String foreignKey : foreignKeys) {
+                stmt.execute("ALTER TABLE Attendance DROP FOREIGN KEY " + foreignKey);
+            }
+
+            LocalDate first = null;
+            LocalDate last = null;
+            try (ResultSet rs = stmt.executeQuery("SELECT MIN(date), MAX(date) FROM Attendance")) {
+                if (rs.next() && rs.getDate(1) != null) {
+                    first = rs.getDate(1).toLocalDate();
+                    last = rs.getDate(2).toLocalDate();
+                }
+            }
+            LocalDate today = LocalDate.now();
+            if (first == null || first.isAfter(today)) {
+                first = Term.current().start();
+            }
+            if (last == null || last.isBefore(today)) {
+                last = today;
+            }
+            Term through = Term.containing(last).next();
+
+            List<String> partitions = new ArrayList<>();
+            partitions.add(definition(HISTORY, YearMonth.from(first).atDay(1)));
+            partitions.addAll(monthDefinitions(YearMonth.from(first), YearMonth.from(through.end().minusDays(1))));
+            partitions.add("PARTITION " + FUTURE + " VALUES LESS THAN (MAXVALUE)");
+
+            stmt.execute("ALTER TABLE Attendance DROP PRIMARY KEY, ADD PRIMARY KEY (id, date)");
+            stmt.execute("ALTER TABLE Attendance PARTITION BY RANGE COLUMNS(date) (\n    "
+                    + String.join(",\n    ", partitions) + "\n)");
+        }
+    }
+
+    /**
+     * Create monthly partitions so that every month of the term has its own; returns how many were added
+     */
+    public static int ensureThrough(Term term) throws SQLException {
+        return ENSURE.time(() -> {
+            if (!DatabaseConnection.getBackend().supportsPartitioning()) {
+                return 0;
+            }
+            List<Partition> partitions = list();
+            LocalDate covered = null;
+            for (Partition partition : partitions) {
+                if (partition.until() != null) {
+                    covered = partition.until();
+                }
+            }
+            if (covered == null) {
+                throw new SQLException("Attendance is not partitioned; run the schema migration first");
+            }
+
+            YearMonth from = YearMonth.from(covered);
+            YearMonth through = YearMonth.from(term.end().minusDays(1));
+            List<String> months = monthDefinitions(from, through);
+            if (!months.isEmpty()) {
+                months.add("PARTITION " + FUTURE + " VALUES LESS THAN (MAXVALUE)");
+                try (Connection conn = DatabaseConnection.getConnection();
+                        Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE Attendance REORGANIZE PARTITION " + FUTURE + " INTO (\n    "
+                            + String.join(",\n    ", months) + "\n)");
+                }
+            }
+            return Math.max(0, months.size() - 1);
+        });
+    }
+
+    /**
+     * Term rollover: partitions for every month of the next term; returns how many were added
+     */
+    public static int rollover() throws SQLException {
+        return ensureThrough(Term.current().next());
+    }
+
+    /**
+     * Empty the monthly partitions lying wholly inside a term (after it is archived); returns how many
+     */
+    static int truncateWithin(Term term) throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (Partition partition : list()) {
+            if (partition.from() != null && partition.until() != null && !partition.from().isBefore(term.start())
+                    && !partition.until().isAfter(term.end())) {
+                names.add(partition.name());
+            }
+        }
+        if (!names.isEmpty()) {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    Statement stmt = conn.createStatement()) {
+                stmt.execute("ALTER TABLE Attendance TRUNCATE PARTITION " + String.join(", ", names));
+            }
+        }
+        return names.size();
+    }
+
+    /**
+     * Attendance partitions in order, with the engine's row estimates (empty on the embedded backend)
+     */
+    public static List<Partition> list() throws SQLException {
+        return LIST.time(() -> {
+            List<Partition> partitions = new ArrayList<>();
+            if (DatabaseConnection.getBackend().supportsPartitioning()) {
+                try (Connection conn = DatabaseConnection.getConnection();
+                        Statement stmt = conn.createStatement();
+                        ResultSet rs = stmt.executeQuery("""
+                                SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS
+                                FROM information_schema.PARTITIONS
+                                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Attendance'
+                                    AND PARTITION_NAME IS NOT NULL
+                                ORDER BY PARTITION_ORDINAL_POSITION
+                            """)) {
+                    LocalDate from = null;
+                    while (rs.next()) {
+                        String bound = rs.getString("PARTITION_DESCRIPTION").replace("'", "").trim();
+                        LocalDate until = bound.equalsIgnoreCase("MAXVALUE") ? null : LocalDate.parse(bound);
+                        partitions.add(new Partition(rs.getString("PARTITION_NAME"), from, until,
+                                rs.getLong("TABLE_ROWS")));
+                        from = until;
+                    }
+                }
+            }
+            return partitions;
+        });
+    }
+
+    private static boolean isPartitioned(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("""
+                        SELECT COUNT(*) FROM information_schema.PARTITIONS
+                        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'Attendance'
+                            AND PARTITION_NAME IS NOT NULL
+                    """)) {
+            return rs.next() && rs.getInt(1) > 0;
+        }
+    }
+
+    private static List<String> monthDefinitions(YearMonth from, YearMonth through) {
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(through); month = month.plusMonths(1)) {
+            definitions.add(definition(month.format(MONTH_NAME), month.plusMonths(1).atDay(1)));
+        }
+        return definitions;
+    }
+
+    private static String definition(String name, LocalDate until) {
+        return "PARTITION " + name + " VALUES LESS THAN ('" + until + "')";
+    }
+}
@@ -0,0 +1,195 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * AttendanceRanking - Order statistics over students' attendance percentages
+ *
+ * Each student with at least one mark sits in one of 10,001 buckets, the percentage in
+ * basis points (0 = 0.00%, 10000 = 100.00%). A Fenwick tree over the bucket counts gives
+ * "how many are below p" in O(log buckets), which answers rank and percentile at once,
+ * and finds the bucket holding the n-th student by binary lifting, so a page can start
+ * anywhere in the order without walking the students before it. Each bucket keeps its
+ * roll numbers in a sorted list, which breaks ties and lets a page start at an index
+ * inside the bucket instead of stepping over the students before it.
+ *
+ * Order is ascending by (bucket, roll number); position 0 is the lowest attendance.
+ * Students with no marks have no percentage and are not ranked.
+ *
+ * Not thread-safe: AttendanceIndex owns the instance and calls it under its own lock.
+ */
+public final class AttendanceRanking {
+    static final int BUCKETS = 10_001;
+    private static final int TOP_BIT = Integer.highestOneBit(BUCKETS);
+
+    // Fenwick tree over bucket counts, 1-based: tree[b + 1] covers bucket b
+    private final int[] tree = new int[BUCKETS + 1];
+    private final Map<String, Integer> bucketOf = new HashMap<>();
+    private final TreeMap<Integer, List<String>> members = new TreeMap<>();
+
+    /**
+     * Where one student stands: rank 1 is the highest attendance (ties share a rank), and
+     * percentile is the share of ranked students with a lower percentage
+     */
+    public record Standing(String rollNumber, String name, String department, double percentage, int rank,
+            int ranked, double percentile) {
+    }
+
+    /**
+     * One page of a ranking: its rows and how many students the whole list holds
+     */
+    public record Page(List<String[]> rows, int total) {
+    }
+
+    /**
+     * Basis points for { marked, present }, or -1 when the student has no marks
+     */
+    static int bucket(int marked, int present) {
+        return marked == 0 ? -1 : (int) Math.round(present * 10000.0 / marked);
+    }
+
+    /**
+     * First bucket at or above a percentage
+     */
+    static int lowBucket(double percentage) {
+        return (int) Math.max(0, Math.ceil(percentage * 100 - 1e-9));
+    }
+
+    /**
+     * Last bucket at or below a percentage
+     */
+    static int highBucket(double percentage) {
+        return (int) Math.min(BUCKETS - 1, Math.floor(percentage * 100 + 1e-9));
+    }
+
+    static String format(int bucket) {
+        return String.format("%.2f%%", bucket / 100.0);
+    }
+
+    // ==================== UPDATES ====================
+
+    /**
+     * Move a student to the bucket for their current totals
+     */
+    void update(String rollNumber, int marked, int present) {
+        int bucket = bucket(marked, present);
+        Integer previous = bucketOf.get(rollNumber);
+        if (previous != null && previous == bucket) {
+            return;
+        }
+        remove(rollNumber);
+        if (bucket >= 0) {
+            bucketOf.put(rollNumber, bucket);
+            List<String> rolls = members.computeIfAbsent(bucket, b -> new ArrayList<>());
+            rolls.add(-Collections.binarySearch(rolls, rollNumber) - 1, rollNumber);
+            add(bucket, 1);
+        }
+    }
+
+    void remove(String rollNumber) {
+        Integer previous = bucketOf.remove(rollNumber);
+        if (previous == null) {
+            return;
+        }
+        List<String> rolls = members.get(previous);
+        rolls.remove(Collections.binarySearch(rolls, rollNumber));
+        if (rolls.isEmpty()) {
+            members.remove(previous);
+        }
+        add(previous, -1);
+    }
+
+    void clear() {
+        Arrays.fill(tree, 0);
+        bucketOf.clear();
+        members.clear();
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Ranked students
+     */
+    int size() {
+        return bucketOf.size();
+    }
+
+    /**
+     * Students in buckets [0, bucket)
+     */
+    int countBelow(int bucket) {
+        int count = 0;
+        for (int i = Math.min(bucket, BUCKETS); i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * A student's bucket, or -1 if they are not ranked
+     */
+    int bucketOf(String rollNumber) {
+        return bucketOf.getOrDefault(rollNumber, -1);
+    }
+
+    /**
+     * Rank from the top: 1 + the students in a higher bucket
+     */
+    int rankOf(int bucket) {
+        return size() - countBelow(bucket + 1) + 1;
+    }
+
+    /**
+     * Ascending positions [start, end) of the students between two percentages, both inclusive
+     */
+    int[] positions(double fromPercentage, double toPercentage) {
+        int start = countBelow(lowBucket(fromPercentage));
+        int high = highBucket(toPercentage);
+        return new int[] { start, Math.max(start, countBelow(high + 1)) };
+    }
+
+    /**
+     * Roll numbers at ascending positions [from, from + count), clipped to the ranked students
+     */
+    List<String> slice(int from, int count) {
+        List<String> rolls = new ArrayList<>();
+        if (from < 0 || from >= size() || count <= 0) {
+            return rolls;
+        }
+        int bucket = bucketAt(from);
+        int skip = from - countBelow(bucket);
+        for (List<String> rollsInBucket : members.tailMap(bucket, true).values()) {
+            int end = Math.min(rollsInBucket.size(), skip + count - rolls.size());
+            rolls.addAll(rollsInBucket.subList(skip, end));
+            if (rolls.size() == count) {
+                break;
+            }
+            skip = 0;
+        }
+        return rolls;
+    }
+
+    // The bucket holding an ascending position: the largest b with countBelow(b) <= position
+    private int bucketAt(int position) {
+        int index = 0;
+        int remaining = position;
+        for (int step = TOP_BIT; step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= BUCKETS && tree[next] <= remaining) {
+                index = next;
+                remaining -= tree[next];
+            }
+        }
+        return index;
+    }
+
+    private void add(int bucket, int delta) {
+        for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+}
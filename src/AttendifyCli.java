@@ -0,0 +1,544 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * AttendifyCli - Non-interactive commands for scripts and scheduled jobs
+ *
+ * Each command calls the DAOs directly: no prompts, screens or pauses. Results go to
+ * stdout as one JSON object per command ({"command", "status", "rows"} or
+ * {"command", "status", "error"}) or as CSV tables; diagnostics go to stderr.
+ *
+ *   mark --date D --file roster.csv          roster lines: roll_number,status
+ *   mark --date D --roll R --status S
+ *   attendance --date D
+ *   student --roll R
+ *   students [--after R] [--limit N]
+ *   report overall | departments [--term T] | alerts [--limit N]
+ *   rebuild-counters
+ *   rollover-term                            partitions for the next term (see AttendancePartitions)
+ *   archive-term --term T                    move a closed term to the archive (see AttendanceArchive)
+ *
+ * --batch FILE runs one command per line (- reads stdin; blank lines and # comments are
+ * skipped, quotes group words) in one JVM and one pool, so every command after the first
+ * runs on a warm connection. A batch stops at the first failure unless --keep-going.
+ *
+ * Exit status: 0 success, 1 a command failed, 2 usage error, 3 database unavailable
+ * (a batch exits with the highest status of its commands).
+ *
+ * Usage: java -cp "out:lib/*" AttendifyCli [--format json|csv] (COMMAND [OPTIONS] | --batch FILE [--keep-going])
+ */
+public class AttendifyCli {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_UNAVAILABLE = 3;
+
+    public enum Format {
+        JSON, CSV
+    }
+
+    private static final Set<String> COMMANDS = Set.of("mark", "attendance", "student", "students", "report",
+            "rebuild-counters", "rollover-term", "archive-term");
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 1000;
+
+    private static final String USAGE = """
+            Usage: AttendifyCli [--format json|csv] COMMAND [OPTIONS]
+                   AttendifyCli [--format json|csv] --batch FILE|- [--keep-going]
+
+            Commands:
+              mark --date YYYY-MM-DD (--file ROSTER.csv | --roll R --status PRESENT|ABSENT)
+              attendance --date YYYY-MM-DD
+              student --roll R
+              students [--after R] [--limit N]
+              report overall | departments [--term current|next|YYYY-MM|FROM..TO] | alerts [--limit N]
+              rebuild-counters
+              rollover-term
+              archive-term --term YYYY-MM""";
+
+    /**
+     * Bad command line: unknown command or option, missing or malformed value
+     */
+    static class UsageException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UsageException(String message) {
+            super(message);
+        }
+    }
+
+    private final StudentDAO studentDAO = new StudentDAO();
+    private final AttendanceDAO attendanceDAO = new AttendanceDAO();
+    private final HodDAO hodDAO = new HodDAO();
+    private final AlertDAO alertDAO = new AlertDAO();
+
+    private final PrintWriter out;
+    private final Format format;
+    private int commandsRun = 0;
+
+    public AttendifyCli(PrintWriter out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    // ==================== COMMANDS ====================
+
+    /**
+     * Run one command and print its result; returns its exit status
+     */
+    public int execute(List<String> args) {
+        String name = args.isEmpty() ? "" : args.get(0);
+        String command = name.equals("report") && args.size() > 1 ? name + " " + args.get(1) : name;
+        int status;
+        try {
+            if (!COMMANDS.contains(name)) {
+                throw new UsageException(name.isEmpty() ? "No command given" : "Unknown command '" + name + "'");
+            }
+            int budget = name.equals("mark") || name.equals("rebuild-counters") || name.equals("archive-term")
+                    ? QueryBudget.UNLIMITED : QueryBudget.DEFAULT_BUDGET;
+            Metrics.Action action = Metrics.beginAction("CLI: " + command, budget);
+            List<Map<String, Object>> rows;
+            Throwable failure = null;
+            try {
+                rows = run(name, args.subList(1, args.size()));
+            } catch (Throwable e) {
+                failure = e;
+                throw e;
+            } finally {
+                Metrics.endAction(action, failure);
+            }
+            printRows(command, rows);
+            status = EXIT_OK;
+        } catch (UsageException e) {
+            status = EXIT_USAGE;
+            printError(command, e.getMessage());
+        } catch (IllegalArgumentException | QueryBudget.ExceededException e) {
+            status = EXIT_FAILED;
+            printError(command, e.getMessage());
+        } catch (SQLException e) {
+            status = EXIT_FAILED;
+            printError(command, "Database error: " + e.getMessage());
+        } catch (IOException e) {
+            status = EXIT_FAILED;
+            printError(command, e instanceof NoSuchFileException ? "No such file " + e.getMessage() : e.getMessage());
+        }
+        out.flush();
+        commandsRun++;
+        return status;
+    }
+
+    private List<Map<String, Object>> run(String name, List<String> args) throws SQLException, IOException {
+        return switch (name) {
+            case "mark" -> mark(new Options(args, "--date", "--file", "--roll", "--status"));
+            case "attendance" -> attendance(new Options(args, "--date"));
+            case "student" -> student(new Options(args, "--roll"));
+            case "students" -> students(new Options(args, "--after", "--limit"));
+            case "report" -> report(args);
+            case "rollover-term" -> {
+                noOptions(args);
+                int added = AttendancePartitions.rollover();
+                yield List.of(row("through", Term.current().next().label(), "partitionsAdded", added));
+            }
+            case "archive-term" -> archiveTerm(new Options(args, "--term"));
+            default -> {
+                noOptions(args);
+                yield List.of(row("students", attendanceDAO.rebuildCounters()));
+            }
+        };
+    }
+
+    private List<Map<String, Object>> mark(Options options) throws SQLException, IOException {
+        String date = options.require("--date");
+        Map<String, String> roster = new LinkedHashMap<>();
+        if (options.has("--file")) {
+            if (options.has("--roll") || options.has("--status")) {
+                throw new UsageException("Give either --file or --roll and --status");
+            }
+            readRoster(Path.of(options.get("--file")), roster);
+        } else {
+            roster.put(options.require("--roll"), status(options.require("--status")));
+        }
+        int marked = attendanceDAO.markAttendanceBatch(date, roster);
+        return List.of(row("date", date, "marked", marked));
+    }
+
+    private List<Map<String, Object>> archiveTerm(Options options) throws SQLException, IOException {
+        options.require("--term");
+        AttendanceArchive.Result result = AttendanceArchive.archive(options.term());
+        return List.of(row("term", result.term().label(), "students", result.students(), "rows", result.rows(),
+                "moved", result.moved(), "bytes", result.bytes(),
+                "seconds", Math.round(result.seconds() * 1000) / 1000.0));
+    }
+
+    private List<Map<String, Object>> attendance(Options options) throws SQLException {
+        String date = options.require("--date");
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (String[] r : attendanceDAO.getAttendanceByDate(date)) {
+            rows.add(row("rollNumber", r[0], "name", r[1], "status", r[2]));
+        }
+        return rows;
+    }
+
+    private List<Map<String, Object>> student(Options options) throws SQLException {
+        String rollNumber = options.require("--roll");
+        Student student = studentDAO.searchByRollNumber(rollNumber);
+        if (student == null) {
+            throw new IllegalArgumentException("Student with roll number '" + rollNumber + "' not found!");
+        }
+        int[] stats = attendanceDAO.getAttendanceStats(rollNumber);
+        Map<String, Object> row = studentRow(student);
+        row.put("present", stats[1]);
+        row.put("absent", stats[2]);
+        row.put("percentage", stats[0] == 0 ? 0.0 : Math.round(stats[1] * 10000.0 / stats[0]) / 100.0);
+        return List.of(row);
+    }
+
+    private List<Map<String, Object>> students(Options options) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Student student : studentDAO.getStudentsPage(options.get("--after"), options.limit())) {
+            rows.add(studentRow(student));
+        }
+        return rows;
+    }
+
+    private List<Map<String, Object>> report(List<String> args) throws SQLException {
+        if (args.isEmpty()) {
+            throw new UsageException("report needs one of: overall, departments, alerts");
+        }
+        List<String> rest = args.subList(1, args.size());
+        switch (args.get(0)) {
+            case "overall" -> {
+                HodDashboard dashboard = hodDAO.getDashboard(new Options(rest, "--term").term());
+                return List.of(row("totalStudents", dashboard.getTotalStudents(),
+                        "totalTeachers", dashboard.getTotalTeachers(),
+                        "totalRecords", dashboard.getTotalRecords(),
+                        "presentRecords", dashboard.getPresentRecords(),
+                        "averageAttendance", Math.round(dashboard.getAverageAttendance() * 100) / 100.0));
+            }
+            case "departments" -> {
+                Term term = new Options(rest, "--term").term();
+                List<Map<String, Object>> rows = new ArrayList<>();
+                for (String[] r : hodDAO.getDashboard(term).getDepartmentReport()) {
+                    rows.add(row("department", r[0], "students", Integer.parseInt(r[1]),
+                            "averageAttendance", percentage(r[2])));
+                }
+                return rows;
+            }
+            case "alerts" -> {
+                Options options = new Options(rest, "--limit");
+                List<Map<String, Object>> rows = new ArrayList<>();
+                for (String[] r : alertDAO.getActiveAlertsPage(null, options.limit())) {
+                    rows.add(row("rollNumber", r[0], "name", r[1], "department", r[2],
+                            "percentage", percentage(r[3]), "band", r[4]));
+                }
+                return rows;
+            }
+            default -> throw new UsageException("Unknown report '" + args.get(0) + "'");
+        }
+    }
+
+    /**
+     * roll_number,status per line; a header row starting with roll_number is skipped
+     */
+    private static void readRoster(Path file, Map<String, String> roster) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && line.trim().startsWith("roll_number"))) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != 2 || fields[0].isBlank()) {
+                    throw new IllegalArgumentException(file + " line " + lineNumber + ": expected roll_number,status");
+                }
+                try {
+                    roster.put(fields[0].trim(), status(fields[1]));
+                } catch (UsageException e) {
+                    throw new IllegalArgumentException(file + " line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String status(String value) {
+        String status = value.trim().toUpperCase(Locale.ROOT);
+        if (!status.equals("PRESENT") && !status.equals("ABSENT")) {
+            throw new UsageException("Status must be PRESENT or ABSENT, not '" + value.trim() + "'");
+        }
+        return status;
+    }
+
+    // "87.50%" from the DAOs as 87.5
+    private static double percentage(String formatted) {
+        return Double.parseDouble(formatted.replace("%", ""));
+    }
+
+    private static Map<String, Object> studentRow(Student student) {
+        return row("rollNumber", student.getRollNumber(), "name", student.getName(), "email", student.getEmail(),
+                "department", student.getDepartment(), "totalClasses", student.getTotalClasses());
+    }
+
+    private static Map<String, Object> row(Object... keysAndValues) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            row.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return row;
+    }
+
+    private static void noOptions(List<String> args) {
+        if (!args.isEmpty()) {
+            throw new UsageException("Unexpected argument '" + args.get(0) + "'");
+        }
+    }
+
+    /**
+     * --name value pairs, limited to the names a command accepts
+     */
+    private static final class Options {
+        private final Map<String, String> values = new LinkedHashMap<>();
+
+        Options(List<String> args, String... accepted) {
+            Set<String> names = new HashSet<>(List.of(accepted));
+            for (int i = 0; i < args.size(); i++) {
+                String name = args.get(i);
+                if (!names.contains(name)) {
+                    throw new UsageException("Unexpected argument '" + name + "'");
+                }
+                if (i + 1 >= args.size()) {
+                    throw new UsageException(name + " needs a value");
+                }
+                values.put(name, args.get(++i));
+            }
+        }
+
+        boolean has(String name) {
+            return values.containsKey(name);
+        }
+
+        String get(String name) {
+            return values.get(name);
+        }
+
+        String require(String name) {
+            String value = values.get(name);
+            if (value == null || value.isBlank()) {
+                throw new UsageException(name + " is required");
+            }
+            return value.trim();
+        }
+
+        /**
+         * --term as a Term; null (all time) when not given
+         */
+        Term term() {
+            String term = values.get("--term");
+            try {
+                return term == null ? null : Term.parse(term);
+            } catch (IllegalArgumentException e) {
+                throw new UsageException(e.getMessage());
+            }
+        }
+
+        int limit() {
+            String limit = values.get("--limit");
+            if (limit == null) {
+                return DEFAULT_LIMIT;
+            }
+            try {
+                return Math.max(1, Math.min(MAX_LIMIT, Integer.parseInt(limit.trim())));
+            } catch (NumberFormatException e) {
+                throw new UsageException("--limit must be a number");
+            }
+        }
+    }
+
+    // ==================== OUTPUT ====================
+
+    private void printRows(String command, List<Map<String, Object>> rows) {
+        if (format == Format.JSON) {
+            Map<String, Object> result = row("command", command, "status", "ok", "rows", rows);
+            out.println(Json.write(result));
+            return;
+        }
+        if (commandsRun > 0) {
+            out.println();
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        out.println(csvLine(rows.get(0).keySet()));
+        for (Map<String, Object> row : rows) {
+            out.println(csvLine(row.values()));
+        }
+    }
+
+    private void printError(String command, String message) {
+        if (format == Format.JSON) {
+            out.println(Json.write(row("command", command, "status", "error", "error", message)));
+        }
+        System.err.println("attendify: " + (command.isEmpty() ? "" : command + ": ") + message);
+    }
+
+    private static String csvLine(Iterable<?> values) {
+        StringBuilder line = new StringBuilder();
+        for (Object value : values) {
+            if (!line.isEmpty()) {
+                line.append(',');
+            }
+            String text = value == null ? "" : value.toString();
+            if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+                text = "\"" + text.replace("\"", "\"\"") + "\"";
+            }
+            line.append(text);
+        }
+        return line.toString();
+    }
+
+    // ==================== BATCH ====================
+
+    /**
+     * Run each command line of a batch in turn; returns the highest exit status
+     */
+    public int executeBatch(BufferedReader reader, boolean keepGoing) throws IOException {
+        int worst = EXIT_OK;
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.trim().startsWith("#")) {
+                continue;
+            }
+            int status;
+            try {
+                status = execute(split(line));
+            } catch (UsageException e) {
+                printError("", "line " + lineNumber + ": " + e.getMessage());
+                out.flush();
+                status = EXIT_USAGE;
+            }
+            worst = Math.max(worst, status);
+            if (status != EXIT_OK && !keepGoing) {
+                System.err.println("attendify: batch stopped at line " + lineNumber);
+                break;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Split a command line on whitespace; single or double quotes group words
+     */
+    static List<String> split(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean inWord = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    word.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inWord = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inWord) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    inWord = false;
+                }
+            } else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (quote != 0) {
+            throw new UsageException("Unclosed quote");
+        }
+        if (inWord) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    // ==================== MAIN ====================
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        Format format = Format.JSON;
+        String batch = null;
+        boolean keepGoing = false;
+        int i = 0;
+        try {
+            for (; i < args.length && args[i].startsWith("--"); i++) {
+                switch (args[i]) {
+                    case "--format" -> format = Format.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                    case "--batch" -> batch = args[++i];
+                    case "--keep-going" -> keepGoing = true;
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            batch = null;
+            i = -1;
+        }
+        boolean valid = i >= 0 && (batch == null ? i < args.length : i == args.length);
+        if (!valid) {
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        PrintWriter out = new PrintWriter(
+                new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        try {
+            DatabaseConnection.initializeDatabase();
+        } catch (SQLException e) {
+            System.err.println("attendify: database unavailable: " + e.getMessage());
+            DatabaseConnection.closeConnection();
+            return EXIT_UNAVAILABLE;
+        }
+
+        AttendifyCli cli = new AttendifyCli(out, format);
+        try {
+            if (batch == null) {
+                return cli.execute(List.of(args).subList(i, args.length));
+            }
+            try (BufferedReader reader = batch.equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                    : Files.newBufferedReader(Path.of(batch), StandardCharsets.UTF_8)) {
+                return cli.executeBatch(reader, keepGoing);
+            } catch (IOException e) {
+                System.err.println("attendify: cannot read batch " + batch + ": " + e.getMessage());
+                return EXIT_USAGE;
+            }
+        } finally {
+            out.flush();
+            DatabaseConnection.closeConnection();
+        }
+    }
+}
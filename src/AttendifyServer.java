@@ -0,0 +1,544 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * AttendifyServer - Embedded HTTP/JSON API over the DAOs
+ *
+ * Runs on the JDK's built-in HttpServer with one virtual thread per request, so requests
+ * only ever wait on the connection pool. Every call after login carries the returned
+ * token as "Authorization: Bearer <token>".
+ *
+ *   POST   /api/login                      { username, password [, rollNumber] }
+ *   POST   /api/logout
+ *   GET    /api/students?after=&limit=     teacher, HOD
+ *   POST   /api/students                   teacher
+ *   GET    /api/students/{roll}            teacher, HOD, that student
+ *   PUT    /api/students/{roll}            teacher
+ *   DELETE /api/students/{roll}            teacher
+ *   GET    /api/students/{roll}/attendance teacher, HOD, that student
+ *   GET    /api/attendance?date=           teacher, HOD
+ *   POST   /api/attendance                 teacher: { date, roster: { roll: status } } or
+ *                                          { rollNumber, date, status }
+ *   GET    /api/reports/overall?term=      HOD
+ *   GET    /api/reports/departments?term=  HOD
+ *   GET    /api/reports/alerts?limit=      HOD
+ */
+public class AttendifyServer {
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int BACKLOG = 1024;
+    private static final long SESSION_TTL_MS = 8 * 60 * 60 * 1000;
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    private final StudentDAO studentDAO = new StudentDAO();
+    private final AttendanceDAO attendanceDAO = new AttendanceDAO();
+    private final HodDAO hodDAO = new HodDAO();
+    private final AlertDAO alertDAO = new AlertDAO();
+
+    private record Session(String role, String rollNumber, long expiresAt) {
+    }
+
+    private record Response(int status, Object body) {
+    }
+
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    public AttendifyServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // ==================== DISPATCH ====================
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Response response = null;
+        Metrics.Action action = Metrics.beginAction(actionName(exchange));
+        Throwable failure = null;
+        try {
+            response = route(exchange);
+        } catch (ApiException e) {
+            response = error(e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (IOException e) {
+            response = error(400, "Could not read the request body");
+        } catch (SQLException | RuntimeException e) {
+            // Details stay in the server log; clients learn only that the request failed
+            System.err.println(actionName(exchange) + " failed: " + e);
+            response = error(500, "Internal server error");
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            try {
+                Metrics.endAction(action, failure);
+            } catch (QueryBudget.ExceededException e) {
+                // Strict mode: a request that goes over its query budget fails, even if it succeeded
+                System.err.println(actionName(exchange) + " failed: " + e.getMessage());
+                response = error(500, "Internal server error");
+            }
+        }
+
+        byte[] bytes = Json.write(response.body()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Requests are grouped by method and resource, e.g. "API: GET /api/students"; ids are
+     * left out so the number of actions stays fixed
+     */
+    private static String actionName(HttpExchange exchange) {
+        String[] segments = exchange.getRequestURI().getPath().split("/", 4);
+        String resource = segments.length > 2 ? segments[2] : "";
+        return switch (resource) {
+            case "login", "logout", "students", "attendance", "reports" ->
+                    "API: " + exchange.getRequestMethod() + " /api/" + resource;
+            default -> "API: other";
+        };
+    }
+
+    private Response route(HttpExchange exchange) throws IOException, SQLException {
+        String method = exchange.getRequestMethod();
+        List<String> path = new ArrayList<>();
+        for (String segment : exchange.getRequestURI().getPath().substring("/api/".length()).split("/")) {
+            if (!segment.isEmpty()) {
+                path.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+            }
+        }
+        if (path.isEmpty()) {
+            throw new ApiException(404, "Not found");
+        }
+
+        switch (path.get(0)) {
+            case "login" -> {
+                requireMethod(method, "POST");
+                return login(readBody(exchange));
+            }
+            case "logout" -> {
+                requireMethod(method, "POST");
+                authenticate(exchange);
+                sessions.remove(token(exchange));
+                return ok(Map.of("loggedOut", true));
+            }
+            case "students" -> {
+                return students(method, path, exchange);
+            }
+            case "attendance" -> {
+                return attendance(method, path, exchange);
+            }
+            case "reports" -> {
+                return reports(method, path, exchange);
+            }
+            default -> throw new ApiException(404, "Not found");
+        }
+    }
+
+    // ==================== LOGIN ====================
+
+    private Response login(Map<String, Object> body) throws SQLException {
+        String role = Main.authenticate(string(body, "username", true), string(body, "password", true));
+        if (role == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        String rollNumber = null;
+        if (role.equals("STUDENT")) {
+            // As in the Student Portal, students then identify themselves by roll number
+            rollNumber = string(body, "rollNumber", true);
+            if (!studentDAO.isRollNumberExists(rollNumber)) {
+                throw new ApiException(401, "Roll number not found");
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(s -> s.expiresAt() < now);
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String token = HexFormat.of().formatHex(bytes);
+        sessions.put(token, new Session(role, rollNumber, now + SESSION_TTL_MS));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("token", token);
+        result.put("role", role);
+        result.put("rollNumber", rollNumber);
+        return ok(result);
+    }
+
+    // ==================== STUDENTS ====================
+
+    private Response students(String method, List<String> path, HttpExchange exchange)
+            throws IOException, SQLException {
+        Session session = authenticate(exchange);
+
+        if (path.size() == 1) {
+            switch (method) {
+                case "GET" -> {
+                    requireRole(session, "TEACHER", "HOD");
+                    Map<String, String> query = query(exchange);
+                    List<Student> page = studentDAO.getStudentsPage(query.get("after"), limit(query));
+                    List<Object> rows = new ArrayList<>();
+                    for (Student s : page) {
+                        rows.add(toJson(s));
+                    }
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("students", rows);
+                    result.put("next", page.size() < limit(query) ? null : page.get(page.size() - 1).getRollNumber());
+                    return ok(result);
+                }
+                case "POST" -> {
+                    requireRole(session, "TEACHER");
+                    Map<String, Object> body = readBody(exchange);
+                    Student student = new Student(string(body, "rollNumber", true), string(body, "name", true),
+                            string(body, "email", false), string(body, "department", false));
+                    if (!studentDAO.addStudent(student)) {
+                        throw new ApiException(409, "Roll number already exists");
+                    }
+                    return new Response(201, toJson(student));
+                }
+                default -> throw new ApiException(405, "Method not allowed");
+            }
+        }
+
+        String rollNumber = path.get(1);
+        if (session.role().equals("STUDENT") && !rollNumber.equals(session.rollNumber())) {
+            throw new ApiException(403, "Students may only view their own records");
+        }
+
+        if (path.size() == 3 && path.get(2).equals("attendance")) {
+            requireMethod(method, "GET");
+            Map<String, Object> result = new LinkedHashMap<>();
+            int[] stats = attendanceDAO.getAttendanceStats(rollNumber);
+            result.put("rollNumber", rollNumber);
+            result.put("total", stats[0]);
+            result.put("present", stats[1]);
+            result.put("absent", stats[2]);
+            result.put("percentage", attendanceDAO.calculateAttendancePercentage(rollNumber));
+            List<Object> records = new ArrayList<>();
+            for (String[] r : attendanceDAO.getAttendanceByRollNumber(rollNumber)) {
+                records.add(Map.of("date", r[0], "status", r[1]));
+            }
+            result.put("records", records);
+            return ok(result);
+        }
+        if (path.size() != 2) {
+            throw new ApiException(404, "Not found");
+        }
+
+        switch (method) {
+            case "GET" -> {
+                Student student = studentDAO.searchByRollNumber(rollNumber);
+                if (student == null) {
+                    throw new ApiException(404, "Student not found");
+                }
+                return ok(toJson(student));
+            }
+            case "PUT" -> {
+                requireRole(session, "TEACHER");
+                Map<String, Object> body = readBody(exchange);
+                if (!studentDAO.updateStudent(rollNumber, string(body, "name", false), string(body, "email", false),
+                        string(body, "department", false))) {
+                    throw new ApiException(404, "Student not found");
+                }
+                return ok(toJson(studentDAO.searchByRollNumber(rollNumber)));
+            }
+            case "DELETE" -> {
+                requireRole(session, "TEACHER");
+                if (!studentDAO.deleteStudent(rollNumber)) {
+                    throw new ApiException(404, "Student not found");
+                }
+                return ok(Map.of("deleted", rollNumber));
+            }
+            default -> throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    // ==================== ATTENDANCE ====================
+
+    private Response attendance(String method, List<String> path, HttpExchange exchange)
+            throws IOException, SQLException {
+        Session session = authenticate(exchange);
+        if (path.size() != 1) {
+            throw new ApiException(404, "Not found");
+        }
+
+        switch (method) {
+            case "GET" -> {
+                requireRole(session, "TEACHER", "HOD");
+                String date = query(exchange).get("date");
+                if (date == null) {
+                    throw new IllegalArgumentException("Query parameter 'date' is required");
+                }
+                List<Object> rows = new ArrayList<>();
+                for (String[] r : attendanceDAO.getAttendanceByDate(date)) {
+                    rows.add(Map.of("rollNumber", r[0], "name", r[1], "status", r[2]));
+                }
+                return ok(Map.of("date", date, "students", rows));
+            }
+            case "POST" -> {
+                requireRole(session, "TEACHER");
+                Map<String, Object> body = readBody(exchange);
+                String date = string(body, "date", true);
+                if (!body.containsKey("roster")) {
+                    attendanceDAO.markAttendance(string(body, "rollNumber", true), date, string(body, "status", true));
+                    return ok(Map.of("marked", 1));
+                }
+                if (!(body.get("roster") instanceof Map<?, ?> entries)) {
+                    throw new IllegalArgumentException("'roster' must map roll numbers to PRESENT or ABSENT");
+                }
+                Map<String, String> roster = new LinkedHashMap<>();
+                for (Map.Entry<?, ?> e : entries.entrySet()) {
+                    roster.put(String.valueOf(e.getKey()), String.valueOf(e.getValue()));
+                }
+                return ok(Map.of("marked", attendanceDAO.markAttendanceBatch(date, roster)));
+            }
+            default -> throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    // ==================== REPORTS ====================
+
+    private Response reports(String method, List<String> path, HttpExchange exchange) throws SQLException {
+        Session session = authenticate(exchange);
+        requireRole(session, "HOD");
+        requireMethod(method, "GET");
+        if (path.size() != 2) {
+            throw new ApiException(404, "Not found");
+        }
+
+        switch (path.get(1)) {
+            case "overall" -> {
+                Term term = term(query(exchange));
+                HodDashboard dashboard = hodDAO.getDashboard(term);
+                Map<String, Object> result = new LinkedHashMap<>();
+                if (term != null) {
+                    result.put("term", term.label());
+                }
+                result.put("totalStudents", dashboard.getTotalStudents());
+                result.put("totalTeachers", dashboard.getTotalTeachers());
+                result.put("totalRecords", dashboard.getTotalRecords());
+                result.put("presentRecords", dashboard.getPresentRecords());
+                result.put("averageAttendance", dashboard.getAverageAttendance());
+                return ok(result);
+            }
+            case "departments" -> {
+                List<Object> rows = new ArrayList<>();
+                for (String[] r : hodDAO.getDashboard(term(query(exchange))).getDepartmentReport()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("department", r[0]);
+                    row.put("students", Integer.parseInt(r[1]));
+                    row.put("averageAttendance", r[2]);
+                    rows.add(row);
+                }
+                return ok(Map.of("departments", rows));
+            }
+            case "alerts" -> {
+                int[] counts = alertDAO.getAlertCounts();
+                List<Object> rows = new ArrayList<>();
+                for (String[] r : alertDAO.getActiveAlertsPage(null, limit(query(exchange)))) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("rollNumber", r[0]);
+                    row.put("name", r[1]);
+                    row.put("department", r[2]);
+                    row.put("percentage", r[3]);
+                    row.put("band", r[4]);
+                    rows.add(row);
+                }
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("warning", counts[0]);
+                result.put("critical", counts[1]);
+                result.put("students", rows);
+                return ok(result);
+            }
+            default -> throw new ApiException(404, "Not found");
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    private Session authenticate(HttpExchange exchange) {
+        String token = token(exchange);
+        Session session = token == null ? null : sessions.get(token);
+        if (session == null || session.expiresAt() < System.currentTimeMillis()) {
+            throw new ApiException(401, "Log in first (Authorization: Bearer <token>)");
+        }
+        return session;
+    }
+
+    private static String token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring(7).trim() : null;
+    }
+
+    private static void requireRole(Session session, String... roles) {
+        for (String role : roles) {
+            if (role.equals(session.role())) {
+                return;
+            }
+        }
+        throw new ApiException(403, "Not allowed for role " + session.role());
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body too large");
+            }
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new LinkedHashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static int limit(Map<String, String> query) {
+        String limit = query.get("limit");
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_PAGE_SIZE, Integer.parseInt(limit)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'limit' must be a number");
+        }
+    }
+
+    /**
+     * The optional 'term' parameter (current, next, YYYY-MM or FROM..TO); null = all time
+     */
+    private static Term term(Map<String, String> query) {
+        String term = query.get("term");
+        return term == null || term.isBlank() ? null : Term.parse(term);
+    }
+
+    private static String string(Map<String, Object> body, String field, boolean required) {
+        Object value = body.get(field);
+        if (value == null) {
+            if (required) {
+                throw new IllegalArgumentException("Field '" + field + "' is required");
+            }
+            return null;
+        }
+        return value.toString().trim();
+    }
+
+    private static Map<String, Object> toJson(Student student) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("rollNumber", student.getRollNumber());
+        json.put("name", student.getName());
+        json.put("email", student.getEmail());
+        json.put("department", student.getDepartment());
+        json.put("totalClasses", student.getTotalClasses());
+        return json;
+    }
+
+    private static Response ok(Object body) {
+        return new Response(200, body);
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, Map.of("error", message == null ? "Error" : message));
+    }
+
+    // ==================== COMMAND LINE ====================
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else {
+                System.out.println("Usage: AttendifyServer [--port N]");
+                return;
+            }
+        }
+
+        try {
+            DatabaseConnection.initializeDatabase();
+            AttendanceIndex.getInstance().buildAsync();
+            AlertNotifier.start();
+
+            AttendifyServer server = new AttendifyServer(port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                AlertNotifier.stop();
+                DatabaseConnection.closeConnection();
+            }, "attendify-shutdown"));
+            server.start();
+            Metrics.exportToJmx();
+            System.out.println("Attendify API listening on http://localhost:" + server.getPort() + "/api/");
+        } catch (SQLException | IOException e) {
+            System.out.println("Server failed to start: " + e.getMessage());
+            DatabaseConnection.closeConnection();
+        }
+    }
+}
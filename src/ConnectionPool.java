@@ -0,0 +1,521 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConnectionPool - Bounded, thread-safe JDBC connection pool
+ * Hands out proxy connections whose close() returns the physical connection to the pool
+ */
+public class ConnectionPool {
+    // Connections used within this window skip the validation round trip on borrow
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 5_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final boolean traceLeaks;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = new HashSet<>();
+    private int totalConnections = 0;
+    private boolean shutdown = false;
+
+    private final ScheduledExecutorService housekeeper;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+            long idleTimeoutMillis, long borrowTimeoutMillis, long leakThresholdMillis, boolean traceLeaks) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: minSize=" + minSize + ", maxSize=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.traceLeaks = traceLeaks;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "attendify-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_PERIOD_MILLIS,
+                HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the borrow timeout when the pool is exhausted.
+     * Closing the returned connection hands it back to the pool.
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection pc = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (shutdown) {
+                        throw new SQLException("Connection pool has been shut down");
+                    }
+                    pc = idle.pollFirst();
+                    if (pc != null) {
+                        break;
+                    }
+                    if (totalConnections < maxSize) {
+                        totalConnections++;
+                        create = true;
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount.incrementAndGet();
+                        throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis
+                                + " ms waiting for a database connection (pool size " + maxSize + ")");
+                    }
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    pc = open();
+                } catch (SQLException e) {
+                    lock.lock();
+                    try {
+                        totalConnections--;
+                        available.signal();
+                    } finally {
+                        lock.unlock();
+                    }
+                    throw e;
+                }
+            } else if (!isUsable(pc)) {
+                validationFailureCount.incrementAndGet();
+                discard(pc);
+                continue;
+            }
+
+            long waited = System.nanoTime() - start;
+            borrowCount.incrementAndGet();
+            Metrics.connectionAcquired();
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+            pc.borrowedAt = System.currentTimeMillis();
+            pc.borrowThread = Thread.currentThread().getName();
+            // A stack trace costs far more than the borrow itself, so it is captured only on request
+            pc.borrowSite = traceLeaks ? new Throwable("Connection borrowed here") : null;
+            pc.leakReported = false;
+            lock.lock();
+            try {
+                borrowed.add(pc);
+            } finally {
+                lock.unlock();
+            }
+            return pc.newHandle();
+        }
+    }
+
+    /**
+     * Close all idle connections and stop handing out new ones.
+     * Borrowed connections are closed as they are returned.
+     */
+    public void shutdown() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            shutdown = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pc : toClose) {
+            discard(pc);
+        }
+    }
+
+    // ==================== INTERNALS ====================
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        if (System.currentTimeMillis() - pc.lastUsedAt < VALIDATION_BYPASS_MILLIS) {
+            return true;
+        }
+        try {
+            Metrics.roundTrip();
+            return pc.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        boolean healthy = !pc.broken;
+        if (healthy) {
+            try {
+                if (pc.physical.isClosed()) {
+                    healthy = false;
+                } else {
+                    // Never leak an open transaction or session state to the next borrower
+                    if (!pc.physical.getAutoCommit()) {
+                        pc.physical.rollback();
+                        pc.physical.setAutoCommit(true);
+                    }
+                    pc.physical.clearWarnings();
+                }
+            } catch (SQLException e) {
+                healthy = false;
+            }
+        }
+
+        boolean keep;
+        lock.lock();
+        try {
+            borrowed.remove(pc);
+            keep = healthy && !shutdown;
+            if (keep) {
+                pc.lastUsedAt = System.currentTimeMillis();
+                pc.borrowThread = null;
+                pc.borrowSite = null;
+                idle.addFirst(pc);
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!keep) {
+            discard(pc);
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+        }
+        destroyedCount.incrementAndGet();
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> expired = new ArrayList<>();
+        List<PooledConnection> leaked = new ArrayList<>();
+        int missing;
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            // Idle eviction: oldest idle connections sit at the tail
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && totalConnections - expired.size() > minSize) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsedAt > idleTimeoutMillis) {
+                    it.remove();
+                    expired.add(pc);
+                }
+            }
+            if (leakThresholdMillis > 0) {
+                for (PooledConnection pc : borrowed) {
+                    if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMillis) {
+                        pc.leakReported = true;
+                        leaked.add(pc);
+                    }
+                }
+            }
+            missing = Math.max(0, minSize - (totalConnections - expired.size()));
+            totalConnections += missing;
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledConnection pc : expired) {
+            discard(pc);
+        }
+        for (PooledConnection pc : leaked) {
+            leakCount.incrementAndGet();
+            System.err.println(leakReport(pc, now));
+        }
+        for (int i = 0; i < missing; i++) {
+            try {
+                PooledConnection pc = open();
+                pc.lastUsedAt = System.currentTimeMillis();
+                lock.lock();
+                try {
+                    idle.addLast(pc);
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException e) {
+                lock.lock();
+                try {
+                    totalConnections--;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private String leakReport(PooledConnection pc, long now) {
+        StringBuilder report = new StringBuilder("Possible connection leak: connection borrowed by thread '")
+                .append(pc.borrowThread).append("' held for ").append(now - pc.borrowedAt)
+                .append(" ms (threshold ").append(leakThresholdMillis).append(" ms)");
+        Throwable site = pc.borrowSite;
+        if (site == null) {
+            report.append("; run with -Dattendify.pool.leakTrace=true to record where it was borrowed");
+        } else {
+            for (StackTraceElement frame : site.getStackTrace()) {
+                report.append(System.lineSeparator()).append("\tat ").append(frame);
+            }
+        }
+        return report.toString();
+    }
+
+    // ==================== METRICS ====================
+
+    public int getTotalConnections() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleConnections() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveConnections() {
+        lock.lock();
+        try {
+            return borrowed.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public long getBorrowCount() { return borrowCount.get(); }
+    public long getTimeoutCount() { return timeoutCount.get(); }
+    public long getCreatedCount() { return createdCount.get(); }
+    public long getDestroyedCount() { return destroyedCount.get(); }
+    public long getValidationFailureCount() { return validationFailureCount.get(); }
+    public long getLeakCount() { return leakCount.get(); }
+
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get();
+        return borrows == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    // ==================== POOLED CONNECTION ====================
+
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long lastUsedAt = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile String borrowThread;
+        volatile Throwable borrowSite;
+        volatile boolean leakReported;
+        volatile boolean broken;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new ConnectionHandle(this));
+        }
+    }
+
+    /**
+     * One handle per borrow, so a stale reference cannot touch a connection
+     * that has since been handed to someone else
+     */
+    private final class ConnectionHandle implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean closed = false;
+
+        ConnectionHandle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        release(pc);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || pc.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + pc.physical + "]";
+                }
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            switch (method.getName()) {
+                case "commit", "rollback", "setAutoCommit" -> Metrics.roundTrip();
+            }
+            Object result = invokePhysical(pc, pc.physical, method, args);
+            if (result instanceof Statement statement) {
+                // Prepared and callable statements are Statements too; keep the declared type
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                return Proxy.newProxyInstance(
+                        Connection.class.getClassLoader(),
+                        new Class<?>[] { method.getReturnType() },
+                        new StatementHandle(pc, statement, sql, (Connection) proxy));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Reports each execute call, with its SQL, to Metrics as a round trip. Cursor fetches
+     * (useCursorFetch) happen inside ResultSet.next() and are not counted.
+     */
+    private static final class StatementHandle implements InvocationHandler {
+        private final PooledConnection pc;
+        private final Statement statement;
+        private final String sql;
+        private final Connection connection;
+
+        StatementHandle(PooledConnection pc, Statement statement, String sql, Connection connection) {
+            this.pc = pc;
+            this.statement = statement;
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "getConnection" -> {
+                    return connection;
+                }
+            }
+            if (method.getName().startsWith("execute")) {
+                // A plain Statement gets its SQL per call; a prepared one was given it up front
+                Metrics.statementExecuted(args != null && args.length > 0 && args[0] instanceof String text
+                        ? text : sql);
+            }
+            return invokePhysical(pc, statement, method, args);
+        }
+    }
+
+    private static Object invokePhysical(PooledConnection pc, Object target, Method method, Object[] args)
+            throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlEx && isFatal(sqlEx)) {
+                pc.broken = true;
+            }
+            throw cause;
+        }
+    }
+
+    private static boolean isFatal(SQLException e) {
+        // SQLState class 08 = connection exception
+        String state = e.getSQLState();
+        return e instanceof SQLNonTransientConnectionException
+                || (state != null && state.startsWith("08"));
+    }
+}
@@ -0,0 +1,695 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CsvImporter - Streaming bulk import of students or historical attendance
+ *
+ * The file is read line by line and validated against an in-memory set of roll numbers,
+ * so checking a row costs no query. Accepted rows are written in JDBC batches of
+ * BATCH_ROWS inside one transaction per chunk (default 10,000 rows); the same transaction
+ * records the last line it covers in ImportCheckpoint, and running the same import again
+ * after a crash resumes right after the last committed chunk. Rejected rows go to a
+ * report (default <file>.rejected.csv) with their line number and reason.
+ *
+ *   students    roll_number,name[,email[,department]]
+ *   attendance  roll_number,date,status          (YYYY-MM-DD, PRESENT or ABSENT)
+ *
+ * A header row starting with roll_number is skipped. Attendance already on record is
+ * overwritten and counters move by the difference, as if each row were marked in the
+ * Teacher Portal. The alert set is brought up to date once at the end, without
+ * announcing historical crossings.
+ *
+ * Usage: java -cp "out:lib/*" CsvImporter --attendance attendance.csv [--chunk N] [--rejects F] [--restart]
+ */
+public class CsvImporter {
+    public enum Kind {
+        STUDENTS, ATTENDANCE
+    }
+
+    /**
+     * Totals for the whole file, including rows committed before a resume
+     */
+    public record Result(long imported, long rejected, long resumedAfterLine, Path rejectsFile, double seconds) {
+    }
+
+    // One accepted line, kept until its chunk commits in case it has to be re-checked
+    private record Row(long line, String text, String[] fields) {
+    }
+
+    public static final int DEFAULT_CHUNK_ROWS = 10_000;
+    private static final int BATCH_ROWS = 1_000;
+    private static final int MAX_SOURCE_LENGTH = 255;
+
+    private final Kind kind;
+    private final Path file;
+    private final String source;
+    private Path rejectsFile;
+    private int chunkRows = DEFAULT_CHUNK_ROWS;
+    private boolean restart = false;
+
+    private final Set<String> rollNumbers = new HashSet<>();
+    private final Map<String, Date> parsedDates = new HashMap<>();
+    private LocalDate liveFrom;
+
+    private long imported;
+    private long rejected;
+    private FileChannel rejects;
+
+    public CsvImporter(Kind kind, Path file) {
+        this.kind = kind;
+        this.file = file;
+        this.source = file.toAbsolutePath().normalize().toString();
+        if (source.length() > MAX_SOURCE_LENGTH) {
+            throw new IllegalArgumentException("File path is longer than " + MAX_SOURCE_LENGTH + " characters");
+        }
+        this.rejectsFile = Path.of(file + ".rejected.csv");
+    }
+
+    public void setChunkRows(int chunkRows) {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkRows = chunkRows;
+    }
+
+    public void setRejectsFile(Path rejectsFile) {
+        this.rejectsFile = rejectsFile;
+    }
+
+    /**
+     * Ignore any checkpoint and import the file from the first line
+     */
+    public void setRestart(boolean restart) {
+        this.restart = restart;
+    }
+
+    // ==================== IMPORT ====================
+
+    public Result run() throws SQLException, IOException {
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchFileException(file.toString());
+        }
+        long start = System.nanoTime();
+        long fileSize = Files.size(file);
+        long resumeAfter = 0;
+        long rejectsBytes = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (restart) {
+                deleteCheckpoint(conn);
+            } else {
+                long[] checkpoint = loadCheckpoint(conn, fileSize);
+                if (checkpoint != null) {
+                    resumeAfter = checkpoint[0];
+                    imported = checkpoint[1];
+                    rejected = checkpoint[2];
+                    rejectsBytes = checkpoint[3];
+                }
+            }
+            loadRollNumbers(conn);
+            liveFrom = AttendanceArchive.liveFrom();
+
+            // Rows are written directly, so the index would drift; DAOs use SQL until it is rebuilt
+            AttendanceIndex index = AttendanceIndex.getInstance();
+            boolean indexWasReady = index.isReady();
+            index.invalidate();
+
+            long importedBefore = imported;
+            try (FileChannel channel = FileChannel.open(rejectsFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                // Drop report lines written for a chunk that never committed
+                channel.truncate(rejectsBytes);
+                channel.position(rejectsBytes);
+                rejects = channel;
+                if (rejectsBytes == 0) {
+                    write(List.of("line,reason,row\n"));
+                }
+                conn.setAutoCommit(false);
+                importRows(conn, resumeAfter, fileSize);
+            } finally {
+                rejects = null;
+                StudentDAO.getCache().invalidateAll();
+                if (indexWasReady) {
+                    index.buildAsync();
+                }
+            }
+            if (kind == Kind.ATTENDANCE && imported > importedBefore) {
+                AlertDAO.reevaluate(null, false);
+            }
+        }
+        return new Result(imported, rejected, resumeAfter, rejectsFile, (System.nanoTime() - start) / 1e9);
+    }
+
+    private void importRows(Connection conn, long resumeAfter, long fileSize) throws SQLException, IOException {
+        List<Row> rows = new ArrayList<>(chunkRows);
+        List<String> chunkRejects = new ArrayList<>();
+        long line = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (line <= resumeAfter || text.isBlank()
+                        || (line == 1 && text.stripLeading().toLowerCase().startsWith("roll_number"))) {
+                    continue;
+                }
+                String[] fields = parseLine(text);
+                String reason = fields == null ? "Unterminated quoted field" : validate(fields);
+                if (reason == null) {
+                    rows.add(new Row(line, text, fields));
+                } else {
+                    chunkRejects.add(rejectLine(line, reason, text));
+                }
+                if (rows.size() + chunkRejects.size() >= chunkRows) {
+                    commitChunk(conn, rows, chunkRejects, line, fileSize, false);
+                }
+            }
+        }
+        commitChunk(conn, rows, chunkRejects, line, fileSize, true);
+    }
+
+    /**
+     * Write one chunk, its report lines and the new checkpoint in a single transaction.
+     * An archive run that takes one of the chunk's dates meanwhile fails the chunk; the
+     * resumed import then rejects those rows.
+     */
+    private void commitChunk(Connection conn, List<Row> rows, List<String> chunkRejects, long line,
+            long fileSize, boolean completed) throws SQLException, IOException {
+        long rejectsAtStart = rejects.position();
+        int accepted;
+        try {
+            if (kind == Kind.STUDENTS) {
+                // New roll numbers may have belonged to deleted students; their archived marks go
+                // first, outside writeLive() since forget() waits for a running archive
+                List<String> rolls = new ArrayList<>(rows.size());
+                for (Row r : rows) {
+                    rolls.add(r.fields()[0]);
+                }
+                AttendanceArchive.forget(rolls);
+            }
+            accepted = AttendanceArchive.writeLive(() -> {
+                int written = rows.size();
+                try {
+                    writeRows(conn, rows);
+                } catch (SQLException e) {
+                    if (!isConstraintViolation(e)) {
+                        throw e;
+                    }
+                    // A duplicate or vanished key: redo the chunk against what is in the database
+                    conn.rollback();
+                    written = mergeRows(conn, rows, chunkRejects);
+                }
+                if (kind == Kind.ATTENDANCE) {
+                    Set<LocalDate> dates = new HashSet<>();
+                    for (Row r : rows) {
+                        dates.add(toSqlDate(r.fields()[1]).toLocalDate());
+                    }
+                    AttendanceArchive.confirmLive(dates);
+                }
+                write(chunkRejects);
+                rejects.force(false);
+                saveCheckpoint(conn, fileSize, line, imported + written, rejected + chunkRejects.size(),
+                        rejects.position(), completed);
+                conn.commit();
+                return written;
+            });
+        } catch (SQLException | IOException | RuntimeException e) {
+            conn.rollback();
+            rejects.truncate(rejectsAtStart);
+            throw e;
+        }
+        imported += accepted;
+        rejected += chunkRejects.size();
+        rows.clear();
+        chunkRejects.clear();
+    }
+
+    // ==================== VALIDATION ====================
+
+    /**
+     * Normalise a row in place; returns why it was rejected, or null if accepted
+     */
+    private String validate(String[] fields) {
+        if (kind == Kind.STUDENTS) {
+            if (fields.length < 2 || fields.length > 4) {
+                return "Expected roll_number,name[,email[,department]]";
+            }
+            String reason = checkLength(fields, 0, "Roll number", 50);
+            reason = reason != null ? reason : checkLength(fields, 1, "Name", 100);
+            reason = reason != null ? reason : checkLength(fields, 2, "Email", 100);
+            reason = reason != null ? reason : checkLength(fields, 3, "Department", 50);
+            if (reason != null) {
+                return reason;
+            }
+            if (fields[0].isEmpty() || fields[1].isEmpty()) {
+                return "Roll number and name are required";
+            }
+            if (!rollNumbers.add(fields[0])) {
+                return "Roll number already exists";
+            }
+            return null;
+        }
+
+        if (fields.length != 3) {
+            return "Expected roll_number,date,status";
+        }
+        if (!rollNumbers.contains(fields[0])) {
+            return "Student with roll number '" + fields[0] + "' not found";
+        }
+        Date date = toSqlDate(fields[1]);
+        if (date == null) {
+            return "Date must be in YYYY-MM-DD format";
+        }
+        if (!AttendanceDAO.isWithinMarkWindow(date.toLocalDate())) {
+            return "Date is outside the marking window";
+        }
+        if (liveFrom != null && date.toLocalDate().isBefore(liveFrom)) {
+            return "Date is in an archived term";
+        }
+        fields[2] = fields[2].toUpperCase();
+        if (!fields[2].equals("PRESENT") && !fields[2].equals("ABSENT")) {
+            return "Status must be 'PRESENT' or 'ABSENT'";
+        }
+        return null;
+    }
+
+    private static String checkLength(String[] fields, int column, String label, int max) {
+        if (column < fields.length && fields[column].length() > max) {
+            return label + " is longer than " + max + " characters";
+        }
+        return null;
+    }
+
+    // Most rows share a handful of dates, so each is parsed once
+    private Date toSqlDate(String date) {
+        return parsedDates.computeIfAbsent(date, d -> {
+            try {
+                return Date.valueOf(LocalDate.parse(d));
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        });
+    }
+
+    private void loadRollNumbers(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = SqlStatement.STUDENT_ROLL_NUMBERS.prepare(conn)) {
+            pstmt.setFetchSize(JdbcStream.FETCH_SIZE);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                rollNumbers.add(rs.getString(1));
+            }
+        }
+    }
+
+    // ==================== WRITING ====================
+
+    private void writeRows(Connection conn, List<Row> rows) throws SQLException {
+        if (kind == Kind.STUDENTS) {
+            insertStudents(conn, rows);
+            return;
+        }
+        Set<String> rolls = new HashSet<>();
+        for (Row r : rows) {
+            rolls.add(r.fields()[0]);
+        }
+        if (!StudentDAO.lockExisting(conn, rolls).containsAll(rolls)) {
+            // Deleted since the import started; the slow path rejects their rows
+            throw new SQLIntegrityConstraintViolationException("A student in the chunk no longer exists", "23000");
+        }
+        Map<String, int[]> deltas = new HashMap<>();
+        try (PreparedStatement pstmt = SqlStatement.ATTENDANCE_INSERT.prepare(conn)) {
+            int pending = 0;
+            for (Row r : rows) {
+                String[] row = r.fields();
+                pstmt.setString(1, row[0]);
+                pstmt.setDate(2, toSqlDate(row[1]));
+                pstmt.setInt(3, AttendanceDAO.statusCode(row[2]));
+                pstmt.addBatch();
+                if (++pending == BATCH_ROWS) {
+                    pstmt.executeBatch();
+                    pending = 0;
+                }
+                addDelta(deltas, row[0], null, row[2]);
+            }
+            pstmt.executeBatch();
+        }
+        updateCounters(conn, deltas);
+    }
+
+    /**
+     * Slow path for a chunk that hit a constraint: re-check each key against the database,
+     * reject what no longer fits and overwrite existing marks. Returns the rows accepted.
+     */
+    private int mergeRows(Connection conn, List<Row> rows, List<String> chunkRejects) throws SQLException {
+        List<String> rolls = new ArrayList<>();
+        for (Row row : rows) {
+            rolls.add(row.fields()[0]);
+        }
+        Set<String> existing = kind == Kind.STUDENTS ? existingStudents(conn, rolls)
+                : StudentDAO.lockExisting(conn, new HashSet<>(rolls));
+
+        List<Row> accepted = new ArrayList<>();
+        for (Row row : rows) {
+            String roll = row.fields()[0];
+            // Students: someone else added the roll number; attendance: the student was deleted
+            boolean fits = kind == Kind.STUDENTS ? existing.add(roll) : existing.contains(roll);
+            if (fits) {
+                accepted.add(row);
+            } else {
+                if (kind == Kind.ATTENDANCE) {
+                    rollNumbers.remove(roll);
+                }
+                chunkRejects.add(rejectLine(row.line(), kind == Kind.STUDENTS ? "Roll number already exists"
+                        : "Student with roll number '" + roll + "' not found", row.text()));
+            }
+        }
+        if (kind == Kind.STUDENTS) {
+            insertStudents(conn, accepted);
+        } else {
+            mergeAttendance(conn, accepted);
+        }
+        return accepted.size();
+    }
+
+    private void insertStudents(Connection conn, List<Row> rows) throws SQLException {
+        try (PreparedStatement pstmt = SqlStatement.STUDENT_INSERT.prepare(conn)) {
+            int pending = 0;
+            for (Row r : rows) {
+                String[] row = r.fields();
+                pstmt.setString(1, row[0]);
+                pstmt.setString(2, row[1]);
+                pstmt.setString(3, row.length > 2 && !row[2].isEmpty() ? row[2] : null);
+                pstmt.setString(4, row.length > 3 && !row[3].isEmpty() ? row[3] : null);
+                pstmt.setInt(5, 0);
+                pstmt.addBatch();
+                if (++pending == BATCH_ROWS) {
+                    pstmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private void mergeAttendance(Connection conn, List<Row> rows) throws SQLException {
+        // Last row wins for a repeated (roll, date); locked current marks give the counter deltas
+        Map<String, Map<String, String>> byDate = new LinkedHashMap<>();
+        for (Row r : rows) {
+            String[] row = r.fields();
+            byDate.computeIfAbsent(row[1], d -> new LinkedHashMap<>()).put(row[0], row[2]);
+        }
+        Map<String, int[]> deltas = new HashMap<>();
+        try (PreparedStatement upsert = SqlStatement.ATTENDANCE_UPSERT.prepare(conn)) {
+            int pending = 0;
+            for (Map.Entry<String, Map<String, String>> day : byDate.entrySet()) {
+                Date date = toSqlDate(day.getKey());
+                Map<String, String> previous = currentMarks(conn, date, day.getValue().keySet());
+                for (Map.Entry<String, String> mark : day.getValue().entrySet()) {
+                    String before = previous.get(mark.getKey());
+                    if (mark.getValue().equals(before)) {
+                        continue;
+                    }
+                    upsert.setString(1, mark.getKey());
+                    upsert.setDate(2, date);
+                    upsert.setInt(3, AttendanceDAO.statusCode(mark.getValue()));
+                    upsert.addBatch();
+                    if (++pending == BATCH_ROWS) {
+                        upsert.executeBatch();
+                        pending = 0;
+                    }
+                    addDelta(deltas, mark.getKey(), before, mark.getValue());
+                }
+            }
+            upsert.executeBatch();
+        }
+        updateCounters(conn, deltas);
+    }
+
+    private static Map<String, String> currentMarks(Connection conn, Date date, Set<String> rolls)
+            throws SQLException {
+        Map<String, String> marks = new HashMap<>();
+        for (List<String> chunk : SqlStatement.chunks(new ArrayList<>(rolls))) {
+            try (PreparedStatement pstmt = SqlStatement.ATTENDANCE_LOCK_MARKS.prepare(conn, chunk.size())) {
+                pstmt.setDate(1, date);
+                SqlStatement.bindInList(pstmt, 2, chunk);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    marks.put(rs.getString("roll_number"), AttendanceDAO.statusName(rs.getInt("status")));
+                }
+            }
+        }
+        return marks;
+    }
+
+    private static Set<String> existingStudents(Connection conn, List<String> rolls) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        for (List<String> chunk : SqlStatement.chunks(new ArrayList<>(new HashSet<>(rolls)))) {
+            try (PreparedStatement pstmt = SqlStatement.STUDENT_EXISTING.prepare(conn, chunk.size())) {
+                SqlStatement.bindInList(pstmt, 1, chunk);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    existing.add(rs.getString(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    private static void addDelta(Map<String, int[]> deltas, String rollNumber, String before, String after) {
+        int[] delta = deltas.computeIfAbsent(rollNumber, r -> new int[3]);
+        if (before == null) {
+            delta[0]++;
+        } else {
+            delta["PRESENT".equals(before) ? 1 : 2]--;
+        }
+        delta["PRESENT".equals(after) ? 1 : 2]++;
+    }
+
+    private static void updateCounters(Connection conn, Map<String, int[]> deltas) throws SQLException {
+        try (PreparedStatement pstmt = SqlStatement.COUNTERS_ADD.prepare(conn)) {
+            int pending = 0;
+            for (Map.Entry<String, int[]> entry : deltas.entrySet()) {
+                int[] delta = entry.getValue();
+                pstmt.setString(1, entry.getKey());
+                pstmt.setInt(2, delta[0]);
+                pstmt.setInt(3, delta[1]);
+                pstmt.setInt(4, delta[2]);
+                pstmt.addBatch();
+                if (++pending == BATCH_ROWS) {
+                    pstmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    // Integrity constraint violations (duplicate key, missing parent) are SQLSTATE class 23
+    private static boolean isConstraintViolation(SQLException e) {
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            for (Throwable t = next; t != null; t = t.getCause()) {
+                if (t instanceof SQLException sql && sql.getSQLState() != null
+                        && sql.getSQLState().startsWith("23")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ==================== CHECKPOINT ====================
+
+    /**
+     * Returns { line, imported, rejected, rejects bytes } of an interrupted import, or null
+     */
+    private long[] loadCheckpoint(Connection conn, long fileSize) throws SQLException {
+        try (PreparedStatement pstmt = SqlStatement.IMPORT_CHECKPOINT_BY_SOURCE.prepare(conn)) {
+            pstmt.setString(1, kind.name());
+            pstmt.setString(2, source);
+            ResultSet rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            if (rs.getBoolean("completed")) {
+                throw new IllegalArgumentException(file + " was already imported (" + rs.getLong("imported_rows")
+                        + " rows); use --restart to import it again");
+            }
+            if (rs.getLong("file_size") != fileSize) {
+                throw new IllegalArgumentException(file + " has changed since its import was interrupted; "
+                        + "use --restart to import it from the beginning");
+            }
+            if (!Files.exists(rejectsFile) || Files.size(rejectsFile) < rs.getLong("rejects_bytes")) {
+                throw new IllegalArgumentException("Rejects report " + rejectsFile + " is missing or short; "
+                        + "use --restart to import from the beginning");
+            }
+            return new long[] {
+                    rs.getLong("line_number"),
+                    rs.getLong("imported_rows"),
+                    rs.getLong("rejected_rows"),
+                    rs.getLong("rejects_bytes")
+            };
+        } catch (IOException e) {
+            throw new SQLException("Could not check rejects report " + rejectsFile, e);
+        }
+    }
+
+    private void saveCheckpoint(Connection conn, long fileSize, long line, long importedRows, long rejectedRows,
+            long rejectsBytes, boolean completed) throws SQLException {
+        try (PreparedStatement pstmt = SqlStatement.IMPORT_CHECKPOINT_UPSERT.prepare(conn)) {
+            pstmt.setString(1, kind.name());
+            pstmt.setString(2, source);
+            pstmt.setLong(3, fileSize);
+            pstmt.setLong(4, line);
+            pstmt.setLong(5, importedRows);
+            pstmt.setLong(6, rejectedRows);
+            pstmt.setLong(7, rejectsBytes);
+            pstmt.setBoolean(8, completed);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private void deleteCheckpoint(Connection conn) throws SQLException {
+        try (PreparedStatement pstmt = SqlStatement.IMPORT_CHECKPOINT_DELETE.prepare(conn)) {
+            pstmt.setString(1, kind.name());
+            pstmt.setString(2, source);
+            pstmt.executeUpdate();
+        }
+    }
+
+    // ==================== CSV ====================
+
+    /**
+     * Split one CSV line; quoted fields may contain commas and doubled quotes.
+     * Returns null for an unterminated quote.
+     */
+    static String[] parseLine(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private static String rejectLine(long line, String reason, String row) {
+        return line + "," + quote(reason) + "," + quote(row) + "\n";
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private void write(List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(String.join("", lines).getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            rejects.write(buffer);
+        }
+    }
+
+    // ==================== COMMAND LINE ====================
+
+    public static void main(String[] args) {
+        Kind kind = null;
+        Path file = null;
+        Path rejectsFile = null;
+        int chunk = DEFAULT_CHUNK_ROWS;
+        boolean restart = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--students" -> {
+                        kind = Kind.STUDENTS;
+                        file = Path.of(args[++i]);
+                    }
+                    case "--attendance" -> {
+                        kind = Kind.ATTENDANCE;
+                        file = Path.of(args[++i]);
+                    }
+                    case "--chunk" -> chunk = Integer.parseInt(args[++i]);
+                    case "--rejects" -> rejectsFile = Path.of(args[++i]);
+                    case "--restart" -> restart = true;
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            kind = null;
+        }
+        if (kind == null) {
+            System.out.println("Usage: CsvImporter (--students F | --attendance F) [--chunk N] [--rejects F] [--restart]");
+            return;
+        }
+
+        try {
+            DatabaseConnection.initializeDatabase();
+            CsvImporter importer = new CsvImporter(kind, file);
+            importer.setChunkRows(chunk);
+            importer.setRestart(restart);
+            if (rejectsFile != null) {
+                importer.setRejectsFile(rejectsFile);
+            }
+
+            Result result = importer.run();
+            if (result.resumedAfterLine() > 0) {
+                System.out.printf("Resumed after line %,d; imported %,d rows, rejected %,d in %.1f s%n",
+                        result.resumedAfterLine(), result.imported(), result.rejected(), result.seconds());
+            } else {
+                System.out.printf("Imported %,d rows, rejected %,d in %.1f s (%,.0f rows/s)%n",
+                        result.imported(), result.rejected(), result.seconds(),
+                        (result.imported() + result.rejected()) / result.seconds());
+            }
+            if (result.rejected() > 0) {
+                System.out.println("Rejected rows: " + result.rejectsFile());
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        } catch (NoSuchFileException e) {
+            System.out.println("Import failed: no such file " + e.getMessage());
+        } catch (SQLException | IOException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+}
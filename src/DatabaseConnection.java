@@ -1,104 +1,114 @@
 import java.sql.*;
 
 /**
- * DatabaseConnection - Unified MySQL connection for Attendify
- * Connects to MySQL, creates the 'attendify' database and all tables
+ * DatabaseConnection - Unified database connection for Attendify
+ * Pools connections to the configured StorageBackend and migrates all tables
  */
 public class DatabaseConnection {
-    // MySQL connection parameters
-    private static final String DB_HOST = "localhost";
-    private static final String DB_PORT = "3306";
-    private static final String DB_NAME = "attendify";
-    private static final String DB_USER = "root";
-    private static final String DB_PASS = "12345";
+    // Connection pool parameters
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = Integer.getInteger("attendify.pool.max", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = 5 * 60 * 1000;
+    private static final long POOL_BORROW_TIMEOUT_MS = 10 * 1000;
+    private static final long POOL_LEAK_THRESHOLD_MS = 60 * 1000;
+    private static final boolean POOL_LEAK_TRACE = Boolean.getBoolean("attendify.pool.leakTrace");
 
-    private static final String BASE_URL = "jdbc:mysql://" + DB_HOST + ":" + DB_PORT
-            + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
-    private static final String DB_URL = "jdbc:mysql://" + DB_HOST + ":" + DB_PORT + "/" + DB_NAME
-            + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+    private static final Metrics.Operation INITIALIZE_OP = Metrics.operation("DatabaseConnection.initializeDatabase");
 
-    private static Connection connection = null;
+    private static StorageBackend backend = null;
+    private static ConnectionPool pool = null;
 
     /**
-     * Get database connection (creates if not exists)
+     * Get a pooled database connection (creates the pool if not exists).
+     * Closing the connection returns it to the pool.
      */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASS);
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("MySQL JDBC Driver not found! Ensure mysql-connector-j is in lib/", e);
-            }
+        return getPool().getConnection();
+    }
+
+    /**
+     * The storage backend chosen at launch (-Dattendify.storage=mysql|embedded)
+     */
+    public static synchronized StorageBackend getBackend() {
+        if (backend == null) {
+            backend = StorageBackend.fromConfiguration();
         }
-        return connection;
+        return backend;
     }
 
     /**
-     * Initialize database and all tables
+     * Get the shared connection pool, e.g. for its metrics
      */
-    public static void initializeDatabase() throws SQLException {
-        // First: create the database itself
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("MySQL JDBC Driver not found!", e);
+    public static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            StorageBackend storage = getBackend();
+            storage.loadDriver();
+            pool = new ConnectionPool(storage.getUrl(), storage.getUser(), storage.getPassword(),
+                    POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS,
+                    POOL_LEAK_THRESHOLD_MS, POOL_LEAK_TRACE);
         }
+        return pool;
+    }
 
-        try (Connection baseConn = DriverManager.getConnection(BASE_URL, DB_USER, DB_PASS);
-                Statement stmt = baseConn.createStatement()) {
-            stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + DB_NAME);
+    /**
+     * Initialize database and migrate all tables to the current schema version.
+     * On a database that is already current this is a single query: the full path
+     * (create, migrate, backfill, validate every statement) runs only when the schema
+     * version or the statement checksum recorded by the last run differs.
+     */
+    public static void initializeDatabase() throws SQLException {
+        INITIALIZE_OP.time(() -> isCurrent() ? 0 : migrateAndValidate());
+    }
+
+    /**
+     * True if the schema is at CURRENT_VERSION and was validated against these statements.
+     * Any error (no database yet, a table from a later version missing) means it is not.
+     */
+    private static boolean isCurrent() {
+        try (Connection conn = getConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT (SELECT MAX(version) FROM schema_version), "
+                        + "(SELECT statements_checksum FROM schema_validation WHERE id = 1)")) {
+            return rs.next() && rs.getInt(1) == SchemaMigrator.CURRENT_VERSION
+                    && rs.getLong(2) == SqlStatement.checksum() && !rs.wasNull();
+        } catch (SQLException e) {
+            return false;
         }
+    }
 
-        // Now connect to the attendify database and create tables
-        Connection conn = getConnection();
-        Statement stmt = conn.createStatement();
-
-        String createStudentTable = """
-                    CREATE TABLE IF NOT EXISTS Student (
-                        roll_number VARCHAR(50) PRIMARY KEY,
-                        name VARCHAR(100) NOT NULL,
-                        email VARCHAR(100),
-                        department VARCHAR(50),
-                        total_classes INT DEFAULT 0
-                    )
-                """;
-
-        String createAttendanceTable = """
-                    CREATE TABLE IF NOT EXISTS Attendance (
-                        id INT AUTO_INCREMENT PRIMARY KEY,
-                        roll_number VARCHAR(50) NOT NULL,
-                        date VARCHAR(20) NOT NULL,
-                        status VARCHAR(10) NOT NULL,
-                        FOREIGN KEY (roll_number) REFERENCES Student(roll_number),
-                        UNIQUE KEY unique_attendance (roll_number, date)
-                    )
-                """;
-
-        String createTeacherTable = """
-                    CREATE TABLE IF NOT EXISTS Teacher (
-                        teacher_id VARCHAR(50) PRIMARY KEY,
-                        name VARCHAR(100) NOT NULL,
-                        email VARCHAR(100),
-                        department VARCHAR(50),
-                        subject VARCHAR(100)
-                    )
-                """;
-
-        String createHodTable = """
-                    CREATE TABLE IF NOT EXISTS HOD (
-                        hod_id VARCHAR(50) PRIMARY KEY,
-                        name VARCHAR(100) NOT NULL,
-                        department VARCHAR(50),
-                        password VARCHAR(100) DEFAULT '1234'
-                    )
-                """;
-
-        stmt.execute(createStudentTable);
-        stmt.execute(createAttendanceTable);
-        stmt.execute(createTeacherTable);
-        stmt.execute(createHodTable);
-        stmt.close();
+    /**
+     * The full path; returns the number of migrations applied
+     */
+    private static int migrateAndValidate() throws SQLException {
+        // First: create the database itself
+        getBackend().createDatabase();
+
+        // Now connect to the attendify database and bring the schema up to date
+        try (Connection conn = getConnection();
+                Statement stmt = conn.createStatement()) {
+            int applied = SchemaMigrator.migrate(conn);
+
+            // Backfill counters once for databases created before AttendanceCounters existed
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT EXISTS(SELECT 1 FROM AttendanceCounters), EXISTS(SELECT 1 FROM Attendance)")) {
+                if (rs.next() && !rs.getBoolean(1) && rs.getBoolean(2)) {
+                    new AttendanceDAO().rebuildCounters();
+                }
+            }
+
+            // Fail fast if a DAO statement no longer matches the schema
+            SqlStatement.validateAll();
+
+            try (PreparedStatement pstmt = conn.prepareStatement("""
+                        INSERT INTO schema_validation (id, statements_checksum) VALUES (1, ?)
+                        ON DUPLICATE KEY UPDATE statements_checksum = VALUES(statements_checksum),
+                            validated_at = CURRENT_TIMESTAMP
+                    """)) {
+                pstmt.setLong(1, SqlStatement.checksum());
+                pstmt.executeUpdate();
+            }
+            return applied;
+        }
     }
 
     /**
@@ -124,11 +134,15 @@ public class DatabaseConnection {
     }
 
     /**
-     * Create sample data if tables are empty
+     * Create the demo fixtures if missing (large datasets: see SyntheticDataGenerator)
      */
     public static void createSampleData() throws SQLException {
-        Connection conn = getConnection();
+        try (Connection conn = getConnection()) {
+            insertSampleData(conn);
+        }
+    }
 
+    private static void insertSampleData(Connection conn) throws SQLException {
         // --- Sample Teachers ---
         String insertTeacher = "INSERT IGNORE INTO Teacher (teacher_id, name, email, department, subject) VALUES (?, ?, ?, ?, ?)";
         try (PreparedStatement ps = conn.prepareStatement(insertTeacher)) {
@@ -148,8 +162,9 @@ public class DatabaseConnection {
                 ps.setString(3, t[2]);
                 ps.setString(4, t[3]);
                 ps.setString(5, t[4]);
-                ps.executeUpdate();
+                ps.addBatch();
             }
+            ps.executeBatch();
         }
 
         // --- Sample Students ---
@@ -173,12 +188,14 @@ public class DatabaseConnection {
                 ps.setString(3, (String) s[2]);
                 ps.setString(4, (String) s[3]);
                 ps.setInt(5, (int) s[4]);
-                ps.executeUpdate();
+                ps.addBatch();
             }
+            ps.executeBatch();
         }
 
         // --- Sample Attendance Records ---
         String insertAttendance = "INSERT IGNORE INTO Attendance (roll_number, date, status) VALUES (?, ?, ?)";
+        int insertedAttendance = 0;
         try (PreparedStatement ps = conn.prepareStatement(insertAttendance)) {
             // Generate attendance for the last 10 days
             String[] dates = {
@@ -202,24 +219,29 @@ public class DatabaseConnection {
                 String roll = pat[0];
                 for (int i = 0; i < dates.length; i++) {
                     ps.setString(1, roll);
-                    ps.setString(2, dates[i]);
-                    ps.setString(3, pat[i + 1]);
-                    ps.executeUpdate();
+                    ps.setDate(2, Date.valueOf(dates[i]));
+                    ps.setInt(3, pat[i + 1].equals("P") ? AttendanceDAO.STATUS_PRESENT : AttendanceDAO.STATUS_ABSENT);
+                    ps.addBatch();
                 }
             }
+            for (int count : ps.executeBatch()) {
+                insertedAttendance += Math.max(count, 0);
+            }
+        }
+
+        // Rows were written directly, so bring the counters back in line
+        if (insertedAttendance > 0) {
+            new AttendanceDAO().rebuildCounters();
         }
     }
 
     /**
-     * Close database connection
+     * Shut down the connection pool and close all pooled connections
      */
-    public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            System.err.println("Error closing connection: " + e.getMessage());
+    public static synchronized void closeConnection() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
         }
     }
 }
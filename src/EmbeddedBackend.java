@@ -0,0 +1,82 @@
+import java.nio.file.Path;
+import java.sql.*;
+
+/**
+ * EmbeddedBackend - In-process H2 database persisted to a local file
+ *
+ * Needs no server and no network: queries run inside the JVM. H2 runs in MySQL
+ * compatibility mode with lower-cased identifiers, so the DAOs' SQL works unchanged.
+ * The file location comes from -Dattendify.storage.path (default data/attendify,
+ * creating data/attendify.mv.db).
+ */
+public class EmbeddedBackend implements StorageBackend {
+    private static final String DB_PATH = System.getProperty("attendify.storage.path", "data/attendify");
+    private static final String DB_URL = "jdbc:h2:file:" + Path.of(DB_PATH).toAbsolutePath()
+            + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE"
+            // Parsed statements kept per session, like the MySQL backend's statement cache
+            + ";QUERY_CACHE_SIZE=" + SqlStatement.cacheSize();
+
+    @Override
+    public String getName() {
+        return "Embedded H2 " + DB_PATH;
+    }
+
+    @Override
+    public String getUrl() {
+        return DB_URL;
+    }
+
+    @Override
+    public String getUser() {
+        return "sa";
+    }
+
+    @Override
+    public String getPassword() {
+        return "";
+    }
+
+    @Override
+    public void loadDriver() throws SQLException {
+        try {
+            Class.forName("org.h2.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("H2 JDBC Driver not found! Ensure h2 is in lib/", e);
+        }
+    }
+
+    @Override
+    public void createDatabase() throws SQLException {
+        // The database file is created on first connect
+        loadDriver();
+    }
+
+    @Override
+    public void alterTable(Statement stmt, String table, String... clauses) throws SQLException {
+        for (String clause : clauses) {
+            stmt.execute("ALTER TABLE " + table + " " + clause);
+        }
+    }
+
+    @Override
+    public String parseDate(String column) {
+        return "PARSEDATETIME(" + column + ", 'yyyy-MM-dd')";
+    }
+
+    @Override
+    public String shareLock() {
+        // No shared row locks; exclusive ones are the nearest, and Attendance keeps its foreign keys here
+        return "FOR UPDATE";
+    }
+
+    @Override
+    public void setBulkLoad(Statement stmt, boolean enabled) throws SQLException {
+        // No session-level switches; constraint checks are in-process and cheap
+    }
+
+    @Override
+    public boolean supportsPartitioning() {
+        // No table partitioning; term reports filter on the date index instead
+        return false;
+    }
+}
@@ -1,270 +1,411 @@
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * HodDAO - Data Access Object for HOD operations
  * Handles Teacher CRUD, Student viewing, and Reports
  */
 public class HodDAO {
+    private static final Metrics.Operation ADD_TEACHER = Metrics.operation("HodDAO.addTeacher");
+    private static final Metrics.Operation ALL_TEACHERS = Metrics.operation("HodDAO.getAllTeachers");
+    private static final Metrics.Operation TEACHERS_PAGE = Metrics.operation("HodDAO.getTeachersPage");
+    private static final Metrics.Operation TEACHERS_STREAM = Metrics.operation("HodDAO.streamAllTeachers");
+    private static final Metrics.Operation TEACHER_BY_ID = Metrics.operation("HodDAO.getTeacherById");
+    private static final Metrics.Operation UPDATE_TEACHER = Metrics.operation("HodDAO.updateTeacher");
+    private static final Metrics.Operation DELETE_TEACHER = Metrics.operation("HodDAO.deleteTeacher");
+    private static final Metrics.Operation TEACHER_EXISTS = Metrics.operation("HodDAO.isTeacherExists");
+    private static final Metrics.Operation TEACHER_COUNT = Metrics.operation("HodDAO.getTeacherCount");
+    private static final Metrics.Operation ALL_STUDENTS = Metrics.operation("HodDAO.getAllStudents");
+    private static final Metrics.Operation STUDENTS_PAGE = Metrics.operation("HodDAO.getStudentsPage");
+    private static final Metrics.Operation STUDENTS_STREAM = Metrics.operation("HodDAO.streamAllStudents");
+    private static final Metrics.Operation STUDENT_COUNT = Metrics.operation("HodDAO.getStudentCount");
+    private static final Metrics.Operation DASHBOARD = Metrics.operation("HodDAO.getDashboard");
+    private static final Metrics.Operation RANKING_PAGE = Metrics.operation("HodDAO.getRankingPage");
+    private static final Metrics.Operation RANGE_PAGE = Metrics.operation("HodDAO.getRangePage");
+    private static final Metrics.Operation STANDING = Metrics.operation("HodDAO.getStanding");
 
     // ==================== TEACHER MANAGEMENT ====================
 
     public boolean addTeacher(Teacher teacher) throws SQLException {
-        if (isTeacherExists(teacher.getTeacherId())) {
-            return false;
-        }
-        String sql = "INSERT INTO Teacher (teacher_id, name, email, department, subject) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, teacher.getTeacherId());
-            pstmt.setString(2, teacher.getName());
-            pstmt.setString(3, teacher.getEmail());
-            pstmt.setString(4, teacher.getDepartment());
-            pstmt.setString(5, teacher.getSubject());
-            pstmt.executeUpdate();
-            return true;
-        }
+        return ADD_TEACHER.time(() -> {
+            if (isTeacherExists(teacher.getTeacherId())) {
+                return false;
+            }
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.TEACHER_INSERT.prepare(conn)) {
+                pstmt.setString(1, teacher.getTeacherId());
+                pstmt.setString(2, teacher.getName());
+                pstmt.setString(3, teacher.getEmail());
+                pstmt.setString(4, teacher.getDepartment());
+                pstmt.setString(5, teacher.getSubject());
+                pstmt.executeUpdate();
+                return true;
+            }
+        });
     }
 
     public List<Teacher> getAllTeachers() throws SQLException {
-        List<Teacher> teachers = new ArrayList<>();
-        String sql = "SELECT * FROM Teacher ORDER BY teacher_id";
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                teachers.add(new Teacher(
-                        rs.getString("teacher_id"),
-                        rs.getString("name"),
-                        rs.getString("email"),
-                        rs.getString("department"),
-                        rs.getString("subject")));
+        return ALL_TEACHERS.time(() -> {
+            List<Teacher> teachers = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.TEACHER_ALL.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    teachers.add(mapTeacher(rs));
+                }
             }
-        }
-        return teachers;
+            return teachers;
+        });
+    }
+
+    /**
+     * Keyset page: up to limit teachers after the given id (null = first page)
+     */
+    public List<Teacher> getTeachersPage(String afterTeacherId, int limit) throws SQLException {
+        return TEACHERS_PAGE.time(() -> {
+            List<Teacher> teachers = new ArrayList<>();
+            SqlStatement page = afterTeacherId == null
+                    ? SqlStatement.TEACHER_PAGE_FIRST
+                    : SqlStatement.TEACHER_PAGE_AFTER;
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = page.prepare(conn)) {
+                int i = 1;
+                if (afterTeacherId != null) {
+                    pstmt.setString(i++, afterTeacherId);
+                }
+                pstmt.setInt(i, limit);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    teachers.add(mapTeacher(rs));
+                }
+            }
+            return teachers;
+        });
+    }
+
+    /**
+     * Every teacher by id over a server-side cursor; close the stream when done.
+     * Only opening the cursor is timed.
+     */
+    public Stream<Teacher> streamAllTeachers() throws SQLException {
+        return TEACHERS_STREAM.time(() -> JdbcStream.query(SqlStatement.TEACHER_ALL.sql(), HodDAO::mapTeacher),
+                teachers -> 0);
     }
 
     public Teacher getTeacherById(String teacherId) throws SQLException {
-        String sql = "SELECT * FROM Teacher WHERE teacher_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, teacherId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return new Teacher(
-                        rs.getString("teacher_id"),
-                        rs.getString("name"),
-                        rs.getString("email"),
-                        rs.getString("department"),
-                        rs.getString("subject"));
+        return TEACHER_BY_ID.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.TEACHER_BY_ID.prepare(conn)) {
+                pstmt.setString(1, teacherId);
+                ResultSet rs = pstmt.executeQuery();
+                if (rs.next()) {
+                    return mapTeacher(rs);
+                }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     public boolean updateTeacher(String teacherId, String name, String email, String department, String subject)
             throws SQLException {
-        StringBuilder sql = new StringBuilder("UPDATE Teacher SET ");
-        List<String> updates = new ArrayList<>();
-        List<Object> params = new ArrayList<>();
-
-        if (name != null && !name.isEmpty()) {
-            updates.add("name = ?");
-            params.add(name);
-        }
-        if (email != null && !email.isEmpty()) {
-            updates.add("email = ?");
-            params.add(email);
-        }
-        if (department != null && !department.isEmpty()) {
-            updates.add("department = ?");
-            params.add(department);
-        }
-        if (subject != null && !subject.isEmpty()) {
-            updates.add("subject = ?");
-            params.add(subject);
-        }
-
-        if (updates.isEmpty())
+        // Blank fields are left unchanged: bound as NULL, which the statement's COALESCE skips
+        String newName = StudentDAO.blankToNull(name);
+        String newEmail = StudentDAO.blankToNull(email);
+        String newDepartment = StudentDAO.blankToNull(department);
+        String newSubject = StudentDAO.blankToNull(subject);
+        if (newName == null && newEmail == null && newDepartment == null && newSubject == null)
             return false;
 
-        sql.append(String.join(", ", updates));
-        sql.append(" WHERE teacher_id = ?");
-        params.add(teacherId);
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
-            for (int i = 0; i < params.size(); i++) {
-                pstmt.setObject(i + 1, params.get(i));
+        return UPDATE_TEACHER.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.TEACHER_UPDATE.prepare(conn)) {
+                pstmt.setString(1, newName);
+                pstmt.setString(2, newEmail);
+                pstmt.setString(3, newDepartment);
+                pstmt.setString(4, newSubject);
+                pstmt.setString(5, teacherId);
+                return pstmt.executeUpdate() > 0;
             }
-            return pstmt.executeUpdate() > 0;
-        }
+        });
     }
 
     public boolean deleteTeacher(String teacherId) throws SQLException {
-        String sql = "DELETE FROM Teacher WHERE teacher_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, teacherId);
-            return pstmt.executeUpdate() > 0;
-        }
+        return DELETE_TEACHER.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.TEACHER_DELETE.prepare(conn)) {
+                pstmt.setString(1, teacherId);
+                return pstmt.executeUpdate() > 0;
+            }
+        });
     }
 
     public boolean isTeacherExists(String teacherId) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Teacher WHERE teacher_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, teacherId);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next())
-                return rs.getInt(1) > 0;
-        }
-        return false;
+        return TEACHER_EXISTS.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.TEACHER_EXISTS.prepare(conn)) {
+                pstmt.setString(1, teacherId);
+                ResultSet rs = pstmt.executeQuery();
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        });
     }
 
     public int getTeacherCount() throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Teacher";
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next())
-                return rs.getInt(1);
-        }
-        return 0;
+        return TEACHER_COUNT.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.TEACHER_COUNT.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }, count -> 1);
+    }
+
+    private static Teacher mapTeacher(ResultSet rs) throws SQLException {
+        return new Teacher(
+                rs.getString("teacher_id"),
+                rs.getString("name"),
+                rs.getString("email"),
+                rs.getString("department"),
+                rs.getString("subject"));
     }
 
     // ==================== STUDENT VIEWING ====================
 
     public List<Student> getAllStudents() throws SQLException {
-        List<Student> students = new ArrayList<>();
-        String sql = "SELECT * FROM Student ORDER BY department, roll_number";
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                students.add(new Student(
-                        rs.getString("roll_number"),
-                        rs.getString("name"),
-                        rs.getString("email"),
-                        rs.getString("department"),
-                        rs.getInt("total_classes")));
+        return ALL_STUDENTS.time(() -> {
+            List<Student> students = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.STUDENT_BY_DEPARTMENT_ALL.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    students.add(StudentDAO.mapStudent(rs));
+                }
             }
-        }
-        return students;
+            return students;
+        });
+    }
+
+    /**
+     * Keyset page in (department, roll number) order: up to limit students after the
+     * given one (null = first page). Students without a department come first.
+     */
+    public List<Student> getStudentsPage(Student after, int limit) throws SQLException {
+        return STUDENTS_PAGE.time(() -> {
+            SqlStatement page;
+            if (after == null) {
+                page = SqlStatement.STUDENT_BY_DEPARTMENT_PAGE_FIRST;
+            } else if (after.getDepartment() == null) {
+                page = SqlStatement.STUDENT_BY_DEPARTMENT_PAGE_AFTER_NONE;
+            } else {
+                page = SqlStatement.STUDENT_BY_DEPARTMENT_PAGE_AFTER;
+            }
+
+            List<Student> students = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = page.prepare(conn)) {
+                int i = 1;
+                if (after != null) {
+                    if (after.getDepartment() != null) {
+                        pstmt.setString(i++, after.getDepartment());
+                    }
+                    pstmt.setString(i++, after.getRollNumber());
+                }
+                pstmt.setInt(i, limit);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    students.add(StudentDAO.mapStudent(rs));
+                }
+            }
+            return students;
+        });
+    }
+
+    /**
+     * Every student in (department, roll number) order over a server-side cursor.
+     * Only opening the cursor is timed.
+     */
+    public Stream<Student> streamAllStudents() throws SQLException {
+        return STUDENTS_STREAM.time(() -> JdbcStream.query(SqlStatement.STUDENT_BY_DEPARTMENT_ALL.sql(),
+                StudentDAO::mapStudent), students -> 0);
     }
 
     public int getStudentCount() throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Student";
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next())
-                return rs.getInt(1);
-        }
-        return 0;
+        return STUDENT_COUNT.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.STUDENT_COUNT.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }, count -> 1);
     }
 
     // ==================== REPORTS ====================
 
-    public List<String[]> getDepartmentReport() throws SQLException {
-        List<String[]> report = new ArrayList<>();
-        String sql = """
-                    SELECT
-                        s.department,
-                        COUNT(DISTINCT s.roll_number) as student_count,
-                        ROUND(AVG(
-                            CASE WHEN total.total_days > 0
-                            THEN (present.present_days * 100.0 / total.total_days)
-                            ELSE 0 END
-                        ), 2) as avg_attendance
-                    FROM Student s
-                    LEFT JOIN (
-                        SELECT roll_number, COUNT(*) as total_days
-                        FROM Attendance GROUP BY roll_number
-                    ) total ON s.roll_number = total.roll_number
-                    LEFT JOIN (
-                        SELECT roll_number, COUNT(*) as present_days
-                        FROM Attendance WHERE status = 'PRESENT' GROUP BY roll_number
-                    ) present ON s.roll_number = present.roll_number
-                    GROUP BY s.department
-                    ORDER BY s.department
-                """;
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                report.add(new String[] {
-                        rs.getString("department"),
-                        String.valueOf(rs.getInt("student_count")),
-                        String.format("%.2f%%", rs.getDouble("avg_attendance"))
-                });
+    public HodDashboard getDashboard() throws SQLException {
+        return getDashboard(null);
+    }
+
+    /**
+     * Overall statistics and the department report in one aggregation: from the in-memory index when it is ready,
+     * otherwise one scan of Student joined to AttendanceCounters in a single round trip.
+     * With a term, only attendance inside it counts, and the scan aggregates Attendance over the term's
+     * date range instead of reading the all-time counters.
+     */
+    public HodDashboard getDashboard(Term term) throws SQLException {
+        return DASHBOARD.time(() -> {
+            HodDashboard.Aggregator aggregator = new HodDashboard.Aggregator();
+            if (AttendanceIndex.getInstance().aggregate(aggregator, term)) {
+                return aggregator.finish(getTeacherCount());
             }
-        }
-        return report;
+
+            // All-time totals come from the counters, which already include archived terms
+            List<AttendanceArchive.Segment> archived =
+                    term == null ? List.of() : AttendanceArchive.overlapping(term);
+            int teacherCount = -1;
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = term == null
+                            ? SqlStatement.DASHBOARD_SCAN.prepare(conn)
+                            : SqlStatement.DASHBOARD_TERM_SCAN.prepare(conn)) {
+                if (term != null) {
+                    AttendanceDAO.bindTerm(pstmt, 1, term);
+                }
+                pstmt.setFetchSize(JdbcStream.FETCH_SIZE);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    teacherCount = rs.getInt("teacher_count");
+                    int total = rs.getInt("total_classes");
+                    int present = rs.getInt("present_count");
+                    if (!archived.isEmpty()) {
+                        int[] counts = AttendanceArchive.count(archived, rs.getString("roll_number"), term);
+                        total += counts[0];
+                        present += counts[1];
+                    }
+                    aggregator.add(rs.getString("department"), total, present);
+                }
+            }
+            // No students means no rows, so the teacher count was not carried along
+            return aggregator.finish(teacherCount >= 0 ? teacherCount : getTeacherCount());
+        });
     }
 
+    public List<String[]> getDepartmentReport() throws SQLException {
+        return getDashboard().getDepartmentReport();
+    }
+
+    /**
+     * The live alert set: { roll, name, department, percentage, band }, lowest first
+     */
     public List<String[]> getLowAttendanceStudents() throws SQLException {
-        List<String[]> students = new ArrayList<>();
-        String sql = """
-                    SELECT
-                        s.roll_number, s.name, s.department,
-                        CASE WHEN COUNT(a.id) > 0
-                            THEN ROUND((SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END) * 100.0 / COUNT(a.id)), 2)
-                            ELSE 0
-                        END as percentage
-                    FROM Student s
-                    LEFT JOIN Attendance a ON s.roll_number = a.roll_number
-                    GROUP BY s.roll_number, s.name, s.department
-                    HAVING CASE WHEN COUNT(a.id) > 0
-                        THEN ROUND((SUM(CASE WHEN a.status = 'PRESENT' THEN 1 ELSE 0 END) * 100.0 / COUNT(a.id)), 2)
-                        ELSE 0
-                    END < 75
-                    ORDER BY percentage ASC
-                """;
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                students.add(new String[] {
-                        rs.getString("roll_number"),
-                        rs.getString("name"),
-                        rs.getString("department"),
-                        String.format("%.2f%%", rs.getDouble("percentage"))
-                });
-            }
-        }
-        return students;
+        return new AlertDAO().getActiveAlerts();
     }
 
     public String[] getOverallStatistics() throws SQLException {
-        int totalStudents = getStudentCount();
-        int totalTeachers = getTeacherCount();
-
-        String avgSql = """
-                    SELECT
-                        COUNT(*) as total_records,
-                        ROUND(AVG(CASE WHEN status = 'PRESENT' THEN 100.0 ELSE 0.0 END), 2) as avg_attendance
-                    FROM Attendance
-                """;
-
-        int totalRecords = 0;
-        double avgAttendance = 0.0;
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(avgSql)) {
-            if (rs.next()) {
-                totalRecords = rs.getInt("total_records");
-                avgAttendance = rs.getDouble("avg_attendance");
+        return getDashboard().getOverallStatistics();
+    }
+
+    // ==================== RANKINGS ====================
+
+    /**
+     * Students by all-time attendance, lowest or highest first: rows { position, roll, name,
+     * department, percentage } for positions [offset, offset + limit), and how many are ranked.
+     * Served by the index's order statistics; SQL sorts the counters until it is ready.
+     */
+    public AttendanceRanking.Page getRankingPage(boolean lowestFirst, int offset, int limit) throws SQLException {
+        return RANKING_PAGE.time(() -> {
+            AttendanceRanking.Page page = AttendanceIndex.getInstance().getRankingPage(lowestFirst, offset, limit);
+            if (page == null) {
+                try (Connection conn = DatabaseConnection.getConnection();
+                        PreparedStatement pstmt = lowestFirst
+                                ? SqlStatement.RANKING_LOWEST.prepare(conn)
+                                : SqlStatement.RANKING_HIGHEST.prepare(conn)) {
+                    pstmt.setInt(1, limit);
+                    pstmt.setInt(2, offset);
+                    page = new AttendanceRanking.Page(mapRanking(pstmt.executeQuery(), offset),
+                            rankingCounts(conn, 0, 0)[0]);
+                }
+            }
+            return page;
+        }, page -> page.rows().size());
+    }
+
+    /**
+     * Students whose attendance is between two percentages (both inclusive), lowest first;
+     * same rows as getRankingPage, with how many are in the range
+     */
+    public AttendanceRanking.Page getRangePage(double fromPercentage, double toPercentage, int offset, int limit)
+            throws SQLException {
+        return RANGE_PAGE.time(() -> {
+            AttendanceRanking.Page page =
+                    AttendanceIndex.getInstance().getRangePage(fromPercentage, toPercentage, offset, limit);
+            if (page == null) {
+                int low = AttendanceRanking.lowBucket(fromPercentage);
+                int high = AttendanceRanking.highBucket(toPercentage);
+                try (Connection conn = DatabaseConnection.getConnection();
+                        PreparedStatement pstmt = SqlStatement.RANKING_RANGE.prepare(conn)) {
+                    pstmt.setInt(1, low);
+                    pstmt.setInt(2, high);
+                    pstmt.setInt(3, limit);
+                    pstmt.setInt(4, offset);
+                    int[] counts = rankingCounts(conn, low, high);
+                    page = new AttendanceRanking.Page(mapRanking(pstmt.executeQuery(), offset),
+                            Math.max(0, counts[0] - counts[1] - counts[2]));
+                }
             }
+            return page;
+        }, page -> page.rows().size());
+    }
+
+    /**
+     * One student's rank (1 = highest attendance) and percentile among ranked students;
+     * null if the roll number is unknown, rank 0 if the student has no marks yet
+     */
+    public AttendanceRanking.Standing getStanding(String rollNumber) throws SQLException {
+        return STANDING.time(() -> {
+            AttendanceRanking.Standing standing = AttendanceIndex.getInstance().getStanding(rollNumber);
+            if (standing == null) {
+                try (Connection conn = DatabaseConnection.getConnection();
+                        PreparedStatement pstmt = SqlStatement.RANKING_STUDENT.prepare(conn)) {
+                    pstmt.setString(1, rollNumber);
+                    ResultSet rs = pstmt.executeQuery();
+                    if (rs.next()) {
+                        int bucket = rs.getInt("bucket");
+                        boolean ranked = !rs.wasNull();
+                        int[] counts = rankingCounts(conn, bucket, bucket);
+                        standing = new AttendanceRanking.Standing(rollNumber, rs.getString("name"),
+                                rs.getString("department"), ranked ? bucket / 100.0 : 0.0,
+                                ranked ? counts[2] + 1 : 0, counts[0],
+                                ranked ? counts[1] * 100.0 / counts[0] : 0.0);
+                    }
+                }
+            } else if (standing.name() == null) {
+                standing = null;
+            }
+            return standing;
+        });
+    }
+
+    /**
+     * { ranked, below bucket low, above bucket high }
+     */
+    private static int[] rankingCounts(Connection conn, int low, int high) throws SQLException {
+        try (PreparedStatement pstmt = SqlStatement.RANKING_COUNTS.prepare(conn)) {
+            pstmt.setInt(1, low);
+            pstmt.setInt(2, high);
+            ResultSet rs = pstmt.executeQuery();
+            rs.next();
+            return new int[] { rs.getInt(1), rs.getInt(2), rs.getInt(3) };
         }
+    }
 
-        return new String[] {
-                String.valueOf(totalStudents),
-                String.valueOf(totalTeachers),
-                String.format("%.2f%%", avgAttendance),
-                String.valueOf(totalRecords)
-        };
+    private static List<String[]> mapRanking(ResultSet rs, int offset) throws SQLException {
+        List<String[]> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(new String[] { String.valueOf(offset + rows.size() + 1), rs.getString("roll_number"),
+                    rs.getString("name"), rs.getString("department"),
+                    AttendanceRanking.format(rs.getInt("bucket")) });
+        }
+        return rows;
     }
 }
@@ -0,0 +1,117 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * HodDashboard - One consistent snapshot of the HOD reports
+ *
+ * Overall statistics and the department report are both derived from a single pass over
+ * per-student totals (see HodDAO.getDashboard), so the HOD screens share one aggregation
+ * instead of each scanning Attendance on its own. Low attendance is tracked
+ * incrementally by AlertDAO.
+ */
+public class HodDashboard {
+    private final int totalStudents;
+    private final int totalTeachers;
+    private final long totalRecords;
+    private final long presentRecords;
+    private final List<String[]> departmentReport;
+    private final LocalDateTime takenAt = LocalDateTime.now();
+
+    private HodDashboard(Aggregator aggregator, int totalTeachers) {
+        this.totalStudents = aggregator.students;
+        this.totalTeachers = totalTeachers;
+        this.totalRecords = aggregator.records;
+        this.presentRecords = aggregator.present;
+
+        List<String[]> report = new ArrayList<>();
+        for (Map.Entry<String, double[]> e : aggregator.departments.entrySet()) {
+            double[] d = e.getValue();
+            report.add(new String[] {
+                    e.getKey(),
+                    String.valueOf((int) d[0]),
+                    String.format("%.2f%%", d[1] / d[0])
+            });
+        }
+        this.departmentReport = Collections.unmodifiableList(report);
+    }
+
+    public int getTotalStudents() {
+        return totalStudents;
+    }
+
+    public int getTotalTeachers() {
+        return totalTeachers;
+    }
+
+    public long getTotalRecords() {
+        return totalRecords;
+    }
+
+    public long getPresentRecords() {
+        return presentRecords;
+    }
+
+    public double getAverageAttendance() {
+        return totalRecords > 0 ? presentRecords * 100.0 / totalRecords : 0.0;
+    }
+
+    /**
+     * { department, student count, avg attendance } in department order, no department first
+     */
+    public List<String[]> getDepartmentReport() {
+        return departmentReport;
+    }
+
+    /**
+     * { total students, total teachers, avg attendance, total records }
+     */
+    public String[] getOverallStatistics() {
+        return new String[] {
+                String.valueOf(totalStudents),
+                String.valueOf(totalTeachers),
+                String.format("%.2f%%", getAverageAttendance()),
+                String.valueOf(totalRecords)
+        };
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public long getAgeMillis() {
+        return Duration.between(takenAt, LocalDateTime.now()).toMillis();
+    }
+
+    /**
+     * Folds per-student totals into a dashboard; fed once per student by the SQL scan
+     * or the in-memory index
+     */
+    static final class Aggregator {
+        private int students;
+        private long records;
+        private long present;
+        private final TreeMap<String, double[]> departments = new TreeMap<>(
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+
+        void add(String department, int marked, int presentDays) {
+            students++;
+            records += marked;
+            present += presentDays;
+
+            double percentage = marked == 0 ? 0.0 : presentDays * 100.0 / marked;
+            double[] d = departments.computeIfAbsent(department, k -> new double[2]);
+            d[0]++;
+            d[1] += percentage;
+        }
+
+        HodDashboard finish(int totalTeachers) {
+            return new HodDashboard(this, totalTeachers);
+        }
+    }
+}
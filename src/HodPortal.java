@@ -1,6 +1,11 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * HodPortal - Head of Department Dashboard
@@ -21,15 +26,32 @@ public class HodPortal {
     private static final String BG_MAGENTA = "\033[45m";
     private static final String DIM = "\033[2m";
 
+    // Rows per screen in paged listings
+    private static final int PAGE_SIZE = 20;
+    private static final int DEFAULT_RANKING_SIZE = 50;
+
+    // The report screens share one dashboard snapshot until it is this old
+    private static final long DASHBOARD_MAX_AGE_MS = 60 * 1000;
+    private static final DateTimeFormatter SNAPSHOT_TIME = DateTimeFormatter.ofPattern("HH:mm:ss");
+
     private Scanner scanner;
     private HodDAO hodDAO;
+    private AttendanceDAO attendanceDAO;
+    private AlertDAO alertDAO;
+    private AsyncDAO asyncDAO;
+    private CompletableFuture<HodDashboard> dashboard;
 
     public HodPortal(Scanner scanner) {
         this.scanner = scanner;
         this.hodDAO = new HodDAO();
+        this.attendanceDAO = new AttendanceDAO();
+        this.alertDAO = new AlertDAO();
+        this.asyncDAO = new AsyncDAO();
     }
 
     public void run() {
+        // Aggregate the reports in the background while the menu is on screen
+        dashboard = asyncDAO.getDashboard();
         boolean running = true;
         while (running) {
             clearScreen();
@@ -39,10 +61,16 @@ public class HodPortal {
 
             switch (choice) {
                 case 1 -> teacherManagement();
-                case 2 -> viewAllStudents();
-                case 3 -> viewDepartmentReport();
-                case 4 -> viewLowAttendance();
-                case 5 -> viewOverallStatistics();
+                case 2 -> Metrics.action("HOD: View All Students", this::viewAllStudents);
+                case 3 -> Metrics.action("HOD: Department Report", this::viewDepartmentReport);
+                case 4 -> Metrics.action("HOD: Low Attendance Alerts", this::viewLowAttendance);
+                case 5 -> Metrics.action("HOD: Overall Statistics", this::viewOverallStatistics);
+                case 6 -> Metrics.action("HOD: Alert Thresholds", this::alertThresholds);
+                case 7 -> Metrics.action("HOD: Rebuild Counters", this::rebuildAttendanceCounters);
+                case 8 -> Metrics.action("HOD: Term Partitions", this::termPartitions);
+                case 9 -> Metrics.action("HOD: Export Attendance", this::exportAttendance);
+                case 10 -> viewSystemHealth();
+                case 11 -> attendanceRankings();
                 case 0 -> {
                     running = false;
                     System.out.println(GREEN + "\n  Logging out from HOD Portal..." + RESET);
@@ -73,6 +101,16 @@ public class HodPortal {
         System.out.println(CYAN + "  [3]" + WHITE + "  Department Attendance Report" + RESET);
         System.out.println(CYAN + "  [4]" + WHITE + "  Low Attendance Alerts" + RESET);
         System.out.println(CYAN + "  [5]" + WHITE + "  Overall Statistics" + RESET);
+        System.out.println(DIM + "  ─────────────  Maintenance  ────────────────────" + RESET);
+        System.out.println(CYAN + "  [6]" + WHITE + "  Alert Thresholds" + RESET);
+        System.out.println(CYAN + "  [7]" + WHITE + "  Rebuild Attendance Counters" + RESET);
+        System.out.println(CYAN + "  [8]" + WHITE + "  Term Partitions & Rollover" + RESET);
+        System.out.println(DIM + "  ─────────────  Audit  ──────────────────────────" + RESET);
+        System.out.println(CYAN + "  [9]" + WHITE + "  Export Attendance" + RESET);
+        System.out.println(DIM + "  ─────────────  System  ─────────────────────────" + RESET);
+        System.out.println(CYAN + "  [10]" + WHITE + " System Health" + RESET);
+        System.out.println(DIM + "  ─────────────  Rankings  ───────────────────────" + RESET);
+        System.out.println(CYAN + "  [11]" + WHITE + " Attendance Rankings" + RESET);
         System.out.println(DIM + "  ────────────────────────────────────────────────" + RESET);
         System.out.println(RED + "  [0]" + WHITE + "  Logout" + RESET);
         System.out.println();
@@ -97,11 +135,11 @@ public class HodPortal {
             int choice = getIntInput(CYAN + "  Choice: " + RESET);
 
             switch (choice) {
-                case 1 -> addTeacher();
-                case 2 -> viewAllTeachers();
-                case 3 -> searchTeacher();
-                case 4 -> updateTeacher();
-                case 5 -> deleteTeacher();
+                case 1 -> Metrics.action("HOD: Add Teacher", this::addTeacher);
+                case 2 -> Metrics.action("HOD: View All Teachers", this::viewAllTeachers);
+                case 3 -> Metrics.action("HOD: Search Teacher", this::searchTeacher);
+                case 4 -> Metrics.action("HOD: Update Teacher", this::updateTeacher);
+                case 5 -> Metrics.action("HOD: Delete Teacher", this::deleteTeacher);
                 case 0 -> running = false;
                 default -> {
                     System.out.println(RED + "\n  Invalid choice!" + RESET);
@@ -134,6 +172,7 @@ public class HodPortal {
         try {
             Teacher teacher = new Teacher(teacherId, name, email, department, subject);
             if (hodDAO.addTeacher(teacher)) {
+                dashboard = null;
                 System.out.println(GREEN + "\n  ✓ Teacher added successfully!" + RESET);
             } else {
                 System.out.println(RED + "\n  ✗ Teacher ID already exists!" + RESET);
@@ -264,6 +303,7 @@ public class HodPortal {
 
             if (confirm.equals("yes") || confirm.equals("y")) {
                 if (hodDAO.deleteTeacher(teacherId)) {
+                    dashboard = null;
                     System.out.println(GREEN + "\n  ✓ Teacher deleted successfully!" + RESET);
                 } else {
                     System.out.println(RED + "\n  ✗ Failed to delete teacher!" + RESET);
@@ -280,13 +320,20 @@ public class HodPortal {
     // ==================== STUDENTS & REPORTS ====================
 
     private void viewAllStudents() {
-        clearScreen();
-        System.out.println(BOLD + GREEN + "\n  ═══ All Students (Read-Only) ═══" + RESET);
         try {
-            List<Student> students = hodDAO.getAllStudents();
-            if (students.isEmpty()) {
-                System.out.println(YELLOW + "\n  No students registered yet." + RESET);
-            } else {
+            CompletableFuture<Integer> count = asyncDAO.getStudentCount();
+            CompletableFuture<List<Student>> next = asyncDAO.getStudentsByDepartmentPage(null, PAGE_SIZE);
+            int total = AsyncDAO.await(count);
+            Student after = null;
+            int shown = 0;
+            while (true) {
+                List<Student> page = AsyncDAO.await(next);
+                clearScreen();
+                System.out.println(BOLD + GREEN + "\n  ═══ All Students (Read-Only) ═══" + RESET);
+                if (page.isEmpty()) {
+                    System.out.println(YELLOW + "\n  No students registered yet." + RESET);
+                    break;
+                }
                 System.out.println(
                         DIM + "  +--------------+----------------------+---------------------------+--------------+"
                                 + RESET);
@@ -295,14 +342,24 @@ public class HodPortal {
                 System.out.println(
                         DIM + "  +--------------+----------------------+---------------------------+--------------+"
                                 + RESET);
-                for (Student s : students) {
+                for (Student s : page) {
                     System.out.println("  " + s.toString().replace("│", "|")); // Ensure toString uses ASCII if relied
                                                                                // upon, or replace on fly
                 }
                 System.out.println(
                         DIM + "  +--------------+----------------------+---------------------------+--------------+"
                                 + RESET);
-                System.out.println(CYAN + "\n  Total: " + students.size() + " students" + RESET);
+                shown += page.size();
+                after = page.get(page.size() - 1);
+                System.out.println(CYAN + "\n  Showing " + shown + " of " + total + " students" + RESET);
+                if (page.size() < PAGE_SIZE || shown >= total) {
+                    break;
+                }
+                // Fetch the next page while this one is being read
+                next = asyncDAO.getStudentsByDepartmentPage(after, PAGE_SIZE);
+                if (!nextPage()) {
+                    return;
+                }
             }
         } catch (SQLException e) {
             System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
@@ -314,7 +371,9 @@ public class HodPortal {
         clearScreen();
         System.out.println(BOLD + GREEN + "\n  ═══ Department Attendance Report ═══" + RESET);
         try {
-            List<String[]> report = hodDAO.getDepartmentReport();
+            Term term = readTerm();
+            HodDashboard snapshot = getDashboard(term);
+            List<String[]> report = snapshot.getDepartmentReport();
             if (report.isEmpty()) {
                 System.out.println(YELLOW + "\n  No data available." + RESET);
             } else {
@@ -330,6 +389,9 @@ public class HodPortal {
                 }
                 System.out.println(DIM + "  +--------------+--------------+-------------------+" + RESET);
             }
+            printSnapshotTime(snapshot, term);
+        } catch (IllegalArgumentException e) {
+            System.out.println(RED + "\n  ✗ " + e.getMessage() + RESET);
         } catch (SQLException e) {
             System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
         }
@@ -337,27 +399,94 @@ public class HodPortal {
     }
 
     private void viewLowAttendance() {
+        try {
+            CompletableFuture<int[]> bands = asyncDAO.getAlertCounts();
+            CompletableFuture<List<String[]>> next = asyncDAO.getActiveAlertsPage(null, PAGE_SIZE);
+            int[] counts = AsyncDAO.await(bands);
+            int total = counts[0] + counts[1];
+            String[] after = null;
+            int shown = 0;
+            while (true) {
+                List<String[]> page = AsyncDAO.await(next);
+                clearScreen();
+                System.out.println(BOLD + RED + "\n  ═══ Low Attendance Alerts ═══" + RESET);
+                if (page.isEmpty()) {
+                    System.out.println(GREEN + "\n  ✓ No student is below their department's thresholds!" + RESET);
+                    break;
+                }
+                System.out.println(DIM
+                        + "  +--------------+----------------------+--------------+------------+----------+" + RESET);
+                System.out.printf(BOLD + "  | %-12s | %-20s | %-12s | %-10s | %-8s |%n" + RESET,
+                        "Roll Number", "Name", "Department", "Attendance", "Band");
+                System.out.println(DIM
+                        + "  +--------------+----------------------+--------------+------------+----------+" + RESET);
+                for (String[] s : page) {
+                    String color = s[4].equals("CRITICAL") ? RED : YELLOW;
+                    System.out.printf("  | %-12s | %-20s | %-12s | %s%-10s%s | %s%-8s%s |%n",
+                            s[0], s[1], s[2], color, s[3], RESET, color, s[4], RESET);
+                }
+                System.out.println(DIM
+                        + "  +--------------+----------------------+--------------+------------+----------+" + RESET);
+                shown += page.size();
+                after = page.get(page.size() - 1);
+                System.out.println(YELLOW + "\n  ⚠ " + total + " student(s) need attention: " + RED + counts[1]
+                        + " critical" + YELLOW + ", " + counts[0] + " warning" + RESET);
+                System.out.println(CYAN + "  Showing " + shown + " of " + total + RESET);
+                if (page.size() < PAGE_SIZE || shown >= total) {
+                    break;
+                }
+                next = asyncDAO.getActiveAlertsPage(after, PAGE_SIZE);
+                if (!nextPage()) {
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
+        }
+        pressEnter();
+    }
+
+    private void alertThresholds() {
         clearScreen();
-        System.out.println(BOLD + RED + "\n  ═══ Low Attendance Alerts (<75%) ═══" + RESET);
+        System.out.println(BOLD + YELLOW + "\n  ═══ Alert Thresholds ═══" + RESET);
+        System.out.printf(DIM + "  Default bands: WARNING below %.2f%%, CRITICAL below %.2f%%%n" + RESET,
+                AlertDAO.DEFAULT_WARNING_PCT, AlertDAO.DEFAULT_CRITICAL_PCT);
         try {
-            List<String[]> students = hodDAO.getLowAttendanceStudents();
-            if (students.isEmpty()) {
-                System.out.println(GREEN + "\n  ✓ All students have attendance above 75%!" + RESET);
+            List<String[]> overrides = alertDAO.getThresholdOverrides();
+            if (overrides.isEmpty()) {
+                System.out.println(DIM + "  Every department uses the defaults." + RESET);
             } else {
-                System.out.println(
-                        DIM + "  +--------------+----------------------+--------------+------------+" + RESET);
-                System.out.printf(BOLD + "  | %-12s | %-20s | %-12s | %-10s |%n" + RESET,
-                        "Roll Number", "Name", "Department", "Attendance");
-                System.out
-                        .println(DIM + "  +--------------+----------------------+--------------+------------+" + RESET);
-                for (String[] s : students) {
-                    System.out.printf("  | %-12s | %-20s | %-12s | %s%-10s%s |%n",
-                            s[0], s[1], s[2], RED, s[3], RESET);
+                System.out.println(DIM + "  +----------------------+------------+------------+" + RESET);
+                System.out.printf(BOLD + "  | %-20s | %-10s | %-10s |%n" + RESET, "Department", "Warning", "Critical");
+                System.out.println(DIM + "  +----------------------+------------+------------+" + RESET);
+                for (String[] t : overrides) {
+                    System.out.printf("  | %-20s | %s%-10s%s | %s%-10s%s |%n",
+                            t[0], YELLOW, t[1], RESET, RED, t[2], RESET);
                 }
-                System.out
-                        .println(DIM + "  +--------------+----------------------+--------------+------------+" + RESET);
-                System.out.println(YELLOW + "\n  ⚠ " + students.size() + " student(s) need attention!" + RESET);
+                System.out.println(DIM + "  +----------------------+------------+------------+" + RESET);
+            }
+
+            System.out.print(CYAN + "\n  Department to change (Enter to go back): " + RESET);
+            String department = scanner.nextLine().trim();
+            if (department.isEmpty()) {
+                return;
             }
+            System.out.print(CYAN + "  Warning below % (Enter to restore defaults): " + RESET);
+            String warning = scanner.nextLine().trim();
+            int changed;
+            if (warning.isEmpty()) {
+                changed = alertDAO.resetThresholds(department);
+            } else {
+                System.out.print(CYAN + "  Critical below %: " + RESET);
+                String critical = scanner.nextLine().trim();
+                changed = alertDAO.setThresholds(department, Double.parseDouble(warning),
+                        Double.parseDouble(critical));
+            }
+            System.out.println(GREEN + "\n  ✓ Thresholds saved; " + changed + " student(s) changed band." + RESET);
+        } catch (NumberFormatException e) {
+            System.out.println(RED + "\n  ✗ Thresholds must be numbers!" + RESET);
+        } catch (IllegalArgumentException e) {
+            System.out.println(RED + "\n  ✗ " + e.getMessage() + RESET);
         } catch (SQLException e) {
             System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
         }
@@ -368,7 +497,9 @@ public class HodPortal {
         clearScreen();
         System.out.println(BOLD + GREEN + "\n  ═══ Overall System Statistics ═══" + RESET);
         try {
-            String[] stats = hodDAO.getOverallStatistics();
+            Term term = readTerm();
+            HodDashboard snapshot = getDashboard(term);
+            String[] stats = snapshot.getOverallStatistics();
             System.out.println();
             System.out.println(DIM + "  +--------------------------------------------+" + RESET);
             System.out.println(WHITE + "  |  Total Students       : " + CYAN + String.format("%-18s", stats[0]) + WHITE
@@ -380,12 +511,418 @@ public class HodPortal {
             System.out.println(WHITE + "  |  Total Records        : " + CYAN + String.format("%-18s", stats[3]) + WHITE
                     + "|" + RESET);
             System.out.println(DIM + "  +--------------------------------------------+" + RESET);
+            printSnapshotTime(snapshot, term);
+        } catch (IllegalArgumentException e) {
+            System.out.println(RED + "\n  ✗ " + e.getMessage() + RESET);
         } catch (SQLException e) {
             System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
         }
         pressEnter();
     }
 
+    /**
+     * Dashboard snapshot shared by the report screens; one aggregation serves them all.
+     * It is started in the background on login, so the first report usually finds it ready.
+     * A term report is aggregated afresh over the term's dates instead.
+     */
+    private HodDashboard getDashboard(Term term) throws SQLException {
+        if (term != null) {
+            return AsyncDAO.await(asyncDAO.getDashboard(term));
+        }
+        if (dashboard == null || isStale(dashboard)) {
+            dashboard = asyncDAO.getDashboard();
+        }
+        return AsyncDAO.await(dashboard);
+    }
+
+    /**
+     * Optional term for a report; null for all time
+     */
+    // ==================== RANKINGS ====================
+
+    private void attendanceRankings() {
+        boolean running = true;
+        while (running) {
+            clearScreen();
+            System.out.println(BOLD + CYAN + "\n  ═══ Attendance Rankings ═══" + RESET);
+            System.out.println();
+            System.out.println(CYAN + "  [1]" + WHITE + "  Lowest Attendance (bottom N)" + RESET);
+            System.out.println(CYAN + "  [2]" + WHITE + "  Highest Attendance (top N)" + RESET);
+            System.out.println(CYAN + "  [3]" + WHITE + "  Students in a Percentage Range" + RESET);
+            System.out.println(CYAN + "  [4]" + WHITE + "  Student Rank & Percentile" + RESET);
+            System.out.println(RED + "  [0]" + WHITE + "  Back to Dashboard" + RESET);
+            System.out.println();
+
+            int choice = getIntInput(CYAN + "  Choice: " + RESET);
+
+            switch (choice) {
+                case 1 -> Metrics.action("HOD: Lowest Attendance", () -> viewRanking(true));
+                case 2 -> Metrics.action("HOD: Highest Attendance", () -> viewRanking(false));
+                case 3 -> Metrics.action("HOD: Attendance Range", this::viewAttendanceRange);
+                case 4 -> Metrics.action("HOD: Student Standing", this::viewStudentStanding);
+                case 0 -> running = false;
+                default -> {
+                    System.out.println(RED + "\n  Invalid choice!" + RESET);
+                    sleep(1000);
+                }
+            }
+        }
+    }
+
+    private void viewRanking(boolean lowestFirst) {
+        System.out.print(CYAN + "\n  How many students? (Enter = " + DEFAULT_RANKING_SIZE + "): " + RESET);
+        String input = scanner.nextLine().trim();
+        int wanted;
+        try {
+            wanted = input.isEmpty() ? DEFAULT_RANKING_SIZE : Integer.parseInt(input);
+        } catch (NumberFormatException e) {
+            wanted = -1;
+        }
+        if (wanted < 1) {
+            System.out.println(RED + "\n  Enter a positive number." + RESET);
+            pressEnter();
+            return;
+        }
+        String title = lowestFirst ? "Lowest Attendance" : "Highest Attendance";
+        try {
+            int shown = 0;
+            while (true) {
+                AttendanceRanking.Page page =
+                        hodDAO.getRankingPage(lowestFirst, shown, Math.min(PAGE_SIZE, wanted - shown));
+                clearScreen();
+                System.out.println(BOLD + CYAN + "\n  ═══ " + title + " ═══" + RESET);
+                if (page.rows().isEmpty()) {
+                    System.out.println(YELLOW + "\n  No attendance has been marked yet." + RESET);
+                    break;
+                }
+                printRankingRows(page.rows());
+                shown += page.rows().size();
+                int total = Math.min(wanted, page.total());
+                System.out.println(CYAN + "\n  Showing " + shown + " of " + total + " (" + page.total()
+                        + " students ranked)" + RESET);
+                if (shown >= total) {
+                    break;
+                }
+                if (!nextPage()) {
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
+        }
+        pressEnter();
+    }
+
+    private void viewAttendanceRange() {
+        double from;
+        double to;
+        try {
+            System.out.print(CYAN + "\n  From % (e.g. 60): " + RESET);
+            from = Double.parseDouble(scanner.nextLine().trim());
+            System.out.print(CYAN + "  To % (e.g. 75): " + RESET);
+            to = Double.parseDouble(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            from = -1;
+            to = -1;
+        }
+        if (from < 0 || to > 100 || from > to) {
+            System.out.println(RED + "\n  Enter two percentages from 0 to 100, the lower one first." + RESET);
+            pressEnter();
+            return;
+        }
+        String title = String.format("Attendance %.2f%% to %.2f%%", from, to);
+        try {
+            int shown = 0;
+            while (true) {
+                AttendanceRanking.Page page = hodDAO.getRangePage(from, to, shown, PAGE_SIZE);
+                clearScreen();
+                System.out.println(BOLD + CYAN + "\n  ═══ " + title + " ═══" + RESET);
+                if (page.rows().isEmpty()) {
+                    System.out.println(GREEN + "\n  No student is in this range." + RESET);
+                    break;
+                }
+                printRankingRows(page.rows());
+                shown += page.rows().size();
+                System.out.println(CYAN + "\n  Showing " + shown + " of " + page.total() + RESET);
+                if (shown >= page.total()) {
+                    break;
+                }
+                if (!nextPage()) {
+                    return;
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
+        }
+        pressEnter();
+    }
+
+    private void viewStudentStanding() {
+        System.out.print(CYAN + "\n  Roll Number: " + RESET);
+        String rollNumber = scanner.nextLine().trim();
+        try {
+            AttendanceRanking.Standing standing = hodDAO.getStanding(rollNumber);
+            if (standing == null) {
+                System.out.println(RED + "\n  Student with roll number '" + rollNumber + "' not found!" + RESET);
+            } else if (standing.rank() == 0) {
+                System.out.println(YELLOW + "\n  " + standing.name() + " has no attendance marked yet." + RESET);
+            } else {
+                double pct = standing.percentage();
+                String color = pct >= 75 ? GREEN : pct >= 50 ? YELLOW : RED;
+                System.out.println();
+                System.out.println(DIM + "  +--------------------------------------------+" + RESET);
+                System.out.println(WHITE + "  |  Student              : " + CYAN
+                        + String.format("%-18s", standing.rollNumber()) + WHITE + "|" + RESET);
+                System.out.println(WHITE + "  |  Name                 : " + CYAN
+                        + String.format("%-18.18s", standing.name()) + WHITE + "|" + RESET);
+                System.out.println(WHITE + "  |  Attendance           : " + color
+                        + String.format("%-18s", String.format("%.2f%%", pct)) + WHITE + "|" + RESET);
+                System.out.println(WHITE + "  |  Rank                 : " + CYAN
+                        + String.format("%-18s", standing.rank() + " of " + standing.ranked()) + WHITE + "|" + RESET);
+                System.out.println(WHITE + "  |  Percentile           : " + CYAN
+                        + String.format("%-18s", String.format("%.1f", standing.percentile())) + WHITE + "|"
+                        + RESET);
+                System.out.println(DIM + "  +--------------------------------------------+" + RESET);
+                System.out.println(DIM + String.format("  Attendance is above %.1f%% of ranked students.",
+                        standing.percentile()) + RESET);
+            }
+        } catch (SQLException e) {
+            System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
+        }
+        pressEnter();
+    }
+
+    private void printRankingRows(List<String[]> rows) {
+        System.out.println(DIM
+                + "  +-------+--------------+----------------------+--------------+------------+" + RESET);
+        System.out.printf(BOLD + "  | %5s | %-12s | %-20s | %-12s | %-10s |%n" + RESET,
+                "#", "Roll Number", "Name", "Department", "Attendance");
+        System.out.println(DIM
+                + "  +-------+--------------+----------------------+--------------+------------+" + RESET);
+        for (String[] r : rows) {
+            double pct = Double.parseDouble(r[4].replace("%", ""));
+            String color = pct >= 75 ? GREEN : pct >= 50 ? YELLOW : RED;
+            System.out.printf("  | %5s | %-12s | %-20.20s | %-12.12s | %s%-10s%s |%n",
+                    r[0], r[1], r[2], r[3], color, r[4], RESET);
+        }
+        System.out.println(DIM
+                + "  +-------+--------------+----------------------+--------------+------------+" + RESET);
+    }
+
+    private Term readTerm() {
+        System.out.print(CYAN + "  Term (current, next, YYYY-MM or from..to; Enter = all time): " + RESET);
+        String term = scanner.nextLine().trim();
+        return term.isEmpty() ? null : Term.parse(term);
+    }
+
+    private static boolean isStale(CompletableFuture<HodDashboard> snapshot) {
+        if (!snapshot.isDone()) {
+            return false;
+        }
+        return snapshot.isCompletedExceptionally() || snapshot.join().getAgeMillis() > DASHBOARD_MAX_AGE_MS;
+    }
+
+    private void printSnapshotTime(HodDashboard snapshot, Term term) {
+        System.out.println(DIM + "  Figures as of " + snapshot.getTakenAt().format(SNAPSHOT_TIME)
+                + (term != null ? " for " + term.label() : " for all time") + RESET);
+    }
+
+    // ==================== AUDIT ====================
+
+    private void exportAttendance() {
+        clearScreen();
+        System.out.println(BOLD + CYAN + "\n  ═══ Export Attendance ═══" + RESET);
+        System.out.println(DIM + "  Leave a filter blank to include everything." + RESET);
+        System.out.println();
+        try {
+            System.out.print(CYAN + "  From date (YYYY-MM-DD) : " + RESET);
+            LocalDate from = readOptionalDate();
+            System.out.print(CYAN + "  To date (YYYY-MM-DD)   : " + RESET);
+            LocalDate to = readOptionalDate();
+            System.out.print(CYAN + "  Department             : " + RESET);
+            String department = scanner.nextLine().trim();
+            System.out.println(CYAN + "  [1]" + WHITE + "  CSV" + RESET);
+            System.out.println(CYAN + "  [2]" + WHITE + "  Compact binary (.attx)" + RESET);
+            int choice = getIntInput(CYAN + "  Format                 : " + RESET);
+            if (choice != 1 && choice != 2) {
+                System.out.println(RED + "\n  Invalid choice!" + RESET);
+                pressEnter();
+                return;
+            }
+            AttendanceExporter.Format format = choice == 1 ? AttendanceExporter.Format.CSV
+                    : AttendanceExporter.Format.BINARY;
+            String defaultFile = "data/exports/attendance" + (choice == 1 ? ".csv" : ".attx");
+            System.out.print(CYAN + "  Output file            : " + RESET + DIM + "(" + defaultFile + ") " + RESET);
+            String file = scanner.nextLine().trim();
+
+            AttendanceExporter exporter = new AttendanceExporter(format);
+            exporter.setDateRange(from, to);
+            exporter.setDepartment(department.isEmpty() ? null : department);
+            System.out.println(DIM + "\n  Exporting..." + RESET);
+            AttendanceExporter.Result result = exporter.export(Path.of(file.isEmpty() ? defaultFile : file));
+            System.out.printf(GREEN + "\n  ✓ Exported %,d records (%,d KB) in %.1f s%n" + RESET,
+                    result.rows(), result.bytes() / 1024, result.seconds());
+        } catch (IllegalArgumentException e) {
+            System.out.println(RED + "\n  ✗ " + e.getMessage() + RESET);
+        } catch (IOException e) {
+            System.out.println(RED + "\n  ✗ Could not write file: " + e.getMessage() + RESET);
+        } catch (SQLException e) {
+            System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
+        }
+        pressEnter();
+    }
+
+    private LocalDate readOptionalDate() {
+        String date = scanner.nextLine().trim();
+        return date.isEmpty() ? null : AttendanceDAO.toSqlDate(date).toLocalDate();
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    private void rebuildAttendanceCounters() {
+        clearScreen();
+        System.out.println(BOLD + YELLOW + "\n  ═══ Rebuild Attendance Counters ═══" + RESET);
+        System.out.println(DIM + "  Recomputes every student's totals from the raw attendance records." + RESET);
+        System.out.print(RED + "  Proceed? (yes/no): " + RESET);
+        String confirm = scanner.nextLine().trim().toLowerCase();
+
+        if (confirm.equals("yes") || confirm.equals("y")) {
+            try {
+                int students = attendanceDAO.rebuildCounters();
+                dashboard = null;
+                System.out.println(GREEN + "\n  ✓ Counters rebuilt for " + students + " student(s)." + RESET);
+            } catch (SQLException e) {
+                System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
+            }
+        } else {
+            System.out.println(YELLOW + "\n  Rebuild cancelled." + RESET);
+        }
+        pressEnter();
+    }
+
+    /**
+     * Attendance partitions with their row estimates, and the term rollover that adds the
+     * next term's monthly partitions ahead of time
+     */
+    private void termPartitions() {
+        clearScreen();
+        System.out.println(BOLD + YELLOW + "\n  ═══ Term Partitions & Rollover ═══" + RESET);
+        Term current = Term.current();
+        System.out.println(DIM + "  Current term: " + current.label() + "    next: " + current.next().label() + RESET);
+        try {
+            List<AttendanceArchive.Summary> archived = AttendanceArchive.list();
+            if (!archived.isEmpty()) {
+                System.out.println(DIM + "\n  ─────────────  Archived Terms  ─────────────────" + RESET);
+                for (AttendanceArchive.Summary a : archived) {
+                    System.out.printf(WHITE + "  %-26s %,6d students  %4d days  %,10d marks  %,10d bytes%n" + RESET,
+                            a.term().label(), a.students(), a.classDays(), a.rows(), a.bytes());
+                }
+            }
+        } catch (SQLException e) {
+            System.out.println(RED + "\n  Archive unreadable: " + e.getMessage() + RESET);
+        }
+        if (!DatabaseConnection.getBackend().supportsPartitioning()) {
+            System.out.println(YELLOW + "\n  " + DatabaseConnection.getBackend().getName()
+                    + " does not partition tables; term reports use the date index." + RESET);
+            pressEnter();
+            return;
+        }
+        try {
+            List<AttendancePartitions.Partition> partitions = AttendancePartitions.list();
+            System.out.println(DIM + "  +--------------+--------------+--------------+--------------+" + RESET);
+            System.out.printf(BOLD + "  | %-12s | %-12s | %-12s | %12s |%n" + RESET, "Partition", "From", "Until",
+                    "Rows (est.)");
+            System.out.println(DIM + "  +--------------+--------------+--------------+--------------+" + RESET);
+            for (AttendancePartitions.Partition p : partitions) {
+                System.out.printf("  | %-12s | %-12s | %-12s | %,12d |%n", p.name(),
+                        p.from() == null ? "-" : p.from(), p.until() == null ? "-" : p.until(), p.rows());
+            }
+            System.out.println(DIM + "  +--------------+--------------+--------------+--------------+" + RESET);
+
+            System.out.print(CYAN + "\n  Create partitions through the next term? (yes/no): " + RESET);
+            String confirm = scanner.nextLine().trim().toLowerCase();
+            if (confirm.equals("yes") || confirm.equals("y")) {
+                int added = AttendancePartitions.rollover();
+                System.out.println(GREEN + "\n  ✓ " + (added == 0 ? "Already partitioned through "
+                        : added + " monthly partition(s) added through ") + current.next().label() + RESET);
+            }
+        } catch (SQLException e) {
+            System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
+        }
+        pressEnter();
+    }
+
+    // ==================== SYSTEM ====================
+
+    /**
+     * Pool state, index size, per-DAO-method latency and per-action round trips since startup.
+     * The same figures are published over JMX under the attendify domain.
+     */
+    private void viewSystemHealth() {
+        clearScreen();
+        System.out.println(BOLD + BLUE + "\n  ═══ System Health ═══" + RESET);
+        try {
+            ConnectionPool pool = DatabaseConnection.getPool();
+            System.out.println(DIM + "\n  ─────────────  Connection Pool  ────────────────" + RESET);
+            System.out.printf(WHITE + "  Active %s%d%s / idle %s%d%s / max %d    borrows %,d    timeouts %s%d%s%n"
+                    + RESET,
+                    CYAN, pool.getActiveConnections(), WHITE, CYAN, pool.getIdleConnections(), WHITE,
+                    pool.getMaxSize(), pool.getBorrowCount(),
+                    pool.getTimeoutCount() > 0 ? RED : GREEN, pool.getTimeoutCount(), WHITE);
+            System.out.printf(WHITE + "  Wait avg %.2f ms / max %.2f ms    created %d    discarded %d    leaks %d%n"
+                    + RESET,
+                    pool.getAverageWaitMillis(), pool.getMaxWaitMillis(), pool.getCreatedCount(),
+                    pool.getDestroyedCount(), pool.getLeakCount());
+        } catch (SQLException e) {
+            System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
+        }
+        long dropped = MarkJournal.getDroppedMarks();
+        System.out.printf(WHITE + "  Round trips %,d    connections borrowed %,d    journal backlog %,d mark(s)"
+                + "    dropped %s%,d%s%n" + RESET,
+                Metrics.getRoundTrips(), Metrics.getConnectionAcquisitions(), MarkJournal.getPendingMarks(),
+                dropped > 0 ? RED : GREEN, dropped, WHITE);
+        AttendanceIndex index = AttendanceIndex.getInstance();
+        System.out.printf(WHITE + "  Attendance index %s%s%s    about %,d KB in memory%n" + RESET,
+                index.isReady() ? GREEN : YELLOW, index.isReady() ? "ready" : "not built, reads use SQL", WHITE,
+                index.estimateMemoryBytes() / 1024);
+
+        System.out.println(DIM + "\n  ─────────────  Operations (ms)  ────────────────" + RESET);
+        List<Metrics.Operation> operations = Metrics.getOperations();
+        if (operations.isEmpty()) {
+            System.out.println(YELLOW + "  No database calls yet." + RESET);
+        } else {
+            System.out.printf(BOLD + "  %-43s %8s %6s %9s %8s %8s %8s %8s%n" + RESET,
+                    "Operation", "Calls", "Errors", "Rows", "p50", "p95", "p99", "Max");
+            for (Metrics.Operation op : operations) {
+                System.out.printf("  %-43s %,8d %s%6d%s %,9d %8.2f %8.2f %8.2f %8.2f%n",
+                        op.getName(), op.getCalls(), op.getErrors() > 0 ? RED : DIM, op.getErrors(), RESET,
+                        op.getRows(), op.getP50Millis(), op.getP95Millis(), op.getP99Millis(), op.getMaxMillis());
+            }
+        }
+
+        System.out.println(DIM + "\n  ─────────────  Actions  ────────────────────────" + RESET);
+        List<Metrics.ActionStats> actions = Metrics.getActions();
+        if (actions.isEmpty()) {
+            System.out.println(YELLOW + "  No actions yet." + RESET);
+        } else {
+            System.out.printf(BOLD + "  %-32s %8s %14s %14s %14s%n" + RESET,
+                    "Action", "Runs", "Round trips", "Max trips", "Connections");
+            for (Metrics.ActionStats action : actions) {
+                System.out.printf("  %-32s %,8d %14.1f %14d %14.1f%n",
+                        action.getName(), action.getCount(), action.getMeanRoundTrips(),
+                        action.getMaxRoundTrips(), action.getMeanConnectionAcquisitions());
+            }
+            System.out.println(DIM + "  Round trips and connections are averages per run." + RESET);
+        }
+        if (QueryBudget.MODE != QueryBudget.Mode.OFF) {
+            long violations = QueryBudget.getViolationCount();
+            String where = violations > 0 ? ", see " + QueryBudget.LOG_FILE : "";
+            System.out.println((violations > 0 ? YELLOW : GREEN) + "  " + violations
+                    + " step(s) over the query budget" + where + RESET);
+        }
+        pressEnter();
+    }
+
     // ==================== UTILITIES ====================
 
     private int getIntInput(String prompt) {
@@ -402,6 +939,15 @@ public class HodPortal {
         scanner.nextLine();
     }
 
+    /**
+     * Returns false if the user asked to stop paging. Each page is query-budgeted on its own.
+     */
+    private boolean nextPage() {
+        Metrics.nextStep();
+        System.out.print(DIM + "\n  Press Enter for the next page, or Q to go back..." + RESET);
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+
     private void clearScreen() {
         System.out.print("\033[H\033[2J");
         System.out.flush();
@@ -0,0 +1,76 @@
+import java.sql.*;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * JdbcStream - Lazily streams query rows over a server-side cursor
+ * Rows are fetched FETCH_SIZE at a time (useCursorFetch), so memory stays flat however
+ * large the table. The stream holds a pooled connection until closed: always use
+ * try-with-resources.
+ */
+public class JdbcStream {
+    public static final int FETCH_SIZE = 500;
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Stream the rows of sql, binding params to its placeholders in order
+     */
+    public static <T> Stream<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        PreparedStatement pstmt = null;
+        ResultSet rs;
+        try {
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(pstmt);
+            closeQuietly(conn);
+            throw e;
+        }
+
+        ResultSet cursor = rs;
+        Statement statement = pstmt;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursor.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.map(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Streaming query failed: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            closeQuietly(cursor);
+            closeQuietly(statement);
+            closeQuietly(conn);
+        });
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
+            // Nothing useful to do while releasing
+        }
+    }
+}
@@ -1,5 +1,8 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.sql.SQLException;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Attendify - Unified Attendance Management System
@@ -19,6 +22,7 @@ public class Main {
     private static final String CYAN = "\033[36m";
     private static final String GREEN = "\033[32m";
     private static final String RED = "\033[31m";
+    private static final String YELLOW = "\033[33m";
     private static final String BLUE = "\033[34m";
     private static final String MAGENTA = "\033[35m";
     private static final String WHITE = "\033[97m";
@@ -31,17 +35,43 @@ public class Main {
     private static final String STUDENT_USER = "001";
     private static final String STUDENT_PASS = "aarav";
 
+    private static final Metrics.Operation STARTUP_OP = Metrics.operation("Main.startup");
+
     private static Scanner scanner = new Scanner(System.in);
 
     public static void main(String[] args) {
+        // Startup is timed from JVM launch to the first login prompt
+        long launched = System.nanoTime()
+                - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+        boolean seed = false;
+        for (String arg : args) {
+            if (arg.equals("--seed")) {
+                seed = true;
+            } else {
+                System.out.println("Usage: Main [--seed]");
+                return;
+            }
+        }
+
         // Enable ANSI on Windows 10+
         enableAnsi();
 
         try {
             DatabaseConnection.initializeDatabase();
-            DatabaseConnection.createDefaultHod();
-            DatabaseConnection.createSampleData();
+            if (seed) {
+                seedDemoData();
+                return;
+            }
+            AttendanceIndex.getInstance().buildAsync();
+            AlertNotifier.start();
+            try {
+                MarkJournal.start();
+            } catch (IOException e) {
+                System.out.println(YELLOW + "\n  [WARN] Offline journal disabled: " + e.getMessage() + RESET);
+            }
 
+            STARTUP_OP.success(launched, 0);
+            Metrics.exportToJmx();
             boolean running = true;
             while (running) {
                 clearScreen();
@@ -54,11 +84,32 @@ public class Main {
         } catch (SQLException e) {
             System.out.println(RED + "\n  [ERROR] Database error: " + e.getMessage() + RESET);
         } finally {
+            MarkJournal.stop();
+            AlertNotifier.stop();
             DatabaseConnection.closeConnection();
             scanner.close();
         }
     }
 
+    /**
+     * Main --seed: the default HOD and the demo fixtures, loaded on request only
+     * (large datasets: see SyntheticDataGenerator)
+     */
+    private static void seedDemoData() throws SQLException {
+        Metrics.Action action = Metrics.beginAction("Startup: seed");
+        Throwable failure = null;
+        try {
+            DatabaseConnection.createDefaultHod();
+            DatabaseConnection.createSampleData();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            Metrics.endAction(action, failure);
+        }
+        System.out.println(GREEN + "\n  Default HOD and sample data loaded." + RESET);
+    }
+
     // =========================================================
     // WELCOME SCREEN
     // =========================================================
@@ -149,7 +200,11 @@ public class Main {
         return true;
     }
 
-    private static String authenticate(String username, String password) {
+    /**
+     * Role for a username/password pair (HOD, TEACHER or STUDENT), or null.
+     * Shared with AttendifyServer's login endpoint.
+     */
+    static String authenticate(String username, String password) {
         if (username.equals(HOD_USER) && password.equals(HOD_PASS)) {
             return "HOD";
         } else if (username.equals(TEACHER_USER) && password.equals(TEACHER_PASS)) {
@@ -0,0 +1,607 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * MarkJournal - Local write-ahead journal for attendance marks
+ *
+ * A roster is appended to a memory-mapped segment file and forced to disk before record()
+ * returns, so the teacher's marks survive a database outage or a crash. Concurrent
+ * appends share one force (group commit). A background replayer applies journaled
+ * rosters to the database in order, through AttendanceDAO.markAttendanceBatch, and then
+ * records the last applied sequence number in a checkpoint file. Re-applying a roster
+ * sets the same statuses again, so a crash between the two is harmless.
+ *
+ * Segments are SEGMENT_BYTES files named marks-<first sequence>.journal; each record is
+ *   int length, int CRC32C of the body, body: long seq, long epoch day, int count,
+ *   count x (byte status, short length, UTF-8 roll number)
+ * On start the segments are scanned from the checkpoint; a torn record at the tail of the
+ * last one (crash mid-append) fails its CRC and is discarded. Segments entirely before
+ * the checkpoint are deleted.
+ *
+ * Files live in -Dattendify.journal.dir (default data/journal). Marks that can no longer
+ * be applied (e.g. the student was deleted meanwhile) are written to dropped.log there.
+ * Connection errors are retried indefinitely; a roster that fails any other way
+ * MAX_APPLY_ATTEMPTS times in a row is quarantined to dropped.log with the error.
+ *
+ * Appends lock this; replay locks replayLock and takes this only to read the segment
+ * list, so record() never waits on a database call made by the replayer.
+ */
+public class MarkJournal {
+    private static final Path JOURNAL_DIR = Path.of(System.getProperty("attendify.journal.dir", "data/journal"));
+    static final int SEGMENT_BYTES = 8 * 1024 * 1024;
+
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int REPLAY_BATCH_MARKS = 1_000;
+    private static final long IDLE_WAIT_MS = 200;
+    private static final long MIN_RETRY_MS = 250;
+    private static final long MAX_RETRY_MS = 5_000;
+    private static final int MAX_APPLY_ATTEMPTS = 5;
+    private static final String SEGMENT_PREFIX = "marks-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static volatile MarkJournal journal = null;
+
+    /**
+     * One journaled roster
+     */
+    private record Entry(long seq, String date, Map<String, String> roster, int size) {
+    }
+
+    private static final class Segment {
+        final long firstSeq;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer map;
+        int end;
+
+        Segment(long firstSeq, Path path) throws IOException {
+            this.firstSeq = firstSeq;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+        }
+    }
+
+    private final Path dir;
+    private final AttendanceDAO attendanceDAO = new AttendanceDAO();
+    private final AtomicLong pendingMarks = new AtomicLong();
+    private final AtomicLong droppedMarks = new AtomicLong();
+
+    // Appending (guarded by this)
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private long lastSeq;
+    private int dirtyFrom;
+
+    // Group commit (guarded by flushLock)
+    private final Object flushLock = new Object();
+    private long durableSeq;
+    private boolean flushing;
+
+    // Replay (guarded by replayLock, never held together with this across a database call)
+    private final Object replayLock = new Object();
+    private Segment cursorSegment;
+    private int cursorOffset;
+    private int failures;
+    private volatile long checkpointSeq;
+    private volatile boolean running = true;
+    private final Thread replayer;
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Open the journal, recover it, and start replaying to the database in the background
+     */
+    public static synchronized void start() throws IOException {
+        if (journal == null) {
+            journal = new MarkJournal(JOURNAL_DIR);
+        }
+    }
+
+    /**
+     * Stop replaying; whatever the database accepts before the call returns is applied,
+     * the rest stays journaled for the next start
+     */
+    public static synchronized void stop() {
+        if (journal == null) {
+            return;
+        }
+        journal.close();
+        journal = null;
+    }
+
+    public static boolean isRunning() {
+        return journal != null;
+    }
+
+    /**
+     * Journal a roster for one date; returns once it is on disk. The database is updated
+     * in the background.
+     */
+    public static int record(String date, Map<String, String> roster) throws IOException {
+        MarkJournal current = journal;
+        if (current == null) {
+            throw new IllegalStateException("Mark journal is not running");
+        }
+        return current.append(date, roster);
+    }
+
+    /**
+     * Marks journaled but not yet applied to the database
+     */
+    public static long getPendingMarks() {
+        MarkJournal current = journal;
+        return current == null ? 0 : current.pendingMarks.get();
+    }
+
+    /**
+     * Marks written to dropped.log instead of the database since the journal started
+     */
+    public static long getDroppedMarks() {
+        MarkJournal current = journal;
+        return current == null ? 0 : current.droppedMarks.get();
+    }
+
+    private MarkJournal(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        recover();
+        replayer = new Thread(this::replayLoop, "attendify-journal-replay");
+        replayer.setDaemon(true);
+        replayer.start();
+    }
+
+    private void close() {
+        running = false;
+        synchronized (flushLock) {
+            flushLock.notifyAll();
+        }
+        try {
+            replayer.join(MAX_RETRY_MS);
+            while (replayOnce() > 0) {
+                // Drain what the database will take now
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("Journaled marks left for next start: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (Segment segment : segments) {
+                closeQuietly(segment);
+            }
+            segments.clear();
+        }
+    }
+
+    // ==================== APPEND ====================
+
+    private int append(String date, Map<String, String> roster) throws IOException {
+        LocalDate day = AttendanceDAO.toMarkDate(date).toLocalDate();
+        if (roster.isEmpty()) {
+            return 0;
+        }
+        int bodyBytes = 20;
+        for (Map.Entry<String, String> mark : roster.entrySet()) {
+            if (!"PRESENT".equals(mark.getValue()) && !"ABSENT".equals(mark.getValue())) {
+                throw new IllegalArgumentException("Status must be 'PRESENT' or 'ABSENT'");
+            }
+            bodyBytes += 3 + mark.getKey().getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (RECORD_HEADER_BYTES + bodyBytes > SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Roster is too large for the journal");
+        }
+        ByteBuffer body = ByteBuffer.allocate(bodyBytes);
+        body.putLong(0).putLong(day.toEpochDay()).putInt(roster.size());
+        for (Map.Entry<String, String> mark : roster.entrySet()) {
+            byte[] roll = mark.getKey().getBytes(StandardCharsets.UTF_8);
+            body.put((byte) AttendanceDAO.statusCode(mark.getValue())).putShort((short) roll.length).put(roll);
+        }
+
+        long seq;
+        synchronized (this) {
+            seq = lastSeq + 1;
+            body.putLong(0, seq);
+            CRC32C crc = new CRC32C();
+            crc.update(body.array());
+            if (active.end + RECORD_HEADER_BYTES + bodyBytes > SEGMENT_BYTES) {
+                roll(seq);
+            }
+            active.map.putInt(active.end, bodyBytes);
+            active.map.putInt(active.end + 4, (int) crc.getValue());
+            active.map.put(active.end + RECORD_HEADER_BYTES, body.array());
+            active.end += RECORD_HEADER_BYTES + bodyBytes;
+            lastSeq = seq;
+        }
+        pendingMarks.addAndGet(roster.size());
+        awaitDurable(seq);
+        return roster.size();
+    }
+
+    /**
+     * Force everything up to seq to disk. The first waiter forces on behalf of all the
+     * appends written so far; the others wait for it.
+     */
+    private void awaitDurable(long seq) throws IOException {
+        synchronized (flushLock) {
+            while (durableSeq < seq && flushing) {
+                try {
+                    flushLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for the journal", e);
+                }
+            }
+            if (durableSeq >= seq) {
+                return;
+            }
+            flushing = true;
+        }
+
+        long target;
+        try {
+            Segment segment;
+            int from;
+            int to;
+            synchronized (this) {
+                target = lastSeq;
+                segment = active;
+                from = dirtyFrom;
+                to = active.end;
+                dirtyFrom = to;
+            }
+            if (to > from) {
+                segment.map.force(from, to - from);
+            }
+        } catch (RuntimeException e) {
+            synchronized (flushLock) {
+                flushing = false;
+                flushLock.notifyAll();
+            }
+            throw new IOException("Could not write the journal: " + e.getMessage(), e);
+        }
+        synchronized (flushLock) {
+            durableSeq = target;
+            flushing = false;
+            // Wakes the other appenders and the replayer
+            flushLock.notifyAll();
+        }
+    }
+
+    // Called with this held; the finished segment is forced whole before moving on
+    private void roll(long firstSeq) throws IOException {
+        active.map.force();
+        active = new Segment(firstSeq, segmentPath(firstSeq));
+        segments.add(active);
+        dirtyFrom = 0;
+    }
+
+    // ==================== REPLAY ====================
+
+    private void replayLoop() {
+        long retry = 0;
+        while (running) {
+            try {
+                if (replayOnce() == 0) {
+                    waitForMarks(IDLE_WAIT_MS);
+                }
+                retry = 0;
+            } catch (SQLException | IOException | RuntimeException e) {
+                // Database unreachable (or briefly failing): back off and keep the marks
+                retry = retry == 0 ? MIN_RETRY_MS : Math.min(MAX_RETRY_MS, retry * 2);
+                waitForMarks(retry);
+            }
+        }
+    }
+
+    private void waitForMarks(long ms) {
+        synchronized (flushLock) {
+            if (running) {
+                try {
+                    flushLock.wait(ms);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the next batch of durable rosters and advance the checkpoint past them.
+     * Returns the number of marks applied (0 = nothing pending).
+     */
+    private int replayOnce() throws SQLException, IOException {
+        synchronized (replayLock) {
+            long durable;
+            synchronized (flushLock) {
+                durable = durableSeq;
+            }
+            List<Entry> batch = new ArrayList<>();
+            Segment segment;
+            int offset;
+            int marks = 0;
+            // The append lock covers only the scan of the segment list; the database is called without it
+            synchronized (this) {
+                segment = cursorSegment;
+                offset = cursorOffset;
+                while (marks < REPLAY_BATCH_MARKS) {
+                    if (offset >= segment.end) {
+                        if (segment == active) {
+                            break;
+                        }
+                        segment = segments.get(segments.indexOf(segment) + 1);
+                        offset = 0;
+                        continue;
+                    }
+                    Entry entry = read(segment, offset);
+                    if (entry == null || entry.seq() > durable) {
+                        break;
+                    }
+                    offset += entry.size();
+                    if (entry.seq() > checkpointSeq) {
+                        batch.add(entry);
+                        marks += entry.roster().size();
+                    }
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                boolean failing = false;
+                try {
+                    apply(batch);
+                } catch (SQLException | RuntimeException e) {
+                    if (isTransient(e) || ++failures < MAX_APPLY_ATTEMPTS) {
+                        throw e;
+                    }
+                    failing = true;
+                }
+                failures = 0;
+                if (failing) {
+                    // The batch failed the same way every time: apply its rosters one by one and set aside those
+                    // that still fail, so the marks journaled after them are not held back for good
+                    for (Entry entry : batch) {
+                        applyOrQuarantine(entry);
+                        writeCheckpoint(entry.seq());
+                        pendingMarks.addAndGet(-entry.roster().size());
+                    }
+                } else {
+                    writeCheckpoint(batch.get(batch.size() - 1).seq());
+                    pendingMarks.addAndGet(-marks);
+                }
+            }
+            cursorSegment = segment;
+            cursorOffset = offset;
+            deleteReplayedSegments();
+            return marks;
+        }
+    }
+
+    private void applyOrQuarantine(Entry entry) throws SQLException, IOException {
+        try {
+            apply(List.of(entry));
+        } catch (SQLException | RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            String reason = "Quarantined after " + MAX_APPLY_ATTEMPTS + " failed attempts: " + e.getMessage();
+            for (Map.Entry<String, String> mark : entry.roster().entrySet()) {
+                drop(mark.getKey(), entry.date(), mark.getValue(), reason);
+            }
+        }
+    }
+
+    // Connection trouble says nothing about the roster being applied: retry it for as long as it lasts
+    private static boolean isTransient(Exception e) {
+        return e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException;
+    }
+
+    private void apply(List<Entry> batch) throws SQLException, IOException {
+        // Consecutive rosters for the same date go in one transaction; later marks win
+        String date = null;
+        Map<String, String> roster = new LinkedHashMap<>();
+        for (Entry entry : batch) {
+            if (!entry.date().equals(date) && !roster.isEmpty()) {
+                applyRoster(date, roster);
+                roster = new LinkedHashMap<>();
+            }
+            date = entry.date();
+            roster.putAll(entry.roster());
+        }
+        applyRoster(date, roster);
+    }
+
+    private void applyRoster(String date, Map<String, String> roster) throws SQLException, IOException {
+        try {
+            attendanceDAO.markAttendanceBatch(date, roster);
+        } catch (IllegalArgumentException e) {
+            // One bad roll number fails the whole roster: apply the rest one at a time
+            for (Map.Entry<String, String> mark : roster.entrySet()) {
+                try {
+                    attendanceDAO.markAttendance(mark.getKey(), date, mark.getValue());
+                } catch (IllegalArgumentException rejected) {
+                    drop(mark.getKey(), date, mark.getValue(), rejected.getMessage());
+                }
+            }
+        }
+    }
+
+    private void drop(String rollNumber, String date, String status, String reason) throws IOException {
+        String line = String.format("%s  %s  %s  %s  %s%n", LocalDateTime.now().withNano(0), date, rollNumber,
+                status, reason);
+        Files.writeString(dir.resolve("dropped.log"), line, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        droppedMarks.incrementAndGet();
+    }
+
+    // Called with replayLock held; takes this for the segment list
+    private void deleteReplayedSegments() {
+        synchronized (this) {
+            while (segments.size() > 1 && segments.get(0) != cursorSegment
+                    && segments.get(1).firstSeq - 1 <= checkpointSeq) {
+                Segment done = segments.remove(0);
+                closeQuietly(done);
+                try {
+                    Files.deleteIfExists(done.path);
+                } catch (IOException e) {
+                    // Still mapped on some platforms; removed at the next start instead
+                }
+            }
+        }
+    }
+
+    // ==================== RECOVERY ====================
+
+    private void recover() throws IOException {
+        checkpointSeq = readCheckpoint();
+        List<Long> firstSeqs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                firstSeqs.add(Long.parseLong(
+                        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        firstSeqs.sort(null);
+
+        lastSeq = checkpointSeq;
+        for (int i = 0; i < firstSeqs.size(); i++) {
+            long firstSeq = firstSeqs.get(i);
+            if (i + 1 < firstSeqs.size() && firstSeqs.get(i + 1) - 1 <= checkpointSeq) {
+                Files.deleteIfExists(segmentPath(firstSeq));
+                continue;
+            }
+            Segment segment = new Segment(firstSeq, segmentPath(firstSeq));
+            int offset = 0;
+            Entry entry;
+            while ((entry = read(segment, offset)) != null) {
+                offset += entry.size();
+                lastSeq = Math.max(lastSeq, entry.seq());
+                if (entry.seq() > checkpointSeq) {
+                    pendingMarks.addAndGet(entry.roster().size());
+                }
+            }
+            segment.end = offset;
+            segments.add(segment);
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(new Segment(lastSeq + 1, segmentPath(lastSeq + 1)));
+        }
+        active = segments.get(segments.size() - 1);
+        // Clear a torn append so nothing after it can be misread; new records go here
+        if (active.end + 4 <= SEGMENT_BYTES && active.map.getInt(active.end) != 0) {
+            for (int i = active.end; i < SEGMENT_BYTES; i++) {
+                active.map.put(i, (byte) 0);
+            }
+        }
+        active.map.force();
+        dirtyFrom = active.end;
+        durableSeq = lastSeq;
+        cursorSegment = segments.get(0);
+        cursorOffset = 0;
+    }
+
+    /**
+     * The record at offset, or null at the end of the written data or a torn record
+     */
+    private static Entry read(Segment segment, int offset) {
+        if (offset + RECORD_HEADER_BYTES > SEGMENT_BYTES) {
+            return null;
+        }
+        int length = segment.map.getInt(offset);
+        if (length < 20 || offset + RECORD_HEADER_BYTES + length > SEGMENT_BYTES) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        segment.map.get(offset + RECORD_HEADER_BYTES, body);
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        if ((int) crc.getValue() != segment.map.getInt(offset + 4)) {
+            return null;
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(body);
+        long seq = in.getLong();
+        String date = LocalDate.ofEpochDay(in.getLong()).toString();
+        int count = in.getInt();
+        Map<String, String> roster = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String status = AttendanceDAO.statusName(in.get());
+            byte[] roll = new byte[in.getShort()];
+            in.get(roll);
+            roster.put(new String(roll, StandardCharsets.UTF_8), status);
+        }
+        return new Entry(seq, date, roster, RECORD_HEADER_BYTES + length);
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = dir.resolve("checkpoint");
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.remaining() != 12) {
+            throw new IOException("Journal checkpoint " + file + " is corrupt");
+        }
+        long seq = in.getLong();
+        CRC32C crc = new CRC32C();
+        crc.update(in.array(), 0, 8);
+        if ((int) crc.getValue() != in.getInt()) {
+            throw new IOException("Journal checkpoint " + file + " is corrupt");
+        }
+        return seq;
+    }
+
+    private void writeCheckpoint(long seq) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(12).putLong(seq);
+        CRC32C crc = new CRC32C();
+        crc.update(out.array(), 0, 8);
+        out.putInt((int) crc.getValue()).flip();
+        Path temp = dir.resolve("checkpoint.tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, dir.resolve("checkpoint"), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        checkpointSeq = seq;
+    }
+
+    private Path segmentPath(long firstSeq) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+    }
+
+    private static void closeQuietly(Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (IOException e) {
+            // Nothing useful to do while releasing
+        }
+    }
+}
@@ -0,0 +1,558 @@
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Metrics - Per-operation latency histograms and per-action round-trip counters
+ *
+ * Each DAO method owns an Operation: a log-linear latency histogram (8 buckets per power
+ * of two, so percentiles are within 12.5%) plus call, error and row counts. Recording is
+ * a few atomic increments on preallocated arrays: no locks and no allocation.
+ *
+ * A user-level action (a portal screen, an HTTP request) is bound to the thread that
+ * runs it; ConnectionPool counts every connection borrowed and every call that reaches
+ * the database (statement executions, commits, rollbacks, auto-commit switches and
+ * validation pings) against it.
+ * AsyncDAO carries the action over to its virtual threads. Actions also hold the
+ * QueryBudget tally of the statements they execute.
+ *
+ * Operations are registered as attendify:type=Operation MXBeans and actions as
+ * attendify:type=Action, for jconsole or any JMX client, once the application calls
+ * exportToJmx(); HodPortal shows them under System Health.
+ */
+public final class Metrics {
+    // Values below 2^SUB_BITS ns get a bucket each; above, each power of two is split in 8
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40; // ~18 minutes; slower calls share the last bucket
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private static final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private static final Map<String, ActionStats> actions = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Action> currentAction = new ThreadLocal<>();
+
+    private static final LongAdder roundTrips = new LongAdder();
+    private static final LongAdder acquisitions = new LongAdder();
+
+    // Starting the platform MBean server takes a few hundred ms, so beans wait in pendingJmx
+    // until exportToJmx() and are then registered off the caller's thread
+    private static final List<Runnable> pendingJmx = new ArrayList<>();
+    private static boolean exportingJmx = false;
+    private static final ExecutorService jmxRegistrar = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "attendify-jmx");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private Metrics() {
+    }
+
+    // ==================== OPERATIONS ====================
+
+    public interface OperationMXBean {
+        String getName();
+
+        long getCalls();
+
+        long getErrors();
+
+        long getRows();
+
+        double getMeanMillis();
+
+        double getP50Millis();
+
+        double getP95Millis();
+
+        double getP99Millis();
+
+        double getMaxMillis();
+    }
+
+    /**
+     * A unit of database work that Operation.time() measures
+     */
+    @FunctionalInterface
+    public interface SqlCallable<T> {
+        T call() throws SQLException;
+    }
+
+    /**
+     * Timing for one DAO method. Wrap the method body in time(); work that does not fit
+     * one call takes System.nanoTime() itself and reports through success() or failure().
+     */
+    public static final class Operation implements OperationMXBean {
+        private final String name;
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Run and time a call. Rows come from the result: a collection's size, 1 or 0 for
+         * a boolean, an Integer or Long as an update count, 0 for null and 1 otherwise.
+         */
+        public <T> T time(SqlCallable<T> call) throws SQLException {
+            return time(call, Metrics::rowCount);
+        }
+
+        /**
+         * Run and time a call whose row count is not implied by its result
+         */
+        public <T> T time(SqlCallable<T> call, ToLongFunction<? super T> rowCount) throws SQLException {
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = call.call();
+            } catch (SQLException | RuntimeException e) {
+                failure(start);
+                throw e;
+            }
+            success(start, rowCount.applyAsLong(result));
+            return result;
+        }
+
+        public void success(long startNanos, long rowCount) {
+            record(startNanos);
+            rows.add(rowCount);
+        }
+
+        public void failure(long startNanos) {
+            record(startNanos);
+            errors.increment();
+        }
+
+        private void record(long startNanos) {
+            long nanos = System.nanoTime() - startNanos;
+            histogram.incrementAndGet(bucket(nanos));
+            calls.increment();
+            totalNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Override
+        public long getRows() {
+            return rows.sum();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            long count = calls.sum();
+            return count == 0 ? 0.0 : totalNanos.sum() / 1e6 / count;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return percentile(0.50);
+        }
+
+        @Override
+        public double getP95Millis() {
+            return percentile(0.95);
+        }
+
+        @Override
+        public double getP99Millis() {
+            return percentile(0.99);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return maxNanos.get() / 1e6;
+        }
+
+        public double getTotalMillis() {
+            return totalNanos.sum() / 1e6;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given fraction of calls, capped at the max
+         */
+        private double percentile(double fraction) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0.0;
+            }
+            long rank = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos.get()) / 1e6;
+                }
+            }
+            return maxNanos.get() / 1e6;
+        }
+    }
+
+    /**
+     * The operation with this name, created and registered with JMX on first use.
+     * DAOs keep the result in a static field.
+     */
+    public static Operation operation(String name) {
+        return operations.computeIfAbsent(name, n -> {
+            Operation operation = new Operation(n);
+            register("Operation", n, operation);
+            return operation;
+        });
+    }
+
+    /**
+     * Operations that have been called, slowest in total first
+     */
+    public static List<Operation> getOperations() {
+        List<Operation> used = new ArrayList<>();
+        for (Operation operation : operations.values()) {
+            if (operation.getCalls() > 0) {
+                used.add(operation);
+            }
+        }
+        used.sort(Comparator.comparingDouble(Operation::getTotalMillis).reversed());
+        return used;
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof Collection<?> rows) {
+            return rows.size();
+        }
+        if (result instanceof Boolean changed) {
+            return changed ? 1 : 0;
+        }
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        return result == null ? 0 : 1;
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    // ==================== ACTIONS ====================
+
+    public interface ActionMXBean {
+        String getName();
+
+        long getCount();
+
+        long getRoundTrips();
+
+        long getConnectionAcquisitions();
+
+        double getMeanRoundTrips();
+
+        long getMaxRoundTrips();
+
+        double getMeanConnectionAcquisitions();
+    }
+
+    /**
+     * One run of a user-level action; counts what happens on threads bound to it
+     */
+    public static final class Action {
+        private final ActionStats stats;
+        private final Action previous;
+        private final QueryBudget.Tally tally;
+        private final AtomicLong roundTrips = new AtomicLong();
+        private final AtomicLong acquisitions = new AtomicLong();
+
+        private Action(ActionStats stats, Action previous, QueryBudget.Tally tally) {
+            this.stats = stats;
+            this.previous = previous;
+            this.tally = tally;
+        }
+    }
+
+    /**
+     * Totals for every run of one action name
+     */
+    public static final class ActionStats implements ActionMXBean {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder roundTrips = new LongAdder();
+        private final LongAdder acquisitions = new LongAdder();
+        private final AtomicLong maxRoundTrips = new AtomicLong();
+
+        private ActionStats(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public long getRoundTrips() {
+            return roundTrips.sum();
+        }
+
+        @Override
+        public long getConnectionAcquisitions() {
+            return acquisitions.sum();
+        }
+
+        @Override
+        public double getMeanRoundTrips() {
+            long runs = count.sum();
+            return runs == 0 ? 0.0 : (double) roundTrips.sum() / runs;
+        }
+
+        @Override
+        public long getMaxRoundTrips() {
+            return maxRoundTrips.get();
+        }
+
+        @Override
+        public double getMeanConnectionAcquisitions() {
+            long runs = count.sum();
+            return runs == 0 ? 0.0 : (double) acquisitions.sum() / runs;
+        }
+    }
+
+    /**
+     * Start an action on this thread with the default query budget; pass the result to
+     * endAction in a finally block, with the exception that is unwinding if there is one
+     */
+    public static Action beginAction(String name) {
+        return beginAction(name, QueryBudget.DEFAULT_BUDGET);
+    }
+
+    /**
+     * Start an action allowed up to budget statements (QueryBudget.UNLIMITED for bulk work)
+     */
+    public static Action beginAction(String name, int budget) {
+        ActionStats stats = actions.computeIfAbsent(name, n -> {
+            ActionStats created = new ActionStats(n);
+            register("Action", n, created);
+            return created;
+        });
+        Action action = new Action(stats, currentAction.get(), QueryBudget.newTally(budget));
+        currentAction.set(action);
+        return action;
+    }
+
+    /**
+     * Finish an action that completed normally
+     */
+    public static void endAction(Action action) {
+        endAction(action, null);
+    }
+
+    /**
+     * Finish an action: add its counts to the totals, restore the enclosing one and check
+     * its query budget (which throws in strict mode). If the action failed, a budget
+     * violation is added to that failure as suppressed rather than replacing it. Work still
+     * running for it afterwards (a prefetch) is not counted.
+     */
+    public static void endAction(Action action, Throwable failure) {
+        currentAction.set(action.previous);
+        ActionStats stats = action.stats;
+        long trips = action.roundTrips.get();
+        stats.count.increment();
+        stats.roundTrips.add(trips);
+        stats.acquisitions.add(action.acquisitions.get());
+        stats.maxRoundTrips.accumulateAndGet(trips, Math::max);
+        if (action.tally != null) {
+            try {
+                QueryBudget.report(action.tally.finishStep(stats.name));
+            } catch (QueryBudget.ExceededException e) {
+                if (failure == null) {
+                    throw e;
+                }
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Run a portal screen as an action
+     */
+    public static void action(String name, Runnable screen) {
+        action(name, QueryBudget.DEFAULT_BUDGET, screen);
+    }
+
+    public static void action(String name, int budget, Runnable screen) {
+        Action action = beginAction(name, budget);
+        Throwable failure = null;
+        try {
+            screen.run();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            endAction(action, failure);
+        }
+    }
+
+    /**
+     * Paging screens call this while they wait for the user, so each page is held to
+     * the query budget on its own rather than the whole browse
+     */
+    public static void nextStep() {
+        Action action = currentAction.get();
+        if (action != null && action.tally != null) {
+            QueryBudget.report(action.tally.finishStep(action.stats.name));
+        }
+    }
+
+    /**
+     * The action bound to this thread, or null
+     */
+    public static Action currentAction() {
+        return currentAction.get();
+    }
+
+    /**
+     * Bind another thread's action to this one (see AsyncDAO); returns the binding to
+     * restore afterwards
+     */
+    public static Action bind(Action action) {
+        Action previous = currentAction.get();
+        currentAction.set(action);
+        return previous;
+    }
+
+    /**
+     * Actions that have run, most round trips in total first
+     */
+    public static List<ActionStats> getActions() {
+        List<ActionStats> list = new ArrayList<>(actions.values());
+        list.sort(Comparator.comparingLong(ActionStats::getRoundTrips).reversed());
+        return list;
+    }
+
+    // ==================== COUNTERS ====================
+
+    /**
+     * A statement executed; sql is null for a plain Statement's batch
+     */
+    static void statementExecuted(String sql) {
+        roundTrip();
+        Action action = currentAction.get();
+        if (action != null && action.tally != null) {
+            action.tally.record(sql);
+        }
+    }
+
+    /**
+     * A call that went to the database
+     */
+    static void roundTrip() {
+        roundTrips.increment();
+        Action action = currentAction.get();
+        if (action != null) {
+            action.roundTrips.incrementAndGet();
+        }
+    }
+
+    /**
+     * A connection borrowed from the pool
+     */
+    static void connectionAcquired() {
+        acquisitions.increment();
+        Action action = currentAction.get();
+        if (action != null) {
+            action.acquisitions.incrementAndGet();
+        }
+    }
+
+    public static long getRoundTrips() {
+        return roundTrips.sum();
+    }
+
+    public static long getConnectionAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /**
+     * Register every operation and action with JMX, now and as they are created. Called
+     * once the application is up (Main at the login prompt, AttendifyServer once listening).
+     */
+    public static void exportToJmx() {
+        synchronized (pendingJmx) {
+            exportingJmx = true;
+            pendingJmx.forEach(jmxRegistrar::execute);
+            pendingJmx.clear();
+        }
+    }
+
+    private static void register(String type, String name, Object mbean) {
+        Runnable registration = () -> {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(mbean,
+                        new ObjectName("attendify:type=" + type + ",name=" + ObjectName.quote(name)));
+            } catch (JMException e) {
+                // Metrics still work without JMX (e.g. a name registered twice)
+            }
+        };
+        synchronized (pendingJmx) {
+            if (exportingJmx) {
+                jmxRegistrar.execute(registration);
+            } else {
+                pendingJmx.add(registration);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.sql.*;
+
+/**
+ * MySqlBackend - MySQL server over JDBC (the default backend)
+ * Connection settings come from attendify.db.* system properties.
+ */
+public class MySqlBackend implements StorageBackend {
+    private static final String DB_HOST = System.getProperty("attendify.db.host", "localhost");
+    private static final String DB_PORT = System.getProperty("attendify.db.port", "3306");
+    private static final String DB_NAME = System.getProperty("attendify.db.name", "attendify");
+    private static final String DB_USER = System.getProperty("attendify.db.user", "root");
+    private static final String DB_PASS = System.getProperty("attendify.db.password", "12345");
+
+    private static final String BASE_URL = "jdbc:mysql://" + DB_HOST + ":" + DB_PORT
+            + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
+    private static final String DB_URL = "jdbc:mysql://" + DB_HOST + ":" + DB_PORT + "/" + DB_NAME
+            + "?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC&rewriteBatchedStatements=true&useCursorFetch=true"
+            // Server-side statements stay open on each connection and are reused across calls
+            + "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=" + SqlStatement.cacheSize()
+            + "&prepStmtCacheSqlLimit=4096";
+    // A statement the server rejects fails here instead of falling back to client-side
+    // emulation (which batched UPDATEs rely on, so the pool keeps the fallback)
+    private static final String VALIDATION_URL = DB_URL + "&emulateUnsupportedPstmts=false";
+
+    @Override
+    public String getName() {
+        return "MySQL " + DB_HOST + ":" + DB_PORT + "/" + DB_NAME;
+    }
+
+    @Override
+    public String getUrl() {
+        return DB_URL;
+    }
+
+    @Override
+    public String getUser() {
+        return DB_USER;
+    }
+
+    @Override
+    public String getPassword() {
+        return DB_PASS;
+    }
+
+    @Override
+    public Connection openValidationConnection() throws SQLException {
+        return DriverManager.getConnection(VALIDATION_URL, DB_USER, DB_PASS);
+    }
+
+    @Override
+    public void loadDriver() throws SQLException {
+        try {
+            Class.forName("com.mysql.cj.jdbc.Driver");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("MySQL JDBC Driver not found! Ensure mysql-connector-j is in lib/", e);
+        }
+    }
+
+    @Override
+    public void createDatabase() throws SQLException {
+        loadDriver();
+        try (Connection baseConn = DriverManager.getConnection(BASE_URL, DB_USER, DB_PASS);
+                Statement stmt = baseConn.createStatement()) {
+            stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS " + DB_NAME);
+        }
+    }
+
+    @Override
+    public void alterTable(Statement stmt, String table, String... clauses) throws SQLException {
+        // One ALTER rebuilds the table once instead of once per clause
+        stmt.execute("ALTER TABLE " + table + " " + String.join(", ", clauses));
+    }
+
+    @Override
+    public String parseDate(String column) {
+        return "STR_TO_DATE(" + column + ", '%Y-%m-%d')";
+    }
+
+    @Override
+    public String shareLock() {
+        // MySQL 8 also spells this FOR SHARE, which MariaDB does not accept
+        return "LOCK IN SHARE MODE";
+    }
+
+    @Override
+    public void setBulkLoad(Statement stmt, boolean enabled) throws SQLException {
+        int flag = enabled ? 0 : 1;
+        stmt.execute("SET unique_checks = " + flag + ", foreign_key_checks = " + flag);
+    }
+
+    @Override
+    public boolean supportsPartitioning() {
+        return true;
+    }
+}
@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * QueryBudget - Per-action statement budget and N+1 detector
+ *
+ * Every statement a Metrics action executes is tallied by fingerprint: its SQL with
+ * literals replaced by ? and IN lists collapsed, so one query run with different values
+ * counts as one fingerprint. A step of an action (the whole action, or one page of a
+ * paging screen) is over budget when it runs more than -Dattendify.query.budget
+ * statements (default 50), or one fingerprint more than -Dattendify.query.repeat times
+ * (default 10): the mark of a query inside a loop.
+ *
+ * -Dattendify.query.check picks what happens then:
+ *   off    - nothing is tallied
+ *   log    - a report listing the repeated fingerprints is appended to
+ *            -Dattendify.query.log (default data/query-budget.log)   [default]
+ *   strict - the report is logged and thrown as ExceededException, to guard benchmark
+ *            and test runs
+ */
+public final class QueryBudget {
+    public enum Mode { OFF, LOG, STRICT }
+
+    public static final Mode MODE = Mode.valueOf(
+            System.getProperty("attendify.query.check", "log").trim().toUpperCase(Locale.ROOT));
+    public static final int DEFAULT_BUDGET = Integer.getInteger("attendify.query.budget", 50);
+    public static final int REPEAT_LIMIT = Integer.getInteger("attendify.query.repeat", 10);
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    public static final Path LOG_FILE = Path.of(System.getProperty("attendify.query.log", "data/query-budget.log"));
+
+    // Repeated fingerprints listed per report
+    private static final int REPORT_LIMIT = 10;
+    // SQL texts are a fixed set (SqlStatement and a few bulk paths); stop caching if that is ever not true
+    private static final int FINGERPRINT_CACHE_LIMIT = 4096;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private static final LongAdder violations = new LongAdder();
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Thrown in strict mode when an action step goes over its budget
+     */
+    public static class ExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ExceededException(String report) {
+            super(report);
+        }
+    }
+
+    /**
+     * Statements executed by one step of an action, by fingerprint.
+     * Safe for the action's AsyncDAO calls to add to concurrently.
+     */
+    static final class Tally {
+        private final int budget;
+        private final AtomicInteger statements = new AtomicInteger();
+        private final Map<String, AtomicInteger> byFingerprint = new ConcurrentHashMap<>();
+
+        Tally(int budget) {
+            this.budget = budget;
+        }
+
+        void record(String sql) {
+            statements.incrementAndGet();
+            byFingerprint.computeIfAbsent(fingerprint(sql), f -> new AtomicInteger()).incrementAndGet();
+        }
+
+        /**
+         * Check the step and start the next one; returns the report if it was over budget
+         */
+        String finishStep(String action) {
+            int total = statements.getAndSet(0);
+            List<Map.Entry<String, Integer>> repeated = new ArrayList<>();
+            for (String fingerprint : byFingerprint.keySet()) {
+                AtomicInteger count = byFingerprint.remove(fingerprint);
+                if (count != null && count.get() > 1) {
+                    repeated.add(Map.entry(fingerprint, count.get()));
+                }
+            }
+            repeated.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+            boolean overBudget = total > budget;
+            boolean loop = !repeated.isEmpty() && repeated.get(0).getValue() > REPEAT_LIMIT;
+            if (!overBudget && !loop) {
+                return null;
+            }
+            StringBuilder report = new StringBuilder();
+            report.append(action).append(" ran ").append(total).append(" statement(s)");
+            if (budget != UNLIMITED) {
+                report.append(" (budget ").append(budget).append(")");
+            }
+            report.append(loop ? ", repeating:" : ":");
+            for (int i = 0; i < Math.min(REPORT_LIMIT, repeated.size()); i++) {
+                Map.Entry<String, Integer> entry = repeated.get(i);
+                report.append(String.format("%n    %5d x  %s", entry.getValue(), entry.getKey()));
+            }
+            return report.toString();
+        }
+    }
+
+    /**
+     * A tally for a new action step, or null when checking is off
+     */
+    static Tally newTally(int budget) {
+        return MODE == Mode.OFF ? null : new Tally(budget);
+    }
+
+    /**
+     * Log an over-budget report and, in strict mode, throw it
+     */
+    static void report(String report) {
+        if (report == null) {
+            return;
+        }
+        violations.increment();
+        String entry = LocalDateTime.now().withNano(0) + "  " + report + System.lineSeparator();
+        try {
+            Path parent = LOG_FILE.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            synchronized (QueryBudget.class) {
+                Files.writeString(LOG_FILE, entry, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write " + LOG_FILE + ": " + e.getMessage());
+        }
+        if (MODE == Mode.STRICT) {
+            throw new ExceededException(report);
+        }
+    }
+
+    /**
+     * Action steps that have gone over budget since startup
+     */
+    public static long getViolationCount() {
+        return violations.sum();
+    }
+
+    /**
+     * The SQL with literals as ?, IN lists as IN (...) and whitespace collapsed
+     */
+    public static String fingerprint(String sql) {
+        if (sql == null) {
+            return "(statement batch)";
+        }
+        String cached = fingerprints.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String fingerprint = STRING_LITERAL.matcher(sql).replaceAll("?");
+        fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+        fingerprint = IN_LIST.matcher(fingerprint).replaceAll("IN (...)");
+        fingerprint = WHITESPACE.matcher(fingerprint).replaceAll(" ").trim();
+        if (fingerprints.size() < FINGERPRINT_CACHE_LIMIT) {
+            fingerprints.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+}
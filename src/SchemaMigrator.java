@@ -0,0 +1,350 @@
+import java.sql.*;
+
+/**
+ * SchemaMigrator - Versioned schema migrations for the attendify database
+ * Each applied version is recorded in the schema_version table, so every migration runs once
+ */
+public class SchemaMigrator {
+    public static final int CURRENT_VERSION = 7;
+
+    // Rows per backfill transaction; keeps row locks short while the table stays writable
+    private static final int BACKFILL_CHUNK_ROWS = 5_000;
+
+    /**
+     * Bring the schema up to CURRENT_VERSION; returns the number of migrations applied
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS schema_version (
+                            version INT PRIMARY KEY,
+                            description VARCHAR(200) NOT NULL,
+                            applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                        )
+                    """);
+        }
+
+        int current = getVersion(conn);
+        for (int version = current + 1; version <= CURRENT_VERSION; version++) {
+            String description = switch (version) {
+                case 1 -> createBaselineSchema(conn);
+                case 2 -> migrateAttendanceToNativeTypes(conn);
+                case 3 -> addStudentDepartmentIndex(conn);
+                case 4 -> createAlertTables(conn);
+                case 5 -> createImportCheckpointTable(conn);
+                case 6 -> createSchemaValidationTable(conn);
+                case 7 -> partitionAttendanceByMonth(conn);
+                default -> throw new IllegalStateException("No migration for version " + version);
+            };
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                pstmt.setInt(1, version);
+                pstmt.setString(2, description);
+                pstmt.executeUpdate();
+            }
+        }
+        return Math.max(0, CURRENT_VERSION - current);
+    }
+
+    public static int getVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // ==================== V1: BASELINE ====================
+
+    private static String createBaselineSchema(Connection conn) throws SQLException {
+        String createStudentTable = """
+                    CREATE TABLE IF NOT EXISTS Student (
+                        roll_number VARCHAR(50) PRIMARY KEY,
+                        name VARCHAR(100) NOT NULL,
+                        email VARCHAR(100),
+                        department VARCHAR(50),
+                        total_classes INT DEFAULT 0
+                    )
+                """;
+
+        String createAttendanceTable = """
+                    CREATE TABLE IF NOT EXISTS Attendance (
+                        id INT AUTO_INCREMENT PRIMARY KEY,
+                        roll_number VARCHAR(50) NOT NULL,
+                        date VARCHAR(20) NOT NULL,
+                        status VARCHAR(10) NOT NULL,
+                        FOREIGN KEY (roll_number) REFERENCES Student(roll_number),
+                        UNIQUE KEY unique_attendance (roll_number, date)
+                    )
+                """;
+
+        String createCountersTable = """
+                    CREATE TABLE IF NOT EXISTS AttendanceCounters (
+                        roll_number VARCHAR(50) PRIMARY KEY,
+                        total_classes INT NOT NULL DEFAULT 0,
+                        present_count INT NOT NULL DEFAULT 0,
+                        absent_count INT NOT NULL DEFAULT 0,
+                        FOREIGN KEY (roll_number) REFERENCES Student(roll_number)
+                    )
+                """;
+
+        String createTeacherTable = """
+                    CREATE TABLE IF NOT EXISTS Teacher (
+                        teacher_id VARCHAR(50) PRIMARY KEY,
+                        name VARCHAR(100) NOT NULL,
+                        email VARCHAR(100),
+                        department VARCHAR(50),
+                        subject VARCHAR(100)
+                    )
+                """;
+
+        String createHodTable = """
+                    CREATE TABLE IF NOT EXISTS HOD (
+                        hod_id VARCHAR(50) PRIMARY KEY,
+                        name VARCHAR(100) NOT NULL,
+                        department VARCHAR(50),
+                        password VARCHAR(100) DEFAULT '1234'
+                    )
+                """;
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(createStudentTable);
+            stmt.execute(createAttendanceTable);
+            stmt.execute(createCountersTable);
+            stmt.execute(createTeacherTable);
+            stmt.execute(createHodTable);
+        }
+        return "Baseline schema";
+    }
+
+    // ==================== V2: NATIVE DATE / STATUS ====================
+
+    /**
+     * Attendance.date VARCHAR -> DATE and status VARCHAR -> TINYINT (1 = PRESENT, 0 = ABSENT).
+     * New columns are added alongside the old ones and backfilled in small id-range
+     * transactions, then swapped in with one online ALTER that also adds the
+     * (date, roll_number) and (roll_number, status) covering indexes.
+     * Safe to re-run after a crash at any step.
+     */
+    private static String migrateAttendanceToNativeTypes(Connection conn) throws SQLException {
+        if ("date".equalsIgnoreCase(columnType(conn, "Attendance", "date"))) {
+            return "Attendance date/status as DATE/TINYINT";
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            if (columnType(conn, "Attendance", "date_new") == null) {
+                DatabaseConnection.getBackend().alterTable(stmt, "Attendance",
+                        "ADD COLUMN date_new DATE NULL",
+                        "ADD COLUMN status_new TINYINT NULL");
+            }
+
+            long minId = 0;
+            long maxId = -1;
+            try (ResultSet rs = stmt.executeQuery("SELECT MIN(id), MAX(id) FROM Attendance")) {
+                if (rs.next() && rs.getObject(1) != null) {
+                    minId = rs.getLong(1);
+                    maxId = rs.getLong(2);
+                }
+            }
+
+            // Legacy rows may hold 'P'/'A' or free-form dates typed at the console
+            String backfillSql = """
+                        UPDATE Attendance SET
+                            date_new = CASE WHEN date REGEXP '^[0-9]{4}-[0-9]{2}-[0-9]{2}$'
+                                THEN %s END,
+                            status_new = CASE WHEN status IN ('PRESENT', 'P') THEN 1 ELSE 0 END
+                        WHERE id BETWEEN ? AND ? AND date_new IS NULL
+                    """.formatted(DatabaseConnection.getBackend().parseDate("date"));
+            try (PreparedStatement pstmt = conn.prepareStatement(backfillSql)) {
+                for (long lo = minId; lo <= maxId; lo += BACKFILL_CHUNK_ROWS) {
+                    pstmt.setLong(1, lo);
+                    pstmt.setLong(2, lo + BACKFILL_CHUNK_ROWS - 1);
+                    pstmt.executeUpdate();
+                }
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Attendance WHERE date_new IS NULL")) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    throw new SQLException(rs.getInt(1) + " attendance row(s) have a date that is not YYYY-MM-DD. "
+                            + "Correct them (column date_new) and restart to finish the migration.");
+                }
+            }
+
+            DatabaseConnection.getBackend().alterTable(stmt, "Attendance",
+                    "DROP INDEX unique_attendance",
+                    "DROP COLUMN date",
+                    "DROP COLUMN status",
+                    "CHANGE COLUMN date_new date DATE NOT NULL",
+                    "CHANGE COLUMN status_new status TINYINT NOT NULL",
+                    "ADD UNIQUE KEY unique_attendance (roll_number, date)",
+                    "ADD INDEX idx_attendance_date (date, roll_number, status)",
+                    "ADD INDEX idx_attendance_roll_status (roll_number, status)");
+        }
+        return "Attendance date/status as DATE/TINYINT";
+    }
+
+    // ==================== V3: DEPARTMENT PAGING INDEX ====================
+
+    /**
+     * Student (department, roll_number) index, so department-ordered pages are index range scans
+     */
+    private static String addStudentDepartmentIndex(Connection conn) throws SQLException {
+        if (!indexExists(conn, "Student", "idx_student_department")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE INDEX idx_student_department ON Student (department, roll_number)");
+            }
+        }
+        return "Student department index";
+    }
+
+    // ==================== V4: LOW-ATTENDANCE ALERTS ====================
+
+    /**
+     * Alert thresholds, the live alert set and the notification outbox (see AlertDAO).
+     * The live set is seeded from the counters with the default bands; no crossings are
+     * recorded for students already below them.
+     */
+    private static String createAlertTables(Connection conn) throws SQLException {
+        String createThresholdTable = """
+                    CREATE TABLE IF NOT EXISTS AlertThreshold (
+                        department VARCHAR(50) PRIMARY KEY,
+                        warning_pct DECIMAL(5,2) NOT NULL,
+                        critical_pct DECIMAL(5,2) NOT NULL
+                    )
+                """;
+
+        String createAlertTable = """
+                    CREATE TABLE IF NOT EXISTS AttendanceAlert (
+                        roll_number VARCHAR(50) PRIMARY KEY,
+                        level TINYINT NOT NULL,
+                        percentage DECIMAL(5,2) NOT NULL,
+                        since TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        FOREIGN KEY (roll_number) REFERENCES Student(roll_number),
+                        INDEX idx_alert_percentage (percentage, roll_number)
+                    )
+                """;
+
+        String createOutboxTable = """
+                    CREATE TABLE IF NOT EXISTS AlertOutbox (
+                        id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        roll_number VARCHAR(50) NOT NULL,
+                        department VARCHAR(50),
+                        from_level TINYINT NOT NULL,
+                        to_level TINYINT NOT NULL,
+                        percentage DECIMAL(5,2) NOT NULL,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        delivered_at TIMESTAMP NULL,
+                        INDEX idx_outbox_pending (delivered_at, id)
+                    )
+                """;
+
+        String seedAlerts = """
+                    INSERT IGNORE INTO AttendanceAlert (roll_number, level, percentage)
+                    SELECT roll_number, CASE WHEN pct < %s THEN %d ELSE %d END, pct
+                    FROM (
+                        SELECT roll_number, ROUND(present_count * 100.0 / total_classes, 2) as pct
+                        FROM AttendanceCounters WHERE total_classes > 0
+                    ) p
+                    WHERE pct < %s
+                """.formatted(AlertDAO.DEFAULT_CRITICAL_PCT, AlertDAO.LEVEL_CRITICAL, AlertDAO.LEVEL_WARNING,
+                AlertDAO.DEFAULT_WARNING_PCT);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(createThresholdTable);
+            stmt.execute(createAlertTable);
+            stmt.execute(createOutboxTable);
+            stmt.executeUpdate(seedAlerts);
+        }
+        return "Low-attendance alert tables";
+    }
+
+    // ==================== V5: CSV IMPORT CHECKPOINTS ====================
+
+    /**
+     * One row per imported file: how far CsvImporter has committed, so a crashed
+     * import resumes after its last chunk instead of starting over
+     */
+    private static String createImportCheckpointTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS ImportCheckpoint (
+                            kind VARCHAR(20) NOT NULL,
+                            source VARCHAR(255) NOT NULL,
+                            file_size BIGINT NOT NULL,
+                            line_number BIGINT NOT NULL,
+                            imported_rows BIGINT NOT NULL,
+                            rejected_rows BIGINT NOT NULL,
+                            rejects_bytes BIGINT NOT NULL,
+                            completed BOOLEAN NOT NULL DEFAULT FALSE,
+                            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            PRIMARY KEY (kind, source)
+                        )
+                    """);
+        }
+        return "CSV import checkpoints";
+    }
+
+    // ==================== V6: STARTUP FAST PATH ====================
+
+    /**
+     * Checksum of the SqlStatement texts last validated against this schema (one row,
+     * id 1). While it and the schema version are current, startup skips the migrator and
+     * statement validation (see DatabaseConnection.initializeDatabase).
+     */
+    private static String createSchemaValidationTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS schema_validation (
+                            id INT PRIMARY KEY,
+                            statements_checksum BIGINT NOT NULL,
+                            validated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                        )
+                    """);
+        }
+        return "Statement validation checksum";
+    }
+
+    // ==================== V7: MONTHLY PARTITIONS ====================
+
+    /**
+     * Range-partition Attendance by month so term reports read only the term's partitions
+     * (see AttendancePartitions). A no-op on the embedded backend.
+     */
+    private static String partitionAttendanceByMonth(Connection conn) throws SQLException {
+        AttendancePartitions.partition(conn);
+        return "Attendance partitioned by month";
+    }
+
+    private static boolean indexExists(Connection conn, String table, String index) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), conn.getSchema(), identifier(meta, table),
+                false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Data type name of a column (e.g. "DATE", "VARCHAR"), or null if it does not exist
+     */
+    private static String columnType(Connection conn, String table, String column) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getColumns(conn.getCatalog(), conn.getSchema(), identifier(meta, table),
+                identifier(meta, column))) {
+            return rs.next() ? rs.getString("TYPE_NAME") : null;
+        }
+    }
+
+    // Metadata lookups need names in the case the engine stores them
+    private static String identifier(DatabaseMetaData meta, String name) throws SQLException {
+        if (meta.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase();
+        } else if (meta.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase();
+        }
+        return name;
+    }
+}
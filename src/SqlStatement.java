@@ -0,0 +1,498 @@
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * SqlStatement - Every statement the DAOs run, declared once by name
+ *
+ * DAOs prepare statements through these constants instead of building SQL per call, so
+ * each connection sees a fixed set of texts. The backends cache prepared statements per
+ * connection (server-side on MySQL, parsed commands on H2), and since the pool keeps
+ * physical connections open, a statement is prepared once per connection and reused.
+ *
+ * A variable-length IN list (a roster, a batch of outbox ids) is written as IN (%s) and
+ * prepared in one of a few fixed sizes, the unused slots repeating the last value.
+ * Longer lists are sent in chunks of MAX_IN_LIST.
+ *
+ * validateAll() prepares every statement at startup whenever the schema or the statement
+ * texts have changed, so SQL that no longer matches the schema fails before the first
+ * screen is shown instead of on first use.
+ */
+public enum SqlStatement {
+
+    // ==================== STUDENTS ====================
+
+    STUDENT_INSERT("INSERT INTO Student (roll_number, name, email, department, total_classes) VALUES (?, ?, ?, ?, ?)"),
+    // A null parameter leaves its column unchanged
+    STUDENT_UPDATE("""
+                UPDATE Student SET
+                    name = COALESCE(?, name),
+                    email = COALESCE(?, email),
+                    department = COALESCE(?, department)
+                WHERE roll_number = ?
+            """),
+    STUDENT_BY_ROLL(Select.STUDENT + " WHERE s.roll_number = ?"),
+    STUDENT_ALL(Select.STUDENT + " ORDER BY s.roll_number"),
+    STUDENT_PAGE_FIRST(Select.STUDENT + " ORDER BY s.roll_number LIMIT ?"),
+    STUDENT_PAGE_AFTER(Select.STUDENT + " WHERE s.roll_number > ? ORDER BY s.roll_number LIMIT ?"),
+    STUDENT_DELETE_ATTENDANCE("DELETE FROM Attendance WHERE roll_number = ?"),
+    STUDENT_DELETE_COUNTERS("DELETE FROM AttendanceCounters WHERE roll_number = ?"),
+    STUDENT_DELETE_ALERT("DELETE FROM AttendanceAlert WHERE roll_number = ?"),
+    STUDENT_DELETE("DELETE FROM Student WHERE roll_number = ?"),
+    STUDENT_LOCK("SELECT roll_number FROM Student WHERE roll_number = ? FOR UPDATE"),
+    STUDENT_COUNT("SELECT COUNT(*) FROM Student"),
+    STUDENT_ROLL_NUMBERS("SELECT roll_number FROM Student"),
+    STUDENT_EXISTING("SELECT roll_number FROM Student WHERE roll_number IN (%s)"),
+    // Keeps the students from being deleted until commit: Attendance has no foreign key on MySQL
+    STUDENT_LOCK_SHARED("SELECT roll_number FROM Student WHERE roll_number IN (%s) " + Select.SHARE_LOCK),
+
+    // Department-ordered listings for the HOD
+    STUDENT_BY_DEPARTMENT_ALL(Select.STUDENT + " ORDER BY s.department, s.roll_number"),
+    STUDENT_BY_DEPARTMENT_PAGE_FIRST(Select.STUDENT + " ORDER BY s.department, s.roll_number LIMIT ?"),
+    // After a student without a department: the rest of those, then every department
+    STUDENT_BY_DEPARTMENT_PAGE_AFTER_NONE(Select.STUDENT + """
+                WHERE (s.department IS NULL AND s.roll_number > ?) OR s.department IS NOT NULL
+                ORDER BY s.department, s.roll_number LIMIT ?
+            """),
+    STUDENT_BY_DEPARTMENT_PAGE_AFTER(Select.STUDENT + """
+                WHERE (s.department, s.roll_number) > (?, ?)
+                ORDER BY s.department, s.roll_number LIMIT ?
+            """),
+
+    // ==================== ATTENDANCE ====================
+
+    ATTENDANCE_LOCK_MARK("SELECT status FROM Attendance WHERE roll_number = ? AND date = ? FOR UPDATE"),
+    ATTENDANCE_INSERT("INSERT INTO Attendance (roll_number, date, status) VALUES (?, ?, ?)"),
+    ATTENDANCE_UPDATE_STATUS("UPDATE Attendance SET status = ? WHERE roll_number = ? AND date = ?"),
+    // Locks the existing marks of some students for one date
+    ATTENDANCE_LOCK_MARKS(
+            "SELECT roll_number, status FROM Attendance WHERE date = ? AND roll_number IN (%s) FOR UPDATE"),
+    ATTENDANCE_UPSERT("""
+                INSERT INTO Attendance (roll_number, date, status) VALUES (?, ?, ?)
+                ON DUPLICATE KEY UPDATE status = VALUES(status)
+            """),
+    ATTENDANCE_IS_MARKED("SELECT COUNT(*) FROM Attendance WHERE roll_number = ? AND date = ?"),
+    ATTENDANCE_BY_ROLL("SELECT date, status FROM Attendance WHERE roll_number = ? ORDER BY date DESC"),
+    ATTENDANCE_BY_DATE("""
+                SELECT s.roll_number, s.name,
+                    CASE a.status WHEN 1 THEN 'PRESENT' WHEN 0 THEN 'ABSENT' ELSE 'NOT MARKED' END as status
+                FROM Student s
+                LEFT JOIN Attendance a ON s.roll_number = a.roll_number AND a.date = ?
+                ORDER BY s.roll_number
+            """),
+
+    // Adds a { total, present, absent } delta to one student's counters
+    COUNTERS_ADD("""
+                INSERT INTO AttendanceCounters (roll_number, total_classes, present_count, absent_count)
+                VALUES (?, ?, ?, ?)
+                ON DUPLICATE KEY UPDATE
+                    total_classes = total_classes + VALUES(total_classes),
+                    present_count = present_count + VALUES(present_count),
+                    absent_count = absent_count + VALUES(absent_count)
+            """),
+    COUNTERS_INSERT("""
+                INSERT INTO AttendanceCounters (roll_number, total_classes, present_count, absent_count)
+                VALUES (?, ?, ?, ?)
+            """),
+    COUNTERS_BY_ROLL("SELECT total_classes, present_count, absent_count FROM AttendanceCounters WHERE roll_number = ?"),
+    COUNTERS_DELETE_ALL("DELETE FROM AttendanceCounters"),
+    COUNTERS_REBUILD("""
+                INSERT INTO AttendanceCounters (roll_number, total_classes, present_count, absent_count)
+                SELECT
+                    roll_number,
+                    COUNT(*),
+                    SUM(CASE WHEN status = 1 THEN 1 ELSE 0 END),
+                    SUM(CASE WHEN status = 0 THEN 1 ELSE 0 END)
+                FROM Attendance
+                GROUP BY roll_number
+            """),
+
+    // Adds a student's archived { total, present, absent } when rebuilding; skipped if the student is gone
+    COUNTERS_ADD_ARCHIVED("""
+                INSERT INTO AttendanceCounters (roll_number, total_classes, present_count, absent_count)
+                SELECT roll_number, ?, ?, ? FROM Student WHERE roll_number = ?
+                ON DUPLICATE KEY UPDATE
+                    total_classes = AttendanceCounters.total_classes + VALUES(total_classes),
+                    present_count = AttendanceCounters.present_count + VALUES(present_count),
+                    absent_count = AttendanceCounters.absent_count + VALUES(absent_count)
+            """),
+
+    // Moving a closed term [?, ?) to the archive
+    ARCHIVE_DAYS("SELECT DISTINCT date FROM Attendance WHERE date >= ? AND date < ? ORDER BY date"),
+    ARCHIVE_SCAN("SELECT roll_number, date, status FROM Attendance WHERE date >= ? AND date < ?"),
+    ARCHIVE_COUNT("""
+                SELECT COUNT(*), COALESCE(SUM(CASE WHEN status = 1 THEN 1 ELSE 0 END), 0)
+                FROM Attendance WHERE date >= ? AND date < ?
+            """),
+    // The final recount: locks the term's rows (and, on InnoDB, the gaps between them) until the segment is out
+    ARCHIVE_LOCK("SELECT status FROM Attendance WHERE date >= ? AND date < ? FOR UPDATE"),
+    ARCHIVE_DELETE("DELETE FROM Attendance WHERE date >= ? AND date < ? LIMIT ?"),
+
+    SUMMARY_ALL(Select.SUMMARY + " ORDER BY s.roll_number"),
+    SUMMARY_PAGE_FIRST(Select.SUMMARY + " ORDER BY s.roll_number LIMIT ?"),
+    SUMMARY_PAGE_AFTER(Select.SUMMARY + " WHERE s.roll_number > ? ORDER BY s.roll_number LIMIT ?"),
+    // Within a term [?, ?): the whole list aggregates the term in one pass; a page looks up
+    // only its own students. Either way the date bounds prune Attendance partitions.
+    SUMMARY_TERM_ALL(Select.TERM_SUMMARY_SCAN + " ORDER BY s.roll_number"),
+    SUMMARY_TERM_PAGE_FIRST(Select.TERM_SUMMARY + " ORDER BY s.roll_number LIMIT ?"),
+    SUMMARY_TERM_PAGE_AFTER(Select.TERM_SUMMARY + " WHERE s.roll_number > ? ORDER BY s.roll_number LIMIT ?"),
+
+    // ==================== IMPORT & EXPORT ====================
+
+    IMPORT_CHECKPOINT_BY_SOURCE("""
+                SELECT file_size, line_number, imported_rows, rejected_rows, rejects_bytes, completed
+                FROM ImportCheckpoint WHERE kind = ? AND source = ?
+            """),
+    IMPORT_CHECKPOINT_UPSERT("""
+                INSERT INTO ImportCheckpoint (kind, source, file_size, line_number, imported_rows,
+                    rejected_rows, rejects_bytes, completed)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                ON DUPLICATE KEY UPDATE
+                    file_size = VALUES(file_size),
+                    line_number = VALUES(line_number),
+                    imported_rows = VALUES(imported_rows),
+                    rejected_rows = VALUES(rejected_rows),
+                    rejects_bytes = VALUES(rejects_bytes),
+                    completed = VALUES(completed),
+                    updated_at = CURRENT_TIMESTAMP
+            """),
+    IMPORT_CHECKPOINT_DELETE("DELETE FROM ImportCheckpoint WHERE kind = ? AND source = ?"),
+    // Marks dated [?, ?], inclusive; an open end is bound as the widest date
+    EXPORT_RANGE(Select.EXPORT + " WHERE a.date >= ? AND a.date <= ? ORDER BY a.date, a.roll_number"),
+    EXPORT_RANGE_DEPARTMENT(Select.EXPORT
+            + " WHERE a.date >= ? AND a.date <= ? AND s.department = ? ORDER BY a.date, a.roll_number"),
+
+    // ==================== ALERTS ====================
+
+    THRESHOLD_ALL("SELECT department, warning_pct, critical_pct FROM AlertThreshold ORDER BY department"),
+    THRESHOLD_UPSERT("""
+                INSERT INTO AlertThreshold (department, warning_pct, critical_pct) VALUES (?, ?, ?)
+                ON DUPLICATE KEY UPDATE warning_pct = VALUES(warning_pct), critical_pct = VALUES(critical_pct)
+            """),
+    THRESHOLD_DELETE("DELETE FROM AlertThreshold WHERE department = ?"),
+
+    ALERT_EVALUATE_ROLLS(Select.EVALUATE + " WHERE s.roll_number IN (%s)"),
+    ALERT_EVALUATE_ALL(Select.EVALUATE),
+    ALERT_EVALUATE_DEPARTMENT(Select.EVALUATE + " WHERE s.department = ?"),
+    ALERT_UPSERT("""
+                INSERT INTO AttendanceAlert (roll_number, level, percentage) VALUES (?, ?, ?)
+                ON DUPLICATE KEY UPDATE
+                    level = VALUES(level),
+                    percentage = VALUES(percentage),
+                    since = CURRENT_TIMESTAMP
+            """),
+    ALERT_SET_PERCENTAGE("UPDATE AttendanceAlert SET percentage = ? WHERE roll_number = ?"),
+    ALERT_DELETE("DELETE FROM AttendanceAlert WHERE roll_number = ?"),
+    ALERT_ALL(Select.ALERTS + " ORDER BY al.percentage, al.roll_number"),
+    ALERT_PAGE_FIRST(Select.ALERTS + " ORDER BY al.percentage, al.roll_number LIMIT ?"),
+    ALERT_PAGE_AFTER(Select.ALERTS
+            + " WHERE (al.percentage, al.roll_number) > (?, ?) ORDER BY al.percentage, al.roll_number LIMIT ?"),
+    ALERT_COUNTS("SELECT level, COUNT(*) FROM AttendanceAlert GROUP BY level"),
+
+    OUTBOX_INSERT("""
+                INSERT INTO AlertOutbox (roll_number, department, from_level, to_level, percentage)
+                VALUES (?, ?, ?, ?, ?)
+            """),
+    OUTBOX_PENDING("""
+                SELECT id, roll_number, department, from_level, to_level, percentage, created_at
+                FROM AlertOutbox
+                WHERE delivered_at IS NULL
+                ORDER BY id
+                LIMIT ?
+                FOR UPDATE
+            """),
+    // Ids are listed, not ranged: a gap may be a crossing whose transaction has not committed yet
+    OUTBOX_MARK_DELIVERED("UPDATE AlertOutbox SET delivered_at = CURRENT_TIMESTAMP WHERE id IN (%s)"),
+
+    // ==================== TEACHERS ====================
+
+    TEACHER_INSERT("INSERT INTO Teacher (teacher_id, name, email, department, subject) VALUES (?, ?, ?, ?, ?)"),
+    // A null parameter leaves its column unchanged
+    TEACHER_UPDATE("""
+                UPDATE Teacher SET
+                    name = COALESCE(?, name),
+                    email = COALESCE(?, email),
+                    department = COALESCE(?, department),
+                    subject = COALESCE(?, subject)
+                WHERE teacher_id = ?
+            """),
+    TEACHER_BY_ID("SELECT * FROM Teacher WHERE teacher_id = ?"),
+    TEACHER_ALL("SELECT * FROM Teacher ORDER BY teacher_id"),
+    TEACHER_PAGE_FIRST("SELECT * FROM Teacher ORDER BY teacher_id LIMIT ?"),
+    TEACHER_PAGE_AFTER("SELECT * FROM Teacher WHERE teacher_id > ? ORDER BY teacher_id LIMIT ?"),
+    TEACHER_DELETE("DELETE FROM Teacher WHERE teacher_id = ?"),
+    TEACHER_EXISTS("SELECT COUNT(*) FROM Teacher WHERE teacher_id = ?"),
+    TEACHER_COUNT("SELECT COUNT(*) FROM Teacher"),
+
+    // ==================== REPORTS ====================
+
+    DASHBOARD_SCAN("""
+                SELECT s.department,
+                    COALESCE(c.total_classes, 0) as total_classes,
+                    COALESCE(c.present_count, 0) as present_count,
+                    t.teacher_count
+                FROM Student s
+                LEFT JOIN AttendanceCounters c ON s.roll_number = c.roll_number
+                CROSS JOIN (SELECT COUNT(*) as teacher_count FROM Teacher) t
+            """),
+    // Same columns plus roll_number, totals taken from Attendance within a term [?, ?)
+    DASHBOARD_TERM_SCAN("""
+                SELECT s.roll_number, s.department,
+                    COALESCE(a.total_days, 0) as total_classes,
+                    COALESCE(a.present_days, 0) as present_count,
+                    t.teacher_count
+                FROM Student s
+            """ + Select.TERM_TOTALS + """
+                CROSS JOIN (SELECT COUNT(*) as teacher_count FROM Teacher) t
+            """),
+    // Rankings when the index is not ready: students with marks, by percentage in basis points
+    RANKING_LOWEST(Select.RANKED + " ORDER BY r.bucket, r.roll_number LIMIT ? OFFSET ?"),
+    RANKING_HIGHEST(Select.RANKED + " ORDER BY r.bucket DESC, r.roll_number DESC LIMIT ? OFFSET ?"),
+    RANKING_RANGE(Select.RANKED
+            + " WHERE r.bucket BETWEEN ? AND ? ORDER BY r.bucket, r.roll_number LIMIT ? OFFSET ?"),
+    // { ranked, below the first bucket, above the second }
+    RANKING_COUNTS("""
+                SELECT COUNT(*),
+                    COALESCE(SUM(CASE WHEN r.bucket < ? THEN 1 ELSE 0 END), 0),
+                    COALESCE(SUM(CASE WHEN r.bucket > ? THEN 1 ELSE 0 END), 0)
+            """ + Select.RANKED_ROWS),
+    // bucket is NULL for a student with no marks yet
+    RANKING_STUDENT("""
+                SELECT s.roll_number, s.name, s.department,
+                    CASE WHEN c.total_classes > 0
+                        THEN ROUND(c.present_count * 10000.0 / c.total_classes) END as bucket
+                FROM Student s
+                LEFT JOIN AttendanceCounters c ON s.roll_number = c.roll_number
+                WHERE s.roll_number = ?
+            """),
+
+    // ==================== MAINTENANCE ====================
+
+    // Emptying every table for the synthetic data generator
+    FOREIGN_KEY_CHECKS_OFF("SET FOREIGN_KEY_CHECKS = 0"),
+    FOREIGN_KEY_CHECKS_ON("SET FOREIGN_KEY_CHECKS = 1"),
+    TRUNCATE_ATTENDANCE("TRUNCATE TABLE Attendance"),
+    TRUNCATE_COUNTERS("TRUNCATE TABLE AttendanceCounters"),
+    TRUNCATE_ALERTS("TRUNCATE TABLE AttendanceAlert"),
+    TRUNCATE_OUTBOX("TRUNCATE TABLE AlertOutbox"),
+    TRUNCATE_STUDENTS("TRUNCATE TABLE Student"),
+    TRUNCATE_TEACHERS("TRUNCATE TABLE Teacher");
+
+    static final int MAX_IN_LIST = 512;
+
+    // Statement sizes an IN list is padded up to; nested so the constructor can use them
+    private static final class InList {
+        static final int[] SHAPES = { 1, 8, 64, MAX_IN_LIST };
+    }
+
+    // Shared select lists; a nested class so the constants above can use them
+    private static final class Select {
+        // The backend's spelling of a shared row lock
+        static final String SHARE_LOCK = DatabaseConnection.getBackend().shareLock();
+
+        // total_classes is served from AttendanceCounters; the Student column is the fallback
+        static final String STUDENT = """
+                    SELECT s.roll_number, s.name, s.email, s.department,
+                        COALESCE(c.total_classes, s.total_classes) as total_classes
+                    FROM Student s
+                    LEFT JOIN AttendanceCounters c ON s.roll_number = c.roll_number
+                """;
+        static final String SUMMARY = """
+                    SELECT
+                        s.roll_number, s.name,
+                        COALESCE(c.total_classes, 0) as total_days,
+                        COALESCE(c.present_count, 0) as present_days
+                    FROM Student s
+                    LEFT JOIN AttendanceCounters c ON s.roll_number = c.roll_number
+                """;
+        // Per-student totals inside [?, ?), joined to Student s
+        static final String TERM_TOTALS = """
+                    LEFT JOIN (
+                        SELECT roll_number, COUNT(*) as total_days,
+                            SUM(CASE WHEN status = 1 THEN 1 ELSE 0 END) as present_days
+                        FROM Attendance
+                        WHERE date >= ? AND date < ?
+                        GROUP BY roll_number
+                    ) a ON s.roll_number = a.roll_number
+                """;
+        static final String TERM_SUMMARY_SCAN = """
+                    SELECT
+                        s.roll_number, s.name,
+                        COALESCE(a.total_days, 0) as total_days,
+                        COALESCE(a.present_days, 0) as present_days
+                    FROM Student s
+                """ + TERM_TOTALS;
+        static final String TERM_SUMMARY = """
+                    SELECT
+                        s.roll_number, s.name,
+                        (SELECT COUNT(*) FROM Attendance a
+                            WHERE a.roll_number = s.roll_number AND a.date >= ? AND a.date < ?) as total_days,
+                        (SELECT COUNT(*) FROM Attendance a
+                            WHERE a.roll_number = s.roll_number AND a.date >= ? AND a.date < ?
+                                AND a.status = 1) as present_days
+                    FROM Student s
+                """;
+        // Students with marks and their percentage in basis points, rounded as AttendanceRanking.bucket does
+        static final String RANKED_ROWS = """
+                    FROM (
+                        SELECT s.roll_number, s.name, s.department,
+                            ROUND(c.present_count * 10000.0 / c.total_classes) as bucket
+                        FROM Student s
+                        JOIN AttendanceCounters c ON s.roll_number = c.roll_number
+                        WHERE c.total_classes > 0
+                    ) r
+                """;
+        static final String RANKED = "SELECT r.* " + RANKED_ROWS;
+        static final String EVALUATE = """
+                    SELECT s.roll_number, s.department,
+                        COALESCE(c.total_classes, 0) as total_classes,
+                        COALESCE(c.present_count, 0) as present_count,
+                        al.level, al.percentage
+                    FROM Student s
+                    LEFT JOIN AttendanceCounters c ON s.roll_number = c.roll_number
+                    LEFT JOIN AttendanceAlert al ON s.roll_number = al.roll_number
+                """;
+        static final String EXPORT = """
+                    SELECT a.roll_number, s.name, s.department, a.date, a.status
+                    FROM Attendance a
+                    JOIN Student s ON s.roll_number = a.roll_number
+                """;
+        static final String ALERTS = """
+                    SELECT al.roll_number, s.name, s.department, al.percentage, al.level
+                    FROM AttendanceAlert al
+                    JOIN Student s ON al.roll_number = s.roll_number
+                """;
+    }
+
+    private final String sql;
+    private final String[] shapes;
+
+    SqlStatement(String sql) {
+        this.sql = sql;
+        if (sql.contains("(%s)")) {
+            shapes = new String[InList.SHAPES.length];
+            for (int i = 0; i < shapes.length; i++) {
+                shapes[i] = sql.formatted(String.join(", ", Collections.nCopies(InList.SHAPES[i], "?")));
+            }
+        } else {
+            shapes = null;
+        }
+    }
+
+    /**
+     * The statement text; not available for IN-list statements, which have one per shape
+     */
+    public String sql() {
+        if (shapes != null) {
+            throw new IllegalStateException(name() + " takes an IN list; prepare it with a size");
+        }
+        return sql;
+    }
+
+    public PreparedStatement prepare(Connection conn) throws SQLException {
+        return conn.prepareStatement(sql());
+    }
+
+    /**
+     * Prepare an IN-list statement for up to MAX_IN_LIST values; bind them with bindInList
+     */
+    public PreparedStatement prepare(Connection conn, int count) throws SQLException {
+        if (shapes == null) {
+            throw new IllegalStateException(name() + " does not take an IN list");
+        }
+        return conn.prepareStatement(shapes[shapeIndex(count)]);
+    }
+
+    /**
+     * Bind an IN list starting at parameter index, repeating the last value up to the
+     * statement's shape. Returns the next free parameter index.
+     */
+    public static int bindInList(PreparedStatement pstmt, int index, List<?> values) throws SQLException {
+        int shape = InList.SHAPES[shapeIndex(values.size())];
+        for (int i = 0; i < shape; i++) {
+            pstmt.setObject(index++, values.get(Math.min(i, values.size() - 1)));
+        }
+        return index;
+    }
+
+    /**
+     * Split a list into IN-list chunks of at most MAX_IN_LIST values
+     */
+    public static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += MAX_IN_LIST) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + MAX_IN_LIST)));
+        }
+        return chunks;
+    }
+
+    private static int shapeIndex(int count) {
+        if (count < 1 || count > MAX_IN_LIST) {
+            throw new IllegalArgumentException("IN list of " + count + " values (expected 1.." + MAX_IN_LIST + ")");
+        }
+        int i = 0;
+        while (InList.SHAPES[i] < count) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Size for each connection's statement cache: every text declared here, plus room
+     * for the few schema and seeding statements DatabaseConnection prepares itself
+     */
+    public static int cacheSize() {
+        int count = 16;
+        for (SqlStatement statement : values()) {
+            count += statement.shapes == null ? 1 : statement.shapes.length;
+        }
+        return count;
+    }
+
+    /**
+     * Prepare every statement (every shape of the IN-list ones) against the live schema.
+     * Throws listing each statement that fails, so a bad query stops startup.
+     */
+    public static void validateAll() throws SQLException {
+        List<String> failures = new ArrayList<>();
+        SQLException first = null;
+        try (Connection conn = DatabaseConnection.getBackend().openValidationConnection()) {
+            for (SqlStatement statement : values()) {
+                for (String text : statement.texts()) {
+                    try {
+                        // Preparing is the check
+                        conn.prepareStatement(text).close();
+                    } catch (SQLException e) {
+                        failures.add(statement.name() + ": " + e.getMessage());
+                        first = first != null ? first : e;
+                        break;
+                    }
+                }
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new SQLException("Statements do not match the schema:\n  " + String.join("\n  ", failures), first);
+        }
+    }
+
+    /**
+     * CRC-32 of every statement text. DatabaseConnection records it after a successful
+     * validateAll and skips validation on later startups while it still matches.
+     */
+    public static long checksum() {
+        CRC32 crc = new CRC32();
+        for (SqlStatement statement : values()) {
+            for (String text : statement.texts()) {
+                crc.update(text.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return crc.getValue();
+    }
+
+    private String[] texts() {
+        return shapes != null ? shapes : new String[] { sql };
+    }
+}
@@ -0,0 +1,73 @@
+import java.sql.*;
+
+/**
+ * StorageBackend - The database engine behind DatabaseConnection
+ *
+ * Supplies the JDBC location the connection pool connects to, plus the handful of
+ * statements whose syntax differs between engines. Everything else the DAOs run is
+ * the MySQL dialect, which the embedded engine accepts in its MySQL compatibility mode.
+ *
+ * Selected at launch with -Dattendify.storage=mysql (default) or embedded.
+ */
+public interface StorageBackend {
+
+    static StorageBackend fromConfiguration() {
+        String name = System.getProperty("attendify.storage", "mysql");
+        return switch (name.toLowerCase()) {
+            case "mysql" -> new MySqlBackend();
+            case "embedded" -> new EmbeddedBackend();
+            default -> throw new IllegalArgumentException(
+                    "Unknown storage backend '" + name + "' (expected mysql or embedded)");
+        };
+    }
+
+    String getName();
+
+    String getUrl();
+
+    String getUser();
+
+    String getPassword();
+
+    void loadDriver() throws SQLException;
+
+    /**
+     * A fresh, unpooled connection on which preparing a statement checks it against the schema
+     */
+    default Connection openValidationConnection() throws SQLException {
+        return DriverManager.getConnection(getUrl(), getUser(), getPassword());
+    }
+
+    /**
+     * Create the database itself if it does not exist yet
+     */
+    void createDatabase() throws SQLException;
+
+    // ==================== DIALECT ====================
+
+    /**
+     * Apply several ALTER TABLE clauses, as one statement where the engine allows it
+     */
+    void alterTable(Statement stmt, String table, String... clauses) throws SQLException;
+
+    /**
+     * SQL expression converting a YYYY-MM-DD string column to a DATE
+     */
+    String parseDate(String column);
+
+    /**
+     * Locking clause for a SELECT that keeps the rows it reads from being deleted until the
+     * transaction ends, while other transactions may lock the same rows this way too
+     */
+    String shareLock();
+
+    /**
+     * Relax per-row checks on this session while bulk loading keys known to be unique
+     */
+    void setBulkLoad(Statement stmt, boolean enabled) throws SQLException;
+
+    /**
+     * Whether Attendance is range-partitioned by month (see AttendancePartitions)
+     */
+    boolean supportsPartitioning();
+}
@@ -0,0 +1,117 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * StudentCache - Bounded LRU cache of students keyed by roll number
+ * Also remembers roll numbers that do not exist (negative lookups).
+ * Every read and write hands out copies, so callers can never mutate cached state.
+ */
+public class StudentCache {
+    private final int capacity;
+    private final LinkedHashMap<String, Optional<Student>> entries;
+
+    // Invalidation stamps, one per stripe of roll numbers: a change bumps only the stripe of the
+    // roll it touches, so an in-flight database read of that roll cannot re-cache stale data while
+    // reads of other rolls still populate the cache
+    private static final int STAMP_STRIPES = 1024;
+    private final long[] stamps = new long[STAMP_STRIPES];
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public StudentCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Optional<Student>> eldest) {
+                if (size() > StudentCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Look up a roll number.
+     * Returns null if not cached, an empty Optional if cached as not existing.
+     */
+    public synchronized Optional<Student> get(String rollNumber) {
+        Optional<Student> cached = entries.get(rollNumber);
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return cached.map(StudentCache::copy);
+    }
+
+    /**
+     * Current invalidation stamp of a roll number; take it before reading from the database
+     */
+    public synchronized long stamp(String rollNumber) {
+        return stamps[stripe(rollNumber)];
+    }
+
+    /**
+     * Cache a database result (null = not found), unless the roll number was
+     * invalidated since the given stamp was taken
+     */
+    public synchronized void put(String rollNumber, Student student, long readStamp) {
+        if (readStamp != stamps[stripe(rollNumber)]) {
+            return;
+        }
+        entries.put(rollNumber, Optional.ofNullable(student).map(StudentCache::copy));
+    }
+
+    /**
+     * Apply a total_classes change to a cached student without evicting it
+     */
+    public synchronized void adjustTotalClasses(String rollNumber, int delta) {
+        stamps[stripe(rollNumber)]++;
+        Optional<Student> cached = entries.get(rollNumber);
+        if (cached != null && cached.isPresent()) {
+            Student s = cached.get();
+            s.setTotalClasses(s.getTotalClasses() + delta);
+        }
+    }
+
+    public synchronized void invalidate(String rollNumber) {
+        stamps[stripe(rollNumber)]++;
+        entries.remove(rollNumber);
+    }
+
+    public synchronized void invalidateAll() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            stamps[i]++;
+        }
+        entries.clear();
+    }
+
+    // ==================== METRICS ====================
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int getSize() { return entries.size(); }
+    public int getCapacity() { return capacity; }
+
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    private static int stripe(String rollNumber) {
+        return (rollNumber.hashCode() & 0x7fffffff) % STAMP_STRIPES;
+    }
+
+    private static Student copy(Student s) {
+        return new Student(s.getRollNumber(), s.getName(), s.getEmail(), s.getDepartment(), s.getTotalClasses());
+    }
+}
@@ -1,150 +1,257 @@
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * StudentDAO - Data Access Object for Student operations
  * Handles all JDBC operations: INSERT, UPDATE, DELETE, SEARCH
  */
 public class StudentDAO {
+    // Sized for a ~40k-student campus; a cached student costs roughly 300 bytes
+    private static final int STUDENT_CACHE_CAPACITY = 50_000;
+    private static final StudentCache cache = new StudentCache(STUDENT_CACHE_CAPACITY);
 
-    public boolean addStudent(Student student) throws SQLException {
-        if (isRollNumberExists(student.getRollNumber())) {
-            return false;
-        }
+    private static final Metrics.Operation ADD = Metrics.operation("StudentDAO.addStudent");
+    private static final Metrics.Operation UPDATE = Metrics.operation("StudentDAO.updateStudent");
+    private static final Metrics.Operation SEARCH = Metrics.operation("StudentDAO.searchByRollNumber");
+    private static final Metrics.Operation ALL = Metrics.operation("StudentDAO.getAllStudents");
+    private static final Metrics.Operation PAGE = Metrics.operation("StudentDAO.getStudentsPage");
+    private static final Metrics.Operation STREAM = Metrics.operation("StudentDAO.streamAllStudents");
+    private static final Metrics.Operation DELETE = Metrics.operation("StudentDAO.deleteStudent");
+    private static final Metrics.Operation COUNT = Metrics.operation("StudentDAO.getStudentCount");
 
-        String sql = "INSERT INTO Student (roll_number, name, email, department, total_classes) VALUES (?, ?, ?, ?, ?)";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, student.getRollNumber());
-            pstmt.setString(2, student.getName());
-            pstmt.setString(3, student.getEmail());
-            pstmt.setString(4, student.getDepartment());
-            pstmt.setInt(5, student.getTotalClasses());
-            pstmt.executeUpdate();
-            return true;
-        }
+    /**
+     * Shared read-through cache behind searchByRollNumber and isRollNumberExists
+     */
+    public static StudentCache getCache() {
+        return cache;
     }
 
-    public boolean updateStudent(String rollNumber, String name, String email, String department) throws SQLException {
-        StringBuilder sql = new StringBuilder("UPDATE Student SET ");
-        List<String> updates = new ArrayList<>();
-        List<Object> params = new ArrayList<>();
+    public boolean addStudent(Student student) throws SQLException {
+        return ADD.time(() -> {
+            if (isRollNumberExists(student.getRollNumber())) {
+                return false;
+            }
+            // A reused roll number must not pick up a deleted student's archived marks
+            AttendanceArchive.forget(List.of(student.getRollNumber()));
 
-        if (name != null && !name.isEmpty()) {
-            updates.add("name = ?");
-            params.add(name);
-        }
-        if (email != null && !email.isEmpty()) {
-            updates.add("email = ?");
-            params.add(email);
-        }
-        if (department != null && !department.isEmpty()) {
-            updates.add("department = ?");
-            params.add(department);
-        }
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.STUDENT_INSERT.prepare(conn)) {
+                pstmt.setString(1, student.getRollNumber());
+                pstmt.setString(2, student.getName());
+                pstmt.setString(3, student.getEmail());
+                pstmt.setString(4, student.getDepartment());
+                pstmt.setInt(5, student.getTotalClasses());
+                pstmt.executeUpdate();
+                AttendanceIndex.getInstance().putStudent(student.getRollNumber(), student.getName(),
+                        student.getDepartment());
+                return true;
+            } finally {
+                cache.invalidate(student.getRollNumber());
+            }
+        });
+    }
 
-        if (updates.isEmpty())
+    public boolean updateStudent(String rollNumber, String name, String email, String department) throws SQLException {
+        // Blank fields are left unchanged: bound as NULL, which the statement's COALESCE skips
+        String newName = blankToNull(name);
+        String newEmail = blankToNull(email);
+        String newDepartment = blankToNull(department);
+        if (newName == null && newEmail == null && newDepartment == null)
             return false;
 
-        sql.append(String.join(", ", updates));
-        sql.append(" WHERE roll_number = ?");
-        params.add(rollNumber);
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
-            for (int i = 0; i < params.size(); i++) {
-                pstmt.setObject(i + 1, params.get(i));
+        return UPDATE.time(() -> {
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.STUDENT_UPDATE.prepare(conn)) {
+                pstmt.setString(1, newName);
+                pstmt.setString(2, newEmail);
+                pstmt.setString(3, newDepartment);
+                pstmt.setString(4, rollNumber);
+                boolean updated = pstmt.executeUpdate() > 0;
+                if (updated) {
+                    AttendanceIndex.getInstance().putStudent(rollNumber, newName, newDepartment);
+                }
+                return updated;
+            } finally {
+                cache.invalidate(rollNumber);
             }
-            return pstmt.executeUpdate() > 0;
-        }
+        });
     }
 
     public Student searchByRollNumber(String rollNumber) throws SQLException {
-        String sql = "SELECT * FROM Student WHERE roll_number = ?";
+        return SEARCH.time(() -> {
+            Optional<Student> cached = cache.get(rollNumber);
+            if (cached != null) {
+                return cached.orElse(null);
+            }
+            long stamp = cache.stamp(rollNumber);
+            Student student = loadByRollNumber(rollNumber);
+            cache.put(rollNumber, student, stamp);
+            return student;
+        });
+    }
 
+    private Student loadByRollNumber(String rollNumber) throws SQLException {
         try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                PreparedStatement pstmt = SqlStatement.STUDENT_BY_ROLL.prepare(conn)) {
             pstmt.setString(1, rollNumber);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new Student(
-                        rs.getString("roll_number"),
-                        rs.getString("name"),
-                        rs.getString("email"),
-                        rs.getString("department"),
-                        rs.getInt("total_classes"));
+                return mapStudent(rs);
             }
         }
         return null;
     }
 
     public List<Student> getAllStudents() throws SQLException {
-        List<Student> students = new ArrayList<>();
-        String sql = "SELECT * FROM Student ORDER BY roll_number";
+        return ALL.time(() -> {
+            List<Student> students = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.STUDENT_ALL.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    students.add(mapStudent(rs));
+                }
+            }
+            return students;
+        });
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                students.add(new Student(
-                        rs.getString("roll_number"),
-                        rs.getString("name"),
-                        rs.getString("email"),
-                        rs.getString("department"),
-                        rs.getInt("total_classes")));
+    /**
+     * Keyset page: up to limit students after the given roll number (null = first page),
+     * ordered by roll number
+     */
+    public List<Student> getStudentsPage(String afterRollNumber, int limit) throws SQLException {
+        SqlStatement page = afterRollNumber == null ? SqlStatement.STUDENT_PAGE_FIRST : SqlStatement.STUDENT_PAGE_AFTER;
+
+        return PAGE.time(() -> {
+            List<Student> students = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = page.prepare(conn)) {
+                int i = 1;
+                if (afterRollNumber != null) {
+                    pstmt.setString(i++, afterRollNumber);
+                }
+                pstmt.setInt(i, limit);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    students.add(mapStudent(rs));
+                }
             }
-        }
-        return students;
+            return students;
+        });
     }
 
-    public boolean deleteStudent(String rollNumber) throws SQLException {
-        String deleteAttendance = "DELETE FROM Attendance WHERE roll_number = ?";
-        String deleteStudent = "DELETE FROM Student WHERE roll_number = ?";
+    /**
+     * Every student in roll number order, fetched through a server-side cursor.
+     * Holds a connection until the stream is closed. Only opening the cursor is timed.
+     */
+    public Stream<Student> streamAllStudents() throws SQLException {
+        return STREAM.time(() -> JdbcStream.query(SqlStatement.STUDENT_ALL.sql(), StudentDAO::mapStudent),
+                students -> 0);
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            try (PreparedStatement pstmt = conn.prepareStatement(deleteAttendance)) {
-                pstmt.setString(1, rollNumber);
-                pstmt.executeUpdate();
+    /**
+     * Delete a student with their marks, counters and alert state in one transaction.
+     * The archive, index and cache drop the student only once the deletion has committed.
+     */
+    public boolean deleteStudent(String rollNumber) throws SQLException {
+        return DELETE.time(() -> {
+            boolean deleted;
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    // Waits for transactions marking the student, and keeps new marks out until commit
+                    try (PreparedStatement pstmt = SqlStatement.STUDENT_LOCK.prepare(conn)) {
+                        pstmt.setString(1, rollNumber);
+                        pstmt.executeQuery();
+                    }
+                    try (PreparedStatement pstmt = SqlStatement.STUDENT_DELETE_ATTENDANCE.prepare(conn)) {
+                        pstmt.setString(1, rollNumber);
+                        pstmt.executeUpdate();
+                    }
+                    try (PreparedStatement pstmt = SqlStatement.STUDENT_DELETE_COUNTERS.prepare(conn)) {
+                        pstmt.setString(1, rollNumber);
+                        pstmt.executeUpdate();
+                    }
+                    try (PreparedStatement pstmt = SqlStatement.STUDENT_DELETE_ALERT.prepare(conn)) {
+                        pstmt.setString(1, rollNumber);
+                        pstmt.executeUpdate();
+                    }
+                    try (PreparedStatement pstmt = SqlStatement.STUDENT_DELETE.prepare(conn)) {
+                        pstmt.setString(1, rollNumber);
+                        deleted = pstmt.executeUpdate() > 0;
+                    }
+                    // Ordered with the index updates of concurrent marks for this student
+                    AttendanceIndex.getInstance().commit(conn, List.of(rollNumber), index -> {
+                        if (deleted) {
+                            index.removeStudent(rollNumber);
+                        }
+                    });
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                }
             }
-            try (PreparedStatement pstmt = conn.prepareStatement(deleteStudent)) {
-                pstmt.setString(1, rollNumber);
-                return pstmt.executeUpdate() > 0;
+            cache.invalidate(rollNumber);
+            if (deleted) {
+                AttendanceArchive.forget(List.of(rollNumber));
             }
-        }
+            return deleted;
+        });
     }
 
     public boolean isRollNumberExists(String rollNumber) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Student WHERE roll_number = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, rollNumber);
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next())
-                return rs.getInt(1) > 0;
-        }
-        return false;
+        return searchByRollNumber(rollNumber) != null;
     }
 
-    public void updateTotalClasses(String rollNumber, int totalClasses) throws SQLException {
-        String sql = "UPDATE Student SET total_classes = ? WHERE roll_number = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, totalClasses);
-            pstmt.setString(2, rollNumber);
-            pstmt.executeUpdate();
+    /**
+     * Share-lock the students' rows until the transaction ends and return the roll numbers that exist.
+     * Attendance has no foreign key on MySQL (see AttendancePartitions), so every transaction writing
+     * marks takes this first and deleteStudent, which locks the row for update, cannot leave orphans.
+     */
+    static Set<String> lockExisting(Connection conn, Collection<String> rollNumbers) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        for (List<String> chunk : SqlStatement.chunks(new ArrayList<>(rollNumbers))) {
+            try (PreparedStatement pstmt = SqlStatement.STUDENT_LOCK_SHARED.prepare(conn, chunk.size())) {
+                SqlStatement.bindInList(pstmt, 1, chunk);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    existing.add(rs.getString(1));
+                }
+            }
         }
+        return existing;
+    }
+
+    static Student mapStudent(ResultSet rs) throws SQLException {
+        return new Student(
+                rs.getString("roll_number"),
+                rs.getString("name"),
+                rs.getString("email"),
+                rs.getString("department"),
+                rs.getInt("total_classes"));
     }
 
     public int getStudentCount() throws SQLException {
-        String sql = "SELECT COUNT(*) FROM Student";
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next())
-                return rs.getInt(1);
-        }
-        return 0;
+        return COUNT.time(() -> {
+            int count = 0;
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement pstmt = SqlStatement.STUDENT_COUNT.prepare(conn);
+                    ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next())
+                    count = rs.getInt(1);
+            }
+            return count;
+        }, count -> 1);
+    }
+
+    static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
 }
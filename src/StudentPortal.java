@@ -1,6 +1,7 @@
 import java.sql.*;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * StudentPortal - Student Dashboard
@@ -24,11 +25,13 @@ public class StudentPortal {
     private Scanner scanner;
     private StudentDAO studentDAO;
     private AttendanceDAO attendanceDAO;
+    private AsyncDAO asyncDAO;
 
     public StudentPortal(Scanner scanner) {
         this.scanner = scanner;
         this.studentDAO = new StudentDAO();
         this.attendanceDAO = new AttendanceDAO();
+        this.asyncDAO = new AsyncDAO();
     }
 
     public void run() {
@@ -74,9 +77,9 @@ public class StudentPortal {
             int choice = getIntInput(CYAN + "  Enter your choice: " + RESET);
 
             switch (choice) {
-                case 1 -> viewProfile(student);
-                case 2 -> viewAttendanceRecords(student);
-                case 3 -> viewAttendancePercentage(student);
+                case 1 -> Metrics.action("Student: Profile", () -> viewProfile(student));
+                case 2 -> Metrics.action("Student: Attendance Records", () -> viewAttendanceRecords(student));
+                case 3 -> Metrics.action("Student: Attendance Percentage", () -> viewAttendancePercentage(student));
                 case 0 -> {
                     running = false;
                     System.out.println(GREEN + "\n  Logging out..." + RESET);
@@ -169,8 +172,11 @@ public class StudentPortal {
         clearScreen();
         System.out.println(BOLD + GREEN + "\n  ═══ Attendance Percentage ═══" + RESET);
         try {
-            double percentage = attendanceDAO.calculateAttendancePercentage(student.getRollNumber());
-            int[] stats = attendanceDAO.getAttendanceStats(student.getRollNumber());
+            // Independent reads: run both at once
+            CompletableFuture<Double> pct = asyncDAO.calculateAttendancePercentage(student.getRollNumber());
+            CompletableFuture<int[]> counts = asyncDAO.getAttendanceStats(student.getRollNumber());
+            double percentage = AsyncDAO.await(pct);
+            int[] stats = AsyncDAO.await(counts);
 
             System.out.println();
             System.out.println(DIM + "  +--------------------------------------------+" + RESET);
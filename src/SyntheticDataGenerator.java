@@ -0,0 +1,400 @@
+import java.sql.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SyntheticDataGenerator - Deterministic, high-volume institution generator
+ *
+ * Produces departments, teachers, sections of students and a school year of attendance
+ * with skewed absence patterns: most students are regulars, a minority are irregular or
+ * chronically absent, absences cluster into streaks, Mondays and Fridays are worse, and
+ * each section has a few bad days (events, exams). The same seed always yields the same
+ * rows, whatever the thread count.
+ *
+ * Students are written in parallel blocks, each on its own pooled connection, as JDBC
+ * batches that the driver rewrites into multi-row INSERTs (rewriteBatchedStatements).
+ * AttendanceCounters are written from the generated totals, so no aggregate pass is needed.
+ *
+ * Usage: java -cp "out:lib/*" SyntheticDataGenerator --students 230000 --days 200 --seed 42 --reset
+ */
+public class SyntheticDataGenerator {
+    public static final String[][] DEPARTMENTS = {
+            { "CS", "Computer Science" },
+            { "EC", "Electronics" },
+            { "ME", "Mechanical" },
+            { "CE", "Civil" },
+            { "EE", "Electrical" },
+            { "IT", "Information Technology" },
+            { "CH", "Chemical" },
+            { "BT", "Biotechnology" }
+    };
+    public static final int SECTION_SIZE = 60;
+    public static final int TEACHERS_PER_DEPARTMENT = 12;
+    public static final LocalDate DEFAULT_FIRST_DAY = LocalDate.of(2025, 7, 1);
+
+    private static final String[] FIRST_NAMES = {
+            "Aarav", "Diya", "Rohan", "Ananya", "Kabir", "Ishita", "Arjun", "Meera", "Siddharth", "Kavya",
+            "Vihaan", "Saanvi", "Aditya", "Myra", "Reyansh", "Anika", "Krishna", "Aadhya", "Ayaan", "Pari",
+            "Dhruv", "Navya", "Arnav", "Riya", "Shaurya", "Tara", "Atharv", "Kiara", "Vivaan", "Zara"
+    };
+    private static final String[] LAST_NAMES = {
+            "Mehta", "Sharma", "Gupta", "Iyer", "Patel", "Reddy", "Nair", "Joshi", "Das", "Pillai",
+            "Kumar", "Singh", "Menon", "Rao", "Bose", "Chopra", "Kapoor", "Verma", "Desai", "Kulkarni"
+    };
+
+    // Rows per executeBatch; the driver splits these into max_allowed_packet-sized INSERTs
+    private static final int BATCH_ROWS = 10_000;
+    private static final int STUDENTS_PER_TASK = 500;
+    private static final SqlStatement[] TRUNCATES = { SqlStatement.TRUNCATE_ATTENDANCE, SqlStatement.TRUNCATE_COUNTERS,
+            SqlStatement.TRUNCATE_ALERTS, SqlStatement.TRUNCATE_OUTBOX, SqlStatement.TRUNCATE_STUDENTS,
+            SqlStatement.TRUNCATE_TEACHERS };
+
+    private final long seed;
+    private final int studentCount;
+    private final List<LocalDate> schoolDays;
+    private int threads;
+
+    /**
+     * @param schoolDays number of teaching days (weekdays outside the winter break) from firstDay
+     */
+    public SyntheticDataGenerator(long seed, int studentCount, LocalDate firstDay, int schoolDays) {
+        if (studentCount < 1 || schoolDays < 1) {
+            throw new IllegalArgumentException("Student and day counts must be positive");
+        }
+        this.seed = seed;
+        this.studentCount = studentCount;
+        this.schoolDays = buildCalendar(firstDay, schoolDays);
+        this.threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+    }
+
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public List<LocalDate> getSchoolDays() {
+        return schoolDays;
+    }
+
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    // ==================== NAMING ====================
+
+    public static int sectionOf(int student) {
+        return student / SECTION_SIZE;
+    }
+
+    public static String[] departmentOf(int student) {
+        return DEPARTMENTS[sectionOf(student) % DEPARTMENTS.length];
+    }
+
+    public static String rollNumber(int student) {
+        return departmentOf(student)[0] + String.format("%07d", student);
+    }
+
+    public static String teacherId(int department, int teacher) {
+        return DEPARTMENTS[department][0] + "-T" + String.format("%02d", teacher + 1);
+    }
+
+    // ==================== GENERATION ====================
+
+    /**
+     * Delete every student, teacher and attendance row, archived terms included
+     */
+    public static void truncateAll() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            execute(conn, SqlStatement.FOREIGN_KEY_CHECKS_OFF);
+            try {
+                for (SqlStatement truncate : TRUNCATES) {
+                    execute(conn, truncate);
+                }
+            } finally {
+                execute(conn, SqlStatement.FOREIGN_KEY_CHECKS_ON);
+            }
+        }
+        AttendanceArchive.clear();
+        StudentDAO.getCache().invalidateAll();
+        AttendanceIndex.getInstance().invalidate();
+    }
+
+    private static void execute(Connection conn, SqlStatement statement) throws SQLException {
+        try (PreparedStatement pstmt = statement.prepare(conn)) {
+            pstmt.execute();
+        }
+    }
+
+    /**
+     * Insert the whole institution. Expects none of the generated keys to exist yet.
+     * Returns the number of attendance rows written.
+     */
+    public long generate() throws SQLException {
+        if (!schoolDays.isEmpty()) {
+            AttendanceArchive.requireLive(schoolDays.get(0));
+        }
+        insertTeachers();
+
+        int workers = Math.min(threads, Math.max(1, DatabaseConnection.getPool().getMaxSize() - 1));
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        AtomicLong attendanceRows = new AtomicLong();
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int from = 0; from < studentCount; from += STUDENTS_PER_TASK) {
+                int start = from;
+                int end = Math.min(studentCount, from + STUDENTS_PER_TASK);
+                tasks.add(executor.submit(() -> {
+                    attendanceRows.addAndGet(insertStudents(start, end));
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Data generation interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            throw new SQLException("Data generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            // Rows were written directly, so cached students and the index are stale
+            StudentDAO.getCache().invalidateAll();
+            AttendanceIndex.getInstance().invalidate();
+        }
+        // Bring the live alert set in line without announcing every generated student
+        AlertDAO.reevaluate(null, false);
+        return attendanceRows.get();
+    }
+
+    private void insertTeachers() throws SQLException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = SqlStatement.TEACHER_INSERT.prepare(conn)) {
+            for (int d = 0; d < DEPARTMENTS.length; d++) {
+                for (int t = 0; t < TEACHERS_PER_DEPARTMENT; t++) {
+                    String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                    String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                    String id = teacherId(d, t);
+                    ps.setString(1, id);
+                    ps.setString(2, "Prof. " + first + " " + last);
+                    ps.setString(3, id.toLowerCase() + "@attendify.edu");
+                    ps.setString(4, DEPARTMENTS[d][1]);
+                    ps.setString(5, DEPARTMENTS[d][1] + " " + (t + 1) * 100);
+                    ps.addBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Write students [from, to) with their attendance and counters on one connection
+     */
+    private long insertStudents(int from, int to) throws SQLException {
+        Date[] dates = new Date[schoolDays.size()];
+        for (int d = 0; d < dates.length; d++) {
+            dates[d] = Date.valueOf(schoolDays.get(d));
+        }
+
+        long rows = 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // Generated keys are unique and parents are written first, so skip the checks
+            try (Statement stmt = conn.createStatement()) {
+                DatabaseConnection.getBackend().setBulkLoad(stmt, true);
+            }
+            conn.setAutoCommit(false);
+            try (PreparedStatement students = SqlStatement.STUDENT_INSERT.prepare(conn);
+                    PreparedStatement attendance = SqlStatement.ATTENDANCE_INSERT.prepare(conn);
+                    PreparedStatement counters = SqlStatement.COUNTERS_INSERT.prepare(conn)) {
+                int pending = 0;
+                BitSet badDays = null;
+                int badDaysSection = -1;
+                for (int i = from; i < to; i++) {
+                    if (sectionOf(i) != badDaysSection) {
+                        badDaysSection = sectionOf(i);
+                        badDays = sectionBadDays(badDaysSection);
+                    }
+                    SplittableRandom random = new SplittableRandom(mix(seed, i));
+                    String roll = rollNumber(i);
+                    String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                    String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+
+                    students.setString(1, roll);
+                    students.setString(2, first + " " + last);
+                    students.setString(3, (first + "." + last + "." + i).toLowerCase() + "@student.attendify.edu");
+                    students.setString(4, departmentOf(i)[1]);
+                    students.setInt(5, dates.length);
+                    students.addBatch();
+
+                    double absence = absenceRate(random);
+                    boolean absentYesterday = false;
+                    int present = 0;
+                    for (int d = 0; d < dates.length; d++) {
+                        boolean absent = random.nextDouble() < dayAbsence(absence, d, absentYesterday, badDays);
+                        absentYesterday = absent;
+                        if (!absent) {
+                            present++;
+                        }
+                        attendance.setString(1, roll);
+                        attendance.setDate(2, dates[d]);
+                        attendance.setInt(3, absent ? AttendanceDAO.STATUS_ABSENT : AttendanceDAO.STATUS_PRESENT);
+                        attendance.addBatch();
+                        if (++pending == BATCH_ROWS) {
+                            students.executeBatch();
+                            attendance.executeBatch();
+                            conn.commit();
+                            pending = 0;
+                        }
+                    }
+                    rows += dates.length;
+
+                    counters.setString(1, roll);
+                    counters.setInt(2, dates.length);
+                    counters.setInt(3, present);
+                    counters.setInt(4, dates.length - present);
+                    counters.addBatch();
+                }
+                students.executeBatch();
+                attendance.executeBatch();
+                counters.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    DatabaseConnection.getBackend().setBulkLoad(stmt, false);
+                }
+            }
+        }
+        return rows;
+    }
+
+    // ==================== ABSENCE MODEL ====================
+
+    /**
+     * Base absence probability: 75% regulars (2-10%), 18% irregular (10-30%),
+     * 7% chronically absent (30-60%)
+     */
+    private static double absenceRate(SplittableRandom random) {
+        double group = random.nextDouble();
+        if (group < 0.75) {
+            return 0.02 + random.nextDouble() * 0.08;
+        } else if (group < 0.93) {
+            return 0.10 + random.nextDouble() * 0.20;
+        }
+        return 0.30 + random.nextDouble() * 0.30;
+    }
+
+    private double dayAbsence(double base, int day, boolean absentYesterday, BitSet badDays) {
+        double p = base;
+        DayOfWeek weekday = schoolDays.get(day).getDayOfWeek();
+        if (weekday == DayOfWeek.MONDAY) {
+            p *= 1.2;
+        } else if (weekday == DayOfWeek.FRIDAY) {
+            p *= 1.4;
+        }
+        if (badDays.get(day)) {
+            p *= 2.5;
+        }
+        // Absences come in streaks (illness, travel)
+        if (absentYesterday) {
+            p = Math.max(p, Math.min(0.85, base * 6));
+        }
+        return Math.min(p, 0.95);
+    }
+
+    /**
+     * About 5% of days are bad for a whole section
+     */
+    private BitSet sectionBadDays(int section) {
+        SplittableRandom random = new SplittableRandom(mix(seed ^ 0x5EC7_10A5L, section));
+        BitSet days = new BitSet(schoolDays.size());
+        for (int d = 0; d < schoolDays.size(); d++) {
+            if (random.nextInt(20) == 0) {
+                days.set(d);
+            }
+        }
+        return days;
+    }
+
+    private static long mix(long seed, long n) {
+        return seed * 0x9E3779B97F4A7C15L + n;
+    }
+
+    /**
+     * Weekdays from firstDay, skipping the Dec 24 - Jan 1 break
+     */
+    private static List<LocalDate> buildCalendar(LocalDate firstDay, int count) {
+        List<LocalDate> days = new ArrayList<>(count);
+        LocalDate day = firstDay;
+        while (days.size() < count) {
+            boolean weekend = day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+            boolean winterBreak = (day.getMonthValue() == 12 && day.getDayOfMonth() >= 24)
+                    || (day.getMonthValue() == 1 && day.getDayOfMonth() == 1);
+            if (!weekend && !winterBreak) {
+                days.add(day);
+            }
+            day = day.plusDays(1);
+        }
+        return days;
+    }
+
+    // ==================== COMMAND LINE ====================
+
+    public static void main(String[] args) {
+        int students = 10_000;
+        int days = 200;
+        long seed = 42;
+        LocalDate firstDay = DEFAULT_FIRST_DAY;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean reset = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--students" -> students = Integer.parseInt(args[++i]);
+                case "--days" -> days = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--from" -> firstDay = LocalDate.parse(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--reset" -> reset = true;
+                default -> {
+                    System.out.println("Usage: SyntheticDataGenerator [--students N] [--days N] [--seed N]"
+                            + " [--from YYYY-MM-DD] [--threads N] [--reset]");
+                    return;
+                }
+            }
+        }
+
+        try {
+            DatabaseConnection.initializeDatabase();
+            if (reset) {
+                truncateAll();
+            }
+            SyntheticDataGenerator generator = new SyntheticDataGenerator(seed, students, firstDay, days);
+            generator.setThreads(threads);
+
+            long start = System.nanoTime();
+            long rows = generator.generate();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Generated %,d students and %,d attendance rows in %.1f s (%,.0f rows/s)%n",
+                    students, rows, seconds, rows / seconds);
+        } catch (SQLException e) {
+            System.out.println("Data generation failed: " + e.getMessage());
+        } finally {
+            DatabaseConnection.closeConnection();
+        }
+    }
+}
@@ -1,6 +1,12 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * TeacherPortal - Teacher Dashboard
@@ -20,19 +26,22 @@ public class TeacherPortal {
     private static final String BG_BLUE = "\033[44m";
     private static final String DIM = "\033[2m";
 
+    // Rows per screen in paged listings
+    private static final int PAGE_SIZE = 20;
+
     private Scanner scanner;
     private StudentDAO studentDAO;
     private AttendanceDAO attendanceDAO;
+    private AsyncDAO asyncDAO;
 
     public TeacherPortal(Scanner scanner) {
         this.scanner = scanner;
         this.studentDAO = new StudentDAO();
         this.attendanceDAO = new AttendanceDAO();
+        this.asyncDAO = new AsyncDAO();
     }
 
     public void run() {
-        loadSampleDataIfNeeded();
-
         boolean running = true;
         while (running) {
             clearScreen();
@@ -41,14 +50,15 @@ public class TeacherPortal {
             int choice = getIntInput(CYAN + "  Enter your choice: " + RESET);
 
             switch (choice) {
-                case 1 -> addStudent();
-                case 2 -> viewAllStudents();
-                case 3 -> searchStudent();
-                case 4 -> updateStudent();
-                case 5 -> deleteStudent();
-                case 6 -> markAttendance();
-                case 7 -> viewAttendance();
-                case 8 -> viewAttendanceSummary();
+                case 1 -> Metrics.action("Teacher: Add Student", this::addStudent);
+                case 2 -> Metrics.action("Teacher: View All Students", this::viewAllStudents);
+                case 3 -> Metrics.action("Teacher: Search Student", this::searchStudent);
+                case 4 -> Metrics.action("Teacher: Update Student", this::updateStudent);
+                case 5 -> Metrics.action("Teacher: Delete Student", this::deleteStudent);
+                case 6 -> Metrics.action("Teacher: Mark Attendance", this::markAttendance);
+                case 7 -> Metrics.action("Teacher: View Attendance", this::viewAttendance);
+                case 8 -> Metrics.action("Teacher: Attendance Summary", this::viewAttendanceSummary);
+                case 9 -> Metrics.action("Teacher: Import CSV", QueryBudget.UNLIMITED, this::importCsv);
                 case 0 -> {
                     running = false;
                     System.out.println(GREEN + "\n  Logging out from Teacher Portal..." + RESET);
@@ -83,6 +93,8 @@ public class TeacherPortal {
         System.out.println(CYAN + "  [6]" + WHITE + "  Mark Attendance" + RESET);
         System.out.println(CYAN + "  [7]" + WHITE + "  View Attendance" + RESET);
         System.out.println(CYAN + "  [8]" + WHITE + "  View Attendance Summary" + RESET);
+        System.out.println(DIM + "  -------------  Bulk Import  --------------------" + RESET);
+        System.out.println(CYAN + "  [9]" + WHITE + "  Import from CSV" + RESET);
         System.out.println(DIM + "  ------------------------------------------------" + RESET);
         System.out.println(RED + "  [0]" + WHITE + "  Logout" + RESET);
         System.out.println();
@@ -122,13 +134,20 @@ public class TeacherPortal {
     }
 
     private void viewAllStudents() {
-        clearScreen();
-        System.out.println(BOLD + GREEN + "\n  ═══ All Students ═══" + RESET);
         try {
-            List<Student> students = studentDAO.getAllStudents();
-            if (students.isEmpty()) {
-                System.out.println(YELLOW + "\n  No students found." + RESET);
-            } else {
+            CompletableFuture<Integer> count = asyncDAO.getStudentCount();
+            CompletableFuture<List<Student>> next = asyncDAO.getStudentsPage(null, PAGE_SIZE);
+            int total = AsyncDAO.await(count);
+            String after = null;
+            int shown = 0;
+            while (true) {
+                List<Student> page = AsyncDAO.await(next);
+                clearScreen();
+                System.out.println(BOLD + GREEN + "\n  ═══ All Students ═══" + RESET);
+                if (page.isEmpty()) {
+                    System.out.println(YELLOW + "\n  No students found." + RESET);
+                    break;
+                }
                 System.out.println(
                         DIM + "  ┌──────────────┬──────────────────────┬───────────────────────────┬──────────────┐"
                                 + RESET);
@@ -137,13 +156,23 @@ public class TeacherPortal {
                 System.out.println(
                         DIM + "  ├──────────────┼──────────────────────┼───────────────────────────┼──────────────┤"
                                 + RESET);
-                for (Student s : students) {
+                for (Student s : page) {
                     System.out.println("  " + s.toString());
                 }
                 System.out.println(
                         DIM + "  └──────────────┴──────────────────────┴───────────────────────────┴──────────────┘"
                                 + RESET);
-                System.out.println(CYAN + "\n  Total: " + students.size() + " students" + RESET);
+                shown += page.size();
+                after = page.get(page.size() - 1).getRollNumber();
+                System.out.println(CYAN + "\n  Showing " + shown + " of " + total + " students" + RESET);
+                if (page.size() < PAGE_SIZE || shown >= total) {
+                    break;
+                }
+                // Fetch the next page while this one is being read
+                next = asyncDAO.getStudentsPage(after, PAGE_SIZE);
+                if (!nextPage()) {
+                    return;
+                }
             }
         } catch (SQLException e) {
             System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
@@ -264,7 +293,9 @@ public class TeacherPortal {
         }
 
         try {
-            List<Student> students = studentDAO.getAllStudents();
+            // Reject a date the mark would refuse before asking for the whole roster
+            AttendanceArchive.requireLive(AttendanceDAO.toMarkDate(date).toLocalDate());
+            List<String[]> students = loadRoster(date);
             if (students.isEmpty()) {
                 System.out.println(YELLOW + "\n  No students registered yet." + RESET);
                 pressEnter();
@@ -273,20 +304,54 @@ public class TeacherPortal {
 
             System.out.println(YELLOW + "  Mark P (Present) or A (Absent) for each student:\n" + RESET);
 
-            for (Student s : students) {
-                System.out.print(WHITE + "  " + s.getRollNumber() + " - " + s.getName() + " [P/A]: " + RESET);
+            Map<String, String> roster = new LinkedHashMap<>();
+            for (String[] s : students) {
+                System.out.print(WHITE + "  " + s[0] + " - " + s[1] + " [P/A]: " + RESET);
                 String input = scanner.nextLine().trim().toUpperCase();
                 String status = input.equals("A") ? "ABSENT" : "PRESENT";
-                attendanceDAO.markAttendance(s.getRollNumber(), date, status);
+                roster.put(s[0], status);
             }
 
-            System.out.println(GREEN + "\n  [OK] Attendance marked for " + students.size() + " students!" + RESET);
+            if (MarkJournal.isRunning()) {
+                int marked = MarkJournal.record(date, roster);
+                System.out.println(GREEN + "\n  [OK] Attendance recorded for " + marked + " students!" + RESET);
+                long pending = MarkJournal.getPendingMarks();
+                if (pending > 0) {
+                    System.out.println(DIM + "  " + pending + " marks syncing to the database in the background" + RESET);
+                }
+            } else {
+                int marked = attendanceDAO.markAttendanceBatch(date, roster);
+                System.out.println(GREEN + "\n  [OK] Attendance marked for " + marked + " students!" + RESET);
+            }
         } catch (Exception e) {
             System.out.println(RED + "\n  Error: " + e.getMessage() + RESET);
         }
         pressEnter();
     }
 
+    /**
+     * { roll, name } for every student; falls back to the in-memory index when the
+     * database is unreachable, so marks can still be journaled during an outage
+     */
+    private List<String[]> loadRoster(String date) throws SQLException {
+        try {
+            List<String[]> rows = new ArrayList<>();
+            for (Student s : studentDAO.getAllStudents()) {
+                rows.add(new String[] { s.getRollNumber(), s.getName() });
+            }
+            return rows;
+        } catch (SQLException e) {
+            List<String[]> cached = MarkJournal.isRunning()
+                    ? AttendanceIndex.getInstance().getAttendanceByDate(date)
+                    : null;
+            if (cached == null) {
+                throw e;
+            }
+            System.out.println(YELLOW + "  Database unreachable - using the cached student list" + RESET);
+            return cached;
+        }
+    }
+
     private void viewAttendance() {
         clearScreen();
         System.out.println(BOLD + GREEN + "\n  ═══ View Attendance ═══" + RESET);
@@ -335,26 +400,38 @@ public class TeacherPortal {
     }
 
     private void viewAttendanceSummary() {
-        clearScreen();
-        System.out.println(BOLD + GREEN + "\n  ═══ Attendance Summary ═══" + RESET);
         try {
-            List<String[]> summary = attendanceDAO.getAttendanceSummary();
-            if (summary.isEmpty()) {
-                System.out.println(YELLOW + "\n  No attendance data available." + RESET);
-            } else {
+            CompletableFuture<List<String[]>> next = asyncDAO.getAttendanceSummaryPage(null, PAGE_SIZE);
+            String after = null;
+            while (true) {
+                List<String[]> page = AsyncDAO.await(next);
+                clearScreen();
+                System.out.println(BOLD + GREEN + "\n  ═══ Attendance Summary ═══" + RESET);
+                if (page.isEmpty()) {
+                    System.out.println(YELLOW + "\n  No attendance data available." + RESET);
+                    break;
+                }
                 System.out.println(
                         DIM + "  ┌──────────────┬──────────────────────┬──────────┬─────────┬────────────┐" + RESET);
                 System.out.printf(BOLD + "  │ %-12s │ %-20s │ %-8s │ %-7s │ %-10s │%n" + RESET,
                         "Roll Number", "Name", "Total", "Present", "Percentage");
                 System.out.println(
                         DIM + "  ├──────────────┼──────────────────────┼──────────┼─────────┼────────────┤" + RESET);
-                for (String[] s : summary) {
+                for (String[] s : page) {
                     String color = Double.parseDouble(s[4].replace("%", "")) >= 75 ? GREEN : RED;
                     System.out.printf("  │ %-12s │ %-20s │ %-8s │ %-7s │ %s%-10s%s │%n",
                             s[0], s[1], s[2], s[3], color, s[4], RESET);
                 }
                 System.out.println(
                         DIM + "  └──────────────┴──────────────────────┴──────────┴─────────┴────────────┘" + RESET);
+                after = page.get(page.size() - 1)[0];
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                next = asyncDAO.getAttendanceSummaryPage(after, PAGE_SIZE);
+                if (!nextPage()) {
+                    return;
+                }
             }
         } catch (SQLException e) {
             System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
@@ -362,51 +439,53 @@ public class TeacherPortal {
         pressEnter();
     }
 
-    // ==================== SAMPLE DATA ====================
+    // ==================== BULK IMPORT ====================
 
-    private void loadSampleDataIfNeeded() {
-        try {
-            if (studentDAO.getStudentCount() == 0) {
-                String[][] sampleStudents = {
-                        { "CS001", "Rahul Sharma", "rahul@email.com", "CS" },
-                        { "CS002", "Priya Patel", "priya@email.com", "CS" },
-                        { "CS003", "Amit Kumar", "amit@email.com", "CS" },
-                        { "EC001", "Neha Gupta", "neha@email.com", "ECE" },
-                        { "EC002", "Rohan Singh", "rohan@email.com", "ECE" },
-                        { "ME001", "Sneha Reddy", "sneha@email.com", "ME" },
-                        { "ME002", "Vikas Jain", "vikas@email.com", "ME" },
-                        { "IT001", "Ananya Das", "ananya@email.com", "IT" },
-                        { "IT002", "Karthik Nair", "karthik@email.com", "IT" },
-                        { "EE001", "Deepa Menon", "deepa@email.com", "EE" }
-                };
-
-                for (String[] s : sampleStudents) {
-                    studentDAO.addStudent(new Student(s[0], s[1], s[2], s[3]));
-                }
+    private void importCsv() {
+        clearScreen();
+        System.out.println(BOLD + GREEN + "\n  ═══ Import from CSV ═══" + RESET);
+        System.out.println(DIM + "  Students   : roll_number,name[,email[,department]]" + RESET);
+        System.out.println(DIM + "  Attendance : roll_number,date,status  (YYYY-MM-DD, PRESENT/ABSENT)" + RESET);
+        System.out.println();
+        System.out.println(CYAN + "  [1]" + WHITE + "  Students" + RESET);
+        System.out.println(CYAN + "  [2]" + WHITE + "  Attendance" + RESET);
+        int choice = getIntInput(CYAN + "  Import     : " + RESET);
+        if (choice != 1 && choice != 2) {
+            System.out.println(RED + "\n  Invalid choice!" + RESET);
+            pressEnter();
+            return;
+        }
+        System.out.print(CYAN + "  CSV file   : " + RESET);
+        String path = scanner.nextLine().trim();
+        if (path.isEmpty()) {
+            System.out.println(RED + "\n  Error: A file is required!" + RESET);
+            pressEnter();
+            return;
+        }
 
-                String[] dates = { "2025-01-06", "2025-01-07", "2025-01-08", "2025-01-09", "2025-01-10" };
-                String[][] attendance = {
-                        { "PRESENT", "PRESENT", "ABSENT", "PRESENT", "PRESENT" },
-                        { "PRESENT", "ABSENT", "PRESENT", "PRESENT", "PRESENT" },
-                        { "ABSENT", "PRESENT", "PRESENT", "ABSENT", "PRESENT" },
-                        { "PRESENT", "PRESENT", "PRESENT", "PRESENT", "ABSENT" },
-                        { "PRESENT", "PRESENT", "PRESENT", "PRESENT", "PRESENT" },
-                        { "ABSENT", "ABSENT", "PRESENT", "PRESENT", "PRESENT" },
-                        { "PRESENT", "PRESENT", "ABSENT", "ABSENT", "PRESENT" },
-                        { "PRESENT", "PRESENT", "PRESENT", "PRESENT", "PRESENT" },
-                        { "ABSENT", "PRESENT", "PRESENT", "PRESENT", "ABSENT" },
-                        { "PRESENT", "ABSENT", "PRESENT", "PRESENT", "PRESENT" }
-                };
-
-                for (int i = 0; i < sampleStudents.length; i++) {
-                    for (int j = 0; j < dates.length; j++) {
-                        attendanceDAO.markAttendance(sampleStudents[i][0], dates[j], attendance[i][j]);
-                    }
-                }
+        try {
+            CsvImporter importer = new CsvImporter(
+                    choice == 1 ? CsvImporter.Kind.STUDENTS : CsvImporter.Kind.ATTENDANCE, Path.of(path));
+            System.out.println(DIM + "\n  Importing..." + RESET);
+            CsvImporter.Result result = importer.run();
+            if (result.resumedAfterLine() > 0) {
+                System.out.printf(YELLOW + "  Resumed an interrupted import after line %,d%n" + RESET,
+                        result.resumedAfterLine());
             }
-        } catch (Exception e) {
-            // Silently skip sample data on error
+            System.out.printf(GREEN + "\n  [OK] Imported %,d rows in %.1f s%n" + RESET,
+                    result.imported(), result.seconds());
+            if (result.rejected() > 0) {
+                System.out.printf(YELLOW + "  %,d rows rejected - see %s%n" + RESET,
+                        result.rejected(), result.rejectsFile());
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(RED + "\n  Error: " + e.getMessage() + RESET);
+        } catch (IOException e) {
+            System.out.println(RED + "\n  Could not read file: " + e.getMessage() + RESET);
+        } catch (SQLException e) {
+            System.out.println(RED + "\n  Database error: " + e.getMessage() + RESET);
         }
+        pressEnter();
     }
 
     // ==================== UTILITIES ====================
@@ -426,6 +505,15 @@ public class TeacherPortal {
         scanner.nextLine();
     }
 
+    /**
+     * Returns false if the user asked to stop paging. Each page is query-budgeted on its own.
+     */
+    private boolean nextPage() {
+        Metrics.nextStep();
+        System.out.print(DIM + "\n  Press Enter for the next page, or Q to go back..." + RESET);
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+
     private void clearScreen() {
         System.out.print("\033[H\033[2J");
         System.out.flush();
@@ -0,0 +1,119 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Term - A half-open date range [start, end), usually one academic term
+ *
+ * Terms begin on the first day of each month listed in -Dattendify.term.months (default
+ * 1,7: a January-June and a July-December term) and run until the next one begins.
+ * Report methods take a Term (null = all time) to count only the attendance inside it;
+ * on MySQL, Attendance is partitioned by month (see AttendancePartitions), so such a
+ * query reads only the term's partitions.
+ */
+public record Term(LocalDate start, LocalDate end) {
+    private static final int[] START_MONTHS = startMonths(System.getProperty("attendify.term.months", "1,7"));
+
+    public Term {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("A term must end after it starts");
+        }
+    }
+
+    /**
+     * The academic term a date falls in
+     */
+    public static Term containing(LocalDate date) {
+        int month = date.getMonthValue();
+        int index = START_MONTHS.length - 1;
+        while (index >= 0 && START_MONTHS[index] > month) {
+            index--;
+        }
+        LocalDate start = index >= 0
+                ? LocalDate.of(date.getYear(), START_MONTHS[index], 1)
+                : LocalDate.of(date.getYear() - 1, START_MONTHS[START_MONTHS.length - 1], 1);
+        LocalDate end = index + 1 < START_MONTHS.length
+                ? LocalDate.of(start.getYear(), START_MONTHS[index + 1], 1)
+                : LocalDate.of(start.getYear() + 1, START_MONTHS[0], 1);
+        return new Term(start, end);
+    }
+
+    public static Term current() {
+        return containing(LocalDate.now());
+    }
+
+    /**
+     * From one date to another, both inclusive
+     */
+    public static Term between(LocalDate from, LocalDate to) {
+        return new Term(from, to.plusDays(1));
+    }
+
+    /**
+     * "current", "next", a month in the term ("2025-07") or a date range
+     * ("2025-07-01..2025-09-30", both inclusive)
+     */
+    public static Term parse(String text) {
+        String value = text.trim();
+        try {
+            if (value.equalsIgnoreCase("current")) {
+                return current();
+            } else if (value.equalsIgnoreCase("next")) {
+                return current().next();
+            } else if (value.contains("..")) {
+                String[] bounds = value.split("\\.\\.", 2);
+                return between(LocalDate.parse(bounds[0].trim()), LocalDate.parse(bounds[1].trim()));
+            }
+            return containing(YearMonth.parse(value).atDay(1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Term must be current, next, YYYY-MM or YYYY-MM-DD..YYYY-MM-DD");
+        }
+    }
+
+    /**
+     * The academic term starting where this one ends
+     */
+    public Term next() {
+        return containing(end);
+    }
+
+    /**
+     * Every calendar month the range touches, in order
+     */
+    public List<YearMonth> months() {
+        List<YearMonth> months = new ArrayList<>();
+        YearMonth last = YearMonth.from(end.minusDays(1));
+        for (YearMonth month = YearMonth.from(start); !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    /**
+     * e.g. "2025-07-01 to 2025-12-31"
+     */
+    public String label() {
+        return start + " to " + end.minusDays(1);
+    }
+
+    @Override
+    public String toString() {
+        return label();
+    }
+
+    private static int[] startMonths(String property) {
+        try {
+            int[] months = Arrays.stream(property.split(",")).map(String::trim).mapToInt(Integer::parseInt)
+                    .sorted().distinct().toArray();
+            if (months.length == 0 || months[0] < 1 || months[months.length - 1] > 12) {
+                throw new IllegalArgumentException();
+            }
+            return months;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("attendify.term.months must list months 1-12, e.g. 1,7");
+        }
+    }
+}
@@ -0,0 +1,422 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * AttendanceStoreContract - Behaviour every storage backend must share
+ *
+ * Each subclass points the DAOs at one backend. The backend is chosen once per JVM, so
+ * surefire runs every test class in a fresh fork. Tables are emptied before each test,
+ * and marks fall in the previous term so they are inside the marking window and the
+ * term reports cover them. That term has closed, so the archive tests can archive it.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class AttendanceStoreContract {
+    private static final Term TERM = Term.containing(Term.current().start().minusDays(1));
+    private static final String DAY_1 = TERM.start().toString();
+    private static final String DAY_2 = TERM.start().plusDays(1).toString();
+
+    private final StudentDAO studentDAO = new StudentDAO();
+    private final AttendanceDAO attendanceDAO = new AttendanceDAO();
+    private final HodDAO hodDAO = new HodDAO();
+    private Path journalDir;
+
+    /**
+     * Select the backend under test; runs before the first connection is opened
+     */
+    abstract void configure(Path dataDir) throws SQLException;
+
+    @BeforeAll
+    void openStore(@TempDir Path dataDir) throws SQLException {
+        journalDir = dataDir.resolve("journal");
+        System.setProperty("attendify.archive.dir", dataDir.resolve("archive").toString());
+        System.setProperty("attendify.alerts.file", dataDir.resolve("alerts.log").toString());
+        System.setProperty("attendify.query.log", dataDir.resolve("query-budget.log").toString());
+        System.setProperty("attendify.journal.dir", journalDir.toString());
+        configure(dataDir);
+        DatabaseConnection.initializeDatabase();
+    }
+
+    @AfterAll
+    void closeStore() {
+        DatabaseConnection.closeConnection();
+    }
+
+    @BeforeEach
+    void emptyStore() throws SQLException {
+        SyntheticDataGenerator.truncateAll();
+        assertTrue(studentDAO.addStudent(new Student("C001", "Asha", "asha@example.com", "CSE")));
+        assertTrue(studentDAO.addStudent(new Student("C002", "Ben", "ben@example.com", "CSE")));
+        assertTrue(studentDAO.addStudent(new Student("E001", "Chen", "chen@example.com", "ECE")));
+    }
+
+    // ==================== MARKING ====================
+
+    @Test
+    void markRecordsOneDay() throws SQLException {
+        assertTrue(attendanceDAO.markAttendance("C001", DAY_1, "PRESENT"));
+
+        assertTrue(attendanceDAO.isAttendanceMarked("C001", DAY_1));
+        assertFalse(attendanceDAO.isAttendanceMarked("C001", DAY_2));
+        assertArrayEquals(new int[] { 1, 1, 0 }, attendanceDAO.getAttendanceStats("C001"));
+        assertEquals(100.0, attendanceDAO.calculateAttendancePercentage("C001"));
+        assertEquals("NOT MARKED", statusOn(DAY_1, "C002"));
+    }
+
+    @Test
+    void remarkFlipsStatusWithoutAddingAClass() throws SQLException {
+        attendanceDAO.markAttendance("C001", DAY_1, "PRESENT");
+        attendanceDAO.markAttendance("C001", DAY_1, "ABSENT");
+        attendanceDAO.markAttendance("C001", DAY_1, "ABSENT");
+
+        assertArrayEquals(new int[] { 1, 0, 1 }, attendanceDAO.getAttendanceStats("C001"));
+        List<String[]> history = attendanceDAO.getAttendanceByRollNumber("C001");
+        assertEquals(1, history.size());
+        assertArrayEquals(new String[] { DAY_1, "ABSENT" }, history.get(0));
+        assertEquals("ABSENT", statusOn(DAY_1, "C001"));
+    }
+
+    @Test
+    void markRejectsUnknownStudentsAndStatuses() {
+        assertThrows(IllegalArgumentException.class, () -> attendanceDAO.markAttendance("X999", DAY_1, "PRESENT"));
+        assertThrows(IllegalArgumentException.class, () -> attendanceDAO.markAttendance("C001", DAY_1, "LATE"));
+        assertThrows(IllegalArgumentException.class, () -> attendanceDAO.markAttendance("C001", "01/02/2024",
+                "PRESENT"));
+    }
+
+    @Test
+    void batchMarksRosterAndAppliesFlips() throws SQLException {
+        assertEquals(3, attendanceDAO.markAttendanceBatch(DAY_1, roster("PRESENT", "ABSENT", "PRESENT")));
+        assertEquals(3, attendanceDAO.markAttendanceBatch(DAY_1, roster("ABSENT", "ABSENT", "PRESENT")));
+
+        assertArrayEquals(new int[] { 1, 0, 1 }, attendanceDAO.getAttendanceStats("C001"));
+        assertArrayEquals(new int[] { 1, 0, 1 }, attendanceDAO.getAttendanceStats("C002"));
+        assertArrayEquals(new int[] { 1, 1, 0 }, attendanceDAO.getAttendanceStats("E001"));
+        assertEquals("ABSENT", statusOn(DAY_1, "C001"));
+    }
+
+    @Test
+    void batchWithUnknownStudentWritesNothing() throws SQLException {
+        Map<String, String> roster = roster("PRESENT", "PRESENT", "PRESENT");
+        roster.put("X999", "ABSENT");
+
+        assertThrows(IllegalArgumentException.class, () -> attendanceDAO.markAttendanceBatch(DAY_1, roster));
+        assertFalse(attendanceDAO.isAttendanceMarked("C001", DAY_1));
+        assertArrayEquals(new int[] { 0, 0, 0 }, attendanceDAO.getAttendanceStats("C001"));
+    }
+
+    // ==================== JOURNAL ====================
+
+    @Test
+    void journalReplaysFromItsCheckpointAfterRestart() throws Exception {
+        MarkJournal.start();
+        long start;
+        try {
+            start = checkpoint();
+            MarkJournal.record(DAY_1, roster("PRESENT", "ABSENT", "PRESENT"));
+            MarkJournal.record(DAY_2, roster("ABSENT", "PRESENT", "ABSENT"));
+            MarkJournal.record(DAY_2, Map.of("X999", "PRESENT"));
+            awaitReplay();
+            assertEquals(1, MarkJournal.getDroppedMarks());
+        } finally {
+            MarkJournal.stop();
+        }
+        assertEquals(start + 3, checkpoint());
+
+        // Change a mark on each side of the checkpoint, then restart from the first roster
+        writeCheckpoint(start + 1);
+        attendanceDAO.markAttendance("C001", DAY_1, "ABSENT");
+        attendanceDAO.markAttendance("C002", DAY_2, "ABSENT");
+        MarkJournal.start();
+        try {
+            awaitReplay();
+            assertEquals(1, MarkJournal.getDroppedMarks());
+        } finally {
+            MarkJournal.stop();
+        }
+
+        assertEquals(start + 3, checkpoint());
+        assertEquals("ABSENT", statusOn(DAY_1, "C001"));
+        assertEquals("PRESENT", statusOn(DAY_2, "C002"));
+        assertArrayEquals(new int[] { 2, 0, 2 }, attendanceDAO.getAttendanceStats("C001"));
+    }
+
+    // ==================== REPORTS ====================
+
+    @Test
+    void reportsAgreeWithMarks() throws SQLException {
+        attendanceDAO.markAttendanceBatch(DAY_1, roster("PRESENT", "ABSENT", "PRESENT"));
+        attendanceDAO.markAttendanceBatch(DAY_2, roster("PRESENT", "PRESENT", "ABSENT"));
+
+        List<String[]> summary = attendanceDAO.getAttendanceSummary();
+        assertArrayEquals(new String[] { "C001", "Asha", "2", "2", "100.00%" }, row(summary, "C001"));
+        assertArrayEquals(new String[] { "C002", "Ben", "2", "1", "50.00%" }, row(summary, "C002"));
+        assertEquals(3, attendanceDAO.getAttendanceSummary(TERM).size());
+        assertArrayEquals(row(summary, "E001"), row(attendanceDAO.getAttendanceSummary(TERM), "E001"));
+        assertArrayEquals(new String[] { "3", "0", "66.67%", "6" }, hodDAO.getOverallStatistics());
+        assertArrayEquals(new String[] { "3", "0", "66.67%", "6" }, hodDAO.getDashboard(TERM).getOverallStatistics());
+
+        assertEquals(3, attendanceDAO.rebuildCounters());
+        assertArrayEquals(new int[] { 2, 1, 1 }, attendanceDAO.getAttendanceStats("C002"));
+    }
+
+    // ==================== DELETION ====================
+
+    @Test
+    void deletingAStudentRemovesTheirHistory() throws SQLException {
+        attendanceDAO.markAttendanceBatch(DAY_1, roster("PRESENT", "ABSENT", "PRESENT"));
+        attendanceDAO.markAttendance("C002", DAY_2, "PRESENT");
+
+        assertTrue(studentDAO.deleteStudent("C002"));
+
+        assertNull(studentDAO.searchByRollNumber("C002"));
+        assertFalse(studentDAO.isRollNumberExists("C002"));
+        assertTrue(attendanceDAO.getAttendanceByRollNumber("C002").isEmpty());
+        assertNull(row(attendanceDAO.getAttendanceByDate(DAY_1), "C002"));
+        assertArrayEquals(new String[] { "2", "0", "100.00%", "2" }, hodDAO.getOverallStatistics());
+
+        // A reused roll number starts with no history
+        assertTrue(studentDAO.addStudent(new Student("C002", "Bea", "bea@example.com", "CSE")));
+        assertArrayEquals(new int[] { 0, 0, 0 }, attendanceDAO.getAttendanceStats("C002"));
+        assertFalse(attendanceDAO.isAttendanceMarked("C002", DAY_1));
+    }
+
+    @Test
+    void markRacingADeleteLeavesNoOrphanRows() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // Hold the Student row as deleteStudent does until it commits
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = SqlStatement.STUDENT_LOCK.prepare(conn)) {
+                pstmt.setString(1, "C002");
+                pstmt.executeQuery();
+            }
+            Future<Boolean> mark = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return attendanceDAO.markAttendance("C002", DAY_1, "PRESENT");
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            });
+            Thread.sleep(200);
+            assertFalse(mark.isDone());
+
+            try (PreparedStatement pstmt = SqlStatement.STUDENT_DELETE.prepare(conn)) {
+                pstmt.setString(1, "C002");
+                pstmt.executeUpdate();
+            }
+            conn.commit();
+            ExecutionException failure = assertThrows(ExecutionException.class, mark::get);
+            assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        }
+        assertFalse(attendanceDAO.isAttendanceMarked("C002", DAY_1));
+    }
+
+    // ==================== RANKING ====================
+
+    @Test
+    void emptyRankingHasNoPositions() {
+        AttendanceRanking ranking = new AttendanceRanking();
+
+        assertEquals(0, ranking.size());
+        assertTrue(ranking.slice(0, 10).isEmpty());
+        assertArrayEquals(new int[] { 0, 0 }, ranking.positions(0, 100));
+        assertEquals(1, ranking.rankOf(5000));
+        assertEquals(-1, ranking.bucketOf("C001"));
+    }
+
+    @Test
+    void rankingAgreesWithASortOfTheMarks() {
+        Random random = new Random(7);
+        AttendanceRanking ranking = new AttendanceRanking();
+        Map<String, Integer> buckets = new TreeMap<>();
+        for (int i = 0; i < 400; i++) {
+            // A handful of classes each makes for many ties, and plenty of students at 0% and 100%
+            int marked = random.nextInt(6);
+            int present = marked == 0 ? 0 : random.nextInt(marked + 1);
+            ranking.update(rankedRoll(i), marked, present);
+            if (marked > 0) {
+                buckets.put(rankedRoll(i), AttendanceRanking.bucket(marked, present));
+            }
+        }
+        // Move some students and drop others, so the tree is checked after updates too
+        for (int i = 0; i < 400; i += 7) {
+            if (i % 2 == 0) {
+                ranking.remove(rankedRoll(i));
+                buckets.remove(rankedRoll(i));
+            } else {
+                ranking.update(rankedRoll(i), 3, 2);
+                buckets.put(rankedRoll(i), AttendanceRanking.bucket(3, 2));
+            }
+        }
+        List<String> sorted = buckets.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<String, Integer>>comparingInt(Map.Entry::getValue)
+                        .thenComparing(Map.Entry::getKey))
+                .map(Map.Entry::getKey)
+                .toList();
+        int size = sorted.size();
+        assertTrue(buckets.containsValue(0) && buckets.containsValue(10000));
+        assertEquals(size, ranking.size());
+
+        // Every start position, so every bucket boundary too, and pages running off the end
+        for (int from = 0; from <= size; from++) {
+            for (int count : new int[] { 1, 5, size }) {
+                assertEquals(sorted.subList(from, Math.min(size, from + count)), ranking.slice(from, count));
+            }
+        }
+        assertTrue(ranking.slice(-1, 5).isEmpty());
+        assertTrue(ranking.slice(0, 0).isEmpty());
+        // Bottom and top ten
+        assertEquals(sorted.subList(0, 10), ranking.slice(0, 10));
+        assertEquals(sorted.subList(size - 10, size), ranking.slice(size - 10, 10));
+
+        // Tied students share the rank after everyone above them
+        for (Map.Entry<String, Integer> student : buckets.entrySet()) {
+            long above = buckets.values().stream().filter(b -> b > student.getValue()).count();
+            assertEquals(above + 1, ranking.rankOf(ranking.bucketOf(student.getKey())));
+        }
+
+        double[][] ranges = { { 0, 0 }, { 100, 100 }, { 0, 100 }, { 33.33, 66.67 }, { 40, 40 }, { 50.5, 59.9 },
+                { 90, 10 } };
+        for (double[] range : ranges) {
+            List<String> expected = sorted.stream()
+                    .filter(roll -> buckets.get(roll) / 100.0 >= range[0] && buckets.get(roll) / 100.0 <= range[1])
+                    .toList();
+            int[] positions = ranking.positions(range[0], range[1]);
+            assertEquals(expected, ranking.slice(positions[0], positions[1] - positions[0]));
+        }
+    }
+
+    // ==================== ARCHIVE ====================
+
+    @Test
+    void archivedTermReportsAsBefore() throws Exception {
+        attendanceDAO.markAttendanceBatch(DAY_1, roster("PRESENT", "ABSENT", "PRESENT"));
+        attendanceDAO.markAttendanceBatch(DAY_2, roster("PRESENT", "PRESENT", "ABSENT"));
+        List<String[]> before = attendanceDAO.getAttendanceSummary(TERM);
+
+        assertEquals(6, AttendanceArchive.archive(TERM).moved());
+        // A mark that reached the live table after the archive run must not be counted
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement pstmt = SqlStatement.ATTENDANCE_INSERT.prepare(conn)) {
+            pstmt.setString(1, "C002");
+            pstmt.setDate(2, Date.valueOf(TERM.start().plusDays(2)));
+            pstmt.setInt(3, AttendanceDAO.STATUS_PRESENT);
+            pstmt.executeUpdate();
+        }
+
+        assertArrayEquals(before.toArray(), attendanceDAO.getAttendanceSummary(TERM).toArray());
+        assertArrayEquals(row(before, "C002"), row(attendanceDAO.getAttendanceSummaryPage("C001", 1, TERM), "C002"));
+        assertArrayEquals(new String[] { "3", "0", "66.67%", "6" }, hodDAO.getDashboard(TERM).getOverallStatistics());
+        assertEquals(2, attendanceDAO.getAttendanceByRollNumber("C002").size());
+        assertEquals("ABSENT", statusOn(DAY_1, "C002"));
+        assertThrows(IllegalArgumentException.class, () -> attendanceDAO.markAttendance("C001", DAY_1, "ABSENT"));
+    }
+
+    @Test
+    void exportReadsArchivedTermsFirst(@TempDir Path dir) throws Exception {
+        String today = LocalDate.now().toString();
+        attendanceDAO.markAttendanceBatch(DAY_1, roster("PRESENT", "ABSENT", "PRESENT"));
+        AttendanceArchive.archive(TERM);
+        attendanceDAO.markAttendance("C001", today, "ABSENT");
+
+        AttendanceExporter exporter = new AttendanceExporter(AttendanceExporter.Format.CSV);
+        exporter.setDepartment("CSE");
+        Path out = dir.resolve("cse.csv");
+
+        assertEquals(3, exporter.export(out).rows());
+        assertEquals(List.of("roll_number,name,department,date,status",
+                "C001,Asha,CSE," + DAY_1 + ",PRESENT",
+                "C002,Ben,CSE," + DAY_1 + ",ABSENT",
+                "C001,Asha,CSE," + today + ",ABSENT"), Files.readAllLines(out));
+    }
+
+    @Test
+    void reusedRollDoesNotInheritArchivedMarks() throws Exception {
+        attendanceDAO.markAttendanceBatch(DAY_1, roster("PRESENT", "ABSENT", "PRESENT"));
+        AttendanceArchive.archive(TERM);
+
+        assertTrue(studentDAO.deleteStudent("C002"));
+        assertTrue(studentDAO.addStudent(new Student("C002", "Bea", "bea@example.com", "CSE")));
+
+        assertTrue(attendanceDAO.getAttendanceByRollNumber("C002").isEmpty());
+        assertFalse(attendanceDAO.isAttendanceMarked("C002", DAY_1));
+        assertArrayEquals(new String[] { "C002", "Bea", "0", "0", "0.00%" },
+                row(attendanceDAO.getAttendanceSummary(TERM), "C002"));
+        attendanceDAO.rebuildCounters();
+        assertArrayEquals(new int[] { 0, 0, 0 }, attendanceDAO.getAttendanceStats("C002"));
+        assertArrayEquals(new int[] { 1, 1, 0 }, attendanceDAO.getAttendanceStats("C001"));
+    }
+
+    private static void awaitReplay() throws InterruptedException {
+        for (int i = 0; i < 100 && MarkJournal.getPendingMarks() > 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, MarkJournal.getPendingMarks());
+    }
+
+    // The checkpoint file is the last applied sequence number followed by its CRC32C
+    private long checkpoint() throws IOException {
+        Path file = journalDir.resolve("checkpoint");
+        return Files.exists(file) ? ByteBuffer.wrap(Files.readAllBytes(file)).getLong() : 0;
+    }
+
+    private void writeCheckpoint(long seq) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(12).putLong(seq);
+        CRC32C crc = new CRC32C();
+        crc.update(out.array(), 0, 8);
+        out.putInt((int) crc.getValue());
+        Files.write(journalDir.resolve("checkpoint"), out.array());
+    }
+
+    private static String rankedRoll(int i) {
+        return String.format("R%03d", i);
+    }
+
+    private static Map<String, String> roster(String c001, String c002, String e001) {
+        Map<String, String> roster = new LinkedHashMap<>();
+        roster.put("C001", c001);
+        roster.put("C002", c002);
+        roster.put("E001", e001);
+        return roster;
+    }
+
+    private String statusOn(String date, String rollNumber) throws SQLException {
+        return row(attendanceDAO.getAttendanceByDate(date), rollNumber)[2];
+    }
+
+    private static String[] row(List<String[]> rows, String rollNumber) {
+        return rows.stream().filter(r -> r[0].equals(rollNumber)).findFirst().orElse(null);
+    }
+}
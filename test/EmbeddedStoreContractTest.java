@@ -0,0 +1,13 @@
+import java.nio.file.Path;
+
+/**
+ * EmbeddedStoreContractTest - The storage contract against the embedded H2 engine, in a fresh database file
+ */
+class EmbeddedStoreContractTest extends AttendanceStoreContract {
+
+    @Override
+    void configure(Path dataDir) {
+        System.setProperty("attendify.storage", "embedded");
+        System.setProperty("attendify.storage.path", dataDir.resolve("attendify").toString());
+    }
+}
@@ -0,0 +1,36 @@
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+
+/**
+ * MySqlStoreContractTest - The storage contract against a MySQL server
+ * Uses its own database (attendify_test unless attendify.db.name is set), which every test empties.
+ * Skipped when nothing listens at attendify.db.host:attendify.db.port.
+ */
+class MySqlStoreContractTest extends AttendanceStoreContract {
+    private static final int CONNECT_TIMEOUT_MILLIS = 2_000;
+
+    @Override
+    void configure(Path dataDir) {
+        String host = System.getProperty("attendify.db.host", "localhost");
+        int port = Integer.parseInt(System.getProperty("attendify.db.port", "3306"));
+        assumeTrue(listening(host, port), "No MySQL server at " + host + ":" + port);
+
+        System.setProperty("attendify.storage", "mysql");
+        if (System.getProperty("attendify.db.name") == null) {
+            System.setProperty("attendify.db.name", "attendify_test");
+        }
+    }
+
+    private static boolean listening(String host, int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}